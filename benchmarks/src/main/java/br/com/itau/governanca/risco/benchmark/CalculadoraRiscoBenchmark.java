@@ -0,0 +1,142 @@
+package br.com.itau.governanca.risco.benchmark;
+
+import br.com.itau.governanca.risco.CacheAvaliacoes;
+import br.com.itau.governanca.risco.CalculadoraRisco;
+import br.com.itau.governanca.risco.EscritorJsonRelatorio;
+import br.com.itau.governanca.risco.LeitorJsonRelatorio;
+import br.com.itau.governanca.risco.ModeloCompilado;
+import br.com.itau.governanca.risco.ResultadoAvaliacao;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks do caminho de avaliação de uma única aplicação: classificação de critério,
+ * risco total, vetos, relatório completo, conversão para ResultadoAvaliacao e
+ * escrita/leitura do relatório em JSON
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CalculadoraRiscoBenchmark {
+
+    // Valores que percorrem as três faixas do percentil_95 (800 / 2000)
+    private static final double[] VALORES_P95 = {650.0, 1500.0, 2500.0, 790.0, 2100.0, 1200.0, 300.0, 3100.0};
+
+    private CalculadoraRisco calculadora;
+    private Map<String, Map<String, Double>> dados;
+    private Map<String, Object> relatorio;
+    private double[] valores;
+    private double[] pontuacoesDimensoes;
+    private int criterioP95;
+    private int indice;
+    private EscritorJsonRelatorio escritorJson;
+    private LeitorJsonRelatorio leitorJson;
+    private ByteBuffer json;
+    private byte[] relatorioJson;
+    private double[] valoresLidos;
+    private CacheAvaliacoes cache;
+
+    @Setup
+    public void preparar() {
+        calculadora = new CalculadoraRisco();
+        dados = DadosBenchmark.criarDadosQube();
+        relatorio = calculadora.gerarRelatorio("Qube AICUBE", "1.0", dados);
+
+        ModeloCompilado modelo = calculadora.getModelo();
+        valores = modelo.preencherValores(dados, modelo.novoVetorValores());
+        pontuacoesDimensoes = new double[modelo.getNumDimensoes()];
+        criterioP95 = modelo.indiceCriterio("performance", "percentil_95");
+
+        escritorJson = new EscritorJsonRelatorio(calculadora);
+        leitorJson = new LeitorJsonRelatorio(modelo);
+        json = ByteBuffer.allocate(4096);
+        escritorJson.escrever("Qube AICUBE", "1.0", null, valores, json);
+        relatorioJson = Arrays.copyOf(json.array(), json.position());
+        valoresLidos = modelo.novoVetorValores();
+        cache = new CacheAvaliacoes(calculadora, 1024);
+    }
+
+    private double proximoValor() {
+        indice = (indice + 1) & (VALORES_P95.length - 1);
+        return VALORES_P95[indice];
+    }
+
+    @Benchmark
+    public int classificarCriterio() {
+        return calculadora.classificarCriterio("performance", "percentil_95", proximoValor());
+    }
+
+    @Benchmark
+    public int classificarCriterioOrdinal() {
+        return calculadora.classificarCriterio(criterioP95, proximoValor());
+    }
+
+    @Benchmark
+    public Map<String, Object> calcularRiscoTotal() {
+        return calculadora.calcularRiscoTotal(dados);
+    }
+
+    @Benchmark
+    public double calcularPontuacaoTotalOrdinal() {
+        return calculadora.calcularPontuacaoTotal(valores, pontuacoesDimensoes);
+    }
+
+    @Benchmark
+    public List<String> verificarVetos() {
+        return calculadora.verificarVetos(dados);
+    }
+
+    @Benchmark
+    public Map<String, Object> gerarRelatorio() {
+        return calculadora.gerarRelatorio("Qube AICUBE", "1.0", dados);
+    }
+
+    @Benchmark
+    public ResultadoAvaliacao converterRelatorio() {
+        return new ResultadoAvaliacao(relatorio);
+    }
+
+    @Benchmark
+    public ResultadoAvaliacao avaliar() {
+        return calculadora.avaliar("Qube AICUBE", "1.0", dados);
+    }
+
+    @Benchmark
+    public ResultadoAvaliacao avaliarOrdinal() {
+        return calculadora.avaliar("Qube AICUBE", "1.0", valores);
+    }
+
+    @Benchmark
+    public ResultadoAvaliacao avaliarComCache() {
+        return cache.avaliar("Qube AICUBE", "1.0", valores);
+    }
+
+    @Benchmark
+    public int escreverRelatorioJson() {
+        json.clear();
+        return escritorJson.escrever("Qube AICUBE", "1.0", null, valores, json);
+    }
+
+    @Benchmark
+    public ResultadoAvaliacao lerRelatorioJson() {
+        return leitorJson.ler(relatorioJson, 0, relatorioJson.length, valoresLidos);
+    }
+}
@@ -0,0 +1,111 @@
+package br.com.itau.governanca.risco.benchmark;
+
+import br.com.itau.governanca.risco.ModeloCompilado;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks da classificação sem desvios contra a classificação com desvios por valor, sobre
+ * valores ruidosos (faixas imprevisíveis para o preditor): uma coluna de 100 mil valores de
+ * um critério e uma aplicação com 400 critérios, metade invertidos
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ClassificacaoBenchmark {
+
+    private static final int QUANTIDADE = 100_000;
+    private static final int NUM_CRITERIOS = 400;
+
+    private ModeloCompilado modelo;
+    private double[] coluna;
+    private byte[] classificacoesColuna;
+    private double[] valores;
+    private byte[] classificacoes;
+
+    @Setup
+    public void preparar() {
+        Random random = new Random(42);
+        ModeloCompilado.Construtor construtor = new ModeloCompilado.Construtor().dimensao("latencias", 1.0);
+        for (int c = 0; c < NUM_CRITERIOS; c++) {
+            boolean invertido = c % 2 == 1;
+            construtor.criterio("endpoint_" + c, 1.0, invertido ? 600 : 300, invertido ? 300 : 600, invertido);
+        }
+        modelo = construtor.construir();
+
+        coluna = new double[QUANTIDADE];
+        for (int i = 0; i < QUANTIDADE; i++) {
+            coluna[i] = random.nextDouble() * 900;
+        }
+        classificacoesColuna = new byte[QUANTIDADE];
+
+        valores = new double[NUM_CRITERIOS];
+        for (int c = 0; c < NUM_CRITERIOS; c++) {
+            valores[c] = random.nextDouble() * 900;
+        }
+        classificacoes = new byte[NUM_CRITERIOS];
+    }
+
+    @Benchmark
+    public byte[] classificarColunaComDesvios() {
+        for (int i = 0; i < QUANTIDADE; i++) {
+            classificacoesColuna[i] = (byte) classificarComDesvios(0, coluna[i]);
+        }
+        return classificacoesColuna;
+    }
+
+    @Benchmark
+    public byte[] classificarColunaSemDesvios() {
+        modelo.classificarColuna(0, coluna, QUANTIDADE, classificacoesColuna);
+        return classificacoesColuna;
+    }
+
+    @Benchmark
+    public byte[] classificarCriteriosComDesvios() {
+        for (int c = 0; c < NUM_CRITERIOS; c++) {
+            classificacoes[c] = (byte) classificarComDesvios(c, valores[c]);
+        }
+        return classificacoes;
+    }
+
+    @Benchmark
+    public byte[] classificarCriteriosSemDesvios() {
+        modelo.classificarTodos(valores, classificacoes);
+        return classificacoes;
+    }
+
+    // Classificação com desvios por inversão e por faixa, como na definição do modelo
+    private int classificarComDesvios(int criterio, double valor) {
+        double limiarBaixo = modelo.getLimiarBaixo(criterio);
+        double limiarMedio = modelo.getLimiarMedio(criterio);
+        if (modelo.isInvertido(criterio)) {
+            if (valor >= limiarBaixo) {
+                return 1;
+            } else if (valor >= limiarMedio) {
+                return 2;
+            }
+            return 3;
+        }
+        if (valor <= limiarBaixo) {
+            return 1;
+        } else if (valor <= limiarMedio) {
+            return 2;
+        }
+        return 3;
+    }
+}
@@ -0,0 +1,89 @@
+package br.com.itau.governanca.risco.benchmark;
+
+import br.com.itau.governanca.risco.AplicacaoPortfolio;
+import br.com.itau.governanca.risco.ModeloCompilado;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Geração dos dados usados pelos benchmarks
+ */
+final class DadosBenchmark {
+
+    private DadosBenchmark() {
+    }
+
+    /**
+     * Cria os dados da avaliação do Qube AICUBE (avaliacao_qube.csv)
+     * @return os valores por dimensão e critério
+     */
+    static Map<String, Map<String, Double>> criarDadosQube() {
+        Map<String, Map<String, Double>> dados = new HashMap<>();
+
+        Map<String, Double> bugs = new HashMap<>();
+        bugs.put("densidade_defeitos", 1.2);
+        bugs.put("cobertura_testes", 94.0);
+        bugs.put("bugs_criticos", 0.0);
+        bugs.put("taxa_regressao", 0.5);
+        bugs.put("mtbf", 980.0);
+        dados.put("bugs", bugs);
+
+        Map<String, Double> performance = new HashMap<>();
+        performance.put("tempo_resposta", 220.0);
+        performance.put("percentil_95", 650.0);
+        performance.put("utilizacao_recursos", 55.0);
+        performance.put("escalabilidade", 8.0);
+        performance.put("tempo_inicializacao", 3.8);
+        performance.put("throughput", 150.0);
+        dados.put("performance", performance);
+
+        Map<String, Double> seguranca = new HashMap<>();
+        seguranca.put("vulnerabilidades_criticas", 0.0);
+        seguranca.put("vulnerabilidades_totais", 3.0);
+        seguranca.put("owasp_top10", 100.0);
+        seguranca.put("seguranca_dados", 100.0);
+        seguranca.put("autenticacao_autorizacao", 2.0);
+        seguranca.put("pentest", 2.0);
+        dados.put("seguranca", seguranca);
+
+        Map<String, Double> experiencia = new HashMap<>();
+        experiencia.put("satisfacao_usuario", 75.0);
+        experiencia.put("taxa_erro_usuario", 1.8);
+        experiencia.put("tempo_conclusao_tarefa", 5.0);
+        experiencia.put("acessibilidade", 96.0);
+        experiencia.put("taxa_abandono", 3.2);
+        experiencia.put("adocao_funcionalidades", 72.0);
+        dados.put("experiencia", experiencia);
+
+        return dados;
+    }
+
+    /**
+     * Cria um portfólio sintético com valores espalhados pelas três faixas de cada critério
+     * @param modelo O modelo que define dimensões, critérios e limiares
+     * @param quantidade O número de aplicações
+     * @param semente A semente do gerador aleatório
+     * @return as aplicações do portfólio
+     */
+    static List<AplicacaoPortfolio> criarPortfolio(ModeloCompilado modelo, int quantidade, long semente) {
+        Random random = new Random(semente);
+        List<AplicacaoPortfolio> aplicacoes = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            Map<String, Map<String, Double>> dados = new HashMap<>();
+            for (int d = 0; d < modelo.getNumDimensoes(); d++) {
+                Map<String, Double> criterios = new HashMap<>();
+                for (int c = modelo.inicioDimensao(d); c < modelo.fimDimensao(d); c++) {
+                    double escala = Math.max(modelo.getLimiarBaixo(c), modelo.getLimiarMedio(c)) * 1.5 + 1;
+                    criterios.put(modelo.getNomeCriterio(c), random.nextDouble() * escala);
+                }
+                dados.put(modelo.getNomeDimensao(d), criterios);
+            }
+            aplicacoes.add(new AplicacaoPortfolio("App " + i, "1.0", dados));
+        }
+        return aplicacoes;
+    }
+}
@@ -0,0 +1,188 @@
+package br.com.itau.governanca.risco.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Executa os benchmarks com o profiler de alocação (gc) e compara os resultados
+ * com a baseline versionada em baseline/baseline.csv.
+ * <p>
+ * Uso: {@code java -jar target/benchmarks.jar [regex] [--atualizar-baseline]}
+ * <p>
+ * Propriedades de sistema:
+ * <ul>
+ *   <li>{@code baseline}: caminho da baseline (padrão: baseline/baseline.csv)</li>
+ *   <li>{@code tolerancia}: piora relativa aceita antes de acusar regressão (padrão: 0.15)</li>
+ * </ul>
+ * O processo termina com código 1 se algum benchmark regredir em tempo ou alocação ou não
+ * constar da baseline. Com {@code --atualizar-baseline}, apenas os benchmarks executados têm a
+ * sua linha substituída; os demais permanecem na baseline.
+ */
+public final class ExecutorBenchmarks {
+
+    private static final String METRICA_ALOCACAO = "gc.alloc.rate.norm";
+    private static final String CABECALHO = "benchmark;tempo;unidade;bytes_por_operacao";
+
+    // Diferença mínima de alocação (bytes/op) considerada relevante, para ignorar ruído
+    private static final double ALOCACAO_MINIMA_RELEVANTE = 16.0;
+
+    private ExecutorBenchmarks() {
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        String filtro = ".*";
+        boolean atualizarBaseline = false;
+        for (String arg : args) {
+            if ("--atualizar-baseline".equals(arg)) {
+                atualizarBaseline = true;
+            } else {
+                filtro = arg;
+            }
+        }
+        Path arquivoBaseline = Paths.get(System.getProperty("baseline", "baseline/baseline.csv"));
+        double tolerancia = Double.parseDouble(System.getProperty("tolerancia", "0.15"));
+
+        ChainedOptionsBuilder opcoes = new OptionsBuilder()
+            .include(filtro)
+            .addProfiler(GCProfiler.class);
+        Collection<RunResult> resultados = new Runner(opcoes.build()).run();
+
+        Map<String, Medicao> medicoes = extrairMedicoes(resultados);
+        if (atualizarBaseline) {
+            Map<String, Medicao> baseline = Files.exists(arquivoBaseline) ? ler(arquivoBaseline) : new LinkedHashMap<>();
+            baseline.putAll(medicoes);
+            gravar(arquivoBaseline, baseline);
+            System.out.println("Baseline atualizada em " + arquivoBaseline.toAbsolutePath());
+            return;
+        }
+        if (!Files.exists(arquivoBaseline)) {
+            System.out.println("Baseline não encontrada em " + arquivoBaseline.toAbsolutePath());
+            return;
+        }
+
+        List<String> regressoes = comparar(ler(arquivoBaseline), medicoes, tolerancia);
+        if (!regressoes.isEmpty()) {
+            System.out.println();
+            System.out.println("Regressões acima de " + Math.round(tolerancia * 100) + "% ou benchmarks sem baseline:");
+            regressoes.forEach(regressao -> System.out.println("  " + regressao));
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, Medicao> extrairMedicoes(Collection<RunResult> resultados) {
+        Map<String, Medicao> medicoes = new LinkedHashMap<>();
+        for (RunResult resultado : resultados) {
+            String nome = resultado.getParams().getBenchmark();
+            for (String parametro : resultado.getParams().getParamsKeys()) {
+                nome += ":" + parametro + "=" + resultado.getParams().getParam(parametro);
+            }
+            Result<?> primario = resultado.getPrimaryResult();
+            double bytes = Double.NaN;
+            for (Map.Entry<String, Result> secundario : resultado.getSecondaryResults().entrySet()) {
+                if (secundario.getKey().endsWith(METRICA_ALOCACAO)) {
+                    bytes = secundario.getValue().getScore();
+                }
+            }
+            medicoes.put(nome, new Medicao(primario.getScore(), primario.getScoreUnit(), bytes));
+        }
+        return medicoes;
+    }
+
+    private static List<String> comparar(Map<String, Medicao> baseline, Map<String, Medicao> atuais,
+                                         double tolerancia) {
+        List<String> regressoes = new ArrayList<>();
+        System.out.println();
+        System.out.println(String.format(Locale.ROOT, "%-70s %14s %14s %9s %12s %12s",
+            "Benchmark", "Baseline", "Atual", "Δ tempo", "B/op base", "B/op atual"));
+
+        for (Map.Entry<String, Medicao> entrada : atuais.entrySet()) {
+            Medicao atual = entrada.getValue();
+            Medicao anterior = baseline.get(entrada.getKey());
+            if (anterior == null) {
+                System.out.println(String.format(Locale.ROOT, "%-70s %14s %14.2f %9s %12s %12.1f",
+                    entrada.getKey(), "-", atual.tempo, "novo", "-", atual.bytesPorOperacao));
+                regressoes.add(entrada.getKey() + ": sem baseline (grave com --atualizar-baseline)");
+                continue;
+            }
+            double variacao = (atual.tempo - anterior.tempo) / anterior.tempo;
+            System.out.println(String.format(Locale.ROOT, "%-70s %14.2f %14.2f %+8.1f%% %12.1f %12.1f",
+                entrada.getKey(), anterior.tempo, atual.tempo, variacao * 100,
+                anterior.bytesPorOperacao, atual.bytesPorOperacao));
+
+            if (variacao > tolerancia) {
+                regressoes.add(String.format(Locale.ROOT, "%s: tempo %.2f -> %.2f %s",
+                    entrada.getKey(), anterior.tempo, atual.tempo, atual.unidade));
+            }
+            double aumentoAlocacao = atual.bytesPorOperacao - anterior.bytesPorOperacao;
+            if (aumentoAlocacao > ALOCACAO_MINIMA_RELEVANTE
+                    && aumentoAlocacao > anterior.bytesPorOperacao * tolerancia) {
+                regressoes.add(String.format(Locale.ROOT, "%s: alocação %.1f -> %.1f B/op",
+                    entrada.getKey(), anterior.bytesPorOperacao, atual.bytesPorOperacao));
+            }
+        }
+        return regressoes;
+    }
+
+    private static void gravar(Path arquivo, Map<String, Medicao> medicoes) throws IOException {
+        if (arquivo.getParent() != null) {
+            Files.createDirectories(arquivo.getParent());
+        }
+        try (BufferedWriter escritor = Files.newBufferedWriter(arquivo, StandardCharsets.UTF_8)) {
+            escritor.write(String.format(Locale.ROOT, "# java %s, %d processador(es), %s",
+                System.getProperty("java.version"), Runtime.getRuntime().availableProcessors(),
+                System.getProperty("os.arch")));
+            escritor.newLine();
+            escritor.write(CABECALHO);
+            escritor.newLine();
+            for (Map.Entry<String, Medicao> entrada : medicoes.entrySet()) {
+                Medicao medicao = entrada.getValue();
+                escritor.write(String.format(Locale.ROOT, "%s;%.3f;%s;%.1f", entrada.getKey(),
+                    medicao.tempo, medicao.unidade, medicao.bytesPorOperacao));
+                escritor.newLine();
+            }
+        }
+    }
+
+    private static Map<String, Medicao> ler(Path arquivo) throws IOException {
+        Map<String, Medicao> medicoes = new LinkedHashMap<>();
+        for (String linha : Files.readAllLines(arquivo, StandardCharsets.UTF_8)) {
+            if (linha.isEmpty() || linha.startsWith("#") || linha.equals(CABECALHO)) {
+                continue;
+            }
+            String[] campos = linha.split(";");
+            medicoes.put(campos[0], new Medicao(Double.parseDouble(campos[1]), campos[2],
+                                                Double.parseDouble(campos[3])));
+        }
+        return medicoes;
+    }
+
+    private static final class Medicao {
+        final double tempo;
+        final String unidade;
+        final double bytesPorOperacao;
+
+        Medicao(double tempo, String unidade, double bytesPorOperacao) {
+            this.tempo = tempo;
+            this.unidade = unidade;
+            this.bytesPorOperacao = bytesPorOperacao;
+        }
+    }
+}
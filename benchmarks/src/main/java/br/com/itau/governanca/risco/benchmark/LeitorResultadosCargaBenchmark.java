@@ -0,0 +1,82 @@
+package br.com.itau.governanca.risco.benchmark;
+
+import br.com.itau.governanca.risco.LeitorResultadosCarga;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks da leitura de um arquivo JTL de 1 milhão de requisições (~120 MB), em blocos
+ * de 8 MB processados em uma thread ou em todos os núcleos
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LeitorResultadosCargaBenchmark {
+
+    private static final int REQUISICOES = 1_000_000;
+    private static final int TAMANHO_BLOCO = 8 * 1024 * 1024;
+
+    private Path arquivo;
+    private ForkJoinPool sequencial;
+    private LeitorResultadosCarga leitorSequencial;
+    private LeitorResultadosCarga leitorParalelo;
+
+    @Setup
+    public void preparar() throws IOException {
+        arquivo = Files.createTempFile("resultados", ".jtl");
+        Random random = new Random(42);
+        long inicio = 1_700_000_000_000L;
+        try (BufferedWriter escritor = Files.newBufferedWriter(arquivo, StandardCharsets.UTF_8)) {
+            escritor.write("timeStamp,elapsed,label,responseCode,responseMessage,threadName,dataType,success,"
+                           + "failureMessage,bytes,sentBytes,grpThreads,allThreads,URL,Latency,IdleTime,Connect\n");
+            for (int i = 0; i < REQUISICOES; i++) {
+                int decorrido = 20 + random.nextInt(600);
+                boolean sucesso = random.nextInt(50) != 0;
+                escritor.write((inicio + i / 2) + "," + decorrido + ",GET /contas," + (sucesso ? "200,OK" : "503,\"Falha, indisponível\"")
+                               + ",Usuarios 1-" + (i % 200) + ",text," + sucesso + ",,1534,210,200,200,https://api/contas,"
+                               + (decorrido - 5) + ",0,2\n");
+            }
+        }
+        sequencial = new ForkJoinPool(1);
+        leitorSequencial = new LeitorResultadosCarga(sequencial, TAMANHO_BLOCO);
+        leitorParalelo = new LeitorResultadosCarga(ForkJoinPool.commonPool(), TAMANHO_BLOCO);
+    }
+
+    @TearDown
+    public void encerrar() throws IOException {
+        sequencial.shutdown();
+        Files.deleteIfExists(arquivo);
+    }
+
+    @Benchmark
+    public LeitorResultadosCarga.ResultadoCarga lerSequencial() throws IOException {
+        return leitorSequencial.ler(arquivo);
+    }
+
+    @Benchmark
+    public LeitorResultadosCarga.ResultadoCarga lerParalelo() throws IOException {
+        return leitorParalelo.ler(arquivo);
+    }
+}
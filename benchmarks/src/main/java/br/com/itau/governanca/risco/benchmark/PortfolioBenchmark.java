@@ -0,0 +1,83 @@
+package br.com.itau.governanca.risco.benchmark;
+
+import br.com.itau.governanca.risco.AplicacaoPortfolio;
+import br.com.itau.governanca.risco.AvaliadorPortfolio;
+import br.com.itau.governanca.risco.CalculadoraRisco;
+import br.com.itau.governanca.risco.ModeloCompilado;
+import br.com.itau.governanca.risco.ResultadoAvaliacao;
+import br.com.itau.governanca.risco.ResultadoLote;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks da avaliação de um portfólio inteiro: sequencial por relatório, paralela
+ * com o AvaliadorPortfolio e em lote colunar
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PortfolioBenchmark {
+
+    @Param({"10000"})
+    private int quantidade;
+
+    private CalculadoraRisco calculadora;
+    private AvaliadorPortfolio avaliador;
+    private List<AplicacaoPortfolio> aplicacoes;
+    private double[][] colunas;
+    private ResultadoLote lote;
+
+    @Setup
+    public void preparar() {
+        calculadora = new CalculadoraRisco();
+        avaliador = new AvaliadorPortfolio(calculadora);
+        ModeloCompilado modelo = calculadora.getModelo();
+        aplicacoes = DadosBenchmark.criarPortfolio(modelo, quantidade, 42);
+
+        colunas = modelo.novasColunas(quantidade);
+        double[] valores = modelo.novoVetorValores();
+        for (int i = 0; i < quantidade; i++) {
+            modelo.preencherValores(aplicacoes.get(i).getDados(), valores);
+            for (int c = 0; c < valores.length; c++) {
+                colunas[c][i] = valores[c];
+            }
+        }
+        lote = new ResultadoLote(modelo.getNumDimensoes(), quantidade);
+    }
+
+    @Benchmark
+    public void avaliarSequencial(Blackhole blackhole) {
+        for (AplicacaoPortfolio aplicacao : aplicacoes) {
+            blackhole.consume(new ResultadoAvaliacao(calculadora.gerarRelatorio(
+                aplicacao.getNomeAplicacao(), aplicacao.getVersao(), aplicacao.getDados())));
+        }
+    }
+
+    @Benchmark
+    public List<ResultadoAvaliacao> avaliarParalelo() {
+        return avaliador.avaliar(aplicacoes);
+    }
+
+    @Benchmark
+    public ResultadoLote avaliarLote() {
+        calculadora.avaliarLote(colunas, quantidade, lote);
+        return lote;
+    }
+}
@@ -0,0 +1,79 @@
+package br.com.itau.governanca.risco.benchmark;
+
+import br.com.itau.governanca.risco.AplicacaoPortfolio;
+import br.com.itau.governanca.risco.CalculadoraRisco;
+import br.com.itau.governanca.risco.ModeloCompilado;
+import br.com.itau.governanca.risco.PortfolioColunar;
+import br.com.itau.governanca.risco.StatusAvaliacao;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks das consultas do dashboard sobre o portfólio inteiro em formato colunar
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PortfolioColunarBenchmark {
+
+    @Param({"100000"})
+    private int quantidade;
+
+    private PortfolioColunar portfolio;
+
+    @Setup
+    public void preparar() {
+        CalculadoraRisco calculadora = new CalculadoraRisco();
+        ModeloCompilado modelo = calculadora.getModelo();
+        portfolio = new PortfolioColunar(modelo, quantidade);
+        for (AplicacaoPortfolio aplicacao : DadosBenchmark.criarPortfolio(modelo, quantidade, 42)) {
+            portfolio.adicionar(calculadora.avaliar(aplicacao.getNomeAplicacao(), aplicacao.getVersao(),
+                                                    aplicacao.getDados()));
+        }
+    }
+
+    @Benchmark
+    public int[] maioresRiscos() {
+        return portfolio.maioresRiscos(20, null);
+    }
+
+    @Benchmark
+    public int[] maioresRiscosBloqueados() {
+        return portfolio.maioresRiscos(20, StatusAvaliacao.BLOQUEADO);
+    }
+
+    @Benchmark
+    public int[] pioresPontuacoesDimensao() {
+        return portfolio.pioresPontuacoes(0, 20);
+    }
+
+    @Benchmark
+    public int[] contarVetos() {
+        return portfolio.contarVetos();
+    }
+
+    @Benchmark
+    public int[] distribuirPontuacoes() {
+        return portfolio.distribuirPontuacoes(1.0, 3.0, 20);
+    }
+
+    @Benchmark
+    public PortfolioColunar.Agrupamento agruparPorStatus() {
+        return portfolio.agruparPorStatus();
+    }
+}
@@ -173,7 +173,9 @@ class CalculadoraRisco:
         if dados.get("experiencia", {}).get("taxa_erro_usuario", 0) > 1:
             vetos.append("Taxa de erro em produção >1% para operações críticas")
         
-        # Veto 5: não podemos verificar automaticamente
+        # Veto 5: Falha em validação de conformidade regulatória (critério sem peso na pontuação)
+        if dados.get("seguranca", {}).get("conformidade_regulatoria", 0) > 0:
+            vetos.append("Falha em validação de conformidade regulatória")
         
         return vetos
     
@@ -228,6 +230,7 @@ class CalculadoraRisco:
             "Segurança de dados": "seguranca_dados",
             "Autenticação/Autorização": "autenticacao_autorizacao",
             "Pentest": "pentest",
+            "Conformidade regulatória": "conformidade_regulatoria",
             "Satisfação do usuário": "satisfacao_usuario",
             "Taxa de erro do usuário": "taxa_erro_usuario",
             "Tempo de conclusão de tarefa": "tempo_conclusao_tarefa",
@@ -0,0 +1,976 @@
+package br.com.itau.governanca.risco;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Agregador das saídas das ferramentas de varredura de segurança, que deriva os critérios
+ * vulnerabilidades_criticas, vulnerabilidades_totais e owasp_top10 da dimensão seguranca.
+ * <p>
+ * Os arquivos são lidos em fluxo, sem montar a árvore do documento, e cada vulnerabilidade é
+ * reduzida a uma impressão digital de 64 bits, usada para descartar as duplicadas entre
+ * arquivos, execuções das ferramentas e varreduras. O formato é reconhecido pelo conteúdo:
+ * <ul>
+ *   <li>SARIF 2.1 ({@code runs}), das ferramentas de SAST: a impressão é a regra com os
+ *       {@code fingerprints} do resultado, ou os {@code partialFingerprints}, ou os locais e a
+ *       mensagem. A severidade vem de {@code security-severity} (no resultado ou na regra), ou
+ *       do {@code level}; a categoria OWASP, das tags da regra (OWASP ou CWE). Resultados
+ *       suprimidos, ausentes da linha de base ou que não são falhas são ignorados, assim como
+ *       regras com tags mas sem a tag security e sem nota de severidade.</li>
+ *   <li>Relatório JSON do OWASP ZAP ({@code site}): uma vulnerabilidade por instância de
+ *       cada alerta, identificada pelo plugin, URI, método e parâmetro, com a severidade do
+ *       {@code riskcode} e a categoria do {@code cweid}. Alertas de confiança 0 (falso
+ *       positivo) são ignorados. O ZAP não tem severidade crítica.</li>
+ * </ul>
+ * O {@link IndiceVulnerabilidades} guarda as impressões já vistas com a sua classificação.
+ * Com um índice persistido, varreduras repetidas só classificam as vulnerabilidades novas e
+ * os critérios refletem as vulnerabilidades presentes na varredura atual. Se a agregação
+ * falhar, o índice pode ter sido parcialmente atualizado e não deve ser salvo.
+ * <p>
+ * Instâncias não são thread-safe.
+ */
+public class AgregadorVulnerabilidades {
+
+    /** Número de categorias do OWASP Top 10 (2021), numeradas de 1 (A01) a 10 (A10) */
+    public static final int CATEGORIAS_OWASP = 10;
+
+    private static final String[] CHAVES = {
+        "runs", "site", "tool", "driver", "extensions", "rules", "results", "id", "properties", "tags",
+        "security-severity", "defaultConfiguration", "level", "ruleId", "ruleIndex", "rule", "index",
+        "fingerprints", "partialFingerprints", "locations", "physicalLocation", "artifactLocation", "uri",
+        "region", "startLine", "message", "text", "suppressions", "status", "baselineState", "kind",
+        "alerts", "pluginid", "riskcode", "confidence", "cweid", "instances", "method", "param"
+    };
+    private static final int RUNS = 0;
+    private static final int SITE = 1;
+    private static final int TOOL = 2;
+    private static final int DRIVER = 3;
+    private static final int EXTENSIONS = 4;
+    private static final int RULES = 5;
+    private static final int RESULTS = 6;
+    private static final int ID = 7;
+    private static final int PROPERTIES = 8;
+    private static final int TAGS = 9;
+    private static final int SECURITY_SEVERITY = 10;
+    private static final int DEFAULT_CONFIGURATION = 11;
+    private static final int LEVEL = 12;
+    private static final int RULE_ID = 13;
+    private static final int RULE_INDEX = 14;
+    private static final int RULE = 15;
+    private static final int INDEX = 16;
+    private static final int FINGERPRINTS = 17;
+    private static final int PARTIAL_FINGERPRINTS = 18;
+    private static final int LOCATIONS = 19;
+    private static final int PHYSICAL_LOCATION = 20;
+    private static final int ARTIFACT_LOCATION = 21;
+    private static final int URI = 22;
+    private static final int REGION = 23;
+    private static final int START_LINE = 24;
+    private static final int MESSAGE = 25;
+    private static final int TEXT = 26;
+    private static final int SUPPRESSIONS = 27;
+    private static final int STATUS = 28;
+    private static final int BASELINE_STATE = 29;
+    private static final int KIND = 30;
+    private static final int ALERTS = 31;
+    private static final int PLUGINID = 32;
+    private static final int RISKCODE = 33;
+    private static final int CONFIDENCE = 34;
+    private static final int CWEID = 35;
+    private static final int INSTANCES = 36;
+    private static final int METHOD = 37;
+    private static final int PARAM = 38;
+
+    private static final TabelaRotulos TABELA_CHAVES = new TabelaRotulos(CHAVES.length);
+
+    // CWEs mais frequentes de cada categoria do OWASP Top 10 2021 (A01 a A10)
+    private static final int[][] CWES_OWASP = {
+        {22, 23, 35, 59, 200, 201, 219, 264, 275, 276, 284, 285, 352, 359, 377, 402, 425, 441, 497, 538, 540,
+         548, 552, 566, 601, 639, 651, 668, 706, 862, 863, 913, 922, 1275},
+        {261, 296, 310, 319, 321, 322, 323, 324, 325, 326, 327, 328, 329, 330, 331, 335, 336, 337, 338, 340,
+         347, 523, 720, 757, 759, 760, 780, 818, 916},
+        {20, 74, 75, 77, 78, 79, 80, 83, 87, 88, 89, 90, 91, 93, 94, 95, 96, 97, 98, 99, 113, 116, 138, 184,
+         470, 471, 564, 610, 643, 644, 652, 917},
+        {73, 183, 209, 213, 235, 256, 257, 266, 269, 280, 311, 312, 313, 316, 419, 430, 434, 444, 451, 472,
+         501, 522, 525, 539, 579, 598, 602, 642, 646, 650, 653, 656, 657, 799, 807, 840, 841, 927, 1021, 1173},
+        {2, 11, 13, 15, 16, 260, 315, 520, 526, 537, 541, 547, 611, 614, 756, 776, 942, 1004, 1032, 1174},
+        {937, 1035, 1104},
+        {255, 259, 287, 288, 290, 294, 295, 297, 300, 302, 304, 306, 307, 346, 384, 521, 613, 620, 640, 798,
+         940, 1216},
+        {345, 353, 426, 494, 502, 565, 784, 829, 830, 915},
+        {117, 223, 532, 778},
+        {918}
+    };
+    private static final byte[] CATEGORIA_POR_CWE = new byte[1300];
+
+    static {
+        for (int i = 0; i < CHAVES.length; i++) {
+            TABELA_CHAVES.inserir(CHAVES[i], i);
+        }
+        for (int categoria = 0; categoria < CWES_OWASP.length; categoria++) {
+            for (int cwe : CWES_OWASP[categoria]) {
+                CATEGORIA_POR_CWE[cwe] = (byte) (categoria + 1);
+            }
+        }
+    }
+
+    // Classificação de uma regra SARIF: severidade pela nota e pelo nível (ordinal + 1, 0 se
+    // ausente), categoria OWASP e se a regra não é de segurança
+    private static final int DESLOCAMENTO_NIVEL = 3;
+    private static final int DESLOCAMENTO_CATEGORIA = 6;
+    private static final int NAO_SEGURANCA = 1 << 10;
+    private static final int MASCARA_SEVERIDADE = 0x7;
+
+    private final IndiceVulnerabilidades indice;
+
+    // Estado da agregação em curso
+    private LeitorJsonFluxo json;
+    private Contagem contagem;
+    private final Map<String, Integer> regrasPorId = new HashMap<>();
+    private int[] regrasPorIndice = new int[64];
+    private int quantidadeRegras;
+    private long[] pendentesImpressao = new long[256];
+    private String[] pendentesRegra = new String[256];
+    private int[] pendentesIndiceRegra = new int[256];
+    private int[] pendentesSeveridade = new int[256];
+    private int quantidadePendentes;
+    private long[] instancias = new long[64];
+
+    /**
+     * Construtor que deduplica apenas em memória, com um índice novo
+     */
+    public AgregadorVulnerabilidades() {
+        this(new IndiceVulnerabilidades());
+    }
+
+    /**
+     * Construtor que reutiliza um índice de impressões, em geral carregado de uma varredura anterior
+     * @param indice O índice de impressões já vistas
+     */
+    public AgregadorVulnerabilidades(IndiceVulnerabilidades indice) {
+        this.indice = indice;
+    }
+
+    /**
+     * Retorna o índice de impressões, para salvá-lo após a agregação
+     * @return o índice
+     */
+    public IndiceVulnerabilidades getIndice() {
+        return indice;
+    }
+
+    /**
+     * Agrega um arquivo como uma nova varredura
+     * @param arquivo O arquivo SARIF ou o relatório JSON do ZAP
+     * @return as vulnerabilidades presentes na varredura
+     * @throws IOException se houver erro de leitura
+     * @throws IllegalArgumentException se o JSON for inválido ou o formato não for reconhecido
+     */
+    public ResultadoAgregacao agregar(Path arquivo) throws IOException {
+        return agregar(Collections.singletonList(arquivo));
+    }
+
+    /**
+     * Agrega os arquivos das ferramentas como uma nova varredura: uma vulnerabilidade
+     * presente em mais de um arquivo é contada uma vez
+     * @param arquivos Os arquivos SARIF ou relatórios JSON do ZAP
+     * @return as vulnerabilidades presentes na varredura
+     * @throws IOException se houver erro de leitura
+     * @throws IllegalArgumentException se algum JSON for inválido ou o formato não for reconhecido
+     */
+    public ResultadoAgregacao agregar(Collection<Path> arquivos) throws IOException {
+        contagem = new Contagem(indice.iniciarExecucao());
+        try {
+            for (Path arquivo : arquivos) {
+                try (InputStream entrada = new BufferedInputStream(Files.newInputStream(arquivo), 64 * 1024)) {
+                    json = new LeitorJsonFluxo(entrada, arquivo.toString());
+                    lerDocumento(arquivo);
+                }
+            }
+            return new ResultadoAgregacao(contagem);
+        } finally {
+            json = null;
+            contagem = null;
+        }
+    }
+
+    private void lerDocumento(Path arquivo) throws IOException {
+        boolean reconhecido = false;
+        json.esperar('{');
+        if (!json.fechou('}')) {
+            do {
+                int chave = json.lerChave(TABELA_CHAVES);
+                if (chave == RUNS && json.espiar() == '[') {
+                    reconhecido = true;
+                    json.esperar('[');
+                    if (!json.fechou(']')) {
+                        do {
+                            lerExecucaoSarif();
+                        } while (json.continua(']'));
+                    }
+                } else if (chave == SITE && json.espiar() == '[') {
+                    reconhecido = true;
+                    json.esperar('[');
+                    if (!json.fechou(']')) {
+                        do {
+                            lerSiteZap();
+                        } while (json.continua(']'));
+                    }
+                } else {
+                    json.pularValor();
+                }
+            } while (json.continua('}'));
+        }
+        if (!json.fim()) {
+            throw json.erro("conteúdo após o fim do documento");
+        }
+        if (!reconhecido) {
+            throw new IllegalArgumentException("Formato não reconhecido (esperado SARIF ou relatório do ZAP): " + arquivo);
+        }
+        contagem.arquivos++;
+    }
+
+    // ---- SARIF ----
+
+    // Uma execução (run) de uma ferramenta; as regras podem vir depois dos resultados, por isso
+    // as vulnerabilidades novas só são classificadas no fim da execução
+    private void lerExecucaoSarif() throws IOException {
+        regrasPorId.clear();
+        quantidadeRegras = 0;
+        quantidadePendentes = 0;
+
+        json.esperar('{');
+        if (!json.fechou('}')) {
+            do {
+                int chave = json.lerChave(TABELA_CHAVES);
+                if (chave == TOOL) {
+                    lerFerramenta();
+                } else if (chave == RESULTS) {
+                    json.esperar('[');
+                    if (!json.fechou(']')) {
+                        do {
+                            lerResultado();
+                        } while (json.continua(']'));
+                    }
+                } else {
+                    json.pularValor();
+                }
+            } while (json.continua('}'));
+        }
+
+        for (int i = 0; i < quantidadePendentes; i++) {
+            int regra = 0;
+            if (pendentesRegra[i] != null) {
+                regra = regrasPorId.getOrDefault(pendentesRegra[i], 0);
+            } else if (pendentesIndiceRegra[i] >= 0 && pendentesIndiceRegra[i] < quantidadeRegras) {
+                regra = regrasPorIndice[pendentesIndiceRegra[i]];
+            }
+            int atributos = atributos(severidade(pendentesSeveridade[i], regra), regra >>> DESLOCAMENTO_CATEGORIA & 0xf);
+            indice.definirAtributos(pendentesImpressao[i], atributos);
+            contagem.contar(atributos);
+        }
+        quantidadePendentes = 0;
+    }
+
+    // Severidade de um resultado: a nota do resultado, a da regra, o nível do resultado e o da
+    // regra, nessa ordem; regras que não são de segurança ficam como informativas
+    private static SeveridadeVulnerabilidade severidade(int resultado, int regra) {
+        if ((resultado & MASCARA_SEVERIDADE) != 0) {
+            return SeveridadeVulnerabilidade.doOrdinal((resultado & MASCARA_SEVERIDADE) - 1);
+        } else if ((regra & NAO_SEGURANCA) != 0) {
+            return SeveridadeVulnerabilidade.INFORMATIVA;
+        } else if ((regra & MASCARA_SEVERIDADE) != 0) {
+            return SeveridadeVulnerabilidade.doOrdinal((regra & MASCARA_SEVERIDADE) - 1);
+        } else if ((resultado >>> DESLOCAMENTO_NIVEL & MASCARA_SEVERIDADE) != 0) {
+            return SeveridadeVulnerabilidade.doOrdinal((resultado >>> DESLOCAMENTO_NIVEL & MASCARA_SEVERIDADE) - 1);
+        } else if ((regra >>> DESLOCAMENTO_NIVEL & MASCARA_SEVERIDADE) != 0) {
+            return SeveridadeVulnerabilidade.doOrdinal((regra >>> DESLOCAMENTO_NIVEL & MASCARA_SEVERIDADE) - 1);
+        }
+        // Nível padrão do SARIF: warning
+        return SeveridadeVulnerabilidade.MEDIA;
+    }
+
+    private void lerFerramenta() throws IOException {
+        json.esperar('{');
+        if (json.fechou('}')) {
+            return;
+        }
+        do {
+            int chave = json.lerChave(TABELA_CHAVES);
+            if (chave == DRIVER) {
+                lerComponente(true);
+            } else if (chave == EXTENSIONS) {
+                json.esperar('[');
+                if (!json.fechou(']')) {
+                    do {
+                        lerComponente(false);
+                    } while (json.continua(']'));
+                }
+            } else {
+                json.pularValor();
+            }
+        } while (json.continua('}'));
+    }
+
+    // Componente da ferramenta (driver ou extensão); ruleIndex só se refere às regras do driver
+    private void lerComponente(boolean driver) throws IOException {
+        json.esperar('{');
+        if (json.fechou('}')) {
+            return;
+        }
+        do {
+            if (json.lerChave(TABELA_CHAVES) == RULES) {
+                json.esperar('[');
+                if (!json.fechou(']')) {
+                    do {
+                        lerRegra(driver);
+                    } while (json.continua(']'));
+                }
+            } else {
+                json.pularValor();
+            }
+        } while (json.continua('}'));
+    }
+
+    private void lerRegra(boolean driver) throws IOException {
+        String id = null;
+        double nota = Double.NaN;
+        int nivel = 0;
+        int categoriaOwasp = 0;
+        int categoriaCwe = 0;
+        boolean temTags = false;
+        boolean seguranca = false;
+
+        json.esperar('{');
+        if (!json.fechou('}')) {
+            do {
+                int chave = json.lerChave(TABELA_CHAVES);
+                if (chave == ID) {
+                    id = json.lerTexto();
+                } else if (chave == DEFAULT_CONFIGURATION && json.espiar() == '{') {
+                    json.esperar('{');
+                    if (!json.fechou('}')) {
+                        do {
+                            if (json.lerChave(TABELA_CHAVES) == LEVEL) {
+                                nivel = severidadeDoNivel(json.lerTexto());
+                            } else {
+                                json.pularValor();
+                            }
+                        } while (json.continua('}'));
+                    }
+                } else if (chave == PROPERTIES && json.espiar() == '{') {
+                    json.esperar('{');
+                    if (!json.fechou('}')) {
+                        do {
+                            int propriedade = json.lerChave(TABELA_CHAVES);
+                            if (propriedade == SECURITY_SEVERITY) {
+                                nota = json.lerNumero();
+                            } else if (propriedade == TAGS && json.espiar() == '[') {
+                                json.esperar('[');
+                                if (!json.fechou(']')) {
+                                    do {
+                                        String tag = json.lerTexto();
+                                        if (tag == null) {
+                                            continue;
+                                        }
+                                        temTags = true;
+                                        seguranca |= tag.equalsIgnoreCase("security");
+                                        int categoria = categoriaDaTagOwasp(tag);
+                                        if (categoria != 0) {
+                                            categoriaOwasp = categoria;
+                                        } else if (categoriaCwe == 0) {
+                                            categoriaCwe = categoriaDaTagCwe(tag);
+                                        }
+                                    } while (json.continua(']'));
+                                }
+                            } else {
+                                json.pularValor();
+                            }
+                        } while (json.continua('}'));
+                    }
+                } else {
+                    json.pularValor();
+                }
+            } while (json.continua('}'));
+        }
+
+        int regra = (Double.isNaN(nota) ? 0 : severidadeDaNota(nota) + 1) | nivel << DESLOCAMENTO_NIVEL
+                    | (categoriaOwasp != 0 ? categoriaOwasp : categoriaCwe) << DESLOCAMENTO_CATEGORIA;
+        if (temTags && !seguranca && Double.isNaN(nota)) {
+            regra |= NAO_SEGURANCA;
+        }
+        if (id != null) {
+            regrasPorId.putIfAbsent(id, regra);
+        }
+        if (driver) {
+            if (quantidadeRegras == regrasPorIndice.length) {
+                regrasPorIndice = Arrays.copyOf(regrasPorIndice, quantidadeRegras * 2);
+            }
+            regrasPorIndice[quantidadeRegras++] = regra;
+        }
+    }
+
+    private void lerResultado() throws IOException {
+        String idRegra = null;
+        int indiceRegra = -1;
+        int severidadeResultado = 0;
+        long impressao = 0;
+        long impressaoParcial = 0;
+        long local = LeitorJsonFluxo.HASH_INICIAL;
+        boolean ignorado = false;
+
+        json.esperar('{');
+        if (!json.fechou('}')) {
+            do {
+                int chave = json.lerChave(TABELA_CHAVES);
+                if (chave == RULE_ID) {
+                    idRegra = json.lerTexto();
+                } else if (chave == RULE_INDEX) {
+                    indiceRegra = (int) json.lerNumero();
+                } else if (chave == RULE && json.espiar() == '{') {
+                    json.esperar('{');
+                    if (!json.fechou('}')) {
+                        do {
+                            int campo = json.lerChave(TABELA_CHAVES);
+                            if (campo == ID && idRegra == null) {
+                                idRegra = json.lerTexto();
+                            } else if (campo == INDEX && indiceRegra < 0) {
+                                indiceRegra = (int) json.lerNumero();
+                            } else {
+                                json.pularValor();
+                            }
+                        } while (json.continua('}'));
+                    }
+                } else if (chave == LEVEL) {
+                    severidadeResultado |= severidadeDoNivel(json.lerTexto()) << DESLOCAMENTO_NIVEL;
+                } else if (chave == KIND) {
+                    String tipo = json.lerTexto();
+                    ignorado |= tipo != null && !tipo.equals("fail");
+                } else if (chave == BASELINE_STATE) {
+                    ignorado |= "absent".equals(json.lerTexto());
+                } else if (chave == SUPPRESSIONS && json.espiar() == '[') {
+                    ignorado |= lerSupressoes();
+                } else if (chave == FINGERPRINTS && json.espiar() == '{') {
+                    impressao = hashObjeto();
+                } else if (chave == PARTIAL_FINGERPRINTS && json.espiar() == '{') {
+                    impressaoParcial = hashObjeto();
+                } else if (chave == LOCATIONS && json.espiar() == '[') {
+                    json.esperar('[');
+                    if (!json.fechou(']')) {
+                        do {
+                            local = hashCampos(local, PHYSICAL_LOCATION, ARTIFACT_LOCATION, URI, REGION, START_LINE);
+                        } while (json.continua(']'));
+                    }
+                } else if (chave == MESSAGE && json.espiar() == '{') {
+                    local = hashCampos(local, TEXT, -1, -1, -1, -1);
+                } else if (chave == PROPERTIES && json.espiar() == '{') {
+                    json.esperar('{');
+                    if (!json.fechou('}')) {
+                        do {
+                            if (json.lerChave(TABELA_CHAVES) == SECURITY_SEVERITY) {
+                                double nota = json.lerNumero();
+                                if (!Double.isNaN(nota)) {
+                                    severidadeResultado = severidadeResultado & ~MASCARA_SEVERIDADE
+                                                          | severidadeDaNota(nota) + 1;
+                                }
+                            } else {
+                                json.pularValor();
+                            }
+                        } while (json.continua('}'));
+                    }
+                } else {
+                    json.pularValor();
+                }
+            } while (json.continua('}'));
+        }
+
+        if (ignorado) {
+            contagem.ignoradas++;
+            return;
+        }
+        long regra = idRegra != null ? hashTexto(idRegra) : misturar(indiceRegra);
+        long base = impressao != 0 ? impressao : impressaoParcial != 0 ? impressaoParcial : local;
+        long chave = impressaoDe(regra, base);
+
+        int marcada = indice.marcar(chave);
+        if (marcada == IndiceVulnerabilidades.NOVA) {
+            if (quantidadePendentes == pendentesImpressao.length) {
+                int tamanho = quantidadePendentes * 2;
+                pendentesImpressao = Arrays.copyOf(pendentesImpressao, tamanho);
+                pendentesRegra = Arrays.copyOf(pendentesRegra, tamanho);
+                pendentesIndiceRegra = Arrays.copyOf(pendentesIndiceRegra, tamanho);
+                pendentesSeveridade = Arrays.copyOf(pendentesSeveridade, tamanho);
+            }
+            pendentesImpressao[quantidadePendentes] = chave;
+            pendentesRegra[quantidadePendentes] = idRegra;
+            pendentesIndiceRegra[quantidadePendentes] = indiceRegra;
+            pendentesSeveridade[quantidadePendentes] = severidadeResultado;
+            quantidadePendentes++;
+            contagem.novas++;
+        } else if (marcada == IndiceVulnerabilidades.DUPLICADA) {
+            contagem.duplicadas++;
+        } else {
+            contagem.conhecidas++;
+            contagem.contar(marcada);
+        }
+    }
+
+    // Um resultado é suprimido se tiver alguma supressão aceita (status ausente ou accepted)
+    private boolean lerSupressoes() throws IOException {
+        boolean suprimido = false;
+        json.esperar('[');
+        if (json.fechou(']')) {
+            return false;
+        }
+        do {
+            String status = null;
+            json.esperar('{');
+            if (!json.fechou('}')) {
+                do {
+                    if (json.lerChave(TABELA_CHAVES) == STATUS) {
+                        status = json.lerTexto();
+                    } else {
+                        json.pularValor();
+                    }
+                } while (json.continua('}'));
+            }
+            suprimido |= status == null || status.equals("accepted");
+        } while (json.continua(']'));
+        return suprimido;
+    }
+
+    // Hash de todos os pares chave/valor textuais ou numéricos de um objeto, na ordem do arquivo
+    private long hashObjeto() throws IOException {
+        long hash = LeitorJsonFluxo.HASH_INICIAL;
+        json.esperar('{');
+        if (!json.fechou('}')) {
+            do {
+                json.lerChave(TABELA_CHAVES);
+                char inicio = json.espiar();
+                if (inicio == '{' || inicio == '[') {
+                    json.pularValor();
+                } else {
+                    hash = json.lerHash(hash);
+                }
+            } while (json.continua('}'));
+        }
+        return hash == LeitorJsonFluxo.HASH_INICIAL ? 0 : hash;
+    }
+
+    // Acumula no hash os valores de um objeto seguindo um caminho de até dois níveis: os campos
+    // 'folha' do objeto, ou 'folha1'/'folha2' dos objetos 'intermediario1'/'intermediario2'
+    // dentro de 'externo' (caso do physicalLocation de um local SARIF)
+    private long hashCampos(long hash, int externo, int intermediario1, int folha1, int intermediario2, int folha2)
+            throws IOException {
+        json.esperar('{');
+        if (json.fechou('}')) {
+            return hash;
+        }
+        do {
+            int chave = json.lerChave(TABELA_CHAVES);
+            if (chave == externo && intermediario1 < 0 && json.espiar() != '{' && json.espiar() != '[') {
+                hash = json.lerHash(hash);
+            } else if (chave == externo && intermediario1 >= 0 && json.espiar() == '{') {
+                json.esperar('{');
+                if (!json.fechou('}')) {
+                    do {
+                        int campo = json.lerChave(TABELA_CHAVES);
+                        if (campo == intermediario1 && json.espiar() == '{') {
+                            hash = hashCampos(hash, folha1, -1, -1, -1, -1);
+                        } else if (campo == intermediario2 && json.espiar() == '{') {
+                            hash = hashCampos(hash, folha2, -1, -1, -1, -1);
+                        } else {
+                            json.pularValor();
+                        }
+                    } while (json.continua('}'));
+                }
+            } else {
+                json.pularValor();
+            }
+        } while (json.continua('}'));
+        return hash;
+    }
+
+    private static int severidadeDoNivel(String nivel) {
+        if (nivel == null) {
+            return 0;
+        }
+        switch (nivel) {
+            case "error": return SeveridadeVulnerabilidade.ALTA.ordinal() + 1;
+            case "warning": return SeveridadeVulnerabilidade.MEDIA.ordinal() + 1;
+            case "note": return SeveridadeVulnerabilidade.BAIXA.ordinal() + 1;
+            case "none": return SeveridadeVulnerabilidade.INFORMATIVA.ordinal() + 1;
+            default: return 0;
+        }
+    }
+
+    private int severidadeDaNota(double nota) {
+        try {
+            return SeveridadeVulnerabilidade.daNota(nota).ordinal();
+        } catch (IllegalArgumentException e) {
+            throw json.erro(e.getMessage());
+        }
+    }
+
+    // ---- OWASP ZAP ----
+
+    private void lerSiteZap() throws IOException {
+        json.esperar('{');
+        if (json.fechou('}')) {
+            return;
+        }
+        do {
+            if (json.lerChave(TABELA_CHAVES) == ALERTS && json.espiar() == '[') {
+                json.esperar('[');
+                if (!json.fechou(']')) {
+                    do {
+                        lerAlertaZap();
+                    } while (json.continua(']'));
+                }
+            } else {
+                json.pularValor();
+            }
+        } while (json.continua('}'));
+    }
+
+    private void lerAlertaZap() throws IOException {
+        long plugin = LeitorJsonFluxo.HASH_INICIAL;
+        double risco = Double.NaN;
+        double confianca = Double.NaN;
+        double cwe = Double.NaN;
+        int quantidadeInstancias = 0;
+
+        json.esperar('{');
+        if (!json.fechou('}')) {
+            do {
+                int chave = json.lerChave(TABELA_CHAVES);
+                if (chave == PLUGINID) {
+                    plugin = json.lerHash(plugin);
+                } else if (chave == RISKCODE) {
+                    risco = json.lerNumero();
+                } else if (chave == CONFIDENCE) {
+                    confianca = json.lerNumero();
+                } else if (chave == CWEID) {
+                    cwe = json.lerNumero();
+                } else if (chave == INSTANCES && json.espiar() == '[') {
+                    json.esperar('[');
+                    if (!json.fechou(']')) {
+                        do {
+                            if (quantidadeInstancias == instancias.length) {
+                                instancias = Arrays.copyOf(instancias, quantidadeInstancias * 2);
+                            }
+                            instancias[quantidadeInstancias++] = hashInstanciaZap();
+                        } while (json.continua(']'));
+                    }
+                } else {
+                    json.pularValor();
+                }
+            } while (json.continua('}'));
+        }
+
+        if (confianca == 0) {
+            contagem.ignoradas += Math.max(1, quantidadeInstancias);
+            return;
+        }
+        SeveridadeVulnerabilidade severidade;
+        if (risco == 3) {
+            severidade = SeveridadeVulnerabilidade.ALTA;
+        } else if (risco == 2 || Double.isNaN(risco)) {
+            severidade = SeveridadeVulnerabilidade.MEDIA;
+        } else if (risco == 1) {
+            severidade = SeveridadeVulnerabilidade.BAIXA;
+        } else if (risco == 0) {
+            severidade = SeveridadeVulnerabilidade.INFORMATIVA;
+        } else {
+            throw json.erro("riskcode inválido: " + risco);
+        }
+        int atributos = atributos(severidade, categoriaDoCwe(cwe));
+
+        // Um alerta sem instâncias conta como uma vulnerabilidade do plugin
+        if (quantidadeInstancias == 0) {
+            instancias[quantidadeInstancias++] = LeitorJsonFluxo.HASH_INICIAL;
+        }
+        long regra = misturar(plugin ^ 0x5a41505a41505a41L);
+        for (int i = 0; i < quantidadeInstancias; i++) {
+            long chave = impressaoDe(regra, instancias[i]);
+            int marcada = indice.marcar(chave);
+            if (marcada == IndiceVulnerabilidades.NOVA) {
+                indice.definirAtributos(chave, atributos);
+                contagem.novas++;
+                contagem.contar(atributos);
+            } else if (marcada == IndiceVulnerabilidades.DUPLICADA) {
+                contagem.duplicadas++;
+            } else {
+                contagem.conhecidas++;
+                contagem.contar(marcada);
+            }
+        }
+    }
+
+    private long hashInstanciaZap() throws IOException {
+        long hash = LeitorJsonFluxo.HASH_INICIAL;
+        json.esperar('{');
+        if (!json.fechou('}')) {
+            do {
+                int chave = json.lerChave(TABELA_CHAVES);
+                if ((chave == URI || chave == METHOD || chave == PARAM) && json.espiar() != '{' && json.espiar() != '[') {
+                    hash = json.lerHash(hash ^ chave);
+                } else {
+                    json.pularValor();
+                }
+            } while (json.continua('}'));
+        }
+        return hash;
+    }
+
+    // ---- Categorias OWASP ----
+
+    // Categoria de uma tag OWASP do Top 10 2021, como "owasp-a03" ou "OWASP Top 10 2021 A03";
+    // tags da edição de 2017, de numeração diferente, são ignoradas
+    static int categoriaDaTagOwasp(String tag) {
+        String texto = tag.toLowerCase(Locale.ROOT);
+        int owasp = texto.indexOf("owasp");
+        if (owasp < 0 || texto.contains("2017")) {
+            return 0;
+        }
+        for (int i = owasp + 5; i < texto.length() - 1; i++) {
+            if (texto.charAt(i) == 'a' && Character.isDigit(texto.charAt(i + 1))) {
+                int numero = texto.charAt(i + 1) - '0';
+                if (i + 2 < texto.length() && Character.isDigit(texto.charAt(i + 2))) {
+                    numero = numero * 10 + texto.charAt(i + 2) - '0';
+                }
+                return numero >= 1 && numero <= CATEGORIAS_OWASP ? numero : 0;
+            }
+        }
+        return 0;
+    }
+
+    // Categoria OWASP de uma tag CWE, como "external/cwe/cwe-79" ou "CWE-89"
+    static int categoriaDaTagCwe(String tag) {
+        String texto = tag.toLowerCase(Locale.ROOT);
+        int cwe = texto.lastIndexOf("cwe");
+        if (cwe < 0) {
+            return 0;
+        }
+        int i = cwe + 3;
+        if (i < texto.length() && (texto.charAt(i) == '-' || texto.charAt(i) == ':' || texto.charAt(i) == '/')) {
+            i++;
+        }
+        int numero = 0;
+        int digitos = 0;
+        for (; i < texto.length() && Character.isDigit(texto.charAt(i)) && digitos < 5; i++, digitos++) {
+            numero = numero * 10 + texto.charAt(i) - '0';
+        }
+        return digitos == 0 ? 0 : categoriaDoCwe(numero);
+    }
+
+    private static int categoriaDoCwe(double cwe) {
+        return cwe >= 0 && cwe < CATEGORIA_POR_CWE.length ? CATEGORIA_POR_CWE[(int) cwe] : 0;
+    }
+
+    // ---- Impressões ----
+
+    private static int atributos(SeveridadeVulnerabilidade severidade, int categoria) {
+        return severidade.ordinal() | categoria << 3;
+    }
+
+    private static long impressaoDe(long regra, long base) {
+        long impressao = misturar(regra ^ misturar(base));
+        // Zero marca posições vazias no índice
+        return impressao == 0 ? 1 : impressao;
+    }
+
+    private static long hashTexto(String texto) {
+        long hash = LeitorJsonFluxo.HASH_INICIAL;
+        for (byte b : texto.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        return misturar(hash);
+    }
+
+    // Finalizador do MurmurHash3 de 64 bits
+    private static long misturar(long valor) {
+        valor ^= valor >>> 33;
+        valor *= 0xff51afd7ed558ccdL;
+        valor ^= valor >>> 33;
+        valor *= 0xc4ceb9fe1a85ec53L;
+        return valor ^ (valor >>> 33);
+    }
+
+    // Contadores da agregação em curso
+    private static final class Contagem {
+        private final int execucao;
+        private final long[] porSeveridade = new long[SeveridadeVulnerabilidade.values().length];
+        private final long[] porCategoria = new long[CATEGORIAS_OWASP + 1];
+        private long novas;
+        private long conhecidas;
+        private long duplicadas;
+        private long ignoradas;
+        private int arquivos;
+
+        Contagem(int execucao) {
+            this.execucao = execucao;
+        }
+
+        void contar(int atributos) {
+            int severidade = atributos & MASCARA_SEVERIDADE;
+            porSeveridade[severidade]++;
+            if (severidade != SeveridadeVulnerabilidade.INFORMATIVA.ordinal()) {
+                porCategoria[atributos >>> 3 & 0xf]++;
+            }
+        }
+    }
+
+    /**
+     * Vulnerabilidades presentes em uma varredura, sem duplicadas
+     */
+    public static final class ResultadoAgregacao {
+        private final int execucao;
+        private final long[] porSeveridade;
+        private final long[] porCategoria;
+        private final long novas;
+        private final long conhecidas;
+        private final long duplicadas;
+        private final long ignoradas;
+        private final int arquivos;
+
+        private ResultadoAgregacao(Contagem contagem) {
+            this.execucao = contagem.execucao;
+            this.porSeveridade = contagem.porSeveridade.clone();
+            this.porCategoria = contagem.porCategoria.clone();
+            this.novas = contagem.novas;
+            this.conhecidas = contagem.conhecidas;
+            this.duplicadas = contagem.duplicadas;
+            this.ignoradas = contagem.ignoradas;
+            this.arquivos = contagem.arquivos;
+        }
+
+        /**
+         * Retorna os critérios da dimensão seguranca derivados da varredura, para
+         * {@code calcularPontuacaoDimensao("seguranca", ...)}: vulnerabilidades_criticas,
+         * vulnerabilidades_totais (total ponderado) e owasp_top10 (% de categorias sem vulnerabilidades)
+         * @return os valores por critério
+         */
+        public Map<String, Double> getDadosSeguranca() {
+            Map<String, Double> dados = new LinkedHashMap<>();
+            dados.put("vulnerabilidades_criticas", (double) getQuantidade(SeveridadeVulnerabilidade.CRITICA));
+            dados.put("vulnerabilidades_totais", getTotalPonderado());
+            dados.put("owasp_top10", getConformidadeOwasp());
+            return dados;
+        }
+
+        /**
+         * Retorna o total de vulnerabilidades ponderado pela severidade
+         * (ver {@link SeveridadeVulnerabilidade#getPeso()})
+         * @return o total ponderado
+         */
+        public double getTotalPonderado() {
+            double total = 0;
+            for (SeveridadeVulnerabilidade severidade : SeveridadeVulnerabilidade.values()) {
+                total += porSeveridade[severidade.ordinal()] * severidade.getPeso();
+            }
+            return total;
+        }
+
+        /**
+         * Retorna a conformidade com o OWASP Top 10
+         * @return o percentual das 10 categorias sem vulnerabilidades (exceto informativas)
+         */
+        public double getConformidadeOwasp() {
+            int afetadas = 0;
+            for (int categoria = 1; categoria <= CATEGORIAS_OWASP; categoria++) {
+                if (porCategoria[categoria] > 0) {
+                    afetadas++;
+                }
+            }
+            return 100.0 * (CATEGORIAS_OWASP - afetadas) / CATEGORIAS_OWASP;
+        }
+
+        /**
+         * Retorna o número de vulnerabilidades de uma severidade
+         * @param severidade A severidade
+         * @return o número de vulnerabilidades distintas
+         */
+        public long getQuantidade(SeveridadeVulnerabilidade severidade) {
+            return porSeveridade[severidade.ordinal()];
+        }
+
+        /**
+         * Retorna o número de vulnerabilidades (exceto informativas) de uma categoria OWASP
+         * @param categoria A categoria, de 1 (A01) a 10 (A10), ou 0 para as sem categoria
+         * @return o número de vulnerabilidades distintas
+         */
+        public long getQuantidadeCategoria(int categoria) {
+            return porCategoria[categoria];
+        }
+
+        /**
+         * Retorna o número de vulnerabilidades distintas da varredura
+         * @return as vulnerabilidades novas e as conhecidas de varreduras anteriores
+         */
+        public long getTotal() {
+            return novas + conhecidas;
+        }
+
+        /**
+         * Retorna o número de vulnerabilidades vistas pela primeira vez, as únicas classificadas
+         * @return as vulnerabilidades novas
+         */
+        public long getNovas() {
+            return novas;
+        }
+
+        /**
+         * Retorna o número de vulnerabilidades já presentes no índice de varreduras anteriores
+         * @return as vulnerabilidades conhecidas
+         */
+        public long getConhecidas() {
+            return conhecidas;
+        }
+
+        /**
+         * Retorna o número de ocorrências repetidas dentro da varredura, descartadas
+         * @return as ocorrências duplicadas
+         */
+        public long getDuplicadas() {
+            return duplicadas;
+        }
+
+        /**
+         * Retorna o número de ocorrências ignoradas: suprimidas, ausentes da linha de base,
+         * que não são falhas ou falsos positivos
+         * @return as ocorrências ignoradas
+         */
+        public long getIgnoradas() {
+            return ignoradas;
+        }
+
+        /**
+         * Retorna o número da varredura no índice
+         * @return a execução
+         */
+        public int getExecucao() {
+            return execucao;
+        }
+
+        /**
+         * Retorna o número de arquivos agregados
+         * @return os arquivos lidos
+         */
+        public int getArquivos() {
+            return arquivos;
+        }
+    }
+}
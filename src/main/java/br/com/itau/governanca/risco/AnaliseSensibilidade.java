@@ -0,0 +1,340 @@
+package br.com.itau.governanca.risco;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Análise de sensibilidade ("e se?") do portfólio a alterações de pesos e limiares do modelo,
+ * como "quantas aplicações ficariam VERMELHO com o limiar médio de percentil_95 em 1500 ms".
+ * <p>
+ * As métricas do portfólio são avaliadas uma vez com o modelo da calculadora, guardando a
+ * classificação de cada critério de cada aplicação, as pontuações por dimensão, a classificação,
+ * o status e os vetos. Cada {@link CenarioSensibilidade} reaproveita esse estado: apenas os
+ * critérios com limiares alterados são reclassificados, apenas as dimensões com critérios
+ * reclassificados ou pesos de critério alterados são repontuadas, e as demais dimensões entram
+ * na pontuação total com as pontuações já calculadas. Os vetos não dependem de pesos e
+ * limiares e também são reaproveitados. Os resultados são idênticos aos de
+ * {@link CalculadoraRisco#avaliarLote(double[][], int)} com o modelo do cenário
+ * ({@link CenarioSensibilidade#aplicar(ModeloCompilado)}).
+ * <p>
+ * Os cenários são avaliados em paralelo em um ForkJoinPool; a análise não é alterada pelos
+ * cenários e pode ser reutilizada e compartilhada entre threads.
+ */
+public class AnaliseSensibilidade {
+
+    private final ModeloCompilado modelo;
+    private final ForkJoinPool pool;
+    private final double[][] colunas;
+    private final int quantidade;
+
+    // Estado da avaliação com o modelo de partida
+    private final byte[][] classificacoesCriterios;
+    private final double[][] pontuacoesDimensoes;
+    private final byte[] classificacoes;
+    private final byte[] status;
+    private final int[] vetos;
+
+    /**
+     * Construtor que utiliza o ForkJoinPool comum da JVM
+     * @param calculadora A calculadora com o modelo de partida
+     * @param colunas As métricas do portfólio, uma coluna por critério (null ou NaN = ausente)
+     * @param quantidade O número de aplicações
+     */
+    public AnaliseSensibilidade(CalculadoraRisco calculadora, double[][] colunas, int quantidade) {
+        this(calculadora, colunas, quantidade, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Construtor que utiliza um ForkJoinPool dedicado
+     * @param calculadora A calculadora com o modelo de partida
+     * @param colunas As métricas do portfólio, uma coluna por critério (null ou NaN = ausente);
+     *                não são copiadas e não devem ser alteradas durante a análise
+     * @param quantidade O número de aplicações
+     * @param pool O pool usado para avaliar os cenários
+     */
+    public AnaliseSensibilidade(CalculadoraRisco calculadora, double[][] colunas, int quantidade,
+                                ForkJoinPool pool) {
+        ResultadoLote base = calculadora.avaliarLote(colunas, quantidade);
+        this.modelo = calculadora.getModelo();
+        this.pool = pool;
+        this.colunas = colunas;
+        this.quantidade = quantidade;
+        this.pontuacoesDimensoes = base.getPontuacoesDimensoes();
+        this.classificacoes = base.getClassificacoes();
+        this.vetos = base.getVetos();
+        this.status = new byte[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            status[i] = (byte) StatusAvaliacao.de(ClassificacaoRisco.doOrdinal(classificacoes[i]), vetos[i]).ordinal();
+        }
+
+        // Classificação de cada critério (0 = ausente), como em ModeloCompilado.pontuarLote
+        this.classificacoesCriterios = new byte[modelo.getNumCriterios()][];
+        for (int c = 0; c < classificacoesCriterios.length; c++) {
+            byte[] classificacoesCriterio = new byte[quantidade];
+            if (colunas[c] != null) {
+                modelo.classificarColuna(c, colunas[c], quantidade, classificacoesCriterio);
+            }
+            classificacoesCriterios[c] = classificacoesCriterio;
+        }
+    }
+
+    /**
+     * Avalia os cenários em paralelo
+     * @param cenarios Os cenários
+     * @return os resultados, na ordem dos cenários
+     * @throws IllegalArgumentException se algum cenário alterar dimensões ou critérios inexistentes
+     */
+    public List<ResultadoCenario> avaliar(List<CenarioSensibilidade> cenarios) {
+        // Resolvidos antes do paralelismo, para que erros de nomes cheguem ao chamador sem embrulho
+        List<Callable<ResultadoCenario>> tarefas = new ArrayList<>(cenarios.size());
+        for (CenarioSensibilidade cenario : cenarios) {
+            double[][] parametros = cenario.resolver(modelo);
+            tarefas.add(() -> avaliar(cenario.getNome(), parametros));
+        }
+
+        List<ResultadoCenario> resultados = new ArrayList<>(tarefas.size());
+        try {
+            for (Future<ResultadoCenario> futuro : pool.invokeAll(tarefas)) {
+                resultados.add(futuro.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Análise de sensibilidade interrompida", e);
+        } catch (ExecutionException e) {
+            throw ExcecoesTarefas.desembrulhar(e, IllegalStateException.class, IllegalStateException::new);
+        }
+        return Collections.unmodifiableList(resultados);
+    }
+
+    /**
+     * Avalia um único cenário na thread atual
+     * @param cenario O cenário
+     * @return o resultado do cenário
+     */
+    public ResultadoCenario avaliar(CenarioSensibilidade cenario) {
+        return avaliar(cenario.getNome(), cenario.resolver(modelo));
+    }
+
+    /**
+     * Retorna o número de aplicações analisadas
+     * @return o número de aplicações
+     */
+    public int getQuantidade() {
+        return quantidade;
+    }
+
+    /**
+     * Retorna o status de uma aplicação com o modelo de partida
+     * @param aplicacao A posição da aplicação nas colunas
+     * @return o status da avaliação
+     */
+    public StatusAvaliacao getStatusBase(int aplicacao) {
+        return StatusAvaliacao.doOrdinal(status[aplicacao]);
+    }
+
+    private ResultadoCenario avaliar(String nome, double[][] parametros) {
+        double[] pesosDimensoes = parametros[CenarioSensibilidade.PESO_DIMENSAO];
+        double[] pesosCriterios = parametros[CenarioSensibilidade.PESO_CRITERIO];
+        double[] limiaresBaixo = parametros[CenarioSensibilidade.LIMIAR_BAIXO];
+        double[] limiaresMedio = parametros[CenarioSensibilidade.LIMIAR_MEDIO];
+
+        double[] totais = new double[quantidade];
+        double[] pontuacoes = null;
+        double[] pesosAcumulados = null;
+        byte[] reclassificacoes = null;
+        int criteriosReclassificados = 0;
+        int dimensoesRepontuadas = 0;
+
+        for (int d = 0; d < modelo.getNumDimensoes(); d++) {
+            boolean repontuar = false;
+            for (int c = modelo.inicioDimensao(d); c < modelo.fimDimensao(d) && !repontuar; c++) {
+                repontuar = pesosCriterios[c] != modelo.getPesoCriterio(c) || limiaresAlterados(parametros, c);
+            }
+
+            double[] pontuacoesDimensao = pontuacoesDimensoes[d];
+            if (repontuar) {
+                if (pontuacoes == null) {
+                    pontuacoes = new double[quantidade];
+                    pesosAcumulados = new double[quantidade];
+                    reclassificacoes = new byte[quantidade];
+                }
+                Arrays.fill(pontuacoes, 0.0);
+                Arrays.fill(pesosAcumulados, 0.0);
+                for (int c = modelo.inicioDimensao(d); c < modelo.fimDimensao(d); c++) {
+                    byte[] classificacoesCriterio = classificacoesCriterios[c];
+                    if (limiaresAlterados(parametros, c) && colunas[c] != null) {
+                        double sinal = modelo.isInvertido(c) ? -1.0 : 1.0;
+                        double limiteBaixo = sinal * limiaresBaixo[c];
+                        ModeloCompilado.classificar(colunas[c], quantidade, sinal, limiteBaixo,
+                                                    Math.max(limiteBaixo, sinal * limiaresMedio[c]), reclassificacoes);
+                        classificacoesCriterio = reclassificacoes;
+                        criteriosReclassificados++;
+                    }
+                    // Mesma ordem de somas de ModeloCompilado.pontuarLote
+                    double peso = pesosCriterios[c];
+                    for (int i = 0; i < quantidade; i++) {
+                        int classificacao = classificacoesCriterio[i];
+                        double pesoPresente = classificacao != 0 ? peso : 0.0;
+                        pontuacoes[i] += classificacao * pesoPresente;
+                        pesosAcumulados[i] += pesoPresente;
+                    }
+                }
+                for (int i = 0; i < quantidade; i++) {
+                    double pesoTotal = pesosAcumulados[i];
+                    pontuacoes[i] = pesoTotal == 0 ? 0 : pontuacoes[i] / pesoTotal;
+                }
+                pontuacoesDimensao = pontuacoes;
+                dimensoesRepontuadas++;
+            }
+
+            double pesoDimensao = pesosDimensoes[d];
+            for (int i = 0; i < quantidade; i++) {
+                totais[i] += pontuacoesDimensao[i] * pesoDimensao;
+            }
+        }
+
+        int[][] transicoesStatus = new int[StatusAvaliacao.values().length][StatusAvaliacao.values().length];
+        int[][] transicoesClassificacao = new int[ClassificacaoRisco.values().length][ClassificacaoRisco.values().length];
+        int[] alteradas = new int[quantidade];
+        int numAlteradas = 0;
+        for (int i = 0; i < quantidade; i++) {
+            double total = totais[i];
+            int classificacao = (total > ClassificacaoRisco.LIMITE_VERDE ? 1 : 0)
+                              + (total > ClassificacaoRisco.LIMITE_AMARELO ? 1 : 0);
+            int novoStatus = StatusAvaliacao.de(ClassificacaoRisco.doOrdinal(classificacao), vetos[i]).ordinal();
+            transicoesStatus[status[i]][novoStatus]++;
+            transicoesClassificacao[classificacoes[i]][classificacao]++;
+            if (novoStatus != status[i]) {
+                alteradas[numAlteradas++] = i;
+            }
+        }
+        return new ResultadoCenario(nome, totais, transicoesStatus, transicoesClassificacao,
+                                    Arrays.copyOf(alteradas, numAlteradas),
+                                    criteriosReclassificados, dimensoesRepontuadas);
+    }
+
+    private boolean limiaresAlterados(double[][] parametros, int criterio) {
+        return parametros[CenarioSensibilidade.LIMIAR_BAIXO][criterio] != modelo.getLimiarBaixo(criterio)
+            || parametros[CenarioSensibilidade.LIMIAR_MEDIO][criterio] != modelo.getLimiarMedio(criterio);
+    }
+
+    /**
+     * Resultado de um cenário: as transições de status e de classificação em relação ao
+     * modelo de partida e as aplicações cujo status mudou
+     */
+    public static final class ResultadoCenario {
+        private final String nome;
+        private final double[] pontuacoesTotais;
+        private final int[][] transicoesStatus;
+        private final int[][] transicoesClassificacao;
+        private final int[] alteradas;
+        private final int criteriosReclassificados;
+        private final int dimensoesRepontuadas;
+
+        private ResultadoCenario(String nome, double[] pontuacoesTotais, int[][] transicoesStatus,
+                                 int[][] transicoesClassificacao, int[] alteradas,
+                                 int criteriosReclassificados, int dimensoesRepontuadas) {
+            this.nome = nome;
+            this.pontuacoesTotais = pontuacoesTotais;
+            this.transicoesStatus = transicoesStatus;
+            this.transicoesClassificacao = transicoesClassificacao;
+            this.alteradas = alteradas;
+            this.criteriosReclassificados = criteriosReclassificados;
+            this.dimensoesRepontuadas = dimensoesRepontuadas;
+        }
+
+        /**
+         * Retorna o nome do cenário
+         * @return o nome
+         */
+        public String getNome() {
+            return nome;
+        }
+
+        /**
+         * Retorna o número de aplicações que passam de um status a outro
+         * @param de O status com o modelo de partida
+         * @param para O status no cenário
+         * @return o número de aplicações
+         */
+        public int getTransicoes(StatusAvaliacao de, StatusAvaliacao para) {
+            return transicoesStatus[de.ordinal()][para.ordinal()];
+        }
+
+        /**
+         * Retorna o número de aplicações que passam de uma classificação a outra
+         * @param de A classificação com o modelo de partida
+         * @param para A classificação no cenário
+         * @return o número de aplicações
+         */
+        public int getTransicoes(ClassificacaoRisco de, ClassificacaoRisco para) {
+            return transicoesClassificacao[de.ordinal()][para.ordinal()];
+        }
+
+        /**
+         * Retorna o número de aplicações com um status no cenário
+         * @param status O status
+         * @return o número de aplicações
+         */
+        public int getQuantidade(StatusAvaliacao status) {
+            int total = 0;
+            for (int[] linha : transicoesStatus) {
+                total += linha[status.ordinal()];
+            }
+            return total;
+        }
+
+        /**
+         * Retorna o número de aplicações com uma classificação no cenário
+         * @param classificacao A classificação
+         * @return o número de aplicações
+         */
+        public int getQuantidade(ClassificacaoRisco classificacao) {
+            int total = 0;
+            for (int[] linha : transicoesClassificacao) {
+                total += linha[classificacao.ordinal()];
+            }
+            return total;
+        }
+
+        /**
+         * Retorna as posições das aplicações cujo status mudou no cenário
+         * @return as posições, em ordem crescente (cópia)
+         */
+        public int[] getAlteradas() {
+            return alteradas.clone();
+        }
+
+        /**
+         * Retorna a pontuação total de uma aplicação no cenário
+         * @param aplicacao A posição da aplicação nas colunas
+         * @return a pontuação total de risco
+         */
+        public double getPontuacaoTotal(int aplicacao) {
+            return pontuacoesTotais[aplicacao];
+        }
+
+        /**
+         * Retorna o número de critérios reclassificados por terem limiares alterados
+         * @return o número de critérios
+         */
+        public int getCriteriosReclassificados() {
+            return criteriosReclassificados;
+        }
+
+        /**
+         * Retorna o número de dimensões repontuadas; as demais reaproveitam as pontuações do
+         * modelo de partida
+         * @return o número de dimensões
+         */
+        public int getDimensoesRepontuadas() {
+            return dimensoesRepontuadas;
+        }
+    }
+}
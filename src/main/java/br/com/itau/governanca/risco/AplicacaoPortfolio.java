@@ -0,0 +1,48 @@
+package br.com.itau.governanca.risco;
+
+import java.util.Map;
+
+/**
+ * Representa uma aplicação (e versão) do portfólio com as métricas a serem avaliadas
+ */
+public class AplicacaoPortfolio {
+    private final String nomeAplicacao;
+    private final String versao;
+    private final Map<String, Map<String, Double>> dados;
+    
+    /**
+     * Construtor da aplicação do portfólio
+     * @param nomeAplicacao Nome da aplicação
+     * @param versao Versão da aplicação
+     * @param dados Os valores para todas as dimensões e critérios
+     */
+    public AplicacaoPortfolio(String nomeAplicacao, String versao, Map<String, Map<String, Double>> dados) {
+        this.nomeAplicacao = nomeAplicacao;
+        this.versao = versao;
+        this.dados = dados;
+    }
+    
+    /**
+     * Retorna o nome da aplicação
+     * @return o nome da aplicação
+     */
+    public String getNomeAplicacao() {
+        return nomeAplicacao;
+    }
+    
+    /**
+     * Retorna a versão da aplicação
+     * @return a versão da aplicação
+     */
+    public String getVersao() {
+        return versao;
+    }
+    
+    /**
+     * Retorna os dados de avaliação da aplicação
+     * @return os valores por dimensão e critério
+     */
+    public Map<String, Map<String, Double>> getDados() {
+        return dados;
+    }
+}
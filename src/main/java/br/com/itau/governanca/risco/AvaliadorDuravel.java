@@ -0,0 +1,802 @@
+package br.com.itau.governanca.risco;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * {@link AvaliadorIncremental} com estado durável, para que um reinício não precise reconstruir
+ * o estado de todas as aplicações a partir dos sistemas de origem.
+ * <p>
+ * Cada atualização de critério, carga, remoção e mudança de status é anotada em um diário
+ * somente-anexação (write-ahead log) e só é confirmada ao chamador depois de gravada em disco.
+ * A gravação é feita em grupo: as threads anotam seus registros em um buffer em memória e a
+ * primeira que pede a confirmação grava, com um único {@code force}, tudo o que foi anotado até
+ * então; as que chegam durante a gravação encontram seus registros já confirmados ou formam o
+ * lote seguinte.
+ * <p>
+ * A cada {@link #REGISTROS_ENTRE_CHECKPOINTS} registros (ou em {@link #checkpoint()}) o estado
+ * completo é gravado em um checkpoint compacto, o diário passa para um novo segmento e os
+ * segmentos anteriores são descartados. Na abertura, o checkpoint é carregado com uma única
+ * leitura sequencial e apenas a cauda do diário é reproduzida, de modo que o tempo de
+ * recuperação é limitado pelo intervalo entre checkpoints e não pelo tamanho do histórico. Um
+ * registro parcial deixado por uma gravação interrompida é descartado.
+ * <p>
+ * Layout de um segmento do diário, diario-&lt;primeira sequência&gt;.log (little-endian):
+ * <pre>
+ *   0  int   mágico "QRDI"
+ *   4  int   versão do formato
+ *   8  long  assinatura do modelo
+ *  16  int   número de critérios
+ *  20  int   reservado
+ *  24  registros: int tamanho, int CRC32, long sequência, byte tipo, short tamanho do nome,
+ *      nome (UTF-8) e os campos do tipo:
+ *        atualização: int critério, double valor
+ *        carga:       double[C] valores
+ *        remoção:     (nenhum)
+ *        transição:   byte status anterior, byte status atual, double pontuação total, int vetos
+ * </pre>
+ * O checkpoint, checkpoint-&lt;sequência&gt;.ckpt, tem um cabeçalho de 32 bytes (mágico "QRCK",
+ * versão, assinatura do modelo, última sequência incluída, quantidade de aplicações e número de
+ * critérios), o nome e os valores de cada aplicação e um CRC32 do conteúdo.
+ * <p>
+ * Instâncias podem ser usadas por várias threads, mas a anotação e a aplicação ao estado em
+ * memória são serializadas no monitor da instância, para que a ordem do diário seja a ordem das
+ * atualizações; só a espera pela gravação em disco acontece fora dele, o que permite agrupar as
+ * gravações. O {@link AvaliadorIncremental.OuvinteStatus} é chamado sob essa serialização, não
+ * deve atualizar este avaliador e não é chamado durante a recuperação.
+ * <p>
+ * Um checkpoint automático que falha não desfaz a atualização que o disparou, já gravada no
+ * diário: o erro é registrado no log, fica disponível em {@link #getUltimoErroCheckpoint()} e o
+ * checkpoint é tentado de novo na atualização seguinte.
+ */
+public class AvaliadorDuravel implements Closeable {
+
+    /** Número padrão de registros do diário entre checkpoints automáticos */
+    public static final int REGISTROS_ENTRE_CHECKPOINTS = 100_000;
+
+    private static final int MAGICO_DIARIO = 0x51524449; // "QRDI"
+    private static final int MAGICO_CHECKPOINT = 0x5152434B; // "QRCK"
+    private static final int VERSAO_FORMATO = 1;
+    private static final int TAMANHO_CABECALHO_DIARIO = 24;
+    private static final int TAMANHO_CABECALHO_CHECKPOINT = 32;
+    // Tamanho e CRC32 que antecedem cada registro
+    private static final int TAMANHO_PREFIXO = 8;
+    // Sequência, tipo e tamanho do nome
+    private static final int TAMANHO_FIXO = 11;
+    private static final int TAMANHO_MAXIMO_NOME = 0xFFFF;
+
+    private static final byte TIPO_ATUALIZACAO = 1;
+    private static final byte TIPO_CARGA = 2;
+    private static final byte TIPO_REMOCAO = 3;
+    private static final byte TIPO_TRANSICAO = 4;
+
+    private static final Logger LOG = Logger.getLogger(AvaliadorDuravel.class.getName());
+
+    private static final String PREFIXO_DIARIO = "diario-";
+    private static final String SUFIXO_DIARIO = ".log";
+    private static final String PREFIXO_CHECKPOINT = "checkpoint-";
+    private static final String SUFIXO_CHECKPOINT = ".ckpt";
+
+    private final Path diretorio;
+    private final ModeloCompilado modelo;
+    private final AvaliadorIncremental avaliador;
+    private final AvaliadorIncremental.OuvinteStatus ouvinte;
+    private final int registrosEntreCheckpoints;
+    private final CRC32 crc = new CRC32();
+
+    // Ordem de aquisição: checkpoints, gravacao e o monitor da instância
+    private final Object checkpoints = new Object();
+    private final Object gravacao = new Object();
+
+    // Protegidos pelo monitor da instância: registros anotados e ainda não gravados
+    private ByteBuffer pendente = novoBuffer(64 * 1024);
+    private ByteBuffer reserva = novoBuffer(64 * 1024);
+    private int inicioRegistro;
+    private long sequencia;
+    private boolean recuperando;
+    private boolean fechado;
+
+    // Protegidos por 'gravacao'
+    private FileChannel segmento;
+    private long posicaoSegmento;
+
+    private volatile long sequenciaDuravel;
+    private volatile long sequenciaCheckpoint;
+    private volatile long sincronizacoes;
+    private volatile boolean falha;
+    private volatile Exception ultimoErroCheckpoint;
+    private long registrosReproduzidos;
+    private final long tempoRecuperacaoNanos;
+
+    /**
+     * Abre (ou cria) o estado durável em um diretório, com checkpoints a cada
+     * {@link #REGISTROS_ENTRE_CHECKPOINTS} registros
+     * @param diretorio O diretório do diário e dos checkpoints
+     * @param calculadora A calculadora com o modelo e os vetos
+     * @param ouvinte O ouvinte das mudanças de status (pode ser null)
+     * @throws IOException se houver erro de acesso aos arquivos
+     * @throws IllegalStateException se o diário ou o checkpoint forem inválidos ou de outro modelo
+     */
+    public AvaliadorDuravel(Path diretorio, CalculadoraRisco calculadora, AvaliadorIncremental.OuvinteStatus ouvinte)
+            throws IOException {
+        this(diretorio, calculadora, ouvinte, REGISTROS_ENTRE_CHECKPOINTS);
+    }
+
+    /**
+     * Abre (ou cria) o estado durável em um diretório
+     * @param diretorio O diretório do diário e dos checkpoints
+     * @param calculadora A calculadora com o modelo e os vetos
+     * @param ouvinte O ouvinte das mudanças de status (pode ser null)
+     * @param registrosEntreCheckpoints O número de registros do diário entre checkpoints
+     *        automáticos (0 desativa os checkpoints automáticos)
+     * @throws IOException se houver erro de acesso aos arquivos
+     * @throws IllegalStateException se o diário ou o checkpoint forem inválidos ou de outro modelo
+     */
+    public AvaliadorDuravel(Path diretorio, CalculadoraRisco calculadora, AvaliadorIncremental.OuvinteStatus ouvinte,
+                            int registrosEntreCheckpoints) throws IOException {
+        if (registrosEntreCheckpoints < 0) {
+            throw new IllegalArgumentException("Intervalo entre checkpoints negativo: " + registrosEntreCheckpoints);
+        }
+        this.diretorio = diretorio;
+        this.modelo = calculadora.getModelo();
+        this.ouvinte = ouvinte;
+        this.registrosEntreCheckpoints = registrosEntreCheckpoints;
+        this.avaliador = new AvaliadorIncremental(calculadora, this::statusAlterado);
+
+        long inicio = System.nanoTime();
+        Files.createDirectories(diretorio);
+        recuperar();
+        this.tempoRecuperacaoNanos = System.nanoTime() - inicio;
+    }
+
+    /**
+     * Atualiza o valor de um critério de uma aplicação e aguarda a gravação no diário
+     * @param nomeAplicacao O nome da aplicação
+     * @param dimensao A dimensão do critério
+     * @param criterio O nome do critério
+     * @param valor O novo valor (NaN remove o critério)
+     * @return O status da aplicação após a atualização
+     * @throws IOException se houver erro de gravação no diário
+     */
+    public StatusAvaliacao atualizar(String nomeAplicacao, String dimensao, String criterio, double valor)
+            throws IOException {
+        return atualizar(nomeAplicacao, modelo.indiceCriterioObrigatorio(dimensao, criterio), valor);
+    }
+
+    /**
+     * Atualiza o valor de um critério de uma aplicação pelo ordinal do critério e aguarda a
+     * gravação no diário
+     * @param nomeAplicacao O nome da aplicação
+     * @param criterio O ordinal do critério no modelo
+     * @param valor O novo valor (NaN remove o critério)
+     * @return O status da aplicação após a atualização
+     * @throws IOException se houver erro de gravação no diário
+     */
+    public StatusAvaliacao atualizar(String nomeAplicacao, int criterio, double valor) throws IOException {
+        if (criterio < 0 || criterio >= modelo.getNumCriterios()) {
+            throw new IllegalArgumentException("Critério fora do modelo: " + criterio);
+        }
+        byte[] nome = codificar(nomeAplicacao);
+        StatusAvaliacao status;
+        long ate;
+        synchronized (this) {
+            verificarAberto();
+            iniciarRegistro(TIPO_ATUALIZACAO, nome, 12).putInt(criterio).putDouble(valor);
+            concluirRegistro();
+            status = avaliador.atualizar(nomeAplicacao, criterio, valor);
+            ate = sequencia;
+        }
+        confirmar(ate);
+        return status;
+    }
+
+    /**
+     * Substitui todos os valores de uma aplicação e aguarda a gravação no diário
+     * @param nomeAplicacao O nome da aplicação
+     * @param valores Os valores de todos os critérios do modelo (NaN para ausentes)
+     * @return O status da aplicação após a carga
+     * @throws IOException se houver erro de gravação no diário
+     */
+    public StatusAvaliacao carregar(String nomeAplicacao, double[] valores) throws IOException {
+        if (valores.length != modelo.getNumCriterios()) {
+            throw new IllegalArgumentException("Esperados " + modelo.getNumCriterios()
+                + " valores de critérios, recebidos " + valores.length);
+        }
+        byte[] nome = codificar(nomeAplicacao);
+        StatusAvaliacao status;
+        long ate;
+        synchronized (this) {
+            verificarAberto();
+            ByteBuffer registro = iniciarRegistro(TIPO_CARGA, nome, 8 * valores.length);
+            for (double valor : valores) {
+                registro.putDouble(valor);
+            }
+            concluirRegistro();
+            status = avaliador.carregar(nomeAplicacao, valores);
+            ate = sequencia;
+        }
+        confirmar(ate);
+        return status;
+    }
+
+    /**
+     * Remove o estado de uma aplicação e aguarda a gravação no diário
+     * @param nomeAplicacao O nome da aplicação
+     * @return true se a aplicação era conhecida
+     * @throws IOException se houver erro de gravação no diário
+     */
+    public boolean remover(String nomeAplicacao) throws IOException {
+        byte[] nome = codificar(nomeAplicacao);
+        boolean removida;
+        long ate;
+        synchronized (this) {
+            verificarAberto();
+            iniciarRegistro(TIPO_REMOCAO, nome, 0);
+            concluirRegistro();
+            removida = avaliador.remover(nomeAplicacao);
+            ate = sequencia;
+        }
+        confirmar(ate);
+        return removida;
+    }
+
+    /**
+     * Grava o estado completo em um novo checkpoint e descarta os segmentos do diário e o
+     * checkpoint anteriores
+     * @return a última sequência do diário incluída no checkpoint
+     * @throws IOException se houver erro de gravação
+     */
+    public long checkpoint() throws IOException {
+        return checkpoint(0);
+    }
+
+    /**
+     * Grava em disco os registros anotados e ainda não gravados
+     * @throws IOException se houver erro de gravação no diário
+     */
+    public void sincronizar() throws IOException {
+        long ate;
+        synchronized (this) {
+            verificarAberto();
+            ate = sequencia;
+        }
+        gravarAte(ate);
+    }
+
+    public StatusAvaliacao getStatus(String nomeAplicacao) {
+        return avaliador.getStatus(nomeAplicacao);
+    }
+
+    public double getPontuacaoTotal(String nomeAplicacao) {
+        return avaliador.getPontuacaoTotal(nomeAplicacao);
+    }
+
+    public double getPontuacaoDimensao(String nomeAplicacao, int dimensao) {
+        return avaliador.getPontuacaoDimensao(nomeAplicacao, dimensao);
+    }
+
+    public int getVetos(String nomeAplicacao) {
+        return avaliador.getVetos(nomeAplicacao);
+    }
+
+    public double[] getValores(String nomeAplicacao) {
+        return avaliador.getValores(nomeAplicacao);
+    }
+
+    public int getQuantidadeAplicacoes() {
+        return avaliador.getQuantidadeAplicacoes();
+    }
+
+    /**
+     * Retorna a sequência do último registro anotado no diário
+     * @return a última sequência, 0 se o diário estiver vazio
+     */
+    public synchronized long getSequencia() {
+        return sequencia;
+    }
+
+    /**
+     * Retorna a sequência do último registro gravado em disco
+     * @return a última sequência durável
+     */
+    public long getSequenciaDuravel() {
+        return sequenciaDuravel;
+    }
+
+    /**
+     * Retorna a última sequência incluída no checkpoint atual
+     * @return a sequência do checkpoint, 0 se não houver checkpoint
+     */
+    public long getSequenciaCheckpoint() {
+        return sequenciaCheckpoint;
+    }
+
+    /**
+     * Retorna o número de gravações forçadas em disco (cada uma confirma um lote de registros)
+     * @return o número de chamadas a force
+     */
+    public long getSincronizacoes() {
+        return sincronizacoes;
+    }
+
+    /**
+     * Retorna o erro do último checkpoint automático, se ele falhou
+     * @return o erro, ou null se o último checkpoint automático foi bem-sucedido
+     */
+    public Exception getUltimoErroCheckpoint() {
+        return ultimoErroCheckpoint;
+    }
+
+    /**
+     * Retorna o número de registros do diário reproduzidos na abertura, após o checkpoint
+     * @return o número de registros reproduzidos
+     */
+    public long getRegistrosReproduzidos() {
+        return registrosReproduzidos;
+    }
+
+    /**
+     * Retorna o tempo gasto na abertura com a carga do checkpoint e a reprodução do diário
+     * @return o tempo de recuperação em nanossegundos
+     */
+    public long getTempoRecuperacaoNanos() {
+        return tempoRecuperacaoNanos;
+    }
+
+    /**
+     * Grava os registros pendentes e fecha o diário
+     * @throws IOException se houver erro de gravação
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (checkpoints) {
+            synchronized (gravacao) {
+                synchronized (this) {
+                    if (fechado) {
+                        return;
+                    }
+                    fechado = true;
+                }
+                try {
+                    if (!falha) {
+                        gravarPendentes();
+                    }
+                } finally {
+                    segmento.close();
+                }
+            }
+        }
+    }
+
+    // Chamado pelo AvaliadorIncremental sob o monitor da instância, durante a atualização
+    private void statusAlterado(String nomeAplicacao, StatusAvaliacao anterior, StatusAvaliacao atual,
+                                double pontuacaoTotal, int vetos) {
+        if (recuperando) {
+            return;
+        }
+        iniciarRegistro(TIPO_TRANSICAO, codificar(nomeAplicacao), 14).put((byte) anterior.ordinal())
+            .put((byte) atual.ordinal()).putDouble(pontuacaoTotal).putInt(vetos);
+        concluirRegistro();
+        if (ouvinte != null) {
+            ouvinte.statusAlterado(nomeAplicacao, anterior, atual, pontuacaoTotal, vetos);
+        }
+    }
+
+    private void verificarAberto() {
+        if (fechado) {
+            throw new IllegalStateException("Avaliador durável fechado: " + diretorio);
+        }
+        if (falha) {
+            throw new IllegalStateException("Diário indisponível após falha de gravação: " + diretorio);
+        }
+    }
+
+    // Reserva um registro no buffer pendente e escreve o cabeçalho; os campos são escritos pelo chamador
+    private ByteBuffer iniciarRegistro(byte tipo, byte[] nome, int tamanhoCampos) {
+        int tamanho = TAMANHO_FIXO + nome.length + tamanhoCampos;
+        if (pendente.remaining() < TAMANHO_PREFIXO + tamanho) {
+            ByteBuffer maior = novoBuffer(Math.max(pendente.capacity() * 2, pendente.position() + TAMANHO_PREFIXO + tamanho));
+            pendente.flip();
+            pendente = maior.put(pendente);
+        }
+        inicioRegistro = pendente.position();
+        return pendente.putInt(tamanho).putInt(0).putLong(++sequencia).put(tipo).putShort((short) nome.length).put(nome);
+    }
+
+    private void concluirRegistro() {
+        int inicio = inicioRegistro + TAMANHO_PREFIXO;
+        crc.reset();
+        crc.update(pendente.array(), inicio, pendente.position() - inicio);
+        pendente.putInt(inicioRegistro + 4, (int) crc.getValue());
+    }
+
+    // Confirma os registros até 'ate' e faz o checkpoint automático quando devido
+    private void confirmar(long ate) throws IOException {
+        gravarAte(ate);
+        if (registrosEntreCheckpoints > 0 && ate - sequenciaCheckpoint >= registrosEntreCheckpoints) {
+            try {
+                checkpoint(registrosEntreCheckpoints);
+                ultimoErroCheckpoint = null;
+            } catch (IOException | RuntimeException e) {
+                // A atualização já é durável; o chamador não deve vê-la como falha
+                ultimoErroCheckpoint = e;
+                LOG.log(Level.WARNING, "Falha no checkpoint automático em " + diretorio, e);
+            }
+        }
+    }
+
+    private void gravarAte(long ate) throws IOException {
+        synchronized (gravacao) {
+            // Outra thread pode ter gravado estes registros no seu lote
+            if (sequenciaDuravel < ate) {
+                gravarPendentes();
+            }
+        }
+    }
+
+    // Grava e força em disco todos os registros anotados; chamado com 'gravacao'
+    private void gravarPendentes() throws IOException {
+        ByteBuffer lote;
+        long ate;
+        synchronized (this) {
+            lote = trocarPendentes();
+            ate = sequencia;
+        }
+        gravar(lote, ate);
+    }
+
+    // Troca o buffer pendente pelo reserva e retorna o lote a gravar; chamado com o monitor da instância
+    private ByteBuffer trocarPendentes() {
+        ByteBuffer lote = pendente;
+        pendente = reserva;
+        reserva = lote;
+        return lote;
+    }
+
+    // Chamado com 'gravacao'
+    private void gravar(ByteBuffer lote, long ate) throws IOException {
+        if (falha) {
+            throw new IllegalStateException("Diário indisponível após falha de gravação: " + diretorio);
+        }
+        if (lote.position() == 0) {
+            return;
+        }
+        lote.flip();
+        try {
+            while (lote.hasRemaining()) {
+                posicaoSegmento += segmento.write(lote, posicaoSegmento);
+            }
+            segmento.force(false);
+        } catch (IOException e) {
+            // Os registros do lote já foram aplicados em memória; o estado não é mais confiável
+            falha = true;
+            throw e;
+        } finally {
+            lote.clear();
+        }
+        sincronizacoes++;
+        sequenciaDuravel = ate;
+    }
+
+    // Grava um checkpoint se houver pelo menos 'minimoRegistros' registros desde o anterior
+    private long checkpoint(long minimoRegistros) throws IOException {
+        synchronized (checkpoints) {
+            String[] nomes;
+            double[][] valores;
+            long incluida;
+            synchronized (gravacao) {
+                ByteBuffer lote;
+                synchronized (this) {
+                    if (minimoRegistros > 0 && (fechado || sequencia - sequenciaCheckpoint < minimoRegistros)) {
+                        return sequenciaCheckpoint;
+                    }
+                    verificarAberto();
+                    nomes = avaliador.getAplicacoes().toArray(new String[0]);
+                    valores = new double[nomes.length][];
+                    for (int i = 0; i < nomes.length; i++) {
+                        valores[i] = avaliador.getValores(nomes[i]);
+                    }
+                    // O diário passa para um novo segmento exatamente após o último registro do checkpoint
+                    lote = trocarPendentes();
+                    incluida = sequencia;
+                }
+                gravar(lote, incluida);
+                abrirSegmento(incluida + 1);
+            }
+
+            gravarCheckpoint(incluida, nomes, valores);
+            sequenciaCheckpoint = incluida;
+            descartarAnteriores(incluida);
+            return incluida;
+        }
+    }
+
+    private void gravarCheckpoint(long incluida, String[] nomes, double[][] valores) throws IOException {
+        int numCriterios = modelo.getNumCriterios();
+        byte[][] codificados = new byte[nomes.length][];
+        long tamanho = TAMANHO_CABECALHO_CHECKPOINT + 4;
+        for (int i = 0; i < nomes.length; i++) {
+            codificados[i] = codificar(nomes[i]);
+            tamanho += 2 + codificados[i].length + 8L * numCriterios;
+        }
+        if (tamanho > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Estado grande demais para um checkpoint: " + nomes.length + " aplicações");
+        }
+
+        ByteBuffer conteudo = novoBuffer((int) tamanho);
+        conteudo.putInt(MAGICO_CHECKPOINT).putInt(VERSAO_FORMATO).putLong(modelo.getAssinatura())
+                .putLong(incluida).putInt(nomes.length).putInt(numCriterios);
+        for (int i = 0; i < nomes.length; i++) {
+            conteudo.putShort((short) codificados[i].length).put(codificados[i]);
+            for (int c = 0; c < numCriterios; c++) {
+                conteudo.putDouble(valores[i][c]);
+            }
+        }
+        CRC32 crcCheckpoint = new CRC32();
+        crcCheckpoint.update(conteudo.array(), 0, conteudo.position());
+        conteudo.putInt((int) crcCheckpoint.getValue());
+        conteudo.flip();
+
+        // Gravado ao lado e movido, de modo que uma gravação interrompida não deixa um checkpoint parcial
+        Path arquivo = diretorio.resolve(nomeArquivo(PREFIXO_CHECKPOINT, incluida, SUFIXO_CHECKPOINT));
+        Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+        try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                  StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (conteudo.hasRemaining()) {
+                canal.write(conteudo);
+            }
+            canal.force(true);
+        }
+        Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        sincronizarDiretorio();
+    }
+
+    // Remove os checkpoints anteriores e os segmentos cujos registros estão todos no checkpoint
+    private void descartarAnteriores(long incluida) throws IOException {
+        for (Path arquivo : listar(PREFIXO_CHECKPOINT, SUFIXO_CHECKPOINT)) {
+            if (sequenciaArquivo(arquivo, PREFIXO_CHECKPOINT, SUFIXO_CHECKPOINT) < incluida) {
+                Files.delete(arquivo);
+            }
+        }
+        List<Path> segmentos = listar(PREFIXO_DIARIO, SUFIXO_DIARIO);
+        for (int i = 0; i + 1 < segmentos.size(); i++) {
+            if (sequenciaArquivo(segmentos.get(i + 1), PREFIXO_DIARIO, SUFIXO_DIARIO) <= incluida + 1) {
+                Files.delete(segmentos.get(i));
+            }
+        }
+        sincronizarDiretorio();
+    }
+
+    // Cria um segmento do diário e passa a anexar nele; chamado com 'gravacao'
+    private void abrirSegmento(long primeira) throws IOException {
+        Path arquivo = diretorio.resolve(nomeArquivo(PREFIXO_DIARIO, primeira, SUFIXO_DIARIO));
+        FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                             StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer cabecalho = novoBuffer(TAMANHO_CABECALHO_DIARIO);
+        cabecalho.putInt(MAGICO_DIARIO).putInt(VERSAO_FORMATO).putLong(modelo.getAssinatura())
+                 .putInt(modelo.getNumCriterios()).putInt(0);
+        cabecalho.flip();
+        try {
+            while (cabecalho.hasRemaining()) {
+                canal.write(cabecalho, cabecalho.position());
+            }
+            canal.force(true);
+            // A entrada do novo arquivo no diretório também precisa sobreviver a uma queda
+            sincronizarDiretorio();
+        } catch (IOException e) {
+            canal.close();
+            throw e;
+        }
+        if (segmento != null) {
+            segmento.close();
+        }
+        segmento = canal;
+        posicaoSegmento = TAMANHO_CABECALHO_DIARIO;
+    }
+
+    // Carrega o checkpoint e reproduz a cauda do diário; chamado pelo construtor
+    private void recuperar() throws IOException {
+        List<Path> checkpointsGravados = listar(PREFIXO_CHECKPOINT, SUFIXO_CHECKPOINT);
+        List<Path> segmentos = listar(PREFIXO_DIARIO, SUFIXO_DIARIO);
+        recuperando = true;
+        try {
+            if (!checkpointsGravados.isEmpty()) {
+                sequenciaCheckpoint = carregarCheckpoint(checkpointsGravados.get(checkpointsGravados.size() - 1));
+            }
+            sequencia = sequenciaCheckpoint;
+            for (int i = 0; i < segmentos.size(); i++) {
+                reproduzir(segmentos.get(i), i == segmentos.size() - 1);
+            }
+        } finally {
+            recuperando = false;
+        }
+        sequenciaDuravel = sequencia;
+        if (segmento == null) {
+            abrirSegmento(sequencia + 1);
+        }
+        descartarAnteriores(sequenciaCheckpoint);
+    }
+
+    private long carregarCheckpoint(Path arquivo) throws IOException {
+        ByteBuffer conteudo = lerTudo(arquivo);
+        int limite = conteudo.limit();
+        if (limite < TAMANHO_CABECALHO_CHECKPOINT + 4) {
+            throw new IllegalStateException("Checkpoint truncado: " + arquivo);
+        }
+        CRC32 crcCheckpoint = new CRC32();
+        crcCheckpoint.update(conteudo.array(), 0, limite - 4);
+        if ((int) crcCheckpoint.getValue() != conteudo.getInt(limite - 4)
+                || conteudo.getInt() != MAGICO_CHECKPOINT || conteudo.getInt() != VERSAO_FORMATO) {
+            throw new IllegalStateException("Checkpoint corrompido: " + arquivo);
+        }
+        if (conteudo.getLong() != modelo.getAssinatura()) {
+            throw new IllegalStateException("Checkpoint incompatível com o modelo: " + arquivo);
+        }
+        long incluida = conteudo.getLong();
+        int quantidade = conteudo.getInt();
+        int numCriterios = conteudo.getInt();
+        if (numCriterios != modelo.getNumCriterios()) {
+            throw new IllegalStateException("Checkpoint incompatível com o modelo: " + arquivo);
+        }
+
+        double[] valores = modelo.novoVetorValores();
+        for (int i = 0; i < quantidade; i++) {
+            String nome = lerNome(conteudo);
+            for (int c = 0; c < numCriterios; c++) {
+                valores[c] = conteudo.getDouble();
+            }
+            avaliador.carregar(nome, valores);
+        }
+        return incluida;
+    }
+
+    // Reproduz os registros de um segmento posteriores ao checkpoint; o último segmento fica aberto para anexação
+    private void reproduzir(Path arquivo, boolean ultimo) throws IOException {
+        ByteBuffer conteudo = lerTudo(arquivo);
+        int limite = conteudo.limit();
+        if (limite < TAMANHO_CABECALHO_DIARIO && ultimo) {
+            // Segmento criado por uma execução interrompida antes de gravar o cabeçalho
+            Files.delete(arquivo);
+            return;
+        }
+        if (limite < TAMANHO_CABECALHO_DIARIO || conteudo.getInt() != MAGICO_DIARIO
+                || conteudo.getInt() != VERSAO_FORMATO) {
+            throw new IllegalStateException("Segmento do diário inválido: " + arquivo);
+        }
+        if (conteudo.getLong() != modelo.getAssinatura() || conteudo.getInt() != modelo.getNumCriterios()) {
+            throw new IllegalStateException("Diário incompatível com o modelo: " + arquivo);
+        }
+
+        double[] valores = modelo.novoVetorValores();
+        int posicao = TAMANHO_CABECALHO_DIARIO;
+        while (posicao + TAMANHO_PREFIXO <= limite) {
+            int tamanho = conteudo.getInt(posicao);
+            if (tamanho < TAMANHO_FIXO || tamanho > limite - posicao - TAMANHO_PREFIXO) {
+                break;
+            }
+            crc.reset();
+            crc.update(conteudo.array(), posicao + TAMANHO_PREFIXO, tamanho);
+            if ((int) crc.getValue() != conteudo.getInt(posicao + 4)) {
+                break;
+            }
+
+            conteudo.position(posicao + TAMANHO_PREFIXO);
+            long registro = conteudo.getLong();
+            byte tipo = conteudo.get();
+            String nome = lerNome(conteudo);
+            posicao += TAMANHO_PREFIXO + tamanho;
+            if (registro <= sequenciaCheckpoint) {
+                continue;
+            }
+            if (registro != sequencia + 1) {
+                throw new IllegalStateException("Lacuna no diário antes da sequência " + registro + ": " + arquivo);
+            }
+            switch (tipo) {
+                case TIPO_ATUALIZACAO:
+                    int criterio = conteudo.getInt();
+                    avaliador.atualizar(nome, criterio, conteudo.getDouble());
+                    break;
+                case TIPO_CARGA:
+                    for (int c = 0; c < valores.length; c++) {
+                        valores[c] = conteudo.getDouble();
+                    }
+                    avaliador.carregar(nome, valores);
+                    break;
+                case TIPO_REMOCAO:
+                    avaliador.remover(nome);
+                    break;
+                case TIPO_TRANSICAO:
+                    // Apenas auditoria: a transição é refeita pela própria reprodução
+                    break;
+                default:
+                    throw new IllegalStateException("Tipo de registro desconhecido " + tipo + ": " + arquivo);
+            }
+            sequencia = registro;
+            registrosReproduzidos++;
+        }
+
+        if (!ultimo) {
+            if (posicao != limite) {
+                throw new IllegalStateException("Segmento do diário corrompido: " + arquivo);
+            }
+            return;
+        }
+        // Descarta um registro parcial deixado por uma gravação interrompida e continua a anexar no segmento
+        segmento = FileChannel.open(arquivo, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segmento.truncate(posicao);
+        segmento.force(true);
+        posicaoSegmento = posicao;
+    }
+
+    private void sincronizarDiretorio() throws IOException {
+        try (FileChannel canal = FileChannel.open(diretorio, StandardOpenOption.READ)) {
+            canal.force(true);
+        }
+    }
+
+    private List<Path> listar(String prefixo, String sufixo) throws IOException {
+        List<Path> arquivos = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(diretorio, prefixo + "*" + sufixo)) {
+            stream.forEach(arquivos::add);
+        }
+        arquivos.sort(null);
+        return arquivos;
+    }
+
+    private static String nomeArquivo(String prefixo, long sequencia, String sufixo) {
+        return String.format("%s%019d%s", prefixo, sequencia, sufixo);
+    }
+
+    private static long sequenciaArquivo(Path arquivo, String prefixo, String sufixo) {
+        String nome = arquivo.getFileName().toString();
+        return Long.parseLong(nome.substring(prefixo.length(), nome.length() - sufixo.length()));
+    }
+
+    // Lê o arquivo inteiro com uma leitura sequencial
+    private static ByteBuffer lerTudo(Path arquivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            if (canal.size() > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Arquivo grande demais para a recuperação: " + arquivo);
+            }
+            ByteBuffer conteudo = novoBuffer((int) canal.size());
+            while (conteudo.hasRemaining() && canal.read(conteudo) >= 0) {
+                // lê até o fim
+            }
+            conteudo.flip();
+            return conteudo;
+        }
+    }
+
+    private static String lerNome(ByteBuffer conteudo) {
+        int tamanho = conteudo.getShort() & 0xFFFF;
+        String nome = new String(conteudo.array(), conteudo.position(), tamanho, StandardCharsets.UTF_8);
+        conteudo.position(conteudo.position() + tamanho);
+        return nome;
+    }
+
+    private static byte[] codificar(String nomeAplicacao) {
+        byte[] nome = nomeAplicacao.getBytes(StandardCharsets.UTF_8);
+        if (nome.length > TAMANHO_MAXIMO_NOME) {
+            throw new IllegalArgumentException("Nome de aplicação com mais de " + TAMANHO_MAXIMO_NOME + " bytes");
+        }
+        return nome;
+    }
+
+    private static ByteBuffer novoBuffer(int capacidade) {
+        return ByteBuffer.allocate(capacidade).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
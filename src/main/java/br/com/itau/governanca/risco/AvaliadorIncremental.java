@@ -0,0 +1,375 @@
+package br.com.itau.governanca.risco;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Mantém o estado da avaliação de cada aplicação e o atualiza a cada novo valor de
+ * critério, sem reconstruir os mapas de dados nem chamar {@code gerarRelatorio}.
+ * <p>
+ * Uma atualização reclassifica apenas o critério alterado e, se a sua classificação
+ * mudou, ajusta a pontuação da dimensão e a pontuação total por diferença (O(1)).
+ * Somente o veto do qual o critério participa é reavaliado. O {@link OuvinteStatus}
+ * é notificado apenas quando o status da aplicação muda.
+ * <p>
+ * Para limitar o acúmulo de erros de arredondamento das diferenças, o estado é
+ * recalculado integralmente a cada {@link #ATUALIZACOES_ENTRE_RECALCULOS} ajustes de
+ * pontuação e sempre que o total fica próximo de um limite de classificação, de modo
+ * que o status é sempre o mesmo do cálculo completo. Atualizações de aplicações
+ * diferentes podem ser feitas em paralelo; as de uma mesma aplicação são serializadas.
+ */
+public class AvaliadorIncremental {
+
+    /**
+     * Recebe as mudanças de status das aplicações
+     */
+    public interface OuvinteStatus {
+
+        /**
+         * Chamado quando o status de uma aplicação muda, na thread que fez a atualização
+         * @param nomeAplicacao O nome da aplicação
+         * @param anterior O status antes da atualização
+         * @param atual O status após a atualização
+         * @param pontuacaoTotal A pontuação total após a atualização
+         * @param vetos A máscara de vetos após a atualização
+         */
+        void statusAlterado(String nomeAplicacao, StatusAvaliacao anterior, StatusAvaliacao atual,
+                            double pontuacaoTotal, int vetos);
+    }
+
+    /** Número de ajustes por diferença após o qual o estado da aplicação é recalculado */
+    public static final int ATUALIZACOES_ENTRE_RECALCULOS = 1024;
+
+    // Distância do limite de classificação abaixo da qual o total é recalculado integralmente
+    private static final double TOLERANCIA_LIMITE = 1e-9;
+    // Soma de pesos presentes abaixo da qual a dimensão é recalculada em vez de ajustada
+    private static final double TOLERANCIA_PESO = 1e-9;
+
+    private final CalculadoraRisco calculadora;
+    private final ModeloCompilado modelo;
+    private final OuvinteStatus ouvinte;
+    private final ConcurrentHashMap<String, EstadoAplicacao> estados = new ConcurrentHashMap<>();
+
+    /**
+     * Construtor
+     * @param calculadora A calculadora com o modelo e os vetos
+     * @param ouvinte O ouvinte das mudanças de status
+     */
+    public AvaliadorIncremental(CalculadoraRisco calculadora, OuvinteStatus ouvinte) {
+        this.calculadora = calculadora;
+        this.modelo = calculadora.getModelo();
+        this.ouvinte = ouvinte;
+    }
+
+    /**
+     * Atualiza o valor de um critério de uma aplicação. Aplicações ainda não conhecidas
+     * começam sem nenhum critério (status APROVADO, como em {@code gerarRelatorio} com dados vazios).
+     * @param nomeAplicacao O nome da aplicação
+     * @param dimensao A dimensão do critério
+     * @param criterio O nome do critério
+     * @param valor O novo valor (NaN remove o critério)
+     * @return O status da aplicação após a atualização
+     */
+    public StatusAvaliacao atualizar(String nomeAplicacao, String dimensao, String criterio, double valor) {
+        return atualizar(nomeAplicacao, modelo.indiceCriterioObrigatorio(dimensao, criterio), valor);
+    }
+
+    /**
+     * Atualiza o valor de um critério de uma aplicação pelo ordinal do critério
+     * @param nomeAplicacao O nome da aplicação
+     * @param criterio O ordinal do critério no modelo
+     * @param valor O novo valor (NaN remove o critério)
+     * @return O status da aplicação após a atualização
+     * @throws IllegalArgumentException se o ordinal estiver fora do modelo
+     */
+    public StatusAvaliacao atualizar(String nomeAplicacao, int criterio, double valor) {
+        verificarCriterio(criterio);
+        EstadoAplicacao estado = estados.computeIfAbsent(nomeAplicacao, nome -> new EstadoAplicacao());
+        synchronized (estado) {
+            StatusAvaliacao anterior = estado.status;
+            estado.atualizar(criterio, valor);
+            notificar(nomeAplicacao, anterior, estado);
+            return estado.status;
+        }
+    }
+
+    /**
+     * Atualiza vários critérios de uma aplicação como uma única alteração: o ouvinte é
+     * notificado no máximo uma vez, com o status após todas as atualizações, sem estados
+     * intermediários
+     * @param nomeAplicacao O nome da aplicação
+     * @param criterios Os ordinais dos critérios no modelo
+     * @param valores Os novos valores, na ordem dos critérios (NaN remove o critério)
+     * @return O status da aplicação após as atualizações
+     */
+    public StatusAvaliacao atualizar(String nomeAplicacao, int[] criterios, double[] valores) {
+        if (criterios.length != valores.length) {
+            throw new IllegalArgumentException("Recebidos " + criterios.length + " critérios e "
+                + valores.length + " valores");
+        }
+        for (int criterio : criterios) {
+            verificarCriterio(criterio);
+        }
+        EstadoAplicacao estado = estados.computeIfAbsent(nomeAplicacao, nome -> new EstadoAplicacao());
+        synchronized (estado) {
+            StatusAvaliacao anterior = estado.status;
+            for (int i = 0; i < criterios.length; i++) {
+                estado.atualizar(criterios[i], valores[i]);
+            }
+            notificar(nomeAplicacao, anterior, estado);
+            return estado.status;
+        }
+    }
+
+    // Valida o ordinal antes de criar o estado da aplicação
+    private void verificarCriterio(int criterio) {
+        if (criterio < 0 || criterio >= modelo.getNumCriterios()) {
+            throw new IllegalArgumentException("Critério fora do modelo: " + criterio);
+        }
+    }
+
+    /**
+     * Substitui todos os valores de uma aplicação, recalculando o seu estado integralmente
+     * @param nomeAplicacao O nome da aplicação
+     * @param valores Os valores de todos os critérios do modelo (NaN para ausentes)
+     * @return O status da aplicação após a carga
+     */
+    public StatusAvaliacao carregar(String nomeAplicacao, double[] valores) {
+        if (valores.length != modelo.getNumCriterios()) {
+            throw new IllegalArgumentException("Esperados " + modelo.getNumCriterios()
+                + " valores de critérios, recebidos " + valores.length);
+        }
+        EstadoAplicacao estado = estados.computeIfAbsent(nomeAplicacao, nome -> new EstadoAplicacao());
+        synchronized (estado) {
+            StatusAvaliacao anterior = estado.status;
+            System.arraycopy(valores, 0, estado.valores, 0, valores.length);
+            estado.recalcular();
+            notificar(nomeAplicacao, anterior, estado);
+            return estado.status;
+        }
+    }
+
+    /**
+     * Remove o estado de uma aplicação
+     * @param nomeAplicacao O nome da aplicação
+     * @return true se a aplicação era conhecida
+     */
+    public boolean remover(String nomeAplicacao) {
+        return estados.remove(nomeAplicacao) != null;
+    }
+
+    /**
+     * Retorna o status atual de uma aplicação
+     * @param nomeAplicacao O nome da aplicação
+     * @return o status atual
+     */
+    public StatusAvaliacao getStatus(String nomeAplicacao) {
+        EstadoAplicacao estado = estado(nomeAplicacao);
+        synchronized (estado) {
+            return estado.status;
+        }
+    }
+
+    /**
+     * Retorna a pontuação total atual de uma aplicação
+     * @param nomeAplicacao O nome da aplicação
+     * @return a pontuação total
+     */
+    public double getPontuacaoTotal(String nomeAplicacao) {
+        EstadoAplicacao estado = estado(nomeAplicacao);
+        synchronized (estado) {
+            return estado.total;
+        }
+    }
+
+    /**
+     * Retorna a pontuação atual de uma dimensão de uma aplicação
+     * @param nomeAplicacao O nome da aplicação
+     * @param dimensao O ordinal da dimensão
+     * @return a pontuação da dimensão
+     */
+    public double getPontuacaoDimensao(String nomeAplicacao, int dimensao) {
+        EstadoAplicacao estado = estado(nomeAplicacao);
+        synchronized (estado) {
+            return estado.pontuacoes[dimensao];
+        }
+    }
+
+    /**
+     * Retorna a máscara de vetos atual de uma aplicação
+     * @param nomeAplicacao O nome da aplicação
+     * @return a máscara de vetos (bits VETO_* da CalculadoraRisco)
+     */
+    public int getVetos(String nomeAplicacao) {
+        EstadoAplicacao estado = estado(nomeAplicacao);
+        synchronized (estado) {
+            return estado.vetos;
+        }
+    }
+
+    /**
+     * Retorna uma cópia dos valores atuais dos critérios de uma aplicação
+     * @param nomeAplicacao O nome da aplicação
+     * @return os valores indexados pelo ordinal do critério (NaN para ausentes)
+     */
+    public double[] getValores(String nomeAplicacao) {
+        EstadoAplicacao estado = estado(nomeAplicacao);
+        synchronized (estado) {
+            return estado.valores.clone();
+        }
+    }
+
+    /**
+     * Retorna a calculadora com o modelo e os vetos usados nas avaliações
+     * @return a calculadora
+     */
+    public CalculadoraRisco getCalculadora() {
+        return calculadora;
+    }
+
+    /**
+     * Retorna o número de aplicações com estado
+     * @return o número de aplicações
+     */
+    public int getQuantidadeAplicacoes() {
+        return estados.size();
+    }
+
+    /**
+     * Retorna os nomes das aplicações com estado
+     * @return uma visão não modificável dos nomes, que reflete inclusões e remoções posteriores
+     */
+    public Set<String> getAplicacoes() {
+        return Collections.unmodifiableSet(estados.keySet());
+    }
+
+    private EstadoAplicacao estado(String nomeAplicacao) {
+        EstadoAplicacao estado = estados.get(nomeAplicacao);
+        if (estado == null) {
+            throw new IllegalArgumentException("Aplicação desconhecida: " + nomeAplicacao);
+        }
+        return estado;
+    }
+
+    private void notificar(String nomeAplicacao, StatusAvaliacao anterior, EstadoAplicacao estado) {
+        if (anterior != estado.status && ouvinte != null) {
+            ouvinte.statusAlterado(nomeAplicacao, anterior, estado.status, estado.total, estado.vetos);
+        }
+    }
+
+    // Estado de uma aplicação; acessado sempre sob o seu próprio monitor
+    private final class EstadoAplicacao {
+        private final double[] valores = modelo.novoVetorValores();
+        // Classificação atual de cada critério (0 = ausente)
+        private final byte[] classificacoes = new byte[modelo.getNumCriterios()];
+        // Por dimensão: soma de classificação * peso e soma dos pesos dos critérios presentes
+        private final double[] somasPonderadas = new double[modelo.getNumDimensoes()];
+        private final double[] somasPesos = new double[modelo.getNumDimensoes()];
+        private final double[] pontuacoes = new double[modelo.getNumDimensoes()];
+        private double total;
+        private int vetos;
+        private StatusAvaliacao status = StatusAvaliacao.APROVADO;
+        private int ajustes;
+
+        void atualizar(int criterio, double valor) {
+            valores[criterio] = valor;
+
+            int bit = calculadora.bitVeto(criterio);
+            if (bit != 0) {
+                vetos = (vetos & ~bit) | calculadora.verificarVeto(criterio, valor);
+            }
+
+            int anterior = classificacoes[criterio];
+            int atual = valor != valor ? 0 : modelo.classificar(criterio, valor);
+            if (anterior != atual) {
+                classificacoes[criterio] = (byte) atual;
+                if (++ajustes >= ATUALIZACOES_ENTRE_RECALCULOS) {
+                    recalcular();
+                    return;
+                }
+                ajustar(criterio, anterior, atual);
+                if (pertoDeLimite(total)) {
+                    // A classificação não pode depender do arredondamento das diferenças
+                    recalcular();
+                    return;
+                }
+            }
+            status = StatusAvaliacao.de(ClassificacaoRisco.de(total), vetos);
+        }
+
+        // Aplica a diferença da classificação de um critério na dimensão e no total
+        private void ajustar(int criterio, int anterior, int atual) {
+            int d = modelo.getDimensaoCriterio(criterio);
+            double peso = modelo.getPesoCriterio(criterio);
+            if (anterior != 0) {
+                somasPonderadas[d] -= anterior * peso;
+                somasPesos[d] -= peso;
+            }
+            if (atual != 0) {
+                somasPonderadas[d] += atual * peso;
+                somasPesos[d] += peso;
+            }
+
+            double pontuacao;
+            if ((anterior != 0 && atual == 0) || somasPesos[d] < TOLERANCIA_PESO) {
+                // Após uma remoção, ou com peso presente quase nulo (como o de um critério de peso
+                // zero sozinho na dimensão), as sobras das subtrações dominariam a divisão
+                pontuacao = recalcularDimensao(d);
+            } else {
+                pontuacao = somasPonderadas[d] / somasPesos[d];
+            }
+            total += (pontuacao - pontuacoes[d]) * modelo.getPesoDimensao(d);
+            pontuacoes[d] = pontuacao;
+        }
+
+        // Recalcula as somas de uma dimensão a partir das classificações, na ordem de ModeloCompilado.pontuarDimensao
+        private double recalcularDimensao(int d) {
+            double somaPonderada = 0;
+            double somaPesos = 0;
+            for (int c = modelo.inicioDimensao(d), fim = modelo.fimDimensao(d); c < fim; c++) {
+                if (classificacoes[c] != 0) {
+                    double peso = modelo.getPesoCriterio(c);
+                    somaPonderada += classificacoes[c] * peso;
+                    somaPesos += peso;
+                }
+            }
+            somasPonderadas[d] = somaPonderada;
+            somasPesos[d] = somaPesos;
+            return somaPesos == 0 ? 0 : somaPonderada / somaPesos;
+        }
+
+        private boolean pertoDeLimite(double pontuacao) {
+            return Math.abs(pontuacao - ClassificacaoRisco.LIMITE_VERDE) < TOLERANCIA_LIMITE
+                || Math.abs(pontuacao - ClassificacaoRisco.LIMITE_AMARELO) < TOLERANCIA_LIMITE;
+        }
+
+        // Recalcula todo o estado na mesma ordem de somas de ModeloCompilado.pontuarTotal
+        void recalcular() {
+            Arrays.fill(somasPonderadas, 0.0);
+            Arrays.fill(somasPesos, 0.0);
+            vetos = 0;
+            total = 0;
+            for (int d = 0; d < modelo.getNumDimensoes(); d++) {
+                for (int c = modelo.inicioDimensao(d), fim = modelo.fimDimensao(d); c < fim; c++) {
+                    double valor = valores[c];
+                    vetos |= calculadora.verificarVeto(c, valor);
+                    if (valor != valor) {
+                        classificacoes[c] = 0;
+                        continue;
+                    }
+                    int classificacao = modelo.classificar(c, valor);
+                    classificacoes[c] = (byte) classificacao;
+                    double peso = modelo.getPesoCriterio(c);
+                    somasPonderadas[d] += classificacao * peso;
+                    somasPesos[d] += peso;
+                }
+                pontuacoes[d] = somasPesos[d] == 0 ? 0 : somasPonderadas[d] / somasPesos[d];
+                total += pontuacoes[d] * modelo.getPesoDimensao(d);
+            }
+            ajustes = 0;
+            status = StatusAvaliacao.de(ClassificacaoRisco.de(total), vetos);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package br.com.itau.governanca.risco;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Avalia um portfólio de aplicações em paralelo com uma CalculadoraRisco compartilhada.
+ * A pontuação é dividida recursivamente entre os núcleos por um ForkJoinPool e os
+ * resultados são devolvidos na mesma ordem da entrada.
+ * <p>
+ * Quando as métricas precisam ser carregadas (I/O), o carregamento é feito em um
+ * executor separado — por padrão de threads virtuais, quando a JVM as oferece — e
+ * cada aplicação é pontuada no ForkJoinPool assim que suas métricas chegam.
+ */
+public class AvaliadorPortfolio {
+
+    /** Número padrão de threads de plataforma do executor de I/O, quando não há threads virtuais */
+    public static final int THREADS_IO_PADRAO = 64;
+
+    // Número de aplicações abaixo do qual a tarefa não é mais dividida
+    private static final int TAMANHO_MINIMO_TAREFA = 64;
+
+    private final CalculadoraRisco calculadora;
+    private final ForkJoinPool pool;
+
+    /**
+     * Construtor que utiliza o ForkJoinPool comum da JVM
+     * @param calculadora A calculadora compartilhada entre as threads
+     */
+    public AvaliadorPortfolio(CalculadoraRisco calculadora) {
+        this(calculadora, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Construtor que utiliza um ForkJoinPool dedicado
+     * @param calculadora A calculadora compartilhada entre as threads
+     * @param pool O pool usado para a pontuação
+     */
+    public AvaliadorPortfolio(CalculadoraRisco calculadora, ForkJoinPool pool) {
+        this.calculadora = calculadora;
+        this.pool = pool;
+    }
+
+    /**
+     * Avalia todas as aplicações em paralelo
+     * @param aplicacoes As aplicações com seus dados
+     * @return Os resultados, na mesma ordem das aplicações
+     */
+    public List<ResultadoAvaliacao> avaliar(List<AplicacaoPortfolio> aplicacoes) {
+        AplicacaoPortfolio[] entrada = aplicacoes.toArray(new AplicacaoPortfolio[0]);
+        ResultadoAvaliacao[] resultados = new ResultadoAvaliacao[entrada.length];
+        pool.invoke(new TarefaAvaliacao(entrada, resultados, 0, entrada.length));
+        return Collections.unmodifiableList(Arrays.asList(resultados));
+    }
+
+    /**
+     * Carrega as métricas de cada referência no executor de I/O e pontua cada aplicação
+     * no ForkJoinPool assim que suas métricas são carregadas
+     * @param referencias As referências das aplicações
+     * @param carregador O carregador de métricas
+     * @param executorIo O executor usado para o carregamento
+     * @param <T> O tipo da referência
+     * @return Os resultados, na mesma ordem das referências
+     * @throws IOException se o carregamento de alguma aplicação falhar
+     */
+    public <T> List<ResultadoAvaliacao> avaliar(List<T> referencias, CarregadorMetricas<T> carregador,
+                                                ExecutorService executorIo) throws IOException {
+        List<CompletableFuture<ResultadoAvaliacao>> futuros = new ArrayList<>(referencias.size());
+        for (T referencia : referencias) {
+            futuros.add(CompletableFuture
+                .supplyAsync(() -> carregar(carregador, referencia), executorIo)
+                .thenApplyAsync(this::avaliar, pool));
+        }
+
+        List<ResultadoAvaliacao> resultados = new ArrayList<>(futuros.size());
+        try {
+            for (CompletableFuture<ResultadoAvaliacao> futuro : futuros) {
+                resultados.add(futuro.join());
+            }
+        } catch (CompletionException e) {
+            for (CompletableFuture<ResultadoAvaliacao> futuro : futuros) {
+                futuro.cancel(false);
+            }
+            Throwable causa = e.getCause();
+            if (causa instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) causa).getCause();
+            } else if (causa instanceof RuntimeException) {
+                throw (RuntimeException) causa;
+            } else if (causa instanceof Error) {
+                throw (Error) causa;
+            }
+            throw e;
+        }
+        return Collections.unmodifiableList(resultados);
+    }
+
+    /**
+     * Carrega e avalia as aplicações usando um executor de I/O criado por
+     * {@link #criarExecutorIo()}, encerrado ao final
+     * @param referencias As referências das aplicações
+     * @param carregador O carregador de métricas
+     * @param <T> O tipo da referência
+     * @return Os resultados, na mesma ordem das referências
+     * @throws IOException se o carregamento de alguma aplicação falhar
+     */
+    public <T> List<ResultadoAvaliacao> avaliar(List<T> referencias, CarregadorMetricas<T> carregador)
+            throws IOException {
+        ExecutorService executorIo = criarExecutorIo();
+        try {
+            return avaliar(referencias, carregador, executorIo);
+        } finally {
+            executorIo.shutdownNow();
+        }
+    }
+
+    /**
+     * Cria um executor de I/O com {@link #THREADS_IO_PADRAO} threads de plataforma quando
+     * não há threads virtuais (ver {@link #criarExecutorIo(int)})
+     * @return o executor de I/O
+     */
+    public static ExecutorService criarExecutorIo() {
+        return criarExecutorIo(THREADS_IO_PADRAO);
+    }
+
+    /**
+     * Cria um executor adequado para carregadores de métricas que fazem I/O: uma thread
+     * virtual por tarefa quando a JVM (21+) oferece threads virtuais, ou um pool fixo de
+     * threads de plataforma caso contrário, de modo que cargas bloqueadas não criem uma
+     * thread por referência; as tarefas excedentes aguardam na fila do pool
+     * @param threads O número de threads de plataforma (ignorado com threads virtuais)
+     * @return o executor de I/O
+     */
+    public static ExecutorService criarExecutorIo(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("O número de threads deve ser positivo: " + threads);
+        }
+        try {
+            return (ExecutorService) MethodHandles.publicLookup()
+                .findStatic(Executors.class, "newVirtualThreadPerTaskExecutor",
+                            MethodType.methodType(ExecutorService.class))
+                .invoke();
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return Executors.newFixedThreadPool(threads, tarefa -> {
+                Thread thread = new Thread(tarefa, "avaliador-portfolio-io");
+                thread.setDaemon(true);
+                return thread;
+            });
+        } catch (Throwable e) {
+            throw new IllegalStateException("Não foi possível criar o executor de threads virtuais", e);
+        }
+    }
+
+    private ResultadoAvaliacao avaliar(AplicacaoPortfolio aplicacao) {
+        return calculadora.avaliar(aplicacao.getNomeAplicacao(), aplicacao.getVersao(), aplicacao.getDados());
+    }
+
+    private static <T> AplicacaoPortfolio carregar(CarregadorMetricas<T> carregador, T referencia) {
+        try {
+            return carregador.carregar(referencia);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Divide o intervalo de aplicações ao meio até atingir o tamanho mínimo
+    private final class TarefaAvaliacao extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final AplicacaoPortfolio[] entrada;
+        private final ResultadoAvaliacao[] resultados;
+        private final int inicio;
+        private final int fim;
+
+        TarefaAvaliacao(AplicacaoPortfolio[] entrada, ResultadoAvaliacao[] resultados, int inicio, int fim) {
+            this.entrada = entrada;
+            this.resultados = resultados;
+            this.inicio = inicio;
+            this.fim = fim;
+        }
+
+        @Override
+        protected void compute() {
+            if (fim - inicio <= TAMANHO_MINIMO_TAREFA) {
+                for (int i = inicio; i < fim; i++) {
+                    resultados[i] = avaliar(entrada[i]);
+                }
+                return;
+            }
+            int meio = (inicio + fim) >>> 1;
+            invokeAll(new TarefaAvaliacao(entrada, resultados, inicio, meio),
+                      new TarefaAvaliacao(entrada, resultados, meio, fim));
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package br.com.itau.governanca.risco;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache de avaliações na frente da {@link CalculadoraRisco}, para aplicações que reenviam
+ * o mesmo conjunto de métricas entre implantações.
+ * <p>
+ * A chave contém os valores exatos dos critérios (os bits de cada double, com NaN como
+ * ausente), junto com a assinatura do modelo ({@link ModeloCompilado#getAssinatura()}), e a
+ * entrada é pontuada pela calculadora com esses mesmos valores: com ou sem acerto, o resultado
+ * é o mesmo da calculadora sem cache. Para os dados aninhados, a chave registra também a ordem
+ * das dimensões e dos critérios no mapa, que define a ordem das somas e as dimensões do
+ * relatório; assim {@link #gerarRelatorio} produz exatamente o relatório de
+ * {@link CalculadoraRisco#gerarRelatorio}. Critérios fora do modelo não entram na chave, pois
+ * a calculadora os ignora.
+ * <p>
+ * O número de entradas é limitado; ao atingir a capacidade, a entrada usada há mais tempo
+ * é removida (LRU). Os contadores de acertos, falhas e remoções permitem acompanhar a
+ * eficácia do cache. Todos os métodos podem ser chamados de várias threads.
+ */
+public class CacheAvaliacoes {
+
+    // Separa as dimensões na chave dos dados aninhados (os ordinais são não negativos)
+    private static final long FIM_DIMENSAO = -1;
+
+    private final CalculadoraRisco calculadora;
+    private final ModeloCompilado modelo;
+    private final int capacidade;
+    private final LinkedHashMap<Chave, Entrada> entradas;
+
+    private long acertos;
+    private long falhas;
+    private long remocoes;
+
+    /**
+     * Construtor
+     * @param calculadora A calculadora usada nas falhas do cache
+     * @param capacidade O número máximo de entradas
+     */
+    public CacheAvaliacoes(CalculadoraRisco calculadora, int capacidade) {
+        if (capacidade <= 0) {
+            throw new IllegalArgumentException("A capacidade deve ser positiva: " + capacidade);
+        }
+        this.calculadora = calculadora;
+        this.modelo = calculadora.getModelo();
+        this.capacidade = capacidade;
+        this.entradas = new LinkedHashMap<Chave, Entrada>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Chave, Entrada> maisAntiga) {
+                if (size() > CacheAvaliacoes.this.capacidade) {
+                    remocoes++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Avalia uma aplicação, reaproveitando o resultado de um conjunto de métricas já avaliado
+     * @param nomeAplicacao Nome da aplicação
+     * @param versao Versão da aplicação
+     * @param dados Dados para avaliação
+     * @return O resultado da avaliação
+     */
+    public ResultadoAvaliacao avaliar(String nomeAplicacao, String versao,
+                                      Map<String, Map<String, Double>> dados) {
+        return criarAvaliacao(nomeAplicacao, versao, buscar(dados));
+    }
+
+    /**
+     * Avalia uma aplicação a partir do vetor de valores por ordinal (NaN = critério ausente)
+     * @param nomeAplicacao Nome da aplicação
+     * @param versao Versão da aplicação
+     * @param valores Os valores de todos os critérios do modelo
+     * @return O resultado da avaliação
+     */
+    public ResultadoAvaliacao avaliar(String nomeAplicacao, String versao, double[] valores) {
+        return criarAvaliacao(nomeAplicacao, versao, buscar(valores));
+    }
+
+    /**
+     * Gera o relatório de {@link CalculadoraRisco#gerarRelatorio} a partir do resultado em
+     * cache; o conteúdo e a ordem de iteração dos mapas são os mesmos do relatório sem cache.
+     * @param nomeAplicacao Nome da aplicação
+     * @param versao Versão da aplicação
+     * @param dados Dados para avaliação
+     * @return Um mapa com o relatório detalhado
+     */
+    public Map<String, Object> gerarRelatorio(String nomeAplicacao, String versao,
+                                             Map<String, Map<String, Double>> dados) {
+        Entrada entrada = buscar(dados);
+
+        // Mesma sequência de inserções da calculadora
+        Map<String, Object> relatorio = new HashMap<>();
+        relatorio.put("nome_aplicacao", nomeAplicacao);
+        relatorio.put("versao", versao);
+        relatorio.put("resultado", criarResultado(entrada));
+        relatorio.put("vetos", CalculadoraRisco.descreverVetos(entrada.vetos));
+        relatorio.put("status", entrada.status.name());
+        relatorio.put("dados_detalhados", dados);
+        return relatorio;
+    }
+
+    /**
+     * Calcula o risco total de {@link CalculadoraRisco#calcularRiscoTotal} a partir do
+     * resultado em cache
+     * @param dados Um mapa com os valores para as dimensões e critérios
+     * @return Um mapa com o resultado da avaliação de risco
+     */
+    public Map<String, Object> calcularRiscoTotal(Map<String, Map<String, Double>> dados) {
+        return criarResultado(buscar(dados));
+    }
+
+    /**
+     * Remove todas as entradas, mantendo os contadores
+     */
+    public synchronized void limpar() {
+        entradas.clear();
+    }
+
+    /**
+     * Retorna o número de avaliações atendidas pelo cache
+     * @return o número de acertos
+     */
+    public synchronized long getAcertos() {
+        return acertos;
+    }
+
+    /**
+     * Retorna o número de avaliações que precisaram ser calculadas
+     * @return o número de falhas
+     */
+    public synchronized long getFalhas() {
+        return falhas;
+    }
+
+    /**
+     * Retorna o número de entradas removidas por falta de capacidade
+     * @return o número de remoções
+     */
+    public synchronized long getRemocoes() {
+        return remocoes;
+    }
+
+    /**
+     * Retorna o número de entradas no cache
+     * @return o número de entradas
+     */
+    public synchronized int getTamanho() {
+        return entradas.size();
+    }
+
+    /**
+     * Retorna o número máximo de entradas
+     * @return a capacidade
+     */
+    public int getCapacidade() {
+        return capacidade;
+    }
+
+    // Busca a entrada do vetor de valores, calculando-a em caso de falha
+    private Entrada buscar(double[] valores) {
+        if (valores.length != modelo.getNumCriterios()) {
+            throw new IllegalArgumentException("Esperados " + modelo.getNumCriterios()
+                + " valores de critérios, recebidos " + valores.length);
+        }
+        long[] bits = new long[valores.length];
+        for (int c = 0; c < valores.length; c++) {
+            bits[c] = Double.doubleToLongBits(valores[c]);
+        }
+        Chave chave = new Chave(modelo.getAssinatura(), false, bits);
+        Entrada entrada = consultar(chave);
+        if (entrada == null) {
+            // Cópia: o vetor do chamador pode mudar depois da chamada
+            ResultadoAvaliacao resultado = calculadora.avaliar(null, null, valores.clone());
+            double[] pontuacoes = new double[modelo.getNumDimensoes()];
+            for (int d = 0; d < pontuacoes.length; d++) {
+                pontuacoes[d] = resultado.getPontuacaoDimensao(modelo.getNomeDimensao(d));
+            }
+            entrada = guardar(chave, new Entrada(resultado, modelo.nomesDimensoes(), pontuacoes));
+        }
+        return entrada;
+    }
+
+    // Busca a entrada dos dados aninhados, calculando-a em caso de falha
+    private Entrada buscar(Map<String, Map<String, Double>> dados) {
+        // Ordinal da dimensão, pares (ordinal do critério, bits do valor) e FIM_DIMENSAO, na ordem do mapa
+        long[] bits = new long[modelo.getNumDimensoes() * 2 + modelo.getNumCriterios() * 2];
+        int n = 0;
+        for (Map.Entry<String, Map<String, Double>> dimensao : dados.entrySet()) {
+            int d = modelo.indiceDimensaoObrigatoria(dimensao.getKey());
+            bits[n++] = d;
+            for (Map.Entry<String, Double> criterio : dimensao.getValue().entrySet()) {
+                int c = modelo.indiceCriterio(d, criterio.getKey());
+                if (c != ModeloCompilado.SEM_INDICE) {
+                    bits[n++] = c;
+                    bits[n++] = Double.doubleToLongBits(criterio.getValue());
+                }
+            }
+            bits[n++] = FIM_DIMENSAO;
+        }
+        Chave chave = new Chave(modelo.getAssinatura(), true, Arrays.copyOf(bits, n));
+        Entrada entrada = consultar(chave);
+        if (entrada == null) {
+            ResultadoAvaliacao resultado = calculadora.avaliar(null, null, dados);
+            String[] nomes = new String[dados.size()];
+            double[] pontuacoes = new double[dados.size()];
+            int d = 0;
+            for (Map.Entry<String, Double> pontuacao : resultado.getPontuacoesDimensoes().entrySet()) {
+                nomes[d] = pontuacao.getKey();
+                pontuacoes[d++] = pontuacao.getValue();
+            }
+            entrada = guardar(chave, new Entrada(resultado, nomes, pontuacoes));
+        }
+        return entrada;
+    }
+
+    private synchronized Entrada consultar(Chave chave) {
+        Entrada entrada = entradas.get(chave);
+        if (entrada != null) {
+            acertos++;
+        } else {
+            falhas++;
+        }
+        return entrada;
+    }
+
+    // A pontuação é feita fora do monitor; avaliações concorrentes da mesma chave produzem o mesmo resultado
+    private synchronized Entrada guardar(Chave chave, Entrada entrada) {
+        entradas.put(chave, entrada);
+        return entrada;
+    }
+
+    private ResultadoAvaliacao criarAvaliacao(String nomeAplicacao, String versao, Entrada entrada) {
+        return new ResultadoAvaliacao(nomeAplicacao, versao, entrada.total, entrada.classificacao,
+                                      entrada.status, entrada.vetos, entrada.nomes, entrada.pontuacoes);
+    }
+
+    private Map<String, Object> criarResultado(Entrada entrada) {
+        Map<String, Double> pontuacoesDimensoes = new HashMap<>();
+        for (int d = 0; d < entrada.pontuacoes.length; d++) {
+            if (entrada.pontuacoes[d] == entrada.pontuacoes[d]) {
+                pontuacoesDimensoes.put(entrada.nomes[d], entrada.pontuacoes[d]);
+            }
+        }
+        Map<String, Object> resultado = new HashMap<>();
+        resultado.put("pontuacao_total", entrada.total);
+        resultado.put("classificacao", entrada.classificacao.getRotulo());
+        resultado.put("pontuacoes_dimensoes", pontuacoesDimensoes);
+        return resultado;
+    }
+
+    // Valores exatos e versão do modelo; o hash é calculado uma única vez
+    private static final class Chave {
+        private final long assinatura;
+        // Chave dos dados aninhados (com a ordem do mapa) ou do vetor por ordinal
+        private final boolean aninhada;
+        private final long[] valores;
+        private final int hash;
+
+        Chave(long assinatura, boolean aninhada, long[] valores) {
+            this.assinatura = assinatura;
+            this.aninhada = aninhada;
+            this.valores = valores;
+            long h = 0xcbf29ce484222325L ^ assinatura ^ (aninhada ? 1 : 0);
+            for (long valor : valores) {
+                h ^= valor;
+                h *= 0x100000001b3L;
+                h ^= h >>> 29;
+            }
+            this.hash = (int) (h ^ (h >>> 32));
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object outro) {
+            if (!(outro instanceof Chave)) {
+                return false;
+            }
+            Chave chave = (Chave) outro;
+            return hash == chave.hash && assinatura == chave.assinatura && aninhada == chave.aninhada
+                && Arrays.equals(valores, chave.valores);
+        }
+    }
+
+    // Resultado da pontuação, compartilhado (somente leitura) pelos resultados devolvidos
+    private static final class Entrada {
+        private final double total;
+        private final ClassificacaoRisco classificacao;
+        private final StatusAvaliacao status;
+        private final int vetos;
+        // Dimensões na ordem do resultado da calculadora (NaN = dimensão sem critérios presentes)
+        private final String[] nomes;
+        private final double[] pontuacoes;
+
+        Entrada(ResultadoAvaliacao resultado, String[] nomes, double[] pontuacoes) {
+            this.total = resultado.getPontuacaoTotal();
+            this.classificacao = resultado.getClassificacaoRisco();
+            this.status = resultado.getStatusAvaliacao();
+            this.vetos = resultado.getMascaraVetos();
+            this.nomes = nomes;
+            this.pontuacoes = pontuacoes;
+        }
+    }
+}
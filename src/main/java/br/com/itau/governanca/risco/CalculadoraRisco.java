@@ -2,223 +2,90 @@ package br.com.itau.governanca.risco;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * Calculadora de Risco de Qualidade para aplicações bancárias
  * Implementa o modelo de risco para avaliar a qualidade de aplicações
  * baseado em quatro dimensões: bugs, performance, segurança e experiência
+ * <p>
+ * A calculadora é imutável após a construção: pesos e limiares ficam em um
+ * {@link ModeloCompilado} imutável, de modo que uma única instância pode ser
+ * compartilhada entre threads sem sincronização.
+ * <p>
+ * Com {@link MetricasAvaliacao}, as avaliações completas ({@code gerarRelatorio} e
+ * {@code avaliar}) registram o status, os vetos, as pontuações por dimensão e a duração de
+ * cada etapa; sem métricas, nenhum relógio é lido.
  */
 public class CalculadoraRisco {
     
-    // Pesos das dimensões
-    private final Map<String, Double> pesosDimensoes;
+    /** Bit do veto 1: vulnerabilidade crítica de segurança não mitigada */
+    public static final int VETO_VULNERABILIDADE_CRITICA = 1;
+    /** Bit do veto 2: tempo de resposta P95 acima de 3000ms */
+    public static final int VETO_PERCENTIL_95 = 1 << 1;
+    /** Bit do veto 3: bugs que impedem o fluxo principal do cliente */
+    public static final int VETO_BUGS_CRITICOS = 1 << 2;
+    /** Bit do veto 4: taxa de erro em produção acima de 1% */
+    public static final int VETO_TAXA_ERRO = 1 << 3;
+    /** Bit do veto 5: falha em validação de conformidade regulatória */
+    public static final int VETO_CONFORMIDADE_REGULATORIA = 1 << 4;
     
-    // Pesos dos critérios por dimensão
-    private final Map<String, Map<String, Double>> pesosCriterios;
+    // Modelo compilado com pesos e limiares em arrays primitivos
+    private final ModeloCompilado modelo;
     
-    // Limiares para classificação de risco
-    private final Map<String, Map<String, Map<String, Object>>> limiares;
+    // Regras de veto compiladas para os ordinais do modelo
+    private final RegrasVeto regrasVeto;
+    
+    // Instrumentação das avaliações, ou null se desativada
+    private final MetricasAvaliacao metricas;
     
     /**
      * Construtor que inicializa os pesos e limiares do modelo de risco
      */
     public CalculadoraRisco() {
-        // Inicializa os pesos das dimensões
-        pesosDimensoes = new HashMap<>();
-        pesosDimensoes.put("bugs", 0.25);
-        pesosDimensoes.put("performance", 0.25);
-        pesosDimensoes.put("seguranca", 0.30);
-        pesosDimensoes.put("experiencia", 0.20);
-        
-        // Inicializa os pesos dos critérios
-        pesosCriterios = new HashMap<>();
-        
-        // Pesos para Bugs
-        Map<String, Double> pesosBugs = new HashMap<>();
-        pesosBugs.put("densidade_defeitos", 0.25);
-        pesosBugs.put("cobertura_testes", 0.20);
-        pesosBugs.put("bugs_criticos", 0.30);
-        pesosBugs.put("taxa_regressao", 0.15);
-        pesosBugs.put("mtbf", 0.10);
-        pesosCriterios.put("bugs", pesosBugs);
-        
-        // Pesos para Performance
-        Map<String, Double> pesosPerformance = new HashMap<>();
-        pesosPerformance.put("tempo_resposta", 0.25);
-        pesosPerformance.put("percentil_95", 0.25);
-        pesosPerformance.put("utilizacao_recursos", 0.15);
-        pesosPerformance.put("escalabilidade", 0.15);
-        pesosPerformance.put("tempo_inicializacao", 0.05);
-        pesosPerformance.put("throughput", 0.15);
-        pesosCriterios.put("performance", pesosPerformance);
-        
-        // Pesos para Segurança
-        Map<String, Double> pesosSeguranca = new HashMap<>();
-        pesosSeguranca.put("vulnerabilidades_criticas", 0.30);
-        pesosSeguranca.put("vulnerabilidades_totais", 0.20);
-        pesosSeguranca.put("owasp_top10", 0.20);
-        pesosSeguranca.put("seguranca_dados", 0.15);
-        pesosSeguranca.put("autenticacao_autorizacao", 0.10);
-        pesosSeguranca.put("pentest", 0.05);
-        pesosCriterios.put("seguranca", pesosSeguranca);
-        
-        // Pesos para Experiência
-        Map<String, Double> pesosExperiencia = new HashMap<>();
-        pesosExperiencia.put("satisfacao_usuario", 0.25);
-        pesosExperiencia.put("taxa_erro_usuario", 0.20);
-        pesosExperiencia.put("tempo_conclusao_tarefa", 0.15);
-        pesosExperiencia.put("acessibilidade", 0.10);
-        pesosExperiencia.put("taxa_abandono", 0.15);
-        pesosExperiencia.put("adocao_funcionalidades", 0.15);
-        pesosCriterios.put("experiencia", pesosExperiencia);
-        
-        // Inicializa os limiares
-        limiares = new HashMap<>();
-        
-        // Limiares para Bugs
-        Map<String, Map<String, Object>> limBugs = new HashMap<>();
-        
-        Map<String, Object> limDensidadeDefeitos = new HashMap<>();
-        limDensidadeDefeitos.put("baixo", 2.0);
-        limDensidadeDefeitos.put("medio", 5.0);
-        limBugs.put("densidade_defeitos", limDensidadeDefeitos);
-        
-        Map<String, Object> limCoberturaTestes = new HashMap<>();
-        limCoberturaTestes.put("baixo", 90.0);
-        limCoberturaTestes.put("medio", 70.0);
-        limCoberturaTestes.put("invertido", true);
-        limBugs.put("cobertura_testes", limCoberturaTestes);
-        
-        Map<String, Object> limBugsCriticos = new HashMap<>();
-        limBugsCriticos.put("baixo", 0.0);
-        limBugsCriticos.put("medio", 2.0);
-        limBugs.put("bugs_criticos", limBugsCriticos);
-        
-        Map<String, Object> limTaxaRegressao = new HashMap<>();
-        limTaxaRegressao.put("baixo", 1.0);
-        limTaxaRegressao.put("medio", 3.0);
-        limBugs.put("taxa_regressao", limTaxaRegressao);
-        
-        Map<String, Object> limMTBF = new HashMap<>();
-        limMTBF.put("baixo", 720.0);
-        limMTBF.put("medio", 168.0);
-        limMTBF.put("invertido", true);
-        limBugs.put("mtbf", limMTBF);
-        
-        limiares.put("bugs", limBugs);
-        
-        // Limiares para Performance
-        Map<String, Map<String, Object>> limPerformance = new HashMap<>();
-        
-        Map<String, Object> limTempoResposta = new HashMap<>();
-        limTempoResposta.put("baixo", 300.0);
-        limTempoResposta.put("medio", 800.0);
-        limPerformance.put("tempo_resposta", limTempoResposta);
-        
-        Map<String, Object> limPercentil95 = new HashMap<>();
-        limPercentil95.put("baixo", 800.0);
-        limPercentil95.put("medio", 2000.0);
-        limPerformance.put("percentil_95", limPercentil95);
-        
-        Map<String, Object> limUtilizacaoRecursos = new HashMap<>();
-        limUtilizacaoRecursos.put("baixo", 60.0);
-        limUtilizacaoRecursos.put("medio", 85.0);
-        limPerformance.put("utilizacao_recursos", limUtilizacaoRecursos);
-        
-        Map<String, Object> limEscalabilidade = new HashMap<>();
-        limEscalabilidade.put("baixo", 10.0);
-        limEscalabilidade.put("medio", 30.0);
-        limPerformance.put("escalabilidade", limEscalabilidade);
-        
-        Map<String, Object> limTempoInicializacao = new HashMap<>();
-        limTempoInicializacao.put("baixo", 5.0);
-        limTempoInicializacao.put("medio", 15.0);
-        limPerformance.put("tempo_inicializacao", limTempoInicializacao);
-        
-        Map<String, Object> limThroughput = new HashMap<>();
-        limThroughput.put("baixo", 100.0);
-        limThroughput.put("medio", 50.0);
-        limThroughput.put("invertido", true);
-        limPerformance.put("throughput", limThroughput);
-        
-        limiares.put("performance", limPerformance);
-        
-        // Limiares para Segurança
-        Map<String, Map<String, Object>> limSeguranca = new HashMap<>();
-        
-        Map<String, Object> limVulnCriticas = new HashMap<>();
-        limVulnCriticas.put("baixo", 0.0);
-        limVulnCriticas.put("medio", 1.0);
-        limSeguranca.put("vulnerabilidades_criticas", limVulnCriticas);
-        
-        Map<String, Object> limVulnTotais = new HashMap<>();
-        limVulnTotais.put("baixo", 5.0);
-        limVulnTotais.put("medio", 15.0);
-        limSeguranca.put("vulnerabilidades_totais", limVulnTotais);
-        
-        Map<String, Object> limOwaspTop10 = new HashMap<>();
-        limOwaspTop10.put("baixo", 100.0);
-        limOwaspTop10.put("medio", 90.0);
-        limOwaspTop10.put("invertido", true);
-        limSeguranca.put("owasp_top10", limOwaspTop10);
-        
-        Map<String, Object> limSegurancaDados = new HashMap<>();
-        limSegurancaDados.put("baixo", 100.0);
-        limSegurancaDados.put("medio", 95.0);
-        limSegurancaDados.put("invertido", true);
-        limSeguranca.put("seguranca_dados", limSegurancaDados);
-        
-        Map<String, Object> limAutenticacao = new HashMap<>();
-        limAutenticacao.put("baixo", 2.0);
-        limAutenticacao.put("medio", 1.0);
-        limSeguranca.put("autenticacao_autorizacao", limAutenticacao);
-        
-        Map<String, Object> limPentest = new HashMap<>();
-        limPentest.put("baixo", 2.0);
-        limPentest.put("medio", 1.0);
-        limSeguranca.put("pentest", limPentest);
-        
-        limiares.put("seguranca", limSeguranca);
-        
-        // Limiares para Experiência
-        Map<String, Map<String, Object>> limExperiencia = new HashMap<>();
-        
-        Map<String, Object> limSatisfacaoUsuario = new HashMap<>();
-        limSatisfacaoUsuario.put("baixo", 70.0);
-        limSatisfacaoUsuario.put("medio", 40.0);
-        limSatisfacaoUsuario.put("invertido", true);
-        limExperiencia.put("satisfacao_usuario", limSatisfacaoUsuario);
-        
-        Map<String, Object> limTaxaErroUsuario = new HashMap<>();
-        limTaxaErroUsuario.put("baixo", 2.0);
-        limTaxaErroUsuario.put("medio", 5.0);
-        limExperiencia.put("taxa_erro_usuario", limTaxaErroUsuario);
-        
-        Map<String, Object> limTempoConclusaoTarefa = new HashMap<>();
-        limTempoConclusaoTarefa.put("baixo", 10.0);
-        limTempoConclusaoTarefa.put("medio", 30.0);
-        limExperiencia.put("tempo_conclusao_tarefa", limTempoConclusaoTarefa);
-        
-        Map<String, Object> limAcessibilidade = new HashMap<>();
-        limAcessibilidade.put("baixo", 95.0);
-        limAcessibilidade.put("medio", 80.0);
-        limAcessibilidade.put("invertido", true);
-        limExperiencia.put("acessibilidade", limAcessibilidade);
-        
-        Map<String, Object> limTaxaAbandono = new HashMap<>();
-        limTaxaAbandono.put("baixo", 5.0);
-        limTaxaAbandono.put("medio", 15.0);
-        limExperiencia.put("taxa_abandono", limTaxaAbandono);
-        
-        Map<String, Object> limAdocaoFuncionalidades = new HashMap<>();
-        limAdocaoFuncionalidades.put("baixo", 60.0);
-        limAdocaoFuncionalidades.put("medio", 30.0);
-        limAdocaoFuncionalidades.put("invertido", true);
-        limExperiencia.put("adocao_funcionalidades", limAdocaoFuncionalidades);
-        
-        limiares.put("experiencia", limExperiencia);
+        this(ModeloCompilado.padrao());
+    }
+    
+    /**
+     * Construtor que utiliza um modelo de risco já compilado
+     * @param modelo O modelo com os pesos e limiares
+     */
+    public CalculadoraRisco(ModeloCompilado modelo) {
+        this(modelo, null);
+    }
+    
+    /**
+     * Construtor que utiliza um modelo já compilado e registra as avaliações nas métricas
+     * @param modelo O modelo com os pesos e limiares
+     * @param metricas As métricas a alimentar, ou null para não instrumentar
+     * @throws IllegalArgumentException se as métricas foram criadas para outras dimensões
+     */
+    public CalculadoraRisco(ModeloCompilado modelo, MetricasAvaliacao metricas) {
+        if (metricas != null && !metricas.compativel(modelo)) {
+            throw new IllegalArgumentException("As métricas não correspondem às dimensões do modelo "
+                + modelo.getVersao());
+        }
+        this.modelo = modelo;
+        this.regrasVeto = new RegrasVeto(modelo);
+        this.metricas = metricas;
+    }
+    
+    /**
+     * Retorna o modelo compilado utilizado pela calculadora, que fornece os ordinais
+     * de dimensões e critérios aceitos pela API indexada
+     * @return o modelo compilado
+     */
+    public ModeloCompilado getModelo() {
+        return modelo;
+    }
+    
+    /**
+     * Retorna as métricas alimentadas pela calculadora
+     * @return as métricas, ou null se a calculadora não é instrumentada
+     */
+    public MetricasAvaliacao getMetricas() {
+        return metricas;
     }
     
     /**
@@ -229,28 +96,17 @@ public class CalculadoraRisco {
      * @return A classificação de risco (1=baixo, 2=médio, 3=alto)
      */
     public int classificarCriterio(String dimensao, String criterio, double valor) {
-        Map<String, Object> limiar = limiares.get(dimensao).get(criterio);
-        boolean invertido = limiar.containsKey("invertido") ? (boolean) limiar.get("invertido") : false;
-        double limiarBaixo = (double) limiar.get("baixo");
-        double limiarMedio = (double) limiar.get("medio");
-        
-        if (invertido) {
-            if (valor >= limiarBaixo) {
-                return 1; // Baixo risco
-            } else if (valor >= limiarMedio) {
-                return 2; // Médio risco
-            } else {
-                return 3; // Alto risco
-            }
-        } else {
-            if (valor <= limiarBaixo) {
-                return 1; // Baixo risco
-            } else if (valor <= limiarMedio) {
-                return 2; // Médio risco
-            } else {
-                return 3; // Alto risco
-            }
-        }
+        return modelo.classificar(modelo.indiceCriterioObrigatorio(dimensao, criterio), valor);
+    }
+    
+    /**
+     * Classifica um critério pelo seu ordinal, sem buscas em mapas
+     * @param criterio O ordinal do critério no modelo
+     * @param valor O valor a ser classificado
+     * @return A classificação de risco (1=baixo, 2=médio, 3=alto)
+     */
+    public int classificarCriterio(int criterio, double valor) {
+        return modelo.classificar(criterio, valor);
     }
     
     /**
@@ -263,15 +119,15 @@ public class CalculadoraRisco {
         double pontuacaoTotal = 0;
         double pesoTotal = 0;
         
-        Map<String, Double> pesosCriterioDimensao = pesosCriterios.get(dimensao);
+        int indiceDimensao = modelo.indiceDimensaoObrigatoria(dimensao);
         
         for (Map.Entry<String, Double> entry : valores.entrySet()) {
-            String criterio = entry.getKey();
+            int criterio = modelo.indiceCriterio(indiceDimensao, entry.getKey());
             double valor = entry.getValue();
             
-            if (pesosCriterioDimensao.containsKey(criterio)) {
-                double peso = pesosCriterioDimensao.get(criterio);
-                int classificacao = classificarCriterio(dimensao, criterio, valor);
+            if (criterio != ModeloCompilado.SEM_INDICE) {
+                double peso = modelo.getPesoCriterio(criterio);
+                int classificacao = modelo.classificar(criterio, valor);
                 pontuacaoTotal += classificacao * peso;
                 pesoTotal += peso;
             }
@@ -285,6 +141,28 @@ public class CalculadoraRisco {
         return pontuacaoTotal / pesoTotal;
     }
     
+    /**
+     * Calcula a pontuação ponderada para uma dimensão a partir de um vetor indexado
+     * pelo ordinal do critério (NaN indica critério ausente). Não aloca memória.
+     * @param dimensao O ordinal da dimensão no modelo
+     * @param valores Os valores de todos os critérios do modelo
+     * @return A pontuação ponderada da dimensão
+     */
+    public double calcularPontuacaoDimensao(int dimensao, double[] valores) {
+        return modelo.pontuarDimensao(dimensao, valores);
+    }
+    
+    /**
+     * Calcula a pontuação total de risco a partir de um vetor indexado pelo ordinal
+     * do critério (NaN indica critério ausente). Não aloca memória.
+     * @param valores Os valores de todos os critérios do modelo
+     * @param pontuacoesDimensoes Array de saída para as pontuações por dimensão, ou null
+     * @return A pontuação total de risco
+     */
+    public double calcularPontuacaoTotal(double[] valores, double[] pontuacoesDimensoes) {
+        return modelo.pontuarTotal(valores, pontuacoesDimensoes);
+    }
+    
     /**
      * Calcula o risco total com base nas pontuações das dimensões
      * @param dados Um mapa com os valores para todas as dimensões e critérios
@@ -292,6 +170,13 @@ public class CalculadoraRisco {
      */
     public Map<String, Object> calcularRiscoTotal(Map<String, Map<String, Double>> dados) {
         Map<String, Double> pontuacoesDimensoes = new HashMap<>();
+        double riscoTotal = pontuarDimensoes(dados, pontuacoesDimensoes, null);
+        return montarResultado(riscoTotal, ClassificacaoRisco.de(riscoTotal), pontuacoesDimensoes);
+    }
+    
+    // Pontua as dimensões na ordem do mapa, registrando as pontuações nas métricas informadas
+    private double pontuarDimensoes(Map<String, Map<String, Double>> dados, Map<String, Double> pontuacoesDimensoes,
+                                    MetricasAvaliacao registro) {
         double riscoTotal = 0;
         
         for (Map.Entry<String, Map<String, Double>> entry : dados.entrySet()) {
@@ -299,65 +184,159 @@ public class CalculadoraRisco {
             Map<String, Double> criterios = entry.getValue();
             
             double pontuacao = calcularPontuacaoDimensao(dimensao, criterios);
+            int indiceDimensao = modelo.indiceDimensao(dimensao);
             pontuacoesDimensoes.put(dimensao, pontuacao);
-            riscoTotal += pontuacao * pesosDimensoes.get(dimensao);
-        }
-        
-        // Classificação final
-        String classificacao;
-        if (riscoTotal <= 1.5) {
-            classificacao = "VERDE (Baixo Risco)";
-        } else if (riscoTotal <= 2.2) {
-            classificacao = "AMARELO (Médio Risco)";
-        } else {
-            classificacao = "VERMELHO (Alto Risco)";
+            riscoTotal += pontuacao * modelo.getPesoDimensao(indiceDimensao);
+            if (registro != null) {
+                registro.registrarPontuacao(indiceDimensao, pontuacao);
+            }
         }
         
+        return riscoTotal;
+    }
+    
+    private static Map<String, Object> montarResultado(double riscoTotal, ClassificacaoRisco classificacao,
+                                                       Map<String, Double> pontuacoesDimensoes) {
         Map<String, Object> resultado = new HashMap<>();
         resultado.put("pontuacao_total", riscoTotal);
-        resultado.put("classificacao", classificacao);
+        resultado.put("classificacao", classificacao.getRotulo());
         resultado.put("pontuacoes_dimensoes", pontuacoesDimensoes);
         
         return resultado;
     }
     
+    /**
+     * Classifica a pontuação total de risco nas faixas do modelo
+     * @param riscoTotal A pontuação total de risco
+     * @return A classificação final (VERDE, AMARELO ou VERMELHO)
+     */
+    public String classificarRiscoTotal(double riscoTotal) {
+        return ClassificacaoRisco.de(riscoTotal).getRotulo();
+    }
+    
     /**
      * Verifica se algum dos critérios de veto foi atingido
      * @param dados Um mapa com os valores para todas as dimensões e critérios
      * @return Uma lista com os critérios de veto atingidos
      */
     public List<String> verificarVetos(Map<String, Map<String, Double>> dados) {
-        List<String> vetos = new ArrayList<>();
-        
-        // Veto 1: Qualquer vulnerabilidade crítica de segurança não mitigada
-        if (dados.containsKey("seguranca") && 
-            dados.get("seguranca").containsKey("vulnerabilidades_criticas") && 
-            dados.get("seguranca").get("vulnerabilidades_criticas") > 0) {
-            vetos.add("Vulnerabilidade crítica de segurança não mitigada");
+        return descreverVetos(regrasVeto.verificar(dados));
+    }
+    
+    /**
+     * Verifica os critérios de veto a partir de um vetor indexado pelo ordinal do
+     * critério (NaN indica critério ausente). Não aloca memória.
+     * @param valores Os valores de todos os critérios do modelo
+     * @return A máscara de bits dos vetos atingidos (VETO_*)
+     */
+    public int verificarVetos(double[] valores) {
+        return regrasVeto.verificar(valores);
+    }
+
+    /**
+     * Verifica se algum critério de veto foi atingido, parando no primeiro, para quem
+     * precisa apenas saber se a aplicação está bloqueada
+     * @param valores Os valores de todos os critérios do modelo (NaN indica critério ausente)
+     * @return true se algum veto foi atingido
+     */
+    public boolean possuiVeto(double[] valores) {
+        return regrasVeto.algumVeto(valores);
+    }
+
+    /**
+     * Verifica apenas os vetos dos quais um critério participa, sem avaliar os demais
+     * @param criterio O ordinal do critério no modelo
+     * @param valor O valor do critério (NaN = ausente, nunca veta)
+     * @return Os bits dos vetos atingidos, ou 0 se nenhum foi atingido ou o critério não participa de vetos
+     */
+    public int verificarVeto(int criterio, double valor) {
+        return criterio == ModeloCompilado.SEM_INDICE ? 0 : regrasVeto.verificar(criterio, valor);
+    }
+
+    /**
+     * Retorna os bits dos vetos dos quais um critério participa
+     * @param criterio O ordinal do critério no modelo
+     * @return Os bits VETO_* do critério, ou 0 se ele não participa de vetos
+     */
+    public int bitVeto(int criterio) {
+        return criterio == ModeloCompilado.SEM_INDICE ? 0 : regrasVeto.bitsCriterio(criterio);
+    }
+
+    /**
+     * Converte uma máscara de vetos nas mensagens correspondentes, na ordem dos vetos
+     * @param mascara A máscara de bits (VETO_*)
+     * @return Uma lista com as mensagens dos vetos presentes na máscara
+     */
+    public static List<String> descreverVetos(int mascara) {
+        return RegrasVeto.descrever(mascara);
+    }
+    
+    /**
+     * Converte as mensagens de vetos de um relatório na máscara de bits correspondente
+     * @param vetos As mensagens de vetos
+     * @return A máscara de bits (VETO_*)
+     * @throws IllegalArgumentException se alguma mensagem não corresponder a um veto conhecido
+     */
+    public static int mascaraVetos(List<String> vetos) {
+        int mascara = 0;
+        for (String veto : vetos) {
+            int i = RegrasVeto.indiceMensagem(veto);
+            if (i < 0) {
+                throw new IllegalArgumentException("Veto desconhecido: " + veto);
+            }
+            mascara |= 1 << i;
         }
-        
-        // Veto 2: Tempo de resposta P95 > 3000ms em operações críticas
-        if (dados.containsKey("performance") && 
-            dados.get("performance").containsKey("percentil_95") && 
-            dados.get("performance").get("percentil_95") > 3000) {
-            vetos.add("Tempo de resposta P95 > 3000ms em operações críticas");
+        return mascara;
+    }
+    
+    /**
+     * Avalia um lote de aplicações em formato colunar. Cada coluna contém os valores de
+     * um critério (na posição do seu ordinal no modelo) para todas as aplicações do lote;
+     * uma coluna null ou um valor NaN indicam critério ausente. Os resultados são
+     * idênticos aos de {@link #calcularPontuacaoTotal(double[], double[])} por aplicação.
+     * @param colunas Uma coluna de valores por critério do modelo
+     * @param quantidade O número de aplicações no lote
+     * @return O resultado do lote
+     */
+    public ResultadoLote avaliarLote(double[][] colunas, int quantidade) {
+        ResultadoLote resultado = new ResultadoLote(modelo.getNumDimensoes(), quantidade);
+        avaliarLote(colunas, quantidade, resultado);
+        return resultado;
+    }
+    
+    /**
+     * Avalia um lote de aplicações em formato colunar, reutilizando os arrays de um
+     * resultado existente para evitar alocações entre lotes
+     * @param colunas Uma coluna de valores por critério do modelo
+     * @param quantidade O número de aplicações no lote
+     * @param destino O resultado a ser preenchido, com capacidade para o lote
+     */
+    public void avaliarLote(double[][] colunas, int quantidade, ResultadoLote destino) {
+        if (colunas.length != modelo.getNumCriterios()) {
+            throw new IllegalArgumentException("Esperadas " + modelo.getNumCriterios()
+                + " colunas de critérios, recebidas " + colunas.length);
         }
-        
-        // Veto 3: Bugs que impeçam fluxo principal do cliente
-        if (dados.containsKey("bugs") && 
-            dados.get("bugs").containsKey("bugs_criticos") && 
-            dados.get("bugs").get("bugs_criticos") > 0) {
-            vetos.add("Bugs que impedem fluxo principal do cliente");
+        for (double[] coluna : colunas) {
+            if (coluna != null && coluna.length < quantidade) {
+                throw new IllegalArgumentException("Coluna com menos de " + quantidade + " valores");
+            }
         }
+        destino.preparar(modelo.getNumDimensoes(), quantidade);
         
-        // Veto 4: Taxa de erro em produção >1% para operações críticas
-        if (dados.containsKey("experiencia") && 
-            dados.get("experiencia").containsKey("taxa_erro_usuario") && 
-            dados.get("experiencia").get("taxa_erro_usuario") > 1) {
-            vetos.add("Taxa de erro em produção >1% para operações críticas");
+        modelo.pontuarLote(colunas, quantidade, destino.getPontuacoesDimensoes(),
+                           destino.getPesosAcumulados(), destino.getPontuacoesTotais());
+        
+        byte[] classificacoes = destino.getClassificacoes();
+        double[] totais = destino.getPontuacoesTotais();
+        for (int i = 0; i < quantidade; i++) {
+            double total = totais[i];
+            classificacoes[i] = (byte) ((total > ClassificacaoRisco.LIMITE_VERDE ? 1 : 0)
+                                      + (total > ClassificacaoRisco.LIMITE_AMARELO ? 1 : 0));
         }
         
-        return vetos;
+        int[] vetos = destino.getVetos();
+        Arrays.fill(vetos, 0, quantidade, 0);
+        regrasVeto.marcarLote(colunas, quantidade, vetos);
     }
     
     /**
@@ -369,30 +348,114 @@ public class CalculadoraRisco {
      */
     public Map<String, Object> gerarRelatorio(String nomeAplicacao, String versao, 
                                              Map<String, Map<String, Double>> dados) {
-        Map<String, Object> resultado = calcularRiscoTotal(dados);
-        List<String> vetos = verificarVetos(dados);
+        long inicio = relogio();
+        Map<String, Double> pontuacoesDimensoes = new HashMap<>();
+        double riscoTotal = pontuarDimensoes(dados, pontuacoesDimensoes, metricas);
+        
+        long pontuado = relogio();
+        ClassificacaoRisco classificacao = ClassificacaoRisco.de(riscoTotal);
+        int mascaraVetos = regrasVeto.verificar(dados);
+        StatusAvaliacao status = StatusAvaliacao.de(classificacao, mascaraVetos);
         
+        long classificado = relogio();
         Map<String, Object> relatorio = new HashMap<>();
         relatorio.put("nome_aplicacao", nomeAplicacao);
         relatorio.put("versao", versao);
-        relatorio.put("resultado", resultado);
-        relatorio.put("vetos", vetos);
+        relatorio.put("resultado", montarResultado(riscoTotal, classificacao, pontuacoesDimensoes));
+        relatorio.put("vetos", descreverVetos(mascaraVetos));
+        relatorio.put("status", status.name());
+        relatorio.put("dados_detalhados", dados);
         
-        boolean aprovado = vetos.isEmpty();
-        boolean baixoRisco = resultado.get("classificacao").toString().startsWith("VERDE");
+        if (metricas != null) {
+            metricas.registrarAvaliacao(status, mascaraVetos, pontuado - inicio, classificado - pontuado,
+                                        System.nanoTime() - classificado);
+        }
+        return relatorio;
+    }
+    
+    /**
+     * Avalia uma aplicação e retorna o resultado tipado diretamente, sem montar o mapa do
+     * relatório. O resultado é idêntico ao de {@code new ResultadoAvaliacao(gerarRelatorio(...))}.
+     * @param nomeAplicacao Nome da aplicação
+     * @param versao Versão da aplicação
+     * @param dados Dados para avaliação
+     * @return O resultado da avaliação
+     */
+    public ResultadoAvaliacao avaliar(String nomeAplicacao, String versao,
+                                      Map<String, Map<String, Double>> dados) {
+        long inicio = relogio();
+        String[] nomesDimensoes = new String[dados.size()];
+        double[] pontuacoesDimensoes = new double[dados.size()];
+        double riscoTotal = 0;
         
-        String status;
-        if (!aprovado) {
-            status = "BLOQUEADO";
-        } else if (baixoRisco) {
-            status = "APROVADO";
-        } else {
-            status = "CONDICIONADO";
+        // Mesma ordem de somas de calcularRiscoTotal
+        int d = 0;
+        for (Map.Entry<String, Map<String, Double>> entry : dados.entrySet()) {
+            String dimensao = entry.getKey();
+            double pontuacao = calcularPontuacaoDimensao(dimensao, entry.getValue());
+            int indiceDimensao = modelo.indiceDimensao(dimensao);
+            nomesDimensoes[d] = dimensao;
+            pontuacoesDimensoes[d++] = pontuacao;
+            riscoTotal += pontuacao * modelo.getPesoDimensao(indiceDimensao);
+            if (metricas != null) {
+                metricas.registrarPontuacao(indiceDimensao, pontuacao);
+            }
         }
         
-        relatorio.put("status", status);
-        relatorio.put("dados_detalhados", dados);
+        long pontuado = relogio();
+        return criarResultado(nomeAplicacao, versao, riscoTotal, regrasVeto.verificar(dados),
+                              nomesDimensoes, pontuacoesDimensoes, inicio, pontuado);
+    }
+    
+    /**
+     * Avalia uma aplicação a partir de um vetor indexado pelo ordinal do critério
+     * (NaN indica critério ausente). Dimensões sem nenhum critério presente não
+     * aparecem nas pontuações do resultado.
+     * @param nomeAplicacao Nome da aplicação
+     * @param versao Versão da aplicação
+     * @param valores Os valores de todos os critérios do modelo
+     * @return O resultado da avaliação
+     */
+    public ResultadoAvaliacao avaliar(String nomeAplicacao, String versao, double[] valores) {
+        long inicio = relogio();
+        double[] pontuacoesDimensoes = new double[modelo.getNumDimensoes()];
+        double riscoTotal = modelo.pontuarTotal(valores, pontuacoesDimensoes);
+        
+        for (int d = 0; d < pontuacoesDimensoes.length; d++) {
+            boolean presente = false;
+            for (int c = modelo.inicioDimensao(d); c < modelo.fimDimensao(d) && !presente; c++) {
+                presente = valores[c] == valores[c];
+            }
+            if (!presente) {
+                pontuacoesDimensoes[d] = Double.NaN;
+            } else if (metricas != null) {
+                metricas.registrarPontuacao(d, pontuacoesDimensoes[d]);
+            }
+        }
         
-        return relatorio;
+        long pontuado = relogio();
+        return criarResultado(nomeAplicacao, versao, riscoTotal, verificarVetos(valores),
+                              modelo.nomesDimensoes(), pontuacoesDimensoes, inicio, pontuado);
+    }
+    
+    // Os vetos já verificados pelo chamador contam na etapa de classificação
+    private ResultadoAvaliacao criarResultado(String nomeAplicacao, String versao, double riscoTotal,
+                                              int vetos, String[] nomesDimensoes,
+                                              double[] pontuacoesDimensoes, long inicio, long pontuado) {
+        ClassificacaoRisco classificacao = ClassificacaoRisco.de(riscoTotal);
+        StatusAvaliacao status = StatusAvaliacao.de(classificacao, vetos);
+        long classificado = relogio();
+        ResultadoAvaliacao resultado = new ResultadoAvaliacao(nomeAplicacao, versao, riscoTotal, classificacao,
+                                                              status, vetos, nomesDimensoes, pontuacoesDimensoes);
+        if (metricas != null) {
+            metricas.registrarAvaliacao(status, vetos, pontuado - inicio, classificado - pontuado,
+                                        System.nanoTime() - classificado);
+        }
+        return resultado;
+    }
+    
+    // Instante para as métricas; sem métricas, o relógio não é lido
+    private long relogio() {
+        return metricas != null ? System.nanoTime() : 0;
     }
 }
\ No newline at end of file
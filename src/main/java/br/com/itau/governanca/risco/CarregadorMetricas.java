@@ -0,0 +1,20 @@
+package br.com.itau.governanca.risco;
+
+import java.io.IOException;
+
+/**
+ * Carrega as métricas de uma aplicação a partir de uma referência (arquivo, chave em
+ * um repositório de métricas, URL etc.). Implementações normalmente fazem I/O e podem
+ * ser chamadas concorrentemente pelo {@link AvaliadorPortfolio}.
+ * @param <T> O tipo da referência da aplicação
+ */
+public interface CarregadorMetricas<T> {
+    
+    /**
+     * Carrega as métricas de uma aplicação
+     * @param referencia A referência da aplicação
+     * @return A aplicação com os dados de avaliação
+     * @throws IOException se não for possível obter as métricas
+     */
+    AplicacaoPortfolio carregar(T referencia) throws IOException;
+}
@@ -0,0 +1,191 @@
+package br.com.itau.governanca.risco;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Cenário hipotético para a {@link AnaliseSensibilidade}: um conjunto de alterações de pesos
+ * e limiares sobre o modelo em uso, como "limiar médio de percentil_95 em 1500 ms" ou "peso
+ * de seguranca em 0,35". As alterações são feitas por nome e resolvidas contra o modelo na
+ * análise; alterações repetidas do mesmo peso ou limiar prevalecem na ordem de declaração.
+ */
+public class CenarioSensibilidade {
+
+    // Tipos de alteração, que são também as posições em resolver()
+    static final int PESO_DIMENSAO = 0;
+    static final int PESO_CRITERIO = 1;
+    static final int LIMIAR_BAIXO = 2;
+    static final int LIMIAR_MEDIO = 3;
+
+    private final String nome;
+    private final List<Alteracao> alteracoes = new ArrayList<>();
+
+    /**
+     * Construtor de um cenário sem alterações
+     * @param nome O nome do cenário nos resultados
+     */
+    public CenarioSensibilidade(String nome) {
+        this.nome = nome;
+    }
+
+    /**
+     * Altera o peso de uma dimensão
+     * @param dimensao O nome da dimensão
+     * @param peso O novo peso
+     * @return este cenário
+     */
+    public CenarioSensibilidade pesoDimensao(String dimensao, double peso) {
+        return alterar(PESO_DIMENSAO, dimensao, null, peso);
+    }
+
+    /**
+     * Altera o peso de um critério dentro da sua dimensão
+     * @param dimensao O nome da dimensão
+     * @param criterio O nome do critério
+     * @param peso O novo peso
+     * @return este cenário
+     */
+    public CenarioSensibilidade pesoCriterio(String dimensao, String criterio, double peso) {
+        return alterar(PESO_CRITERIO, dimensao, criterio, peso);
+    }
+
+    /**
+     * Altera o limiar de baixo risco de um critério
+     * @param dimensao O nome da dimensão
+     * @param criterio O nome do critério
+     * @param limiar O novo limiar
+     * @return este cenário
+     */
+    public CenarioSensibilidade limiarBaixo(String dimensao, String criterio, double limiar) {
+        return alterar(LIMIAR_BAIXO, dimensao, criterio, limiar);
+    }
+
+    /**
+     * Altera o limiar de médio risco de um critério
+     * @param dimensao O nome da dimensão
+     * @param criterio O nome do critério
+     * @param limiar O novo limiar
+     * @return este cenário
+     */
+    public CenarioSensibilidade limiarMedio(String dimensao, String criterio, double limiar) {
+        return alterar(LIMIAR_MEDIO, dimensao, criterio, limiar);
+    }
+
+    /**
+     * Retorna o nome do cenário
+     * @return o nome
+     */
+    public String getNome() {
+        return nome;
+    }
+
+    /**
+     * Cria o modelo resultante das alterações, por exemplo para adotá-lo após a análise
+     * @param modelo O modelo de partida
+     * @return um novo modelo, com a mesma versão e as alterações aplicadas
+     * @throws IllegalArgumentException se alguma dimensão ou critério não existir no modelo
+     */
+    public ModeloCompilado aplicar(ModeloCompilado modelo) {
+        double[][] parametros = resolver(modelo);
+        ModeloCompilado.Construtor construtor = new ModeloCompilado.Construtor().versao(modelo.getVersao());
+        for (int d = 0; d < modelo.getNumDimensoes(); d++) {
+            construtor.dimensao(modelo.getNomeDimensao(d), parametros[PESO_DIMENSAO][d]);
+            for (int c = modelo.inicioDimensao(d); c < modelo.fimDimensao(d); c++) {
+                construtor.criterio(modelo.getNomeCriterio(c), parametros[PESO_CRITERIO][c],
+                                    parametros[LIMIAR_BAIXO][c], parametros[LIMIAR_MEDIO][c], modelo.isInvertido(c));
+            }
+        }
+        return construtor.construir();
+    }
+
+    /**
+     * Combina eixos de cenários em uma grade: um cenário para cada combinação de um cenário de
+     * cada eixo, com as alterações de todos e os nomes unidos por " + "
+     * @param eixos Os eixos da grade, cada um com as alternativas de um parâmetro
+     * @return os cenários da grade, com o último eixo variando mais rápido
+     */
+    @SafeVarargs
+    public static List<CenarioSensibilidade> grade(List<CenarioSensibilidade>... eixos) {
+        if (eixos.length == 0) {
+            return Collections.emptyList();
+        }
+        List<CenarioSensibilidade> combinacoes = new ArrayList<>();
+        combinacoes.add(null);
+        for (List<CenarioSensibilidade> eixo : eixos) {
+            List<CenarioSensibilidade> proximas = new ArrayList<>(combinacoes.size() * eixo.size());
+            for (CenarioSensibilidade anterior : combinacoes) {
+                for (CenarioSensibilidade alternativa : eixo) {
+                    CenarioSensibilidade combinado = new CenarioSensibilidade(
+                        anterior == null ? alternativa.nome : anterior.nome + " + " + alternativa.nome);
+                    if (anterior != null) {
+                        combinado.alteracoes.addAll(anterior.alteracoes);
+                    }
+                    combinado.alteracoes.addAll(alternativa.alteracoes);
+                    proximas.add(combinado);
+                }
+            }
+            combinacoes = proximas;
+        }
+        return combinacoes;
+    }
+
+    /**
+     * Resolve as alterações contra um modelo
+     * @param modelo O modelo de partida
+     * @return os pesos das dimensões e os pesos, limiares baixos e limiares médios dos
+     *         critérios, nas posições PESO_DIMENSAO, PESO_CRITERIO, LIMIAR_BAIXO e LIMIAR_MEDIO
+     */
+    double[][] resolver(ModeloCompilado modelo) {
+        int numDimensoes = modelo.getNumDimensoes();
+        int numCriterios = modelo.getNumCriterios();
+        double[][] parametros = {
+            new double[numDimensoes], new double[numCriterios], new double[numCriterios], new double[numCriterios]
+        };
+        for (int d = 0; d < numDimensoes; d++) {
+            parametros[PESO_DIMENSAO][d] = modelo.getPesoDimensao(d);
+        }
+        for (int c = 0; c < numCriterios; c++) {
+            parametros[PESO_CRITERIO][c] = modelo.getPesoCriterio(c);
+            parametros[LIMIAR_BAIXO][c] = modelo.getLimiarBaixo(c);
+            parametros[LIMIAR_MEDIO][c] = modelo.getLimiarMedio(c);
+        }
+        for (Alteracao alteracao : alteracoes) {
+            int posicao = alteracao.tipo == PESO_DIMENSAO
+                ? modelo.indiceDimensaoObrigatoria(alteracao.dimensao)
+                : modelo.indiceCriterioObrigatorio(alteracao.dimensao, alteracao.criterio);
+            parametros[alteracao.tipo][posicao] = alteracao.valor;
+        }
+        return parametros;
+    }
+
+    private CenarioSensibilidade alterar(int tipo, String dimensao, String criterio, double valor) {
+        boolean peso = tipo == PESO_DIMENSAO || tipo == PESO_CRITERIO;
+        if (Double.isNaN(valor) || Double.isInfinite(valor) || (peso && valor < 0)) {
+            throw new IllegalArgumentException("Valor inválido para " + dimensao
+                + (criterio == null ? "" : "." + criterio) + ": " + valor);
+        }
+        alteracoes.add(new Alteracao(tipo, dimensao, criterio, valor));
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return nome;
+    }
+
+    // Alteração de um peso ou limiar, por nome
+    private static final class Alteracao {
+        private final int tipo;
+        private final String dimensao;
+        private final String criterio;
+        private final double valor;
+
+        Alteracao(int tipo, String dimensao, String criterio, double valor) {
+            this.tipo = tipo;
+            this.dimensao = dimensao;
+            this.criterio = criterio;
+            this.valor = valor;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package br.com.itau.governanca.risco;
+
+/**
+ * Faixas de classificação final do risco total de uma aplicação
+ */
+public enum ClassificacaoRisco {
+    VERDE("VERDE (Baixo Risco)"),
+    AMARELO("AMARELO (Médio Risco)"),
+    VERMELHO("VERMELHO (Alto Risco)");
+
+    // Limites superiores (inclusivos) das faixas VERDE e AMARELO
+    static final double LIMITE_VERDE = 1.5;
+    static final double LIMITE_AMARELO = 2.2;
+
+    private static final ClassificacaoRisco[] VALORES = values();
+
+    private final String rotulo;
+
+    ClassificacaoRisco(String rotulo) {
+        this.rotulo = rotulo;
+    }
+
+    /**
+     * Classifica uma pontuação total de risco
+     * @param riscoTotal A pontuação total de risco
+     * @return A faixa de classificação correspondente
+     */
+    public static ClassificacaoRisco de(double riscoTotal) {
+        if (riscoTotal <= LIMITE_VERDE) {
+            return VERDE;
+        } else if (riscoTotal <= LIMITE_AMARELO) {
+            return AMARELO;
+        } else {
+            return VERMELHO;
+        }
+    }
+
+    /**
+     * Retorna a classificação a partir do seu ordinal, sem alocar o array de values()
+     * @param ordinal O ordinal da classificação
+     * @return A classificação correspondente
+     */
+    public static ClassificacaoRisco doOrdinal(int ordinal) {
+        return VALORES[ordinal];
+    }
+
+    /**
+     * Converte um rótulo de relatório na classificação correspondente pelo seu prefixo,
+     * como em "VERDE (Baixo Risco)"
+     * @param rotulo O rótulo da classificação
+     * @return A classificação correspondente
+     * @throws IllegalArgumentException se o rótulo não começar por VERDE, AMARELO ou VERMELHO
+     */
+    public static ClassificacaoRisco doRotulo(String rotulo) {
+        for (ClassificacaoRisco classificacao : VALORES) {
+            if (rotulo.startsWith(classificacao.name())) {
+                return classificacao;
+            }
+        }
+        throw new IllegalArgumentException("Classificação desconhecida: " + rotulo);
+    }
+
+    /**
+     * Retorna o rótulo usado nos relatórios, como "VERDE (Baixo Risco)"
+     * @return o rótulo da classificação
+     */
+    public String getRotulo() {
+        return rotulo;
+    }
+}
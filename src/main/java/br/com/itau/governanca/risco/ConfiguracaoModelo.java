@@ -0,0 +1,162 @@
+package br.com.itau.governanca.risco;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+/**
+ * Carrega e valida o modelo de risco a partir de um arquivo de configuração versionado,
+ * no formato de {@link Properties}:
+ * <pre>
+ *   versao=2024.1
+ *   dimensoes=bugs, performance, ...
+ *   dimensao.bugs.peso=0.25
+ *   dimensao.bugs.criterios=densidade_defeitos, cobertura_testes, ...
+ *   criterio.bugs.densidade_defeitos=0.25, 2.0, 5.0
+ *   criterio.bugs.cobertura_testes=0.20, 90.0, 70.0, invertido
+ * </pre>
+ * A ordem das listas {@code dimensoes} e {@code criterios} define os ordinais do modelo.
+ * <p>
+ * O modelo só é compilado se for válido: os pesos das dimensões e os pesos dos critérios de
+ * cada dimensão somam 1, os pesos são não negativos, os limiares são finitos e ordenados
+ * (baixo &le; médio, ou baixo &ge; médio para critérios invertidos) e nenhuma chave fica sem uso.
+ * O exemplo completo está em {@code documentacao/relatorios/modelo_risco_qualidade_itau.properties}.
+ */
+public final class ConfiguracaoModelo {
+
+    /** Tolerância na soma dos pesos */
+    public static final double TOLERANCIA_PESOS = 1e-6;
+
+    private static final String INVERTIDO = "invertido";
+
+    private ConfiguracaoModelo() {
+    }
+
+    /**
+     * Carrega o modelo de um arquivo de configuração (UTF-8)
+     * @param arquivo O arquivo de configuração
+     * @return o modelo compilado
+     * @throws IOException se o arquivo não puder ser lido
+     * @throws IllegalArgumentException se a configuração for inválida
+     */
+    public static ModeloCompilado carregar(Path arquivo) throws IOException {
+        try (Reader leitor = Files.newBufferedReader(arquivo, StandardCharsets.UTF_8)) {
+            return carregar(leitor, arquivo.toString());
+        }
+    }
+
+    /**
+     * Carrega o modelo de uma configuração
+     * @param leitor O leitor da configuração
+     * @param origem A origem da configuração, usada nas mensagens de erro
+     * @return o modelo compilado
+     * @throws IOException se a configuração não puder ser lida
+     * @throws IllegalArgumentException se a configuração for inválida
+     */
+    public static ModeloCompilado carregar(Reader leitor, String origem) throws IOException {
+        Properties propriedades = new Properties();
+        propriedades.load(leitor);
+        return compilar(propriedades, origem);
+    }
+
+    /**
+     * Valida e compila o modelo a partir das propriedades
+     * @param propriedades As propriedades da configuração
+     * @param origem A origem da configuração, usada nas mensagens de erro
+     * @return o modelo compilado
+     * @throws IllegalArgumentException se a configuração for inválida
+     */
+    public static ModeloCompilado compilar(Properties propriedades, String origem) {
+        int usadas = 0;
+        ModeloCompilado.Construtor construtor = new ModeloCompilado.Construtor()
+            .versao(obrigatoria(propriedades, "versao", origem));
+        usadas++;
+
+        String[] dimensoes = lista(obrigatoria(propriedades, "dimensoes", origem));
+        usadas++;
+        double somaDimensoes = 0;
+        for (String dimensao : dimensoes) {
+            double pesoDimensao = peso(obrigatoria(propriedades, "dimensao." + dimensao + ".peso", origem),
+                                       "dimensão " + dimensao, origem);
+            construtor.dimensao(dimensao, pesoDimensao);
+            somaDimensoes += pesoDimensao;
+            usadas++;
+
+            String[] criterios = lista(obrigatoria(propriedades, "dimensao." + dimensao + ".criterios", origem));
+            usadas++;
+            double somaCriterios = 0;
+            for (String criterio : criterios) {
+                String chave = "criterio." + dimensao + "." + criterio;
+                String[] campos = lista(obrigatoria(propriedades, chave, origem));
+                usadas++;
+                if (campos.length < 3 || campos.length > 4
+                        || (campos.length == 4 && !INVERTIDO.equals(campos[3]))) {
+                    throw invalida(origem, chave + ": esperado 'peso, limiar baixo, limiar médio [, invertido]'");
+                }
+                double peso = peso(campos[0], chave, origem);
+                double limiarBaixo = numero(campos[1], chave, origem);
+                double limiarMedio = numero(campos[2], chave, origem);
+                boolean invertido = campos.length == 4;
+                if (invertido ? limiarBaixo < limiarMedio : limiarBaixo > limiarMedio) {
+                    throw invalida(origem, chave + ": limiares fora de ordem (" + limiarBaixo + ", "
+                        + limiarMedio + (invertido ? ", invertido)" : ")"));
+                }
+                construtor.criterio(criterio, peso, limiarBaixo, limiarMedio, invertido);
+                somaCriterios += peso;
+            }
+            validarSoma(somaCriterios, "dos critérios da dimensão " + dimensao, origem);
+        }
+        validarSoma(somaDimensoes, "das dimensões", origem);
+
+        if (usadas != propriedades.size()) {
+            throw invalida(origem, (propriedades.size() - usadas) + " chave(s) sem uso no modelo");
+        }
+        return construtor.construir();
+    }
+
+    private static void validarSoma(double soma, String descricao, String origem) {
+        if (Math.abs(soma - 1.0) > TOLERANCIA_PESOS) {
+            throw invalida(origem, "os pesos " + descricao + " somam " + soma + ", esperado 1");
+        }
+    }
+
+    private static String obrigatoria(Properties propriedades, String chave, String origem) {
+        String valor = propriedades.getProperty(chave);
+        if (valor == null || valor.trim().isEmpty()) {
+            throw invalida(origem, "chave obrigatória ausente: " + chave);
+        }
+        return valor.trim();
+    }
+
+    private static String[] lista(String valor) {
+        return valor.split("\\s*,\\s*");
+    }
+
+    private static double peso(String texto, String descricao, String origem) {
+        double peso = numero(texto, descricao, origem);
+        if (peso < 0) {
+            throw invalida(origem, descricao + ": peso negativo " + peso);
+        }
+        return peso;
+    }
+
+    private static double numero(String texto, String descricao, String origem) {
+        double valor;
+        try {
+            valor = Double.parseDouble(texto);
+        } catch (NumberFormatException e) {
+            throw invalida(origem, descricao + ": número inválido '" + texto + "'");
+        }
+        if (Double.isNaN(valor) || Double.isInfinite(valor)) {
+            throw invalida(origem, descricao + ": número não finito '" + texto + "'");
+        }
+        return valor;
+    }
+
+    private static IllegalArgumentException invalida(String origem, String mensagem) {
+        return new IllegalArgumentException("Configuração do modelo inválida (" + origem + "): " + mensagem);
+    }
+}
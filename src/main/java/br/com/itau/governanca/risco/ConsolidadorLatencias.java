@@ -0,0 +1,129 @@
+package br.com.itau.governanca.risco;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Consolida as latências de várias instâncias de um serviço para os critérios
+ * {@code tempo_resposta} e {@code percentil_95}.
+ * <p>
+ * Cada instância acumula as suas latências em um {@link HistogramaLatencias} e envia a forma
+ * serializada; o coordenador mescla os histogramas recebidos e deriva a média e o P95 do
+ * conjunto. Ao contrário da média dos P95 de cada nó, o resultado é o mesmo de um histograma
+ * único com todas as requisições, e o volume transferido não depende do número de requisições.
+ * Os métodos são sincronizados, de modo que nós diferentes podem ser recebidos em paralelo.
+ */
+public class ConsolidadorLatencias {
+
+    private final CalculadoraRisco calculadora;
+    private final int criterioTempoResposta;
+    private final int criterioPercentil95;
+    private final HistogramaLatencias consolidado = new HistogramaLatencias();
+    private int nos;
+
+    /**
+     * Construtor
+     * @param calculadora A calculadora usada para pontuar a dimensão performance
+     */
+    public ConsolidadorLatencias(CalculadoraRisco calculadora) {
+        ModeloCompilado modelo = calculadora.getModelo();
+        this.calculadora = calculadora;
+        this.criterioTempoResposta = modelo.indiceCriterioObrigatorio("performance", "tempo_resposta");
+        this.criterioPercentil95 = modelo.indiceCriterioObrigatorio("performance", "percentil_95");
+    }
+
+    /**
+     * Mescla o histograma serializado enviado por um nó
+     * @param dados Os bytes recebidos
+     * @param inicio A posição do início do histograma
+     * @param tamanho O tamanho do histograma serializado
+     * @throws IllegalArgumentException se os bytes não forem exatamente um histograma serializado
+     */
+    public synchronized void receber(byte[] dados, int inicio, int tamanho) {
+        ByteBuffer origem = ByteBuffer.wrap(dados, inicio, tamanho);
+        ByteBuffer verificacao = origem.duplicate();
+        HistogramaLatencias.validar(verificacao);
+        if (verificacao.hasRemaining()) {
+            throw new IllegalArgumentException("Histograma serializado inválido: "
+                + verificacao.remaining() + " bytes após o fim");
+        }
+        consolidado.mesclar(origem);
+        nos++;
+    }
+
+    /**
+     * Mescla o histograma de um nó local
+     * @param histograma O histograma do nó (não é alterado)
+     */
+    public synchronized void receber(HistogramaLatencias histograma) {
+        consolidado.mesclar(histograma);
+        nos++;
+    }
+
+    /**
+     * Preenche {@code tempo_resposta} (média) e {@code percentil_95} em um vetor de valores
+     * indexado pelo ordinal do critério; sem latências recebidas, ambos ficam ausentes (NaN)
+     * @param valores O vetor de valores do modelo da calculadora
+     */
+    public synchronized void preencher(double[] valores) {
+        valores[criterioTempoResposta] = consolidado.getMedia();
+        valores[criterioPercentil95] = consolidado.getPercentil(95);
+    }
+
+    /**
+     * Calcula a pontuação da dimensão performance com a média e o P95 consolidados
+     * @param outrosCriterios Os valores dos demais critérios de performance (não é alterado)
+     * @return a pontuação ponderada da dimensão performance
+     */
+    public double pontuarPerformance(Map<String, Double> outrosCriterios) {
+        Map<String, Double> valores = new HashMap<>(outrosCriterios);
+        synchronized (this) {
+            if (consolidado.getQuantidade() > 0) {
+                valores.put("tempo_resposta", consolidado.getMedia());
+                valores.put("percentil_95", consolidado.getPercentil(95));
+            }
+        }
+        return calculadora.calcularPontuacaoDimensao("performance", valores);
+    }
+
+    /**
+     * Retorna a média das latências de todos os nós
+     * @return a média em milissegundos, ou NaN se nenhuma latência foi recebida
+     */
+    public synchronized double getMedia() {
+        return consolidado.getMedia();
+    }
+
+    /**
+     * Retorna o P95 das latências de todos os nós
+     * @return o P95 em milissegundos, ou NaN se nenhuma latência foi recebida
+     */
+    public synchronized double getPercentil95() {
+        return consolidado.getPercentil(95);
+    }
+
+    /**
+     * Retorna o número de latências de todos os nós
+     * @return o número de amostras
+     */
+    public synchronized long getQuantidade() {
+        return consolidado.getQuantidade();
+    }
+
+    /**
+     * Retorna o número de histogramas recebidos desde a última limpeza
+     * @return o número de histogramas
+     */
+    public synchronized int getNos() {
+        return nos;
+    }
+
+    /**
+     * Descarta os histogramas recebidos, para iniciar um novo período
+     */
+    public synchronized void limpar() {
+        consolidado.limpar();
+        nos = 0;
+    }
+}
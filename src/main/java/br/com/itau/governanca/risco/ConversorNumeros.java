@@ -0,0 +1,87 @@
+package br.com.itau.governanca.risco;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Conversão de números em texto ASCII diretamente a partir de bytes, sem criar Strings.
+ * Usada pelos leitores de arquivos de métricas.
+ */
+final class ConversorNumeros {
+
+    // Potências de 10 exatamente representáveis em double
+    private static final double[] POTENCIAS_10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+        1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    // Maior mantissa decimal (15 dígitos) representável exatamente em double
+    private static final long MANTISSA_MAXIMA_EXATA = 999_999_999_999_999L;
+
+    private ConversorNumeros() {
+    }
+
+    /**
+     * Converte o trecho {@code [inicio, fim)} em double. Números simples (até 15 dígitos
+     * significativos) são convertidos de forma exata sem alocação; os demais casos
+     * recorrem a {@link Double#parseDouble(String)}.
+     * @param bytes Os bytes que contêm o número
+     * @param inicio A posição inicial (inclusiva)
+     * @param fim A posição final (exclusiva)
+     * @return O valor convertido, ou NaN se o trecho não for um número válido
+     */
+    static double converter(byte[] bytes, int inicio, int fim) {
+        while (inicio < fim && bytes[inicio] == ' ') {
+            inicio++;
+        }
+        while (fim > inicio && bytes[fim - 1] == ' ') {
+            fim--;
+        }
+        if (inicio == fim) {
+            return Double.NaN;
+        }
+
+        int i = inicio;
+        boolean negativo = false;
+        if (bytes[i] == '-' || bytes[i] == '+') {
+            negativo = bytes[i] == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digitos = 0;
+        int casasDecimais = 0;
+        boolean ponto = false;
+        for (; i < fim; i++) {
+            byte b = bytes[i];
+            if (b >= '0' && b <= '9') {
+                if (mantissa > MANTISSA_MAXIMA_EXATA / 10) {
+                    return converterLento(bytes, inicio, fim);
+                }
+                mantissa = mantissa * 10 + (b - '0');
+                digitos++;
+                if (ponto && ++casasDecimais >= POTENCIAS_10.length) {
+                    return converterLento(bytes, inicio, fim);
+                }
+            } else if (b == '.' && !ponto) {
+                ponto = true;
+            } else {
+                // Expoente ou outro formato: delega ao conversor da JDK
+                return converterLento(bytes, inicio, fim);
+            }
+        }
+        if (digitos == 0) {
+            return Double.NaN;
+        }
+
+        double valor = casasDecimais == 0 ? mantissa : mantissa / POTENCIAS_10[casasDecimais];
+        return negativo ? -valor : valor;
+    }
+
+    private static double converterLento(byte[] bytes, int inicio, int fim) {
+        try {
+            return Double.parseDouble(new String(bytes, inicio, fim - inicio, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,415 @@
+package br.com.itau.governanca.risco;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Escreve o relatório de avaliação em JSON, no mesmo esquema de relatorio_qube.json,
+ * diretamente a partir dos vetores indexados por ordinal, sem montar a árvore de mapas
+ * de {@code gerarRelatorio} e sem bibliotecas externas.
+ * <p>
+ * Nomes de dimensões, critérios, chaves e mensagens de veto são codificados em UTF-8 uma
+ * única vez na construção; os números são formatados sem criar Strings sempre que têm
+ * até 15 dígitos significativos. Uma dimensão é escrita (em {@code pontuacoes_dimensoes}
+ * e em {@code dados_detalhados}) quando ao menos um dos seus critérios está presente.
+ * <p>
+ * Instâncias reutilizam um buffer interno e não são thread-safe; use um escritor por thread.
+ */
+public class EscritorJsonRelatorio {
+
+    private static final byte[] CHAVE_NOME_APLICACAO = codificar("nome_aplicacao");
+    private static final byte[] CHAVE_VERSAO = codificar("versao");
+    private static final byte[] CHAVE_DATA_AVALIACAO = codificar("data_avaliacao");
+    private static final byte[] CHAVE_RESULTADO = codificar("resultado");
+    private static final byte[] CHAVE_PONTUACAO_TOTAL = codificar("pontuacao_total");
+    private static final byte[] CHAVE_CLASSIFICACAO = codificar("classificacao");
+    private static final byte[] CHAVE_PONTUACOES_DIMENSOES = codificar("pontuacoes_dimensoes");
+    private static final byte[] CHAVE_VETOS = codificar("vetos");
+    private static final byte[] CHAVE_STATUS = codificar("status");
+    private static final byte[] CHAVE_DADOS_DETALHADOS = codificar("dados_detalhados");
+
+    private static final byte[][] ROTULOS_CLASSIFICACOES = new byte[ClassificacaoRisco.values().length][];
+    private static final byte[][] NOMES_STATUS = new byte[StatusAvaliacao.values().length][];
+    private static final byte[][] MENSAGENS_VETOS;
+
+    static {
+        for (ClassificacaoRisco classificacao : ClassificacaoRisco.values()) {
+            ROTULOS_CLASSIFICACOES[classificacao.ordinal()] = codificar(classificacao.getRotulo());
+        }
+        for (StatusAvaliacao status : StatusAvaliacao.values()) {
+            NOMES_STATUS[status.ordinal()] = codificar(status.name());
+        }
+        List<String> mensagens = CalculadoraRisco.descreverVetos(-1);
+        MENSAGENS_VETOS = new byte[mensagens.size()][];
+        for (int i = 0; i < MENSAGENS_VETOS.length; i++) {
+            MENSAGENS_VETOS[i] = codificar(mensagens.get(i));
+        }
+    }
+
+    // Potências de 10 exatamente representáveis em double
+    private static final double[] POTENCIAS_10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15
+    };
+
+    // Maior mantissa decimal (15 dígitos) representável exatamente em double
+    private static final long MANTISSA_MAXIMA_EXATA = 999_999_999_999_999L;
+
+    // Profundidade máxima de aninhamento do relatório
+    private static final int PROFUNDIDADE_MAXIMA = 4;
+
+    private final CalculadoraRisco calculadora;
+    private final ModeloCompilado modelo;
+    private final boolean indentado;
+    private final byte[][] nomesDimensoes;
+    private final byte[][] nomesCriterios;
+    private final double[] pontuacoes;
+    private final boolean[] primeiroItem = new boolean[PROFUNDIDADE_MAXIMA + 1];
+
+    private byte[] buffer = new byte[4096];
+    private int tamanho;
+    private int nivel;
+
+    /**
+     * Construtor de um escritor compacto (sem espaços nem quebras de linha)
+     * @param calculadora A calculadora usada para pontuar os valores
+     */
+    public EscritorJsonRelatorio(CalculadoraRisco calculadora) {
+        this(calculadora, false);
+    }
+
+    /**
+     * Construtor
+     * @param calculadora A calculadora usada para pontuar os valores
+     * @param indentado true para indentar com dois espaços, como relatorio_qube.json
+     */
+    public EscritorJsonRelatorio(CalculadoraRisco calculadora, boolean indentado) {
+        this.calculadora = calculadora;
+        this.modelo = calculadora.getModelo();
+        this.indentado = indentado;
+        this.nomesDimensoes = new byte[modelo.getNumDimensoes()][];
+        for (int d = 0; d < nomesDimensoes.length; d++) {
+            nomesDimensoes[d] = codificar(modelo.getNomeDimensao(d));
+        }
+        this.nomesCriterios = new byte[modelo.getNumCriterios()][];
+        for (int c = 0; c < nomesCriterios.length; c++) {
+            nomesCriterios[c] = codificar(modelo.getNomeCriterio(c));
+        }
+        this.pontuacoes = new double[modelo.getNumDimensoes()];
+    }
+
+    /**
+     * Avalia os valores de uma aplicação e escreve o relatório
+     * @param nomeAplicacao Nome da aplicação
+     * @param versao Versão da aplicação
+     * @param dataAvaliacao Data da avaliação, ou null para omitir o campo
+     * @param valores Os valores de todos os critérios do modelo (NaN para ausentes)
+     * @param saida O destino do JSON
+     * @return O número de bytes escritos
+     * @throws IOException se houver erro de escrita
+     */
+    public int escrever(String nomeAplicacao, String versao, String dataAvaliacao, double[] valores,
+                        OutputStream saida) throws IOException {
+        double total = calculadora.calcularPontuacaoTotal(valores, pontuacoes);
+        montar(nomeAplicacao, versao, dataAvaliacao, valores, pontuacoes, total, calculadora.verificarVetos(valores));
+        saida.write(buffer, 0, tamanho);
+        return tamanho;
+    }
+
+    /**
+     * Avalia os valores de uma aplicação e escreve o relatório em um ByteBuffer
+     * @param nomeAplicacao Nome da aplicação
+     * @param versao Versão da aplicação
+     * @param dataAvaliacao Data da avaliação, ou null para omitir o campo
+     * @param valores Os valores de todos os critérios do modelo (NaN para ausentes)
+     * @param destino O buffer de destino, a partir da sua posição atual
+     * @return O número de bytes escritos
+     * @throws java.nio.BufferOverflowException se o relatório não couber no buffer
+     */
+    public int escrever(String nomeAplicacao, String versao, String dataAvaliacao, double[] valores,
+                        ByteBuffer destino) {
+        double total = calculadora.calcularPontuacaoTotal(valores, pontuacoes);
+        montar(nomeAplicacao, versao, dataAvaliacao, valores, pontuacoes, total, calculadora.verificarVetos(valores));
+        destino.put(buffer, 0, tamanho);
+        return tamanho;
+    }
+
+    /**
+     * Escreve o relatório de uma avaliação já pontuada
+     * @param nomeAplicacao Nome da aplicação
+     * @param versao Versão da aplicação
+     * @param dataAvaliacao Data da avaliação, ou null para omitir o campo
+     * @param valores Os valores de todos os critérios do modelo (NaN para ausentes)
+     * @param pontuacoesDimensoes As pontuações por dimensão
+     * @param pontuacaoTotal A pontuação total
+     * @param vetos A máscara de vetos (bits VETO_* da CalculadoraRisco)
+     * @param saida O destino do JSON
+     * @return O número de bytes escritos
+     * @throws IOException se houver erro de escrita
+     */
+    public int escrever(String nomeAplicacao, String versao, String dataAvaliacao, double[] valores,
+                        double[] pontuacoesDimensoes, double pontuacaoTotal, int vetos,
+                        OutputStream saida) throws IOException {
+        montar(nomeAplicacao, versao, dataAvaliacao, valores, pontuacoesDimensoes, pontuacaoTotal, vetos);
+        saida.write(buffer, 0, tamanho);
+        return tamanho;
+    }
+
+    /**
+     * Escreve o relatório de uma avaliação já pontuada em um ByteBuffer
+     * @param nomeAplicacao Nome da aplicação
+     * @param versao Versão da aplicação
+     * @param dataAvaliacao Data da avaliação, ou null para omitir o campo
+     * @param valores Os valores de todos os critérios do modelo (NaN para ausentes)
+     * @param pontuacoesDimensoes As pontuações por dimensão
+     * @param pontuacaoTotal A pontuação total
+     * @param vetos A máscara de vetos (bits VETO_* da CalculadoraRisco)
+     * @param destino O buffer de destino, a partir da sua posição atual
+     * @return O número de bytes escritos
+     * @throws java.nio.BufferOverflowException se o relatório não couber no buffer
+     */
+    public int escrever(String nomeAplicacao, String versao, String dataAvaliacao, double[] valores,
+                        double[] pontuacoesDimensoes, double pontuacaoTotal, int vetos, ByteBuffer destino) {
+        montar(nomeAplicacao, versao, dataAvaliacao, valores, pontuacoesDimensoes, pontuacaoTotal, vetos);
+        destino.put(buffer, 0, tamanho);
+        return tamanho;
+    }
+
+    private void montar(String nomeAplicacao, String versao, String dataAvaliacao, double[] valores,
+                        double[] pontuacoesDimensoes, double pontuacaoTotal, int vetos) {
+        ClassificacaoRisco classificacao = ClassificacaoRisco.de(pontuacaoTotal);
+        tamanho = 0;
+        nivel = 0;
+
+        abrir('{');
+        chave(CHAVE_NOME_APLICACAO);
+        texto(nomeAplicacao);
+        chave(CHAVE_VERSAO);
+        texto(versao);
+        if (dataAvaliacao != null) {
+            chave(CHAVE_DATA_AVALIACAO);
+            texto(dataAvaliacao);
+        }
+
+        chave(CHAVE_RESULTADO);
+        abrir('{');
+        chave(CHAVE_PONTUACAO_TOTAL);
+        numero(pontuacaoTotal);
+        chave(CHAVE_CLASSIFICACAO);
+        escreverBytes(ROTULOS_CLASSIFICACOES[classificacao.ordinal()]);
+        chave(CHAVE_PONTUACOES_DIMENSOES);
+        abrir('{');
+        for (int d = 0; d < nomesDimensoes.length; d++) {
+            if (dimensaoPresente(d, valores)) {
+                chave(nomesDimensoes[d]);
+                numero(pontuacoesDimensoes[d]);
+            }
+        }
+        fechar('}');
+        fechar('}');
+
+        chave(CHAVE_VETOS);
+        abrir('[');
+        for (int i = 0; i < MENSAGENS_VETOS.length; i++) {
+            if ((vetos & (1 << i)) != 0) {
+                item();
+                escreverBytes(MENSAGENS_VETOS[i]);
+            }
+        }
+        fechar(']');
+
+        chave(CHAVE_STATUS);
+        escreverBytes(NOMES_STATUS[StatusAvaliacao.de(classificacao, vetos).ordinal()]);
+
+        chave(CHAVE_DADOS_DETALHADOS);
+        abrir('{');
+        for (int d = 0; d < nomesDimensoes.length; d++) {
+            if (!dimensaoPresente(d, valores)) {
+                continue;
+            }
+            chave(nomesDimensoes[d]);
+            abrir('{');
+            for (int c = modelo.inicioDimensao(d), fim = modelo.fimDimensao(d); c < fim; c++) {
+                if (valores[c] == valores[c]) {
+                    chave(nomesCriterios[c]);
+                    numero(valores[c]);
+                }
+            }
+            fechar('}');
+        }
+        fechar('}');
+        fechar('}');
+    }
+
+    private boolean dimensaoPresente(int dimensao, double[] valores) {
+        for (int c = modelo.inicioDimensao(dimensao), fim = modelo.fimDimensao(dimensao); c < fim; c++) {
+            if (valores[c] == valores[c]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void abrir(char delimitador) {
+        escreverByte(delimitador);
+        primeiroItem[++nivel] = true;
+    }
+
+    private void fechar(char delimitador) {
+        boolean vazio = primeiroItem[nivel--];
+        if (!vazio) {
+            novaLinha();
+        }
+        escreverByte(delimitador);
+    }
+
+    // Separa o próximo item do anterior e o posiciona na linha seguinte
+    private void item() {
+        if (!primeiroItem[nivel]) {
+            escreverByte(',');
+        }
+        primeiroItem[nivel] = false;
+        novaLinha();
+    }
+
+    private void chave(byte[] chave) {
+        item();
+        escreverBytes(chave);
+        escreverByte(':');
+        if (indentado) {
+            escreverByte(' ');
+        }
+    }
+
+    private void novaLinha() {
+        if (indentado) {
+            garantir(1 + 2 * nivel);
+            buffer[tamanho++] = '\n';
+            for (int i = 0; i < 2 * nivel; i++) {
+                buffer[tamanho++] = ' ';
+            }
+        }
+    }
+
+    private void texto(String valor) {
+        if (valor == null) {
+            garantir(4);
+            buffer[tamanho++] = 'n';
+            buffer[tamanho++] = 'u';
+            buffer[tamanho++] = 'l';
+            buffer[tamanho++] = 'l';
+            return;
+        }
+        // Caracteres ASCII sem escape são copiados diretamente; os demais seguem o caminho geral
+        garantir(valor.length() + 2);
+        int inicio = tamanho;
+        buffer[tamanho++] = '"';
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c < 0x20 || c >= 0x80 || c == '"' || c == '\\') {
+                tamanho = inicio;
+                escreverBytes(codificar(valor));
+                return;
+            }
+            buffer[tamanho++] = (byte) c;
+        }
+        buffer[tamanho++] = '"';
+    }
+
+    /**
+     * Formata um double como o repr do Python para valores com até 15 dígitos
+     * significativos (1.0, 0.9, 650.0), sem criar Strings. Os demais valores usam
+     * {@link Double#toString(double)}; NaN e infinitos, que não existem em JSON, viram null.
+     */
+    private void numero(double valor) {
+        if (valor != valor || Double.isInfinite(valor)) {
+            texto(null);
+            return;
+        }
+        double absoluto = Math.abs(valor);
+        if (absoluto < 1e15 && (absoluto >= 1e-4 || absoluto == 0)) {
+            for (int casas = 1; casas < POTENCIAS_10.length; casas++) {
+                double escalado = absoluto * POTENCIAS_10[casas];
+                if (escalado > MANTISSA_MAXIMA_EXATA) {
+                    break;
+                }
+                long mantissa = Math.round(escalado);
+                if (mantissa / POTENCIAS_10[casas] == absoluto) {
+                    escreverDecimal(valor < 0 || (valor == 0 && 1 / valor < 0), mantissa, casas);
+                    return;
+                }
+            }
+        }
+        escreverBytes(Double.toString(valor).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    // Escreve mantissa / 10^casas, removendo zeros à direita mas mantendo ao menos uma casa
+    private void escreverDecimal(boolean negativo, long mantissa, int casas) {
+        while (casas > 1 && mantissa % 10 == 0) {
+            mantissa /= 10;
+            casas--;
+        }
+        garantir(22);
+        if (negativo) {
+            buffer[tamanho++] = '-';
+        }
+        int inicio = tamanho;
+        int digitos = 0;
+        do {
+            if (digitos == casas) {
+                buffer[tamanho++] = '.';
+            }
+            buffer[tamanho++] = (byte) ('0' + mantissa % 10);
+            mantissa /= 10;
+            digitos++;
+        } while (mantissa > 0 || digitos <= casas);
+        // Os dígitos foram gerados do menos para o mais significativo
+        for (int i = inicio, j = tamanho - 1; i < j; i++, j--) {
+            byte temporario = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = temporario;
+        }
+    }
+
+    private void escreverByte(char valor) {
+        garantir(1);
+        buffer[tamanho++] = (byte) valor;
+    }
+
+    private void escreverBytes(byte[] valor) {
+        garantir(valor.length);
+        System.arraycopy(valor, 0, buffer, tamanho, valor.length);
+        tamanho += valor.length;
+    }
+
+    private void garantir(int adicional) {
+        if (tamanho + adicional > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, tamanho + adicional));
+        }
+    }
+
+    // Codifica uma string JSON (com aspas e escapes) em UTF-8
+    static byte[] codificar(String valor) {
+        StringBuilder escapado = new StringBuilder(valor.length() + 2).append('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == '"' || c == '\\') {
+                escapado.append('\\').append(c);
+            } else if (c == '\n') {
+                escapado.append("\\n");
+            } else if (c == '\r') {
+                escapado.append("\\r");
+            } else if (c == '\t') {
+                escapado.append("\\t");
+            } else if (c < 0x20) {
+                escapado.append(String.format("\\u%04x", (int) c));
+            } else {
+                escapado.append(c);
+            }
+        }
+        return escapado.append('"').toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,43 @@
+package br.com.itau.governanca.risco;
+
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+/**
+ * Tratamento comum das falhas de tarefas executadas em paralelo ({@code invokeAll} seguido
+ * de {@code Future.get}), para que o chamador receba a exceção original da tarefa.
+ */
+final class ExcecoesTarefas {
+
+    private ExcecoesTarefas() {
+    }
+
+    /**
+     * Desembrulha a causa de uma falha de tarefa. RuntimeException e Error são relançados
+     * diretamente; a causa do tipo verificado esperado é retornada como está e as demais são
+     * embrulhadas, para que o chamador as lance.
+     * <p>
+     * O ForkJoinPool embrulha as exceções verificadas das tarefas em RuntimeException, às vezes
+     * mais de uma vez ao repassá-las entre threads; esses embrulhos são descartados.
+     * @param e A falha de {@code Future.get}
+     * @param tipo O tipo de exceção verificada que o chamador declara
+     * @param embrulhar Cria a exceção do tipo esperado para as demais causas
+     * @param <X> O tipo de exceção retornada
+     * @return a exceção a ser lançada pelo chamador
+     */
+    static <X extends Exception> X desembrulhar(ExecutionException e, Class<X> tipo,
+                                                Function<Throwable, X> embrulhar) {
+        Throwable causa = e.getCause();
+        while (causa.getClass() == RuntimeException.class && causa.getCause() != null) {
+            causa = causa.getCause();
+        }
+        if (tipo.isInstance(causa)) {
+            return tipo.cast(causa);
+        } else if (causa instanceof RuntimeException) {
+            throw (RuntimeException) causa;
+        } else if (causa instanceof Error) {
+            throw (Error) causa;
+        }
+        return embrulhar.apply(causa);
+    }
+}
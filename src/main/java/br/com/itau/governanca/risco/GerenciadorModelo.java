@@ -0,0 +1,208 @@
+package br.com.itau.governanca.risco;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Mantém a calculadora do modelo carregado de um arquivo de configuração e a substitui
+ * quando o arquivo muda.
+ * <p>
+ * O modelo compilado e a calculadora são imutáveis; a versão em uso fica em uma única
+ * referência volátil. Uma recarga compila e valida o novo modelo por completo antes de trocar
+ * a referência, de modo que avaliações em andamento nunca bloqueiam nem veem um modelo
+ * parcialmente atualizado: quem obteve a calculadora antes da troca termina com o modelo
+ * anterior. Se o arquivo novo for inválido, o modelo em uso é mantido e o erro fica disponível
+ * em {@link #getUltimoErro()}; como o arquivo pode ser observado no meio de uma gravação,
+ * a próxima modificação dispara uma nova tentativa.
+ * <p>
+ * Para que uma avaliação use um único modelo, obtenha a calculadora uma vez por avaliação:
+ * <pre>
+ *   CalculadoraRisco calculadora = gerenciador.getCalculadora();
+ *   ResultadoAvaliacao resultado = calculadora.avaliar(nome, versao, dados);
+ * </pre>
+ */
+public class GerenciadorModelo implements Closeable {
+
+    /**
+     * Recebe as trocas de modelo
+     */
+    public interface OuvinteModelo {
+
+        /**
+         * Chamado após a troca do modelo, na thread que fez a recarga. Uma exceção lançada
+         * aqui chega a quem chamou {@link #recarregar()}; na thread de monitoramento, ela é
+         * registrada no log e o monitoramento continua.
+         * @param anterior O modelo substituído
+         * @param atual O novo modelo
+         */
+        void modeloAlterado(ModeloCompilado anterior, ModeloCompilado atual);
+    }
+
+    private static final Logger LOG = Logger.getLogger(GerenciadorModelo.class.getName());
+
+    private final Path arquivo;
+    private final OuvinteModelo ouvinte;
+    private volatile CalculadoraRisco calculadora;
+    private volatile Exception ultimoErro;
+    private volatile long recargas;
+
+    private WatchService observador;
+    private Thread monitor;
+
+    /**
+     * Construtor que carrega o modelo inicial
+     * @param arquivo O arquivo de configuração do modelo
+     * @throws IOException se o arquivo não puder ser lido
+     * @throws IllegalArgumentException se a configuração for inválida
+     */
+    public GerenciadorModelo(Path arquivo) throws IOException {
+        this(arquivo, null);
+    }
+
+    /**
+     * Construtor que carrega o modelo inicial
+     * @param arquivo O arquivo de configuração do modelo
+     * @param ouvinte O ouvinte das trocas de modelo (pode ser null)
+     * @throws IOException se o arquivo não puder ser lido
+     * @throws IllegalArgumentException se a configuração for inválida
+     */
+    public GerenciadorModelo(Path arquivo, OuvinteModelo ouvinte) throws IOException {
+        this.arquivo = arquivo.toAbsolutePath();
+        this.ouvinte = ouvinte;
+        this.calculadora = new CalculadoraRisco(ConfiguracaoModelo.carregar(this.arquivo));
+    }
+
+    /**
+     * Retorna a calculadora com o modelo em uso
+     * @return a calculadora atual
+     */
+    public CalculadoraRisco getCalculadora() {
+        return calculadora;
+    }
+
+    /**
+     * Retorna o modelo em uso
+     * @return o modelo atual
+     */
+    public ModeloCompilado getModelo() {
+        return calculadora.getModelo();
+    }
+
+    /**
+     * Recarrega o arquivo de configuração e troca o modelo se ele for válido.
+     * Um arquivo com a mesma assinatura e versão do modelo em uso não causa troca.
+     * @return true se o modelo foi trocado
+     */
+    public synchronized boolean recarregar() {
+        ModeloCompilado novo;
+        try {
+            novo = ConfiguracaoModelo.carregar(arquivo);
+        } catch (IOException | IllegalArgumentException e) {
+            ultimoErro = e;
+            return false;
+        }
+        ultimoErro = null;
+
+        ModeloCompilado anterior = calculadora.getModelo();
+        if (novo.getAssinatura() == anterior.getAssinatura() && novo.getVersao().equals(anterior.getVersao())) {
+            return false;
+        }
+        calculadora = new CalculadoraRisco(novo);
+        recargas++;
+        if (ouvinte != null) {
+            ouvinte.modeloAlterado(anterior, novo);
+        }
+        return true;
+    }
+
+    /**
+     * Inicia uma thread daemon que recarrega o modelo sempre que o arquivo de configuração
+     * é criado ou modificado no seu diretório
+     * @throws IOException se o diretório não puder ser observado
+     * @throws IllegalStateException se o monitoramento já foi iniciado
+     */
+    public synchronized void iniciarMonitoramento() throws IOException {
+        if (observador != null) {
+            throw new IllegalStateException("Monitoramento já iniciado para " + arquivo);
+        }
+        WatchService servico = FileSystems.getDefault().newWatchService();
+        arquivo.getParent().register(servico, StandardWatchEventKinds.ENTRY_CREATE,
+                                     StandardWatchEventKinds.ENTRY_MODIFY);
+        observador = servico;
+        monitor = new Thread(() -> monitorar(servico), "gerenciador-modelo-" + arquivo.getFileName());
+        monitor.setDaemon(true);
+        monitor.start();
+    }
+
+    private void monitorar(WatchService servico) {
+        Path nome = arquivo.getFileName();
+        try {
+            while (true) {
+                WatchKey chave = servico.take();
+                boolean alterado = false;
+                for (WatchEvent<?> evento : chave.pollEvents()) {
+                    // OVERFLOW não traz contexto; recarrega por segurança
+                    alterado |= evento.kind() == StandardWatchEventKinds.OVERFLOW || nome.equals(evento.context());
+                }
+                if (alterado) {
+                    try {
+                        recarregar();
+                    } catch (RuntimeException e) {
+                        // O modelo já foi trocado; uma falha do ouvinte não encerra o monitoramento
+                        LOG.log(Level.WARNING, "Falha do ouvinte na recarga de " + arquivo, e);
+                    }
+                }
+                if (!chave.reset()) {
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Encerrado por close()
+        }
+    }
+
+    /**
+     * Retorna o erro da última recarga, se ela falhou
+     * @return o erro da última recarga, ou null se ela foi bem-sucedida
+     */
+    public Exception getUltimoErro() {
+        return ultimoErro;
+    }
+
+    /**
+     * Retorna o número de trocas de modelo desde a carga inicial
+     * @return o número de recargas
+     */
+    public long getRecargas() {
+        return recargas;
+    }
+
+    /**
+     * Encerra o monitoramento do arquivo, se iniciado. O modelo em uso continua disponível.
+     * @throws IOException se o serviço de observação não puder ser fechado
+     */
+    @Override
+    public void close() throws IOException {
+        WatchService servico;
+        Thread thread;
+        synchronized (this) {
+            servico = observador;
+            thread = monitor;
+            observador = null;
+            monitor = null;
+        }
+        if (servico != null) {
+            servico.close();
+            thread.interrupt();
+        }
+    }
+}
@@ -0,0 +1,372 @@
+package br.com.itau.governanca.risco;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Histograma de latências em faixas log-lineares de tamanho fixo, no estilo do HDR Histogram,
+ * para estimar percentis sem guardar as amostras.
+ * <p>
+ * Cada potência de 2 entre {@link #MINIMO_MILIS} e {@link #MAXIMO_MILIS} é dividida em
+ * {@value #SUBFAIXAS} faixas iguais; a faixa de uma latência sai do expoente e dos 5 bits mais
+ * altos da mantissa do {@code double}, sem logaritmos. O percentil é o ponto médio da faixa
+ * (erro relativo de até ~1,6%), limitado ao mínimo e ao máximo exatos; a média usa a soma exata.
+ * Latências abaixo do mínimo caem na primeira faixa e acima do máximo, na última, cujos
+ * percentis são estimados pelo mínimo e pelo máximo exatos.
+ * <p>
+ * A memória é fixa ({@value #NUM_FAIXAS} contadores) e dois histogramas se combinam com
+ * {@link #mesclar(HistogramaLatencias)} somando as faixas, sem perda em relação a um histograma
+ * único com todas as amostras. Não é thread-safe.
+ * <p>
+ * Para consolidar percentis de várias instâncias de um serviço, cada nó envia o seu histograma
+ * serializado com {@link #serializar(ByteBuffer)} (somente as faixas não vazias, em varints) e o
+ * coordenador o acumula com {@link #mesclar(ByteBuffer)}, sem criar objetos por nó. Formato:
+ * <pre>
+ *   byte    versão do formato
+ *   varint  quantidade de amostras
+ *   double  soma, mínimo e máximo (ausentes se a quantidade for zero)
+ *   varint  número de faixas não vazias
+ *   varint  por faixa: distância da faixa anterior e contagem
+ * </pre>
+ */
+public class HistogramaLatencias {
+
+    /** Menor latência com faixa própria, em milissegundos (2^-4) */
+    public static final double MINIMO_MILIS = 0.0625;
+    /** Latência a partir da qual as amostras caem na última faixa, em milissegundos (2^20, ~17 min) */
+    public static final double MAXIMO_MILIS = 1048576.0;
+
+    private static final int BITS_SUBFAIXA = 5;
+    static final int SUBFAIXAS = 1 << BITS_SUBFAIXA;
+    private static final int EXPOENTE_MINIMO = -4;
+    private static final int EXPOENTE_MAXIMO = 20;
+    /** Número de faixas: uma para valores abaixo do mínimo e {@value #SUBFAIXAS} por potência de 2 */
+    static final int NUM_FAIXAS = 1 + (EXPOENTE_MAXIMO - EXPOENTE_MINIMO) * SUBFAIXAS;
+
+    private static final byte VERSAO_FORMATO = 1;
+    /** Maior tamanho possível de um histograma serializado, em bytes */
+    public static final int TAMANHO_MAXIMO_SERIALIZADO = 1 + 9 + 3 * 8 + 2 + NUM_FAIXAS * (2 + 9);
+
+    private final long[] contagens = new long[NUM_FAIXAS];
+    private long quantidade;
+    private double soma;
+    private double minimo = Double.POSITIVE_INFINITY;
+    private double maximo = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Registra uma latência
+     * @param latenciaMilis A latência em milissegundos
+     * @throws IllegalArgumentException se a latência for negativa ou não finita
+     */
+    public void registrar(double latenciaMilis) {
+        if (!(latenciaMilis >= 0) || latenciaMilis == Double.POSITIVE_INFINITY) {
+            throw new IllegalArgumentException("Latência inválida: " + latenciaMilis);
+        }
+        contagens[faixa(latenciaMilis)]++;
+        quantidade++;
+        soma += latenciaMilis;
+        if (latenciaMilis < minimo) {
+            minimo = latenciaMilis;
+        }
+        if (latenciaMilis > maximo) {
+            maximo = latenciaMilis;
+        }
+    }
+
+    /**
+     * Acrescenta a este histograma as amostras de outro
+     * @param outro O histograma a mesclar (não é alterado)
+     */
+    public void mesclar(HistogramaLatencias outro) {
+        if (outro.quantidade == 0) {
+            return;
+        }
+        long[] origem = outro.contagens;
+        for (int i = 0; i < NUM_FAIXAS; i++) {
+            contagens[i] += origem[i];
+        }
+        quantidade += outro.quantidade;
+        soma += outro.soma;
+        minimo = Math.min(minimo, outro.minimo);
+        maximo = Math.max(maximo, outro.maximo);
+    }
+
+    /**
+     * Acrescenta a este histograma as amostras de um histograma serializado, avançando o buffer
+     * até o fim dele. Em caso de erro este histograma não é alterado.
+     * @param origem O buffer posicionado no início do histograma serializado
+     * @throws IllegalArgumentException se o conteúdo não for um histograma serializado válido
+     */
+    public void mesclar(ByteBuffer origem) {
+        // Valida tudo antes de alterar as faixas
+        int inicio = origem.position();
+        long quantidadeLida = validar(origem);
+        if (quantidadeLida == 0) {
+            return;
+        }
+        origem.position(inicio + 1);
+        lerVarint(origem);
+        soma += origem.getDouble();
+        minimo = Math.min(minimo, origem.getDouble());
+        maximo = Math.max(maximo, origem.getDouble());
+        int faixasNaoVazias = (int) lerVarint(origem);
+        int faixa = -1;
+        for (int i = 0; i < faixasNaoVazias; i++) {
+            faixa += (int) lerVarint(origem) + 1;
+            contagens[faixa] += lerVarint(origem);
+        }
+        quantidade += quantidadeLida;
+    }
+
+    /**
+     * Cria um histograma a partir da sua forma serializada
+     * @param origem O buffer posicionado no início do histograma serializado
+     * @return o histograma
+     * @throws IllegalArgumentException se o conteúdo não for um histograma serializado válido
+     */
+    public static HistogramaLatencias desserializar(ByteBuffer origem) {
+        HistogramaLatencias histograma = new HistogramaLatencias();
+        histograma.mesclar(origem);
+        return histograma;
+    }
+
+    /**
+     * Grava o histograma na forma compacta, somente com as faixas não vazias
+     * @param destino O buffer de destino, com pelo menos {@link #getTamanhoSerializado()} bytes livres
+     * @return o número de bytes gravados
+     */
+    public int serializar(ByteBuffer destino) {
+        int inicio = destino.position();
+        destino.put(VERSAO_FORMATO);
+        escreverVarint(destino, quantidade);
+        if (quantidade == 0) {
+            return destino.position() - inicio;
+        }
+        destino.putDouble(soma);
+        destino.putDouble(minimo);
+        destino.putDouble(maximo);
+        int faixasNaoVazias = 0;
+        for (long contagem : contagens) {
+            if (contagem != 0) {
+                faixasNaoVazias++;
+            }
+        }
+        escreverVarint(destino, faixasNaoVazias);
+        int anterior = -1;
+        for (int i = 0; i < NUM_FAIXAS; i++) {
+            if (contagens[i] != 0) {
+                escreverVarint(destino, i - anterior - 1);
+                escreverVarint(destino, contagens[i]);
+                anterior = i;
+            }
+        }
+        return destino.position() - inicio;
+    }
+
+    /**
+     * Grava o histograma na forma compacta em um novo array
+     * @return os bytes do histograma serializado
+     */
+    public byte[] serializar() {
+        ByteBuffer destino = ByteBuffer.allocate(getTamanhoSerializado());
+        serializar(destino);
+        return destino.array();
+    }
+
+    /**
+     * Retorna o tamanho exato do histograma serializado
+     * @return o número de bytes
+     */
+    public int getTamanhoSerializado() {
+        int tamanho = 1 + tamanhoVarint(quantidade);
+        if (quantidade == 0) {
+            return tamanho;
+        }
+        tamanho += 3 * 8;
+        int faixasNaoVazias = 0;
+        int anterior = -1;
+        for (int i = 0; i < NUM_FAIXAS; i++) {
+            if (contagens[i] != 0) {
+                tamanho += tamanhoVarint(i - anterior - 1) + tamanhoVarint(contagens[i]);
+                faixasNaoVazias++;
+                anterior = i;
+            }
+        }
+        return tamanho + tamanhoVarint(faixasNaoVazias);
+    }
+
+    /**
+     * Descarta todas as amostras
+     */
+    public void limpar() {
+        if (quantidade != 0) {
+            Arrays.fill(contagens, 0L);
+        }
+        quantidade = 0;
+        soma = 0;
+        minimo = Double.POSITIVE_INFINITY;
+        maximo = Double.NEGATIVE_INFINITY;
+    }
+
+    /**
+     * Estima um percentil pelo critério do posto mais próximo
+     * @param percentil O percentil, entre 0 (exclusive) e 100
+     * @return a latência estimada em milissegundos, ou NaN se não houver amostras
+     */
+    public double getPercentil(double percentil) {
+        if (!(percentil > 0 && percentil <= 100)) {
+            throw new IllegalArgumentException("Percentil deve estar entre 0 e 100: " + percentil);
+        }
+        if (quantidade == 0) {
+            return Double.NaN;
+        }
+        long posto = (long) Math.ceil(percentil / 100 * quantidade);
+        long acumulado = 0;
+        int i = 0;
+        while (i < NUM_FAIXAS - 1) {
+            acumulado += contagens[i];
+            if (acumulado >= posto) {
+                break;
+            }
+            i++;
+        }
+        if (i == NUM_FAIXAS - 1) {
+            // A última faixa também recebe as latências acima do máximo
+            return maximo;
+        }
+        double estimativa = i == 0 ? minimo : (limiteInferior(i) + limiteInferior(i + 1)) / 2;
+        return Math.max(minimo, Math.min(maximo, estimativa));
+    }
+
+    /**
+     * Retorna a média exata das latências
+     * @return a média em milissegundos, ou NaN se não houver amostras
+     */
+    public double getMedia() {
+        return quantidade == 0 ? Double.NaN : soma / quantidade;
+    }
+
+    /**
+     * Retorna o número de latências registradas
+     * @return o número de amostras
+     */
+    public long getQuantidade() {
+        return quantidade;
+    }
+
+    /**
+     * Retorna a menor latência registrada
+     * @return o mínimo em milissegundos, ou NaN se não houver amostras
+     */
+    public double getMinimo() {
+        return quantidade == 0 ? Double.NaN : minimo;
+    }
+
+    /**
+     * Retorna a maior latência registrada
+     * @return o máximo em milissegundos, ou NaN se não houver amostras
+     */
+    public double getMaximo() {
+        return quantidade == 0 ? Double.NaN : maximo;
+    }
+
+    // Percorre um histograma serializado conferindo a estrutura; retorna a quantidade de amostras
+    static long validar(ByteBuffer origem) {
+        try {
+            byte versao = origem.get();
+            if (versao != VERSAO_FORMATO) {
+                throw invalido("versão de formato " + versao + " não suportada");
+            }
+            long quantidadeLida = lerVarint(origem);
+            if (quantidadeLida == 0) {
+                return 0;
+            }
+            double somaLida = origem.getDouble();
+            double minimoLido = origem.getDouble();
+            double maximoLido = origem.getDouble();
+            if (!(minimoLido >= 0 && minimoLido <= maximoLido && somaLida >= 0) || Double.isInfinite(maximoLido)) {
+                throw invalido("soma, mínimo ou máximo inconsistentes");
+            }
+            long faixasNaoVazias = lerVarint(origem);
+            if (faixasNaoVazias > NUM_FAIXAS) {
+                throw invalido(faixasNaoVazias + " faixas");
+            }
+            long faixa = -1;
+            long total = 0;
+            for (long i = 0; i < faixasNaoVazias; i++) {
+                long salto = lerVarint(origem);
+                faixa += Math.min(salto, NUM_FAIXAS) + 1;
+                long contagem = lerVarint(origem);
+                if (faixa >= NUM_FAIXAS || contagem <= 0 || total + contagem < 0) {
+                    throw invalido("faixa " + faixa + " com contagem " + contagem);
+                }
+                total += contagem;
+            }
+            if (total != quantidadeLida) {
+                throw invalido("contagens somam " + total + ", esperado " + quantidadeLida);
+            }
+            return quantidadeLida;
+        } catch (BufferUnderflowException e) {
+            throw invalido("conteúdo truncado");
+        }
+    }
+
+    private static IllegalArgumentException invalido(String motivo) {
+        return new IllegalArgumentException("Histograma serializado inválido: " + motivo);
+    }
+
+    // Inteiro não negativo em base 128, 7 bits por byte, menos significativos primeiro
+    private static void escreverVarint(ByteBuffer destino, long valor) {
+        while ((valor & ~0x7FL) != 0) {
+            destino.put((byte) ((valor & 0x7F) | 0x80));
+            valor >>>= 7;
+        }
+        destino.put((byte) valor);
+    }
+
+    private static long lerVarint(ByteBuffer origem) {
+        long valor = 0;
+        for (int deslocamento = 0; deslocamento < 63; deslocamento += 7) {
+            byte b = origem.get();
+            valor |= (long) (b & 0x7F) << deslocamento;
+            if (b >= 0) {
+                return valor;
+            }
+        }
+        throw invalido("varint maior que 63 bits");
+    }
+
+    private static int tamanhoVarint(long valor) {
+        int tamanho = 1;
+        while ((valor & ~0x7FL) != 0) {
+            valor >>>= 7;
+            tamanho++;
+        }
+        return tamanho;
+    }
+
+    // Faixa de uma latência não negativa e finita
+    static int faixa(double latenciaMilis) {
+        if (latenciaMilis < MINIMO_MILIS) {
+            return 0;
+        }
+        long bits = Double.doubleToRawLongBits(latenciaMilis);
+        int expoente = (int) (bits >>> 52) - 1023;
+        if (expoente >= EXPOENTE_MAXIMO) {
+            return NUM_FAIXAS - 1;
+        }
+        int subfaixa = (int) (bits >>> (52 - BITS_SUBFAIXA)) & (SUBFAIXAS - 1);
+        return 1 + ((expoente - EXPOENTE_MINIMO) << BITS_SUBFAIXA) + subfaixa;
+    }
+
+    // Menor latência de uma faixa; a faixa seguinte à última começa em MAXIMO_MILIS
+    static double limiteInferior(int faixa) {
+        if (faixa == 0) {
+            return 0;
+        }
+        int k = faixa - 1;
+        int expoente = (k >> BITS_SUBFAIXA) + EXPOENTE_MINIMO;
+        return Math.scalb(1.0 + (double) (k & (SUBFAIXAS - 1)) / SUBFAIXAS, expoente);
+    }
+}
@@ -0,0 +1,472 @@
+package br.com.itau.governanca.risco;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Armazenamento do histórico de avaliações em registros binários de tamanho fixo,
+ * gravados em arquivos de segmento somente-anexação.
+ * <p>
+ * Cada registro guarda o instante da avaliação, a aplicação e a versão, a pontuação total,
+ * as pontuações por dimensão, os valores de todos os critérios (dados detalhados), a máscara
+ * de vetos, a classificação e o status. A leitura é feita por {@link MappedByteBuffer}: a
+ * varredura compara o hash da aplicação em posição fixa e expõe os campos por um
+ * {@link Cursor} que lê diretamente do arquivo mapeado, sem desserialização.
+ * <p>
+ * Layout do registro (little-endian), para D dimensões e C critérios:
+ * <pre>
+ *   0  long   instante (epoch ms)
+ *   8  long   hash FNV-1a 64 do nome da aplicação
+ *  16  double pontuação total
+ *  24  int    máscara de vetos
+ *  28  byte   status (ordinal de StatusAvaliacao)
+ *  29  byte   classificação (ordinal de ClassificacaoRisco)
+ *  30  short  reservado
+ *  32  double[D] pontuações por dimensão
+ *  ..  double[C] valores dos critérios (NaN = ausente)
+ *  ..  byte[64] nome da aplicação (UTF-8, completado com zeros)
+ *  ..  byte[32] versão (UTF-8, completado com zeros)
+ * </pre>
+ * O cabeçalho de 64 bytes de cada segmento guarda o mágico "HRQA", a versão do formato, os números
+ * de dimensões e de critérios, o tamanho do registro e a assinatura do modelo
+ * ({@link ModeloCompilado#getAssinatura()}); segmentos de outro modelo são rejeitados na abertura,
+ * mesmo com o mesmo layout.
+ * <p>
+ * Gravações são sincronizadas; leituras podem ser feitas concorrentemente.
+ */
+public class HistoricoAvaliacoes implements Closeable {
+
+    /**
+     * Recebe cada registro encontrado em uma varredura
+     */
+    public interface Visitante {
+
+        /**
+         * Processa um registro. O cursor só é válido durante a chamada.
+         * @param registro O cursor posicionado no registro
+         */
+        void visitar(Cursor registro);
+    }
+
+    private static final int MAGICO = 0x48525141; // "HRQA"
+    private static final int VERSAO_FORMATO = 2;
+    private static final int TAMANHO_CABECALHO = 64;
+
+    private static final int POSICAO_INSTANTE = 0;
+    private static final int POSICAO_HASH = 8;
+    private static final int POSICAO_TOTAL = 16;
+    private static final int POSICAO_VETOS = 24;
+    private static final int POSICAO_STATUS = 28;
+    private static final int POSICAO_CLASSIFICACAO = 29;
+    private static final int POSICAO_DIMENSOES = 32;
+    private static final int TAMANHO_NOME = 64;
+    private static final int TAMANHO_VERSAO = 32;
+
+    private static final String PREFIXO_SEGMENTO = "segmento-";
+    private static final String SUFIXO_SEGMENTO = ".hist";
+
+    /** Número padrão de registros por segmento */
+    public static final int REGISTROS_POR_SEGMENTO = 1 << 18;
+
+    private final Path diretorio;
+    private final ModeloCompilado modelo;
+    private final int registrosPorSegmento;
+    private final int tamanhoRegistro;
+    private final int posicaoValores;
+    private final int posicaoNome;
+    private final int posicaoVersao;
+    private final ByteBuffer registro;
+    private final List<Segmento> segmentos = new ArrayList<>();
+
+    /**
+     * Abre (ou cria) o histórico em um diretório com o tamanho de segmento padrão
+     * @param diretorio O diretório dos segmentos
+     * @param modelo O modelo que define o número de dimensões e critérios
+     * @throws IOException se houver erro de acesso aos arquivos
+     */
+    public HistoricoAvaliacoes(Path diretorio, ModeloCompilado modelo) throws IOException {
+        this(diretorio, modelo, REGISTROS_POR_SEGMENTO);
+    }
+
+    /**
+     * Abre (ou cria) o histórico em um diretório
+     * @param diretorio O diretório dos segmentos
+     * @param modelo O modelo que define o número de dimensões e critérios
+     * @param registrosPorSegmento O número máximo de registros em cada segmento
+     * @throws IOException se houver erro de acesso aos arquivos
+     * @throws IllegalStateException se os segmentos existentes tiverem outro layout
+     */
+    public HistoricoAvaliacoes(Path diretorio, ModeloCompilado modelo, int registrosPorSegmento)
+            throws IOException {
+        this.diretorio = diretorio;
+        this.modelo = modelo;
+        this.registrosPorSegmento = registrosPorSegmento;
+        this.posicaoValores = POSICAO_DIMENSOES + 8 * modelo.getNumDimensoes();
+        this.posicaoNome = posicaoValores + 8 * modelo.getNumCriterios();
+        this.posicaoVersao = posicaoNome + TAMANHO_NOME;
+        this.tamanhoRegistro = posicaoVersao + TAMANHO_VERSAO;
+        this.registro = ByteBuffer.allocate(tamanhoRegistro).order(ByteOrder.LITTLE_ENDIAN);
+
+        Files.createDirectories(diretorio);
+        List<Path> arquivos = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(diretorio,
+                PREFIXO_SEGMENTO + "*" + SUFIXO_SEGMENTO)) {
+            stream.forEach(arquivos::add);
+        }
+        arquivos.sort(null);
+        for (Path arquivo : arquivos) {
+            segmentos.add(new Segmento(arquivo, false));
+        }
+    }
+
+    /**
+     * Registra uma avaliação a partir dos vetores indexados por ordinal
+     * @param instante O instante da avaliação (epoch ms)
+     * @param nomeAplicacao O nome da aplicação
+     * @param versao A versão da aplicação
+     * @param valores Os valores dos critérios (NaN = ausente)
+     * @param pontuacoesDimensoes As pontuações por dimensão
+     * @param pontuacaoTotal A pontuação total
+     * @param vetos A máscara de vetos
+     * @throws IOException se houver erro de gravação
+     */
+    public synchronized void registrar(long instante, String nomeAplicacao, String versao, double[] valores,
+                                       double[] pontuacoesDimensoes, double pontuacaoTotal, int vetos)
+            throws IOException {
+        ClassificacaoRisco classificacao = ClassificacaoRisco.de(pontuacaoTotal);
+        byte[] nome = nomeAplicacao.getBytes(StandardCharsets.UTF_8);
+
+        registro.clear();
+        registro.putLong(POSICAO_INSTANTE, instante);
+        registro.putLong(POSICAO_HASH, hash(nome, 0, nome.length));
+        registro.putDouble(POSICAO_TOTAL, pontuacaoTotal);
+        registro.putInt(POSICAO_VETOS, vetos);
+        registro.put(POSICAO_STATUS, (byte) StatusAvaliacao.de(classificacao, vetos).ordinal());
+        registro.put(POSICAO_CLASSIFICACAO, (byte) classificacao.ordinal());
+        registro.putShort(POSICAO_CLASSIFICACAO + 1, (short) 0);
+        for (int d = 0; d < modelo.getNumDimensoes(); d++) {
+            registro.putDouble(POSICAO_DIMENSOES + 8 * d, pontuacoesDimensoes[d]);
+        }
+        for (int c = 0; c < modelo.getNumCriterios(); c++) {
+            registro.putDouble(posicaoValores + 8 * c, valores[c]);
+        }
+        gravarTexto(posicaoNome, TAMANHO_NOME, nome);
+        gravarTexto(posicaoVersao, TAMANHO_VERSAO, versao.getBytes(StandardCharsets.UTF_8));
+
+        Segmento segmento = segmentoParaGravacao();
+        segmento.anexar(registro);
+    }
+
+    /**
+     * Registra uma avaliação a partir do ResultadoAvaliacao e dos seus dados detalhados
+     * @param instante O instante da avaliação (epoch ms)
+     * @param resultado O resultado da avaliação
+     * @param dadosDetalhados Os valores de critérios usados na avaliação
+     * @throws IOException se houver erro de gravação
+     */
+    public void registrar(long instante, ResultadoAvaliacao resultado,
+                          Map<String, Map<String, Double>> dadosDetalhados) throws IOException {
+        double[] valores = modelo.preencherValores(dadosDetalhados, modelo.novoVetorValores());
+        double[] pontuacoes = new double[modelo.getNumDimensoes()];
+        for (int d = 0; d < pontuacoes.length; d++) {
+            pontuacoes[d] = resultado.getPontuacaoDimensao(modelo.getNomeDimensao(d));
+        }
+        registrar(instante, resultado.getNomeAplicacao(), resultado.getVersao(), valores, pontuacoes,
+                  resultado.getPontuacaoTotal(), resultado.getMascaraVetos());
+    }
+
+    /**
+     * Percorre, em ordem de gravação, os registros de uma aplicação em um intervalo de tempo
+     * @param nomeAplicacao O nome da aplicação
+     * @param desde Início do intervalo (epoch ms, inclusivo)
+     * @param ate Fim do intervalo (epoch ms, exclusivo)
+     * @param visitante O visitante chamado para cada registro encontrado
+     * @return O número de registros visitados
+     * @throws IOException se houver erro ao mapear os segmentos
+     */
+    public long percorrer(String nomeAplicacao, long desde, long ate, Visitante visitante) throws IOException {
+        byte[] nome = nomeAplicacao.getBytes(StandardCharsets.UTF_8);
+        long hashAplicacao = hash(nome, 0, nome.length);
+        byte[] nomeTruncado = truncar(nome, TAMANHO_NOME);
+
+        Cursor cursor = new Cursor();
+        long visitados = 0;
+        for (Segmento segmento : segmentosAtuais()) {
+            ByteBuffer dados = segmento.mapear();
+            int limite = dados.limit();
+            for (int posicao = TAMANHO_CABECALHO; posicao + tamanhoRegistro <= limite; posicao += tamanhoRegistro) {
+                if (dados.getLong(posicao + POSICAO_HASH) != hashAplicacao) {
+                    continue;
+                }
+                long instante = dados.getLong(posicao + POSICAO_INSTANTE);
+                if (instante < desde || instante >= ate || !nomeIgual(dados, posicao, nomeTruncado)) {
+                    continue;
+                }
+                cursor.posicionar(dados, posicao);
+                visitante.visitar(cursor);
+                visitados++;
+            }
+        }
+        return visitados;
+    }
+
+    /**
+     * Percorre todos os registros, em ordem de gravação
+     * @param visitante O visitante chamado para cada registro
+     * @return O número de registros visitados
+     * @throws IOException se houver erro ao mapear os segmentos
+     */
+    public long percorrerTodos(Visitante visitante) throws IOException {
+        Cursor cursor = new Cursor();
+        long visitados = 0;
+        for (Segmento segmento : segmentosAtuais()) {
+            ByteBuffer dados = segmento.mapear();
+            int limite = dados.limit();
+            for (int posicao = TAMANHO_CABECALHO; posicao + tamanhoRegistro <= limite; posicao += tamanhoRegistro) {
+                cursor.posicionar(dados, posicao);
+                visitante.visitar(cursor);
+                visitados++;
+            }
+        }
+        return visitados;
+    }
+
+    /**
+     * Retorna o número total de registros armazenados
+     * @return o número de registros
+     */
+    public synchronized long getQuantidadeRegistros() {
+        long total = 0;
+        for (Segmento segmento : segmentos) {
+            total += segmento.registros;
+        }
+        return total;
+    }
+
+    /**
+     * Retorna o tamanho em bytes de cada registro
+     * @return o tamanho do registro
+     */
+    public int getTamanhoRegistro() {
+        return tamanhoRegistro;
+    }
+
+    /**
+     * Força a gravação em disco dos registros anexados
+     * @throws IOException se houver erro de gravação
+     */
+    public synchronized void sincronizar() throws IOException {
+        if (!segmentos.isEmpty()) {
+            segmentos.get(segmentos.size() - 1).canal.force(false);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (Segmento segmento : segmentos) {
+            segmento.canal.close();
+        }
+    }
+
+    private synchronized List<Segmento> segmentosAtuais() {
+        return new ArrayList<>(segmentos);
+    }
+
+    private Segmento segmentoParaGravacao() throws IOException {
+        if (segmentos.isEmpty() || segmentos.get(segmentos.size() - 1).registros >= registrosPorSegmento) {
+            Path arquivo = diretorio.resolve(String.format("%s%06d%s", PREFIXO_SEGMENTO, segmentos.size(),
+                                                           SUFIXO_SEGMENTO));
+            segmentos.add(new Segmento(arquivo, true));
+        }
+        return segmentos.get(segmentos.size() - 1);
+    }
+
+    private void gravarTexto(int posicao, int tamanho, byte[] texto) {
+        byte[] truncado = truncar(texto, tamanho);
+        for (int i = 0; i < tamanho; i++) {
+            registro.put(posicao + i, i < truncado.length ? truncado[i] : 0);
+        }
+    }
+
+    private boolean nomeIgual(ByteBuffer dados, int posicao, byte[] nome) {
+        int inicio = posicao + posicaoNome;
+        for (int i = 0; i < TAMANHO_NOME; i++) {
+            byte esperado = i < nome.length ? nome[i] : 0;
+            if (dados.get(inicio + i) != esperado) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Trunca o texto UTF-8 sem cortar um caractere multibyte ao meio
+    private static byte[] truncar(byte[] texto, int tamanho) {
+        if (texto.length <= tamanho) {
+            return texto;
+        }
+        int fim = tamanho;
+        while (fim > 0 && (texto[fim] & 0xC0) == 0x80) {
+            fim--;
+        }
+        return Arrays.copyOf(texto, fim);
+    }
+
+    // FNV-1a de 64 bits
+    private static long hash(byte[] bytes, int inicio, int fim) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = inicio; i < fim; i++) {
+            hash ^= bytes[i] & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Visão de um registro do histórico. Os campos são lidos diretamente do segmento
+     * mapeado a cada chamada; apenas nome e versão criam Strings, sob demanda.
+     */
+    public final class Cursor {
+        private ByteBuffer dados;
+        private int posicao;
+
+        private Cursor() {
+        }
+
+        private void posicionar(ByteBuffer dados, int posicao) {
+            this.dados = dados;
+            this.posicao = posicao;
+        }
+
+        public long getInstante() {
+            return dados.getLong(posicao + POSICAO_INSTANTE);
+        }
+
+        public double getPontuacaoTotal() {
+            return dados.getDouble(posicao + POSICAO_TOTAL);
+        }
+
+        public int getVetos() {
+            return dados.getInt(posicao + POSICAO_VETOS);
+        }
+
+        public StatusAvaliacao getStatus() {
+            return StatusAvaliacao.doOrdinal(dados.get(posicao + POSICAO_STATUS));
+        }
+
+        public ClassificacaoRisco getClassificacao() {
+            return ClassificacaoRisco.doOrdinal(dados.get(posicao + POSICAO_CLASSIFICACAO));
+        }
+
+        /**
+         * Retorna a pontuação de uma dimensão
+         * @param dimensao O ordinal da dimensão
+         * @return a pontuação da dimensão
+         */
+        public double getPontuacaoDimensao(int dimensao) {
+            return dados.getDouble(posicao + POSICAO_DIMENSOES + 8 * dimensao);
+        }
+
+        /**
+         * Retorna o valor registrado de um critério
+         * @param criterio O ordinal do critério
+         * @return o valor do critério, ou NaN se ausente
+         */
+        public double getValor(int criterio) {
+            return dados.getDouble(posicao + posicaoValores + 8 * criterio);
+        }
+
+        public String getNomeAplicacao() {
+            return lerTexto(posicaoNome, TAMANHO_NOME);
+        }
+
+        public String getVersao() {
+            return lerTexto(posicaoVersao, TAMANHO_VERSAO);
+        }
+
+        private String lerTexto(int deslocamento, int tamanho) {
+            byte[] texto = new byte[tamanho];
+            int comprimento = 0;
+            for (; comprimento < tamanho; comprimento++) {
+                byte b = dados.get(posicao + deslocamento + comprimento);
+                if (b == 0) {
+                    break;
+                }
+                texto[comprimento] = b;
+            }
+            return new String(texto, 0, comprimento, StandardCharsets.UTF_8);
+        }
+    }
+
+    // Arquivo de segmento: cabeçalho seguido de registros de tamanho fixo
+    private final class Segmento {
+        private final FileChannel canal;
+        private long registros;
+        private MappedByteBuffer mapeado;
+        private long registrosMapeados = -1;
+
+        Segmento(Path arquivo, boolean novo) throws IOException {
+            this.canal = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                          StandardOpenOption.WRITE);
+            if (novo) {
+                ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO).order(ByteOrder.LITTLE_ENDIAN);
+                cabecalho.putInt(MAGICO).putInt(VERSAO_FORMATO).putInt(modelo.getNumDimensoes())
+                         .putInt(modelo.getNumCriterios()).putInt(tamanhoRegistro).putLong(modelo.getAssinatura());
+                cabecalho.clear();
+                escreverTudo(cabecalho, 0);
+                return;
+            }
+
+            ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO).order(ByteOrder.LITTLE_ENDIAN);
+            canal.read(cabecalho, 0);
+            cabecalho.flip();
+            if (cabecalho.remaining() < TAMANHO_CABECALHO || cabecalho.getInt() != MAGICO
+                    || cabecalho.getInt() != VERSAO_FORMATO || cabecalho.getInt() != modelo.getNumDimensoes()
+                    || cabecalho.getInt() != modelo.getNumCriterios() || cabecalho.getInt() != tamanhoRegistro
+                    || cabecalho.getLong() != modelo.getAssinatura()) {
+                canal.close();
+                throw new IllegalStateException("Segmento incompatível com o modelo: " + arquivo);
+            }
+            // Descarta um registro parcial deixado por uma gravação interrompida
+            this.registros = (canal.size() - TAMANHO_CABECALHO) / tamanhoRegistro;
+            canal.truncate(TAMANHO_CABECALHO + registros * tamanhoRegistro);
+        }
+
+        void anexar(ByteBuffer registro) throws IOException {
+            registro.clear();
+            escreverTudo(registro, TAMANHO_CABECALHO + registros * tamanhoRegistro);
+            registros++;
+        }
+
+        private void escreverTudo(ByteBuffer buffer, long posicao) throws IOException {
+            while (buffer.hasRemaining()) {
+                posicao += canal.write(buffer, posicao);
+            }
+        }
+
+        // Mapeia o segmento, remapeando se novos registros foram anexados desde o último mapeamento
+        synchronized ByteBuffer mapear() throws IOException {
+            long atuais;
+            synchronized (HistoricoAvaliacoes.this) {
+                atuais = registros;
+            }
+            if (atuais != registrosMapeados) {
+                mapeado = canal.map(FileChannel.MapMode.READ_ONLY, 0, TAMANHO_CABECALHO + atuais * tamanhoRegistro);
+                registrosMapeados = atuais;
+            }
+            return mapeado.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+}
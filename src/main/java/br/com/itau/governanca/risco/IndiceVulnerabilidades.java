@@ -0,0 +1,263 @@
+package br.com.itau.governanca.risco;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Índice persistente das impressões digitais (fingerprints) das vulnerabilidades já vistas
+ * pelo {@link AgregadorVulnerabilidades}.
+ * <p>
+ * As impressões são guardadas como hashes de 64 bits em uma tabela de hash aberta de arrays
+ * primitivos (16 bytes por vulnerabilidade, sem objetos por entrada), junto com os atributos
+ * já classificados (severidade e categoria OWASP) e a última execução em que cada uma
+ * apareceu. Assim, varreduras repetidas só classificam as vulnerabilidades novas: as
+ * conhecidas são apenas marcadas como presentes na execução atual.
+ * <p>
+ * Layout do arquivo (little-endian):
+ * <pre>
+ *   0  int  mágico "QRVI"
+ *   4  int  versão do formato
+ *   8  int  execução atual
+ *  12  int  quantidade de entradas
+ *  16  entradas: long impressão, int última execução, int atributos
+ * </pre>
+ * Instâncias não são thread-safe.
+ */
+public class IndiceVulnerabilidades {
+
+    private static final int MAGICO = 0x51525649; // "QRVI"
+    private static final int VERSAO_FORMATO = 1;
+    private static final int TAMANHO_CABECALHO = 16;
+    private static final int TAMANHO_ENTRADA = 16;
+
+    /** Retorno de {@link #marcar(long)} para uma impressão inserida agora */
+    static final int NOVA = -1;
+    /** Retorno de {@link #marcar(long)} para uma impressão já marcada na execução atual */
+    static final int DUPLICADA = -2;
+
+    // Impressão reservada para posições vazias da tabela
+    private static final long VAZIA = 0;
+
+    private long[] impressoes;
+    private int[] execucoes;
+    private int[] atributos;
+    private int mascara;
+    private int quantidade;
+    private int execucao;
+
+    /**
+     * Construtor de um índice vazio
+     */
+    public IndiceVulnerabilidades() {
+        this(1024);
+    }
+
+    private IndiceVulnerabilidades(int capacidade) {
+        alocar(Integer.highestOneBit(Math.max(16, capacidade * 2) - 1) << 1);
+    }
+
+    /**
+     * Carrega um índice salvo por {@link #salvar(Path)}
+     * @param arquivo O arquivo do índice
+     * @return o índice, ou um índice vazio se o arquivo não existir
+     * @throws IOException se houver erro de leitura
+     * @throws IllegalStateException se o arquivo não for um índice válido
+     */
+    public static IndiceVulnerabilidades carregar(Path arquivo) throws IOException {
+        ByteBuffer conteudo;
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            if (canal.size() > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Índice de vulnerabilidades grande demais: " + arquivo);
+            }
+            conteudo = ByteBuffer.allocate((int) canal.size()).order(ByteOrder.LITTLE_ENDIAN);
+            while (conteudo.hasRemaining() && canal.read(conteudo) >= 0) {
+                // lê até o fim
+            }
+        } catch (NoSuchFileException e) {
+            return new IndiceVulnerabilidades();
+        }
+        conteudo.flip();
+
+        if (conteudo.remaining() < TAMANHO_CABECALHO || conteudo.getInt() != MAGICO
+                || conteudo.getInt() != VERSAO_FORMATO) {
+            throw new IllegalStateException("Índice de vulnerabilidades inválido: " + arquivo);
+        }
+        int execucao = conteudo.getInt();
+        int quantidade = conteudo.getInt();
+        if (quantidade < 0 || conteudo.remaining() != (long) quantidade * TAMANHO_ENTRADA) {
+            throw new IllegalStateException("Índice de vulnerabilidades truncado: " + arquivo);
+        }
+
+        IndiceVulnerabilidades indice = new IndiceVulnerabilidades(quantidade);
+        indice.execucao = execucao;
+        for (int i = 0; i < quantidade; i++) {
+            indice.inserir(conteudo.getLong(), conteudo.getInt(), conteudo.getInt());
+        }
+        return indice;
+    }
+
+    /**
+     * Salva o índice. O arquivo é gravado ao lado e movido sobre o anterior, de modo que uma
+     * gravação interrompida não corrompe o índice salvo.
+     * @param arquivo O arquivo do índice
+     * @throws IOException se houver erro de gravação
+     */
+    public void salvar(Path arquivo) throws IOException {
+        ByteBuffer conteudo = ByteBuffer.allocate(TAMANHO_CABECALHO + quantidade * TAMANHO_ENTRADA)
+                                        .order(ByteOrder.LITTLE_ENDIAN);
+        conteudo.putInt(MAGICO).putInt(VERSAO_FORMATO).putInt(execucao).putInt(quantidade);
+        for (int i = 0; i < impressoes.length; i++) {
+            if (impressoes[i] != VAZIA) {
+                conteudo.putLong(impressoes[i]).putInt(execucoes[i]).putInt(atributos[i]);
+            }
+        }
+        conteudo.flip();
+
+        Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+        try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                  StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (conteudo.hasRemaining()) {
+                canal.write(conteudo);
+            }
+            canal.force(true);
+        }
+        Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Inicia uma nova execução (varredura); as vulnerabilidades passam a ser marcadas nela
+     * @return o número da nova execução
+     */
+    public int iniciarExecucao() {
+        return ++execucao;
+    }
+
+    /**
+     * Retorna a execução atual
+     * @return o número da execução, 0 se nenhuma foi iniciada
+     */
+    public int getExecucao() {
+        return execucao;
+    }
+
+    /**
+     * Retorna o número de vulnerabilidades no índice
+     * @return a quantidade de impressões
+     */
+    public int getQuantidade() {
+        return quantidade;
+    }
+
+    /**
+     * Descarta as vulnerabilidades que não aparecem há mais de um número de execuções,
+     * limitando o crescimento do índice. Se reaparecerem, voltam a ser tratadas como novas.
+     * @param execucoesRetidas O número de execuções recentes mantidas (1 mantém só a atual)
+     * @return o número de vulnerabilidades descartadas
+     * @throws IllegalArgumentException se execucoesRetidas for menor que 1
+     */
+    public int descartarAusentes(int execucoesRetidas) {
+        if (execucoesRetidas < 1) {
+            throw new IllegalArgumentException("O número de execuções retidas deve ser positivo: " + execucoesRetidas);
+        }
+        int minima = execucao - execucoesRetidas + 1;
+        long[] antigasImpressoes = impressoes;
+        int[] antigasExecucoes = execucoes;
+        int[] antigosAtributos = atributos;
+        int anterior = quantidade;
+        alocar(impressoes.length);
+        for (int i = 0; i < antigasImpressoes.length; i++) {
+            if (antigasImpressoes[i] != VAZIA && antigasExecucoes[i] >= minima) {
+                inserir(antigasImpressoes[i], antigasExecucoes[i], antigosAtributos[i]);
+            }
+        }
+        return anterior - quantidade;
+    }
+
+    /**
+     * Marca uma impressão como presente na execução atual, inserindo-a se for nova
+     * @param impressao O hash da impressão (diferente de zero)
+     * @return {@link #NOVA}, {@link #DUPLICADA} ou, para uma impressão de execuções
+     *         anteriores, os seus atributos (não negativos)
+     */
+    int marcar(long impressao) {
+        int posicao = posicao(impressao);
+        if (impressoes[posicao] == VAZIA) {
+            impressoes[posicao] = impressao;
+            execucoes[posicao] = execucao;
+            atributos[posicao] = 0;
+            if (++quantidade * 4 > impressoes.length * 3) {
+                redimensionar();
+            }
+            return NOVA;
+        } else if (execucoes[posicao] == execucao) {
+            return DUPLICADA;
+        }
+        execucoes[posicao] = execucao;
+        return atributos[posicao];
+    }
+
+    /**
+     * Define os atributos de uma impressão inserida por {@link #marcar(long)}
+     * @param impressao O hash da impressão
+     * @param valor Os atributos (não negativos)
+     */
+    void definirAtributos(long impressao, int valor) {
+        int posicao = posicao(impressao);
+        if (impressoes[posicao] == VAZIA) {
+            throw new IllegalStateException("Impressão ausente do índice");
+        }
+        atributos[posicao] = valor;
+    }
+
+    // Posição da impressão, ou da posição vazia em que ela seria inserida
+    private int posicao(long impressao) {
+        int posicao = (int) (impressao ^ (impressao >>> 32)) & mascara;
+        while (impressoes[posicao] != VAZIA && impressoes[posicao] != impressao) {
+            posicao = (posicao + 1) & mascara;
+        }
+        return posicao;
+    }
+
+    private void inserir(long impressao, int execucaoEntrada, int valor) {
+        if (impressao == VAZIA) {
+            throw new IllegalStateException("Impressão inválida no índice de vulnerabilidades");
+        }
+        int posicao = posicao(impressao);
+        if (impressoes[posicao] == VAZIA) {
+            quantidade++;
+        }
+        impressoes[posicao] = impressao;
+        execucoes[posicao] = execucaoEntrada;
+        atributos[posicao] = valor;
+        if (quantidade * 4 > impressoes.length * 3) {
+            redimensionar();
+        }
+    }
+
+    private void redimensionar() {
+        long[] antigasImpressoes = impressoes;
+        int[] antigasExecucoes = execucoes;
+        int[] antigosAtributos = atributos;
+        alocar(impressoes.length * 2);
+        for (int i = 0; i < antigasImpressoes.length; i++) {
+            if (antigasImpressoes[i] != VAZIA) {
+                inserir(antigasImpressoes[i], antigasExecucoes[i], antigosAtributos[i]);
+            }
+        }
+    }
+
+    private void alocar(int tamanho) {
+        impressoes = new long[tamanho];
+        execucoes = new int[tamanho];
+        atributos = new int[tamanho];
+        mascara = tamanho - 1;
+        quantidade = 0;
+    }
+}
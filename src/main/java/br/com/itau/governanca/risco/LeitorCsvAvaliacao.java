@@ -0,0 +1,401 @@
+package br.com.itau.governanca.risco;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Leitor em streaming de arquivos de métricas no layout de avaliacao_qube.csv
+ * (Dimensão, Critério, Métrica, Valor Atual, ...).
+ * <p>
+ * O arquivo é processado linha a linha sobre um buffer de bytes de tamanho fixo: os campos
+ * são delimitados por posições no buffer, os rótulos em português são resolvidos para
+ * ordinais do modelo por uma tabela pré-computada e os valores são convertidos sem criar
+ * Strings. A memória usada não depende do tamanho do arquivo.
+ * <p>
+ * Um arquivo pode conter várias aplicações concatenadas. Uma nova aplicação começa a cada
+ * linha de cabeçalho repetida ou, se o cabeçalho tiver as colunas opcionais "Aplicação" e
+ * "Versão", sempre que o valor dessas colunas mudar.
+ * <p>
+ * Instâncias não são thread-safe; use um leitor por thread.
+ */
+public class LeitorCsvAvaliacao {
+
+    /**
+     * Recebe cada aplicação lida do arquivo
+     */
+    public interface Consumidor {
+
+        /**
+         * Processa os valores de uma aplicação. O vetor é reutilizado entre aplicações e
+         * só é válido durante a chamada.
+         * @param nomeAplicacao O nome da aplicação, ou null se o arquivo não tiver a coluna
+         * @param versao A versão da aplicação, ou null se o arquivo não tiver a coluna
+         * @param valores Os valores indexados pelo ordinal do critério (NaN = ausente)
+         */
+        void aceitar(String nomeAplicacao, String versao, double[] valores);
+    }
+
+    // Rótulos em português usados nas exportações, por dimensão e critério internos
+    private static final String[][] ROTULOS_DIMENSOES = {
+        {"Bugs", "bugs"},
+        {"Performance", "performance"},
+        {"Segurança", "seguranca"},
+        {"Experiência", "experiencia"}
+    };
+
+    private static final String[][] ROTULOS_CRITERIOS = {
+        {"Densidade de defeitos", "bugs", "densidade_defeitos"},
+        {"Cobertura de testes", "bugs", "cobertura_testes"},
+        {"Bugs críticos pendentes", "bugs", "bugs_criticos"},
+        {"Taxa de regressão", "bugs", "taxa_regressao"},
+        {"MTBF", "bugs", "mtbf"},
+        {"Tempo de resposta", "performance", "tempo_resposta"},
+        {"Percentil 95 de tempo de resposta", "performance", "percentil_95"},
+        {"Utilização de recursos", "performance", "utilizacao_recursos"},
+        {"Escalabilidade", "performance", "escalabilidade"},
+        {"Tempo de inicialização", "performance", "tempo_inicializacao"},
+        {"Throughput", "performance", "throughput"},
+        {"Vulnerabilidades críticas", "seguranca", "vulnerabilidades_criticas"},
+        {"Vulnerabilidades totais", "seguranca", "vulnerabilidades_totais"},
+        {"OWASP Top 10", "seguranca", "owasp_top10"},
+        {"Segurança de dados", "seguranca", "seguranca_dados"},
+        {"Autenticação/Autorização", "seguranca", "autenticacao_autorizacao"},
+        {"Pentest", "seguranca", "pentest"},
+        {"Conformidade regulatória", "seguranca", "conformidade_regulatoria"},
+        {"Satisfação do usuário", "experiencia", "satisfacao_usuario"},
+        {"Taxa de erro do usuário", "experiencia", "taxa_erro_usuario"},
+        {"Tempo de conclusão de tarefa", "experiencia", "tempo_conclusao_tarefa"},
+        {"Acessibilidade", "experiencia", "acessibilidade"},
+        {"Taxa de abandono", "experiencia", "taxa_abandono"},
+        {"Adoção de funcionalidades", "experiencia", "adocao_funcionalidades"}
+    };
+
+    // Colunas reconhecidas no cabeçalho
+    private static final int COLUNA_DIMENSAO = 0;
+    private static final int COLUNA_CRITERIO = 1;
+    private static final int COLUNA_VALOR = 2;
+    private static final int COLUNA_APLICACAO = 3;
+    private static final int COLUNA_VERSAO = 4;
+    private static final String[] NOMES_COLUNAS = {"Dimensão", "Critério", "Valor Atual", "Aplicação", "Versão"};
+
+    private static final int TAMANHO_BUFFER = 64 * 1024;
+    private static final int MAXIMO_CAMPOS = 64;
+
+    private final ModeloCompilado modelo;
+    private final TabelaRotulos dimensoes;
+    private final TabelaRotulos criterios;
+    private final TabelaRotulos colunas;
+
+    // Estado da leitura, reutilizado entre arquivos
+    private byte[] buffer = new byte[TAMANHO_BUFFER];
+    private final int[] inicioCampos = new int[MAXIMO_CAMPOS];
+    private final int[] fimCampos = new int[MAXIMO_CAMPOS];
+    private final int[] posicaoColunas = new int[NOMES_COLUNAS.length];
+    private final double[] valores;
+    private byte[] aplicacaoAtual = new byte[0];
+    private byte[] versaoAtual = new byte[0];
+    private boolean temDados;
+    private long linhasIgnoradas;
+
+    /**
+     * Construtor que resolve os rótulos para os ordinais do modelo informado
+     * @param modelo O modelo cujos ordinais serão preenchidos
+     */
+    public LeitorCsvAvaliacao(ModeloCompilado modelo) {
+        this.modelo = modelo;
+        this.valores = modelo.novoVetorValores();
+
+        this.dimensoes = new TabelaRotulos(ROTULOS_DIMENSOES.length);
+        for (String[] rotulo : ROTULOS_DIMENSOES) {
+            int d = modelo.indiceDimensao(rotulo[1]);
+            if (d != ModeloCompilado.SEM_INDICE) {
+                dimensoes.inserir(rotulo[0], d);
+            }
+        }
+
+        this.criterios = new TabelaRotulos(ROTULOS_CRITERIOS.length);
+        for (String[] rotulo : ROTULOS_CRITERIOS) {
+            int c = modelo.indiceCriterio(rotulo[1], rotulo[2]);
+            if (c != ModeloCompilado.SEM_INDICE) {
+                criterios.inserir(rotulo[0], c);
+            }
+        }
+
+        this.colunas = new TabelaRotulos(NOMES_COLUNAS.length);
+        for (int i = 0; i < NOMES_COLUNAS.length; i++) {
+            colunas.inserir(NOMES_COLUNAS[i], i);
+        }
+    }
+
+    /**
+     * Lê um arquivo e entrega cada aplicação ao consumidor
+     * @param arquivo O arquivo CSV
+     * @param consumidor O consumidor das aplicações
+     * @return O número de aplicações lidas
+     * @throws IOException se houver erro de leitura
+     */
+    public int ler(Path arquivo, Consumidor consumidor) throws IOException {
+        try (InputStream entrada = Files.newInputStream(arquivo)) {
+            return ler(entrada, consumidor);
+        }
+    }
+
+    /**
+     * Lê um fluxo e entrega cada aplicação ao consumidor
+     * @param entrada O fluxo com o conteúdo CSV em UTF-8
+     * @param consumidor O consumidor das aplicações
+     * @return O número de aplicações lidas
+     * @throws IOException se houver erro de leitura
+     */
+    public int ler(InputStream entrada, Consumidor consumidor) throws IOException {
+        Arrays.fill(posicaoColunas, -1);
+        Arrays.fill(valores, Double.NaN);
+        aplicacaoAtual = new byte[0];
+        versaoAtual = new byte[0];
+        temDados = false;
+        linhasIgnoradas = 0;
+
+        int aplicacoes = 0;
+        int inicio = 0;
+        int fim = 0;
+        boolean primeiraLinha = true;
+
+        while (true) {
+            int lidos = entrada.read(buffer, fim, buffer.length - fim);
+            boolean terminou = lidos < 0;
+            if (!terminou) {
+                fim += lidos;
+            }
+
+            // Processa todas as linhas completas do buffer
+            int quebra;
+            while ((quebra = indiceQuebra(inicio, fim)) >= 0 || (terminou && inicio < fim)) {
+                int fimLinha = quebra >= 0 ? quebra : fim;
+                int proxima = quebra >= 0 ? quebra + 1 : fim;
+                if (fimLinha > inicio && buffer[fimLinha - 1] == '\r') {
+                    fimLinha--;
+                }
+                if (primeiraLinha && fimLinha - inicio >= 3 && (buffer[inicio] & 0xFF) == 0xEF
+                        && (buffer[inicio + 1] & 0xFF) == 0xBB && (buffer[inicio + 2] & 0xFF) == 0xBF) {
+                    inicio += 3;
+                }
+                primeiraLinha = false;
+                aplicacoes += processarLinha(inicio, fimLinha, consumidor);
+                inicio = proxima;
+            }
+
+            if (terminou) {
+                break;
+            }
+
+            // Move a linha incompleta para o início do buffer, ampliando-o se necessário
+            if (inicio > 0) {
+                System.arraycopy(buffer, inicio, buffer, 0, fim - inicio);
+                fim -= inicio;
+                inicio = 0;
+            } else if (fim == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+        }
+
+        if (temDados) {
+            emitir(consumidor);
+            aplicacoes++;
+        }
+        return aplicacoes;
+    }
+
+    /**
+     * Carrega um arquivo com uma única aplicação no formato aninhado de mapas usado pela
+     * CalculadoraRisco (equivalente ao carregar_dados_csv do script Python). Se o arquivo
+     * contiver várias aplicações, retorna a última.
+     * @param arquivo O arquivo CSV
+     * @return Os valores por dimensão e critério
+     * @throws IOException se houver erro de leitura
+     */
+    public Map<String, Map<String, Double>> carregarDados(Path arquivo) throws IOException {
+        Map<String, Map<String, Double>> dados = new HashMap<>();
+        ler(arquivo, (nomeAplicacao, versao, valoresAplicacao) -> {
+            dados.clear();
+            for (int d = 0; d < modelo.getNumDimensoes(); d++) {
+                Map<String, Double> criteriosDimensao = new HashMap<>();
+                for (int c = modelo.inicioDimensao(d); c < modelo.fimDimensao(d); c++) {
+                    if (!Double.isNaN(valoresAplicacao[c])) {
+                        criteriosDimensao.put(modelo.getNomeCriterio(c), valoresAplicacao[c]);
+                    }
+                }
+                dados.put(modelo.getNomeDimensao(d), criteriosDimensao);
+            }
+        });
+        return dados;
+    }
+
+    /**
+     * Retorna o número de linhas de dados ignoradas na última leitura (rótulos
+     * desconhecidos, valores vazios ou inválidos)
+     * @return o número de linhas ignoradas
+     */
+    public long getLinhasIgnoradas() {
+        return linhasIgnoradas;
+    }
+
+    private int indiceQuebra(int inicio, int fim) {
+        for (int i = inicio; i < fim; i++) {
+            if (buffer[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Processa uma linha e retorna 1 se ela encerrou uma aplicação
+    private int processarLinha(int inicio, int fim, Consumidor consumidor) {
+        if (inicio == fim) {
+            return 0;
+        }
+        int numCampos = separarCampos(inicio, fim);
+
+        if (colunas.buscar(buffer, inicioCampos[0], fimCampos[0]) != TabelaRotulos.AUSENTE) {
+            return lerCabecalho(numCampos, consumidor);
+        }
+        if (posicaoColunas[COLUNA_DIMENSAO] < 0) {
+            linhasIgnoradas++;
+            return 0;
+        }
+
+        int emitidas = 0;
+        if (mudouAplicacao(numCampos)) {
+            if (temDados) {
+                emitir(consumidor);
+                emitidas = 1;
+            }
+            aplicacaoAtual = copiarCampo(COLUNA_APLICACAO, numCampos);
+            versaoAtual = copiarCampo(COLUNA_VERSAO, numCampos);
+        }
+
+        int campoDimensao = posicaoColunas[COLUNA_DIMENSAO];
+        int campoCriterio = posicaoColunas[COLUNA_CRITERIO];
+        int campoValor = posicaoColunas[COLUNA_VALOR];
+        if (campoDimensao >= numCampos || campoCriterio >= numCampos || campoValor >= numCampos) {
+            linhasIgnoradas++;
+            return emitidas;
+        }
+
+        int dimensao = dimensoes.buscar(buffer, inicioCampos[campoDimensao], fimCampos[campoDimensao]);
+        int criterio = criterios.buscar(buffer, inicioCampos[campoCriterio], fimCampos[campoCriterio]);
+        if (dimensao == TabelaRotulos.AUSENTE || criterio == TabelaRotulos.AUSENTE
+                || modelo.getDimensaoCriterio(criterio) != dimensao) {
+            linhasIgnoradas++;
+            return emitidas;
+        }
+
+        double valor = ConversorNumeros.converter(buffer, inicioCampos[campoValor], fimCampos[campoValor]);
+        if (Double.isNaN(valor)) {
+            linhasIgnoradas++;
+            return emitidas;
+        }
+        valores[criterio] = valor;
+        temDados = true;
+        return emitidas;
+    }
+
+    // Registra a posição das colunas; um cabeçalho repetido encerra a aplicação corrente
+    private int lerCabecalho(int numCampos, Consumidor consumidor) {
+        int emitidas = 0;
+        if (temDados) {
+            emitir(consumidor);
+            emitidas = 1;
+        }
+        Arrays.fill(posicaoColunas, -1);
+        for (int i = 0; i < numCampos; i++) {
+            int coluna = colunas.buscar(buffer, inicioCampos[i], fimCampos[i]);
+            if (coluna != TabelaRotulos.AUSENTE && posicaoColunas[coluna] < 0) {
+                posicaoColunas[coluna] = i;
+            }
+        }
+        if (posicaoColunas[COLUNA_DIMENSAO] < 0 || posicaoColunas[COLUNA_CRITERIO] < 0
+                || posicaoColunas[COLUNA_VALOR] < 0) {
+            throw new IllegalArgumentException("Cabeçalho sem as colunas Dimensão, Critério e Valor Atual");
+        }
+        aplicacaoAtual = new byte[0];
+        versaoAtual = new byte[0];
+        return emitidas;
+    }
+
+    private boolean mudouAplicacao(int numCampos) {
+        return campoDifere(COLUNA_APLICACAO, numCampos, aplicacaoAtual)
+            || campoDifere(COLUNA_VERSAO, numCampos, versaoAtual);
+    }
+
+    private boolean campoDifere(int coluna, int numCampos, byte[] atual) {
+        int campo = posicaoColunas[coluna];
+        if (campo < 0 || campo >= numCampos) {
+            return false;
+        }
+        return !Arrays.equals(buffer, inicioCampos[campo], fimCampos[campo], atual, 0, atual.length);
+    }
+
+    private byte[] copiarCampo(int coluna, int numCampos) {
+        int campo = posicaoColunas[coluna];
+        if (campo < 0 || campo >= numCampos) {
+            return new byte[0];
+        }
+        return Arrays.copyOfRange(buffer, inicioCampos[campo], fimCampos[campo]);
+    }
+
+    private void emitir(Consumidor consumidor) {
+        String nomeAplicacao = posicaoColunas[COLUNA_APLICACAO] < 0 ? null
+            : new String(aplicacaoAtual, StandardCharsets.UTF_8);
+        String versao = posicaoColunas[COLUNA_VERSAO] < 0 ? null
+            : new String(versaoAtual, StandardCharsets.UTF_8);
+        consumidor.aceitar(nomeAplicacao, versao, valores);
+        Arrays.fill(valores, Double.NaN);
+        temDados = false;
+    }
+
+    // Delimita os campos da linha, removendo aspas e espaços nas extremidades
+    private int separarCampos(int inicio, int fim) {
+        int numCampos = 0;
+        int i = inicio;
+        while (numCampos < MAXIMO_CAMPOS) {
+            int inicioCampo = i;
+            int fimCampo;
+            if (i < fim && buffer[i] == '"') {
+                // Campo entre aspas: vai até a aspa de fechamento ("" é uma aspa escapada)
+                inicioCampo = ++i;
+                while (i < fim && !(buffer[i] == '"' && (i + 1 >= fim || buffer[i + 1] != '"'))) {
+                    i += buffer[i] == '"' ? 2 : 1;
+                }
+                fimCampo = i;
+                while (i < fim && buffer[i] != ',') {
+                    i++;
+                }
+            } else {
+                while (i < fim && buffer[i] != ',') {
+                    i++;
+                }
+                fimCampo = i;
+                while (inicioCampo < fimCampo && buffer[inicioCampo] == ' ') {
+                    inicioCampo++;
+                }
+                while (fimCampo > inicioCampo && buffer[fimCampo - 1] == ' ') {
+                    fimCampo--;
+                }
+            }
+            inicioCampos[numCampos] = inicioCampo;
+            fimCampos[numCampos] = fimCampo;
+            numCampos++;
+            if (i >= fim) {
+                break;
+            }
+            i++;
+        }
+        return numCampos;
+    }
+}
@@ -0,0 +1,444 @@
+package br.com.itau.governanca.risco;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Leitura de JSON em fluxo sobre um {@link InputStream}, com um buffer de tamanho limitado
+ * que é recarregado à medida que o documento é consumido, ou sobre um trecho de um array
+ * já em memória ({@link #reiniciar(byte[], int, int)}, usado por {@link LeitorJsonRelatorio}).
+ * Não monta árvore: o chamador percorre a estrutura com {@link #esperar(char)},
+ * {@link #continua(char)} e os métodos de leitura de valores, e descarta o que não interessa
+ * com {@link #pularValor()}.
+ * <p>
+ * Chaves são resolvidas em uma {@link TabelaRotulos} sobre os próprios bytes e textos
+ * podem ser reduzidos a um hash sem criar Strings. Um valor individual (texto ou número)
+ * precisa caber em {@link #TAMANHO_MAXIMO_VALOR} bytes.
+ * <p>
+ * Instâncias não são thread-safe.
+ */
+final class LeitorJsonFluxo {
+
+    /** Maior texto ou número aceito, em bytes */
+    static final int TAMANHO_MAXIMO_VALOR = 16 * 1024 * 1024;
+
+    private static final int TAMANHO_BUFFER = 64 * 1024;
+
+    // Semente do FNV-1a de 64 bits
+    static final long HASH_INICIAL = 0xcbf29ce484222325L;
+
+    private InputStream entrada;
+    private String origem;
+    private byte[] buffer;
+    private int posicao;
+    private int limite;
+    // Bytes já descartados do início do buffer, para localizar erros no arquivo
+    private long descartados;
+    private boolean terminou;
+
+    // Limites (sem aspas) do último texto lido e se ele contém escapes
+    private int inicioTexto;
+    private int fimTexto;
+    private boolean textoEscapado;
+
+    /**
+     * Construtor
+     * @param entrada O fluxo com os bytes UTF-8 do documento
+     * @param origem A origem do documento, usada nas mensagens de erro
+     */
+    LeitorJsonFluxo(InputStream entrada, String origem) {
+        this.entrada = entrada;
+        this.origem = origem;
+        this.buffer = new byte[TAMANHO_BUFFER];
+    }
+
+    /**
+     * Construtor para documentos em memória, informados por {@link #reiniciar(byte[], int, int)}
+     */
+    LeitorJsonFluxo() {
+        this.terminou = true;
+    }
+
+    /**
+     * Passa a ler o trecho {@code [inicio, fim)} de um array, sem copiá-lo nem alterá-lo.
+     * As posições nas mensagens de erro são as do array.
+     * @param bytes Os bytes UTF-8 do documento, ou null para soltar o array anterior
+     * @param inicio A posição inicial (inclusiva)
+     * @param fim A posição final (exclusiva)
+     */
+    void reiniciar(byte[] bytes, int inicio, int fim) {
+        this.entrada = null;
+        this.origem = null;
+        this.buffer = bytes;
+        this.posicao = inicio;
+        this.limite = fim;
+        this.descartados = 0;
+        this.terminou = true;
+    }
+
+    /**
+     * Retorna o próximo caractere significativo sem consumi-lo
+     * @return o caractere
+     * @throws IllegalArgumentException se o documento terminar
+     */
+    char espiar() throws IOException {
+        pularEspacos();
+        return (char) atual();
+    }
+
+    /**
+     * Indica se resta apenas espaço em branco até o fim do documento
+     * @return true se o documento terminou
+     */
+    boolean fim() throws IOException {
+        pularEspacos();
+        return posicao >= limite && !carregar(posicao);
+    }
+
+    /**
+     * Consome um caractere estrutural
+     * @param caractere O caractere esperado
+     * @throws IllegalArgumentException se vier outro caractere
+     */
+    void esperar(char caractere) throws IOException {
+        pularEspacos();
+        if (atual() != caractere) {
+            throw erro("esperado '" + caractere + "'");
+        }
+        posicao++;
+    }
+
+    /**
+     * Consome o delimitador de fechamento se ele vier a seguir (objeto ou array vazio)
+     * @param fechamento '}' ou ']'
+     * @return true se o delimitador foi consumido
+     */
+    boolean fechou(char fechamento) throws IOException {
+        pularEspacos();
+        if (atual() == fechamento) {
+            posicao++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Consome ',' (retorna true) ou o delimitador de fechamento (retorna false)
+     * @param fechamento '}' ou ']'
+     * @return true se há outro elemento
+     */
+    boolean continua(char fechamento) throws IOException {
+        pularEspacos();
+        byte b = atual();
+        if (b == ',') {
+            posicao++;
+            return true;
+        } else if (b == fechamento) {
+            posicao++;
+            return false;
+        }
+        throw erro("esperado ',' ou '" + fechamento + "'");
+    }
+
+    /**
+     * Lê uma chave e o ':' seguinte, resolvendo-a na tabela sem criar Strings
+     * @param tabela As chaves conhecidas
+     * @return o índice da chave, ou {@link TabelaRotulos#AUSENTE}
+     */
+    int lerChave(TabelaRotulos tabela) throws IOException {
+        int indice = lerRotulo(tabela);
+        esperar(':');
+        return indice;
+    }
+
+    /**
+     * Lê um texto e o resolve na tabela sem criar Strings
+     * @param tabela Os textos conhecidos
+     * @return o índice do texto, ou {@link TabelaRotulos#AUSENTE}
+     */
+    int lerRotulo(TabelaRotulos tabela) throws IOException {
+        pularEspacos();
+        delimitarTexto();
+        if (textoEscapado) {
+            byte[] texto = ultimoTexto().getBytes(StandardCharsets.UTF_8);
+            return tabela.buscar(texto, 0, texto.length);
+        }
+        return tabela.buscar(buffer, inicioTexto, fimTexto);
+    }
+
+    /**
+     * Consome o literal null se ele vier a seguir
+     * @return true se o literal foi consumido
+     */
+    boolean lerNulo() throws IOException {
+        pularEspacos();
+        if (atual() == 'n') {
+            literal("null");
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Lê um texto
+     * @return o texto, ou null para o literal null
+     */
+    String lerTexto() throws IOException {
+        pularEspacos();
+        if (atual() == 'n') {
+            literal("null");
+            return null;
+        }
+        delimitarTexto();
+        return ultimoTexto();
+    }
+
+    /**
+     * Lê um texto, um número ou um literal e o acumula em um hash FNV-1a de 64 bits sobre
+     * os bytes do valor (sem decodificar escapes), sem criar Strings
+     * @param hash O hash acumulado até aqui, ou {@link #HASH_INICIAL}
+     * @return o hash acumulado com o valor e um separador
+     * @throws IllegalArgumentException se o valor for um objeto ou array
+     */
+    long lerHash(long hash) throws IOException {
+        pularEspacos();
+        byte b = atual();
+        if (b == '{' || b == '[') {
+            throw erro("esperado texto ou número");
+        }
+        if (b == '"') {
+            delimitarTexto();
+        } else {
+            delimitarPrimitivo();
+        }
+        for (int i = inicioTexto; i < fimTexto; i++) {
+            hash ^= buffer[i];
+            hash *= 0x100000001b3L;
+        }
+        // Separador, para que ("ab", "c") e ("a", "bc") tenham hashes diferentes
+        hash ^= 0xff;
+        return hash * 0x100000001b3L;
+    }
+
+    /**
+     * Lê um número, aceitando também números entre aspas (como "9.8")
+     * @return o valor, ou NaN para null ou texto que não seja número
+     */
+    double lerNumero() throws IOException {
+        return lerNumero(true);
+    }
+
+    /**
+     * Lê um número
+     * @param aceitarTexto Se números entre aspas (como "9.8") são aceitos
+     * @return o valor, ou NaN para null ou texto aceito que não seja número
+     * @throws IllegalArgumentException se vier um texto não aceito
+     */
+    double lerNumero(boolean aceitarTexto) throws IOException {
+        pularEspacos();
+        byte b = atual();
+        if (b == '"') {
+            if (!aceitarTexto) {
+                throw erro("esperado número");
+            }
+            delimitarTexto();
+            return textoEscapado ? Double.NaN : ConversorNumeros.converter(buffer, inicioTexto, fimTexto);
+        } else if (b == 'n') {
+            literal("null");
+            return Double.NaN;
+        }
+        delimitarPrimitivo();
+        double valor = ConversorNumeros.converter(buffer, inicioTexto, fimTexto);
+        if (valor != valor) {
+            throw erro("número inválido");
+        }
+        return valor;
+    }
+
+    /**
+     * Descarta o próximo valor, de qualquer tipo e profundidade
+     */
+    void pularValor() throws IOException {
+        pularEspacos();
+        byte b = atual();
+        if (b == '"') {
+            delimitarTexto();
+        } else if (b == '{') {
+            posicao++;
+            if (!fechou('}')) {
+                do {
+                    pularEspacos();
+                    delimitarTexto();
+                    esperar(':');
+                    pularValor();
+                } while (continua('}'));
+            }
+        } else if (b == '[') {
+            posicao++;
+            if (!fechou(']')) {
+                do {
+                    pularValor();
+                } while (continua(']'));
+            }
+        } else if (b == 't') {
+            literal("true");
+        } else if (b == 'f') {
+            literal("false");
+        } else if (b == 'n') {
+            literal("null");
+        } else {
+            lerNumero();
+        }
+    }
+
+    // Consome um texto e registra os limites do seu conteúdo, que fica inteiro no buffer
+    private void delimitarTexto() throws IOException {
+        if (atual() != '"') {
+            throw erro("esperado '\"'");
+        }
+        inicioTexto = ++posicao;
+        textoEscapado = false;
+        while (true) {
+            if (posicao >= limite && !carregar(inicioTexto)) {
+                throw erro("texto não terminado");
+            }
+            byte b = buffer[posicao];
+            if (b == '"') {
+                break;
+            } else if (b == '\\') {
+                textoEscapado = true;
+                if (posicao + 1 >= limite && !carregar(inicioTexto)) {
+                    throw erro("texto não terminado");
+                }
+                posicao++;
+            }
+            posicao++;
+        }
+        fimTexto = posicao++;
+    }
+
+    // Consome um número ou literal sem aspas e registra os seus limites
+    private void delimitarPrimitivo() throws IOException {
+        inicioTexto = posicao;
+        while ((posicao < limite || carregar(inicioTexto)) && fazParteDePrimitivo(buffer[posicao])) {
+            posicao++;
+        }
+        fimTexto = posicao;
+        if (fimTexto == inicioTexto) {
+            throw erro("valor inesperado");
+        }
+    }
+
+    private static boolean fazParteDePrimitivo(byte b) {
+        return (b >= '0' && b <= '9') || (b >= 'a' && b <= 'z') || b == '-' || b == '+' || b == '.' || b == 'E';
+    }
+
+    /**
+     * Retorna o último texto lido (chave ou valor), com os escapes decodificados. Na leitura
+     * de um {@link InputStream}, só é válido antes da próxima leitura.
+     * @return o texto
+     */
+    String ultimoTexto() {
+        return textoEscapado ? decodificar(inicioTexto, fimTexto)
+                             : new String(buffer, inicioTexto, fimTexto - inicioTexto, StandardCharsets.UTF_8);
+    }
+
+    private void literal(String literal) throws IOException {
+        for (int i = 0; i < literal.length(); i++) {
+            if (atual() != literal.charAt(i)) {
+                throw erro("esperado " + literal);
+            }
+            posicao++;
+        }
+    }
+
+    private byte atual() throws IOException {
+        if (posicao >= limite && !carregar(posicao)) {
+            throw erro("fim inesperado");
+        }
+        return buffer[posicao];
+    }
+
+    private void pularEspacos() throws IOException {
+        while (posicao < limite || carregar(posicao)) {
+            byte b = buffer[posicao];
+            if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                return;
+            }
+            posicao++;
+        }
+    }
+
+    // Lê mais bytes preservando o trecho a partir de 'preservar', que passa para o início do
+    // buffer (as posições são ajustadas); dobra o buffer se o trecho o ocupar por inteiro
+    private boolean carregar(int preservar) throws IOException {
+        if (terminou) {
+            return false;
+        }
+        int restante = limite - preservar;
+        if (restante == buffer.length) {
+            if (buffer.length >= TAMANHO_MAXIMO_VALOR) {
+                throw erro("valor maior que " + TAMANHO_MAXIMO_VALOR + " bytes");
+            }
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        } else if (preservar > 0) {
+            System.arraycopy(buffer, preservar, buffer, 0, restante);
+            descartados += preservar;
+            posicao -= preservar;
+            inicioTexto -= preservar;
+            limite = restante;
+        }
+        int lidos = entrada.read(buffer, limite, buffer.length - limite);
+        if (lidos < 0) {
+            terminou = true;
+            return false;
+        }
+        limite += lidos;
+        return true;
+    }
+
+    private String decodificar(int inicio, int limite) {
+        StringBuilder texto = new StringBuilder(limite - inicio);
+        int trecho = inicio;
+        for (int i = inicio; i < limite; i++) {
+            if (buffer[i] != '\\') {
+                continue;
+            }
+            texto.append(new String(buffer, trecho, i - trecho, StandardCharsets.UTF_8));
+            byte escape = buffer[++i];
+            switch (escape) {
+                case 'n': texto.append('\n'); break;
+                case 'r': texto.append('\r'); break;
+                case 't': texto.append('\t'); break;
+                case 'b': texto.append('\b'); break;
+                case 'f': texto.append('\f'); break;
+                case 'u':
+                    if (i + 4 >= limite) {
+                        throw erro("escape \\u incompleto");
+                    }
+                    try {
+                        texto.append((char) Integer.parseInt(new String(buffer, i + 1, 4, StandardCharsets.US_ASCII), 16));
+                    } catch (NumberFormatException e) {
+                        throw erro("escape \\u inválido");
+                    }
+                    i += 4;
+                    break;
+                default: texto.append((char) escape);
+            }
+            trecho = i + 1;
+        }
+        return texto.append(new String(buffer, trecho, limite - trecho, StandardCharsets.UTF_8)).toString();
+    }
+
+    /**
+     * Cria a exceção de documento inválido com a posição atual no arquivo
+     * @param mensagem A descrição do erro
+     * @return a exceção
+     */
+    IllegalArgumentException erro(String mensagem) {
+        return new IllegalArgumentException("JSON inválido" + (origem != null ? " em " + origem : "")
+            + " na posição " + (descartados + posicao) + ": " + mensagem);
+    }
+}
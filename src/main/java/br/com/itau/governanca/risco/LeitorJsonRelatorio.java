@@ -0,0 +1,346 @@
+package br.com.itau.governanca.risco;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Lê relatórios JSON no esquema de relatorio_qube.json diretamente de bytes e monta o
+ * {@link ResultadoAvaliacao}, sem árvore intermediária de mapas e sem bibliotecas externas.
+ * <p>
+ * Chaves, nomes de dimensões e critérios, classificações, status e mensagens de veto são
+ * resolvidos por tabelas pré-computadas sobre os próprios bytes, reaproveitando as Strings
+ * do modelo. Os valores de {@code dados_detalhados} podem ser lidos para um vetor indexado
+ * pelo ordinal do critério. Chaves desconhecidas são ignoradas, exceto nos dados de uma
+ * requisição de avaliação ({@link #lerRequisicao}). A análise léxica é a de
+ * {@link LeitorJsonFluxo}, sobre o array em memória.
+ * <p>
+ * Instâncias não são thread-safe; use um leitor por thread.
+ */
+public class LeitorJsonRelatorio {
+
+    private static final String[] CHAVES_RELATORIO = {
+        "nome_aplicacao", "versao", "resultado", "vetos", "status", "dados_detalhados"
+    };
+    private static final int NOME_APLICACAO = 0;
+    private static final int VERSAO = 1;
+    private static final int RESULTADO = 2;
+    private static final int VETOS = 3;
+    private static final int STATUS = 4;
+    private static final int DADOS_DETALHADOS = 5;
+
+    private static final String[] CHAVES_RESULTADO = {"pontuacao_total", "classificacao", "pontuacoes_dimensoes"};
+    private static final int PONTUACAO_TOTAL = 0;
+    private static final int CLASSIFICACAO = 1;
+    private static final int PONTUACOES_DIMENSOES = 2;
+
+    private static final TabelaRotulos TABELA_RELATORIO = tabela(CHAVES_RELATORIO);
+    private static final TabelaRotulos TABELA_RESULTADO = tabela(CHAVES_RESULTADO);
+
+    // Textos conhecidos (classificações, status e vetos), reaproveitados sem criar novas Strings
+    private static final String[] TEXTOS_CONHECIDOS;
+    private static final TabelaRotulos TABELA_TEXTOS;
+    // Posição da primeira mensagem de veto em TEXTOS_CONHECIDOS
+    private static final int INICIO_VETOS = ClassificacaoRisco.values().length + StatusAvaliacao.values().length;
+
+    static {
+        List<String> textos = new ArrayList<>();
+        for (ClassificacaoRisco classificacao : ClassificacaoRisco.values()) {
+            textos.add(classificacao.getRotulo());
+        }
+        for (StatusAvaliacao status : StatusAvaliacao.values()) {
+            textos.add(status.name());
+        }
+        textos.addAll(CalculadoraRisco.descreverVetos(-1));
+        TEXTOS_CONHECIDOS = textos.toArray(new String[0]);
+        TABELA_TEXTOS = tabela(TEXTOS_CONHECIDOS);
+    }
+
+    private final ModeloCompilado modelo;
+    private final TabelaRotulos tabelaDimensoes;
+    private final TabelaRotulos[] tabelasCriterios;
+
+    private final LeitorJsonFluxo json = new LeitorJsonFluxo();
+    // Requisição de avaliação: dados detalhados com o mesmo rigor de CalculadoraRisco.gerarRelatorio
+    private boolean requisicao;
+
+    // Campos lidos do documento
+    private String nomeAplicacao;
+    private String versao;
+    private double pontuacaoTotal;
+    private String classificacao;
+    private int vetos;
+    private String status;
+
+    // Pontuações lidas de pontuacoes_dimensoes
+    private String[] nomesDimensoes;
+    private double[] pontuacoesDimensoes;
+    private int quantidadeDimensoes;
+
+    /**
+     * Construtor
+     * @param modelo O modelo que define as dimensões e critérios conhecidos
+     */
+    public LeitorJsonRelatorio(ModeloCompilado modelo) {
+        this.modelo = modelo;
+        this.tabelaDimensoes = new TabelaRotulos(modelo.getNumDimensoes());
+        this.tabelasCriterios = new TabelaRotulos[modelo.getNumDimensoes()];
+        for (int d = 0; d < modelo.getNumDimensoes(); d++) {
+            tabelaDimensoes.inserir(modelo.getNomeDimensao(d), d);
+            tabelasCriterios[d] = new TabelaRotulos(modelo.fimDimensao(d) - modelo.inicioDimensao(d));
+            for (int c = modelo.inicioDimensao(d); c < modelo.fimDimensao(d); c++) {
+                tabelasCriterios[d].inserir(modelo.getNomeCriterio(c), c);
+            }
+        }
+    }
+
+    /**
+     * Lê um relatório
+     * @param json Os bytes UTF-8 do relatório
+     * @return O resultado da avaliação
+     * @throws IllegalArgumentException se o JSON for inválido
+     */
+    public ResultadoAvaliacao ler(byte[] json) {
+        return ler(json, 0, json.length, null);
+    }
+
+    /**
+     * Lê um relatório a partir de um ByteBuffer, da posição atual até o limite.
+     * A posição do buffer não é alterada.
+     * @param json O buffer com os bytes UTF-8 do relatório
+     * @param valores Destino dos dados detalhados indexados por ordinal, ou null
+     * @return O resultado da avaliação
+     * @throws IllegalArgumentException se o JSON for inválido
+     */
+    public ResultadoAvaliacao ler(ByteBuffer json, double[] valores) {
+        if (json.hasArray()) {
+            int inicio = json.arrayOffset() + json.position();
+            return ler(json.array(), inicio, inicio + json.remaining(), valores);
+        }
+        byte[] copia = new byte[json.remaining()];
+        json.duplicate().get(copia);
+        return ler(copia, 0, copia.length, valores);
+    }
+
+    /**
+     * Lê um relatório do trecho {@code [inicio, fim)} de um array de bytes
+     * @param json Os bytes UTF-8 do relatório
+     * @param inicio A posição inicial (inclusiva)
+     * @param fim A posição final (exclusiva)
+     * @param valores Destino dos dados detalhados indexados por ordinal (preenchido com NaN
+     *                para critérios ausentes), ou null para ignorá-los
+     * @return O resultado da avaliação
+     * @throws IllegalArgumentException se o JSON for inválido
+     */
+    public ResultadoAvaliacao ler(byte[] json, int inicio, int fim, double[] valores) {
+        analisar(json, inicio, fim, valores);
+
+        if (classificacao == null || status == null || pontuacaoTotal != pontuacaoTotal) {
+            throw new IllegalArgumentException("Relatório sem pontuação total, classificação ou status");
+        }
+        ClassificacaoRisco classificacaoRisco = ClassificacaoRisco.doRotulo(classificacao);
+        StatusAvaliacao statusAvaliacao = StatusAvaliacao.valueOf(status);
+        int quantidade = quantidadeDimensoes;
+        return new ResultadoAvaliacao(nomeAplicacao, versao, pontuacaoTotal, classificacaoRisco, statusAvaliacao, vetos,
+                                      Arrays.copyOf(nomesDimensoes, quantidade),
+                                      Arrays.copyOf(pontuacoesDimensoes, quantidade));
+    }
+
+    /**
+     * Lê uma requisição de avaliação: um documento no esquema do relatório com apenas
+     * {@code nome_aplicacao}, {@code versao} e {@code dados_detalhados}. O nome e a versão
+     * ficam disponíveis em {@link #getNomeAplicacaoLido()} e {@link #getVersaoLida()}.
+     * <p>
+     * Os dados detalhados não aceitam dimensões ou critérios fora do modelo, dimensões sem
+     * critérios nem valores nulos: os valores lidos são exatamente os dados que
+     * {@link CalculadoraRisco#gerarRelatorio} aceitaria, na ordem do modelo.
+     * @param json Os bytes UTF-8 da requisição
+     * @param inicio A posição inicial (inclusiva)
+     * @param fim A posição final (exclusiva)
+     * @param valores Destino dos dados detalhados indexados por ordinal (NaN para ausentes)
+     * @throws IllegalArgumentException se o JSON for inválido ou os dados não seguirem o modelo
+     */
+    public void lerRequisicao(byte[] json, int inicio, int fim, double[] valores) {
+        requisicao = true;
+        try {
+            analisar(json, inicio, fim, valores);
+        } finally {
+            requisicao = false;
+        }
+    }
+
+    /**
+     * Retorna o nome da aplicação do último documento lido
+     * @return o nome da aplicação, ou null se ausente
+     */
+    public String getNomeAplicacaoLido() {
+        return nomeAplicacao;
+    }
+
+    /**
+     * Retorna a versão do último documento lido
+     * @return a versão, ou null se ausente
+     */
+    public String getVersaoLida() {
+        return versao;
+    }
+
+    // Percorre o documento, guardando os campos lidos
+    private void analisar(byte[] bytes, int inicio, int fim, double[] valores) {
+        json.reiniciar(bytes, inicio, fim);
+        if (valores != null) {
+            Arrays.fill(valores, Double.NaN);
+        }
+
+        nomeAplicacao = null;
+        versao = null;
+        pontuacaoTotal = Double.NaN;
+        classificacao = null;
+        vetos = 0;
+        status = null;
+        quantidadeDimensoes = 0;
+        nomesDimensoes = new String[modelo.getNumDimensoes()];
+        pontuacoesDimensoes = new double[modelo.getNumDimensoes()];
+
+        try {
+            json.esperar('{');
+            if (!json.fechou('}')) {
+                do {
+                    int chave = json.lerChave(TABELA_RELATORIO);
+                    if (chave == NOME_APLICACAO) {
+                        nomeAplicacao = lerTexto();
+                    } else if (chave == VERSAO) {
+                        versao = lerTexto();
+                    } else if (chave == RESULTADO) {
+                        json.esperar('{');
+                        if (!json.fechou('}')) {
+                            do {
+                                int chaveResultado = json.lerChave(TABELA_RESULTADO);
+                                if (chaveResultado == PONTUACAO_TOTAL) {
+                                    pontuacaoTotal = lerNumero();
+                                } else if (chaveResultado == CLASSIFICACAO) {
+                                    classificacao = lerTexto();
+                                } else if (chaveResultado == PONTUACOES_DIMENSOES) {
+                                    lerPontuacoes();
+                                } else {
+                                    json.pularValor();
+                                }
+                            } while (json.continua('}'));
+                        }
+                    } else if (chave == VETOS) {
+                        json.esperar('[');
+                        if (!json.fechou(']')) {
+                            do {
+                                vetos |= lerVeto();
+                            } while (json.continua(']'));
+                        }
+                    } else if (chave == STATUS) {
+                        status = lerTexto();
+                    } else if (chave == DADOS_DETALHADOS && valores != null) {
+                        lerDadosDetalhados(valores);
+                    } else {
+                        json.pularValor();
+                    }
+                } while (json.continua('}'));
+            }
+            if (!json.fim()) {
+                throw json.erro("conteúdo após o fim do relatório");
+            }
+        } catch (IOException e) {
+            // Não ocorre: o documento está inteiro em memória
+            throw new UncheckedIOException(e);
+        } finally {
+            json.reiniciar(null, 0, 0);
+        }
+    }
+
+    private void lerPontuacoes() throws IOException {
+        json.esperar('{');
+        if (json.fechou('}')) {
+            return;
+        }
+        do {
+            int dimensao = json.lerChave(tabelaDimensoes);
+            String nome = dimensao != TabelaRotulos.AUSENTE ? modelo.getNomeDimensao(dimensao) : json.ultimoTexto();
+            if (quantidadeDimensoes == nomesDimensoes.length) {
+                nomesDimensoes = Arrays.copyOf(nomesDimensoes, quantidadeDimensoes * 2 + 1);
+                pontuacoesDimensoes = Arrays.copyOf(pontuacoesDimensoes, quantidadeDimensoes * 2 + 1);
+            }
+            nomesDimensoes[quantidadeDimensoes] = nome;
+            pontuacoesDimensoes[quantidadeDimensoes++] = lerNumero();
+        } while (json.continua('}'));
+    }
+
+    // Lê uma mensagem de veto e retorna o seu bit
+    private int lerVeto() throws IOException {
+        int conhecido = json.lerRotulo(TABELA_TEXTOS);
+        if (conhecido < INICIO_VETOS) {
+            throw new IllegalArgumentException("Veto desconhecido: " + json.ultimoTexto());
+        }
+        return 1 << (conhecido - INICIO_VETOS);
+    }
+
+    private void lerDadosDetalhados(double[] valores) throws IOException {
+        json.esperar('{');
+        if (json.fechou('}')) {
+            return;
+        }
+        do {
+            int dimensao = json.lerChave(tabelaDimensoes);
+            if (dimensao == TabelaRotulos.AUSENTE) {
+                if (requisicao) {
+                    throw json.erro("dimensão desconhecida: " + json.ultimoTexto());
+                }
+                json.pularValor();
+                continue;
+            }
+            json.esperar('{');
+            if (json.fechou('}')) {
+                if (requisicao) {
+                    throw json.erro("dimensão sem critérios: " + modelo.getNomeDimensao(dimensao));
+                }
+                continue;
+            }
+            do {
+                int criterio = json.lerChave(tabelasCriterios[dimensao]);
+                if (criterio == TabelaRotulos.AUSENTE) {
+                    if (requisicao) {
+                        throw json.erro("critério desconhecido: " + modelo.getNomeDimensao(dimensao) + "."
+                                        + json.ultimoTexto());
+                    }
+                    json.pularValor();
+                } else {
+                    valores[criterio] = lerNumero();
+                    if (requisicao && valores[criterio] != valores[criterio]) {
+                        throw json.erro("valor nulo: " + modelo.getNomeCriterio(criterio));
+                    }
+                }
+            } while (json.continua('}'));
+        } while (json.continua('}'));
+    }
+
+    // Lê um texto ou null, reaproveitando as Strings conhecidas
+    private String lerTexto() throws IOException {
+        if (json.lerNulo()) {
+            return null;
+        }
+        int conhecido = json.lerRotulo(TABELA_TEXTOS);
+        return conhecido != TabelaRotulos.AUSENTE ? TEXTOS_CONHECIDOS[conhecido] : json.ultimoTexto();
+    }
+
+    // Lê um número ou null (NaN); ao contrário do leitor em fluxo, não aceita números entre aspas
+    private double lerNumero() throws IOException {
+        return json.lerNumero(false);
+    }
+
+    private static TabelaRotulos tabela(String[] rotulos) {
+        TabelaRotulos tabela = new TabelaRotulos(rotulos.length);
+        for (int i = 0; i < rotulos.length; i++) {
+            tabela.inserir(rotulos[i], i);
+        }
+        return tabela;
+    }
+}
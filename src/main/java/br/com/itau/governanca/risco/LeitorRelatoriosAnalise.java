@@ -0,0 +1,287 @@
+package br.com.itau.governanca.risco;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Leitor de relatórios XML de cobertura e de análise estática, que deriva os critérios
+ * cobertura_testes e densidade_defeitos da dimensão bugs.
+ * <p>
+ * Os relatórios são lidos em streaming (StAX), em uma única passada e com memória constante,
+ * sem montar a árvore do documento: relatórios de centenas de MB de um monorepo não ocupam o
+ * heap. Os arquivos de cada módulo são lidos em paralelo e os totais somados. O formato é
+ * reconhecido pelo elemento raiz:
+ * <ul>
+ *   <li>{@code report} (JaCoCo): linhas cobertas e perdidas do contador LINE do relatório</li>
+ *   <li>{@code coverage} (cobertura genérica do SonarQube): um {@code lineToCover} por linha</li>
+ *   <li>{@code BugCollection} (SpotBugs): um defeito por {@code BugInstance} e as linhas
+ *       analisadas de {@code FindBugsSummary total_size}</li>
+ * </ul>
+ * A densidade de defeitos usa as linhas analisadas pela análise estática ou, se os relatórios
+ * não as informarem, as linhas dos relatórios de cobertura. DTDs e entidades externas não são
+ * carregados.
+ * <p>
+ * Instâncias não guardam estado entre leituras e podem ser compartilhadas entre threads.
+ */
+public class LeitorRelatoriosAnalise {
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Construtor que utiliza o ForkJoinPool comum da JVM
+     */
+    public LeitorRelatoriosAnalise() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Construtor que utiliza um ForkJoinPool dedicado
+     * @param pool O pool que lê os arquivos dos módulos
+     */
+    public LeitorRelatoriosAnalise(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Lê um relatório
+     * @param arquivo O caminho do relatório XML
+     * @return os totais do relatório
+     * @throws IOException se houver erro de leitura ou o XML for inválido
+     * @throws IllegalArgumentException se o formato do relatório não for reconhecido
+     */
+    public ResultadoAnalise ler(Path arquivo) throws IOException {
+        return ler(Collections.singletonList(arquivo));
+    }
+
+    /**
+     * Lê os relatórios de vários módulos em paralelo e soma os totais
+     * @param arquivos Os caminhos dos relatórios XML, em qualquer combinação de formatos
+     * @return os totais de todos os relatórios
+     * @throws IOException se houver erro de leitura ou algum XML for inválido
+     * @throws IllegalArgumentException se o formato de algum relatório não for reconhecido
+     */
+    public ResultadoAnalise ler(Collection<Path> arquivos) throws IOException {
+        List<Callable<Totais>> tarefas = new ArrayList<>(arquivos.size());
+        for (Path arquivo : arquivos) {
+            tarefas.add(() -> lerArquivo(arquivo));
+        }
+
+        Totais totais = new Totais();
+        try {
+            for (Future<Totais> futuro : pool.invokeAll(tarefas)) {
+                totais.somar(futuro.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Leitura de relatórios interrompida", e);
+        } catch (ExecutionException e) {
+            throw ExcecoesTarefas.desembrulhar(e, IOException.class, IOException::new);
+        }
+        return new ResultadoAnalise(totais);
+    }
+
+    private static Totais lerArquivo(Path arquivo) throws IOException {
+        try (InputStream entrada = new BufferedInputStream(Files.newInputStream(arquivo), 64 * 1024)) {
+            XMLStreamReader leitor = criarFabrica().createXMLStreamReader(entrada);
+            try {
+                return lerRelatorio(leitor, arquivo);
+            } finally {
+                leitor.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Relatório XML inválido: " + arquivo, e);
+        }
+    }
+
+    // Fábrica sem DTDs nem entidades externas; não há garantia de que seja thread-safe
+    private static XMLInputFactory criarFabrica() {
+        XMLInputFactory fabrica = XMLInputFactory.newFactory();
+        fabrica.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        fabrica.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        fabrica.setProperty(XMLInputFactory.IS_COALESCING, false);
+        return fabrica;
+    }
+
+    private static Totais lerRelatorio(XMLStreamReader leitor, Path arquivo) throws XMLStreamException {
+        Totais totais = new Totais();
+        String raiz = null;
+        int profundidade = 0;
+
+        while (leitor.hasNext()) {
+            int evento = leitor.next();
+            if (evento == XMLStreamConstants.END_ELEMENT) {
+                profundidade--;
+                continue;
+            }
+            if (evento != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+            profundidade++;
+            String elemento = leitor.getLocalName();
+
+            if (raiz == null) {
+                raiz = elemento;
+                if (!raiz.equals("report") && !raiz.equals("coverage") && !raiz.equals("BugCollection")) {
+                    throw new IllegalArgumentException("Formato de relatório não reconhecido (" + raiz + "): " + arquivo);
+                }
+            } else if (raiz.equals("report")) {
+                // Apenas os contadores filhos diretos de <report> totalizam o relatório
+                if (profundidade == 2 && elemento.equals("counter") && "LINE".equals(atributo(leitor, "type"))) {
+                    long cobertas = numero(leitor, "covered", arquivo);
+                    totais.linhasCobertas += cobertas;
+                    totais.linhasCobertura += cobertas + numero(leitor, "missed", arquivo);
+                }
+            } else if (raiz.equals("coverage")) {
+                if (elemento.equals("lineToCover")) {
+                    totais.linhasCobertura++;
+                    if ("true".equals(atributo(leitor, "covered"))) {
+                        totais.linhasCobertas++;
+                    }
+                }
+            } else if (elemento.equals("BugInstance")) {
+                totais.defeitos++;
+            } else if (elemento.equals("FindBugsSummary")) {
+                totais.linhasAnalisadas += numero(leitor, "total_size", arquivo);
+            }
+        }
+        totais.analiseEstatica = "BugCollection".equals(raiz);
+        return totais;
+    }
+
+    private static String atributo(XMLStreamReader leitor, String nome) {
+        return leitor.getAttributeValue(null, nome);
+    }
+
+    private static long numero(XMLStreamReader leitor, String nome, Path arquivo) {
+        String valor = atributo(leitor, nome);
+        try {
+            return Long.parseLong(valor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Atributo " + nome + " inválido em " + leitor.getLocalName()
+                + " (" + valor + "): " + arquivo);
+        }
+    }
+
+    // Totais somáveis de um ou mais relatórios
+    private static final class Totais {
+        private long linhasCobertas;
+        private long linhasCobertura;
+        private long defeitos;
+        private long linhasAnalisadas;
+        private boolean analiseEstatica;
+
+        void somar(Totais outros) {
+            linhasCobertas += outros.linhasCobertas;
+            linhasCobertura += outros.linhasCobertura;
+            defeitos += outros.defeitos;
+            linhasAnalisadas += outros.linhasAnalisadas;
+            analiseEstatica |= outros.analiseEstatica;
+        }
+    }
+
+    /**
+     * Totais de cobertura e defeitos dos relatórios lidos
+     */
+    public static final class ResultadoAnalise {
+        private final long linhasCobertas;
+        private final long linhasCobertura;
+        private final long defeitos;
+        private final long linhasAnalisadas;
+        private final boolean analiseEstatica;
+
+        private ResultadoAnalise(Totais totais) {
+            this.linhasCobertas = totais.linhasCobertas;
+            this.linhasCobertura = totais.linhasCobertura;
+            this.defeitos = totais.defeitos;
+            this.linhasAnalisadas = totais.linhasAnalisadas;
+            this.analiseEstatica = totais.analiseEstatica;
+        }
+
+        /**
+         * Retorna os critérios da dimensão bugs derivados dos relatórios, para
+         * {@code calcularPontuacaoDimensao("bugs", ...)}: cobertura_testes (% de linhas cobertas)
+         * e densidade_defeitos (defeitos por mil linhas)
+         * @return os valores por critério; sem os critérios cujos relatórios não foram lidos
+         */
+        public Map<String, Double> getDadosBugs() {
+            Map<String, Double> dados = new LinkedHashMap<>();
+            double cobertura = getCoberturaLinhas();
+            if (!Double.isNaN(cobertura)) {
+                dados.put("cobertura_testes", cobertura);
+            }
+            double densidade = getDensidadeDefeitos();
+            if (!Double.isNaN(densidade)) {
+                dados.put("densidade_defeitos", densidade);
+            }
+            return dados;
+        }
+
+        /**
+         * Retorna a cobertura de linhas
+         * @return o percentual de linhas cobertas, ou NaN sem relatórios de cobertura
+         */
+        public double getCoberturaLinhas() {
+            return linhasCobertura == 0 ? Double.NaN : 100.0 * linhasCobertas / linhasCobertura;
+        }
+
+        /**
+         * Retorna a densidade de defeitos
+         * @return defeitos por mil linhas, ou NaN sem relatórios de análise estática ou sem linhas
+         */
+        public double getDensidadeDefeitos() {
+            long linhas = getLinhasCodigo();
+            return !analiseEstatica || linhas == 0 ? Double.NaN : defeitos * 1000.0 / linhas;
+        }
+
+        /**
+         * Retorna as linhas usadas na densidade de defeitos: as analisadas pela análise
+         * estática ou, se não informadas, as dos relatórios de cobertura
+         * @return o número de linhas
+         */
+        public long getLinhasCodigo() {
+            return linhasAnalisadas > 0 ? linhasAnalisadas : linhasCobertura;
+        }
+
+        /**
+         * Retorna o número de linhas cobertas
+         * @return as linhas cobertas por testes
+         */
+        public long getLinhasCobertas() {
+            return linhasCobertas;
+        }
+
+        /**
+         * Retorna o número de linhas consideradas nos relatórios de cobertura
+         * @return as linhas cobertas e perdidas
+         */
+        public long getLinhasCobertura() {
+            return linhasCobertura;
+        }
+
+        /**
+         * Retorna o número de defeitos dos relatórios de análise estática
+         * @return o número de defeitos
+         */
+        public long getDefeitos() {
+            return defeitos;
+        }
+    }
+}
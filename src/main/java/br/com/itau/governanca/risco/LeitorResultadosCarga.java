@@ -0,0 +1,557 @@
+package br.com.itau.governanca.risco;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Leitor de arquivos de resultados de testes de carga no formato CSV do JMeter (JTL), que
+ * deriva os critérios de performance sem pós-processamento manual.
+ * <p>
+ * O arquivo é dividido em blocos de tamanho fixo, mapeados em memória um a um (arquivos de
+ * dezenas de GB não cabem em um único mapeamento) e processados em paralelo. Cada linha
+ * pertence ao bloco em que começa: um bloco descarta a linha parcial inicial e lê além do seu
+ * fim até terminar a última linha. Cada bloco acumula quantidade, falhas, um
+ * {@link HistogramaLatencias} do tempo decorrido e contagens por segundo, e os acumuladores
+ * são mesclados sem perda na ordem dos blocos.
+ * <p>
+ * O cabeçalho deve ter as colunas {@code timeStamp} (início em milissegundos desde a época) e
+ * {@code elapsed} (tempo decorrido em milissegundos); {@code success} é opcional. Campos entre
+ * aspas podem conter vírgulas, mas não quebras de linha. Linhas com tempos inválidos, como
+ * cabeçalhos repetidos, são ignoradas e contadas, assim como linhas cujo início dista mais de
+ * 7 dias do início da primeira linha válida (um timeStamp espúrio, como 0, não faz as contagens
+ * por segundo cobrirem décadas).
+ * <p>
+ * Instâncias não guardam estado entre leituras e podem ser compartilhadas entre threads.
+ */
+public class LeitorResultadosCarga {
+
+    /** Tamanho padrão dos blocos processados em paralelo, em bytes */
+    public static final int TAMANHO_BLOCO_PADRAO = 64 * 1024 * 1024;
+
+    // Maior linha aceita; um bloco lê no máximo isso além do seu fim
+    private static final int MAXIMO_LINHA = 64 * 1024;
+    private static final int TAMANHO_JANELA = 256 * 1024;
+    private static final int MAXIMO_CAMPO_NUMERICO = 64;
+    // Maior distância, em segundos, entre o início de uma linha contada e o da primeira linha válida
+    private static final long MAXIMO_SEGUNDOS = 7 * 24 * 3600;
+
+    private static final String COLUNA_INICIO = "timeStamp";
+    private static final String COLUNA_DECORRIDO = "elapsed";
+    private static final String COLUNA_SUCESSO = "success";
+
+    private final ForkJoinPool pool;
+    private final int tamanhoBloco;
+
+    /**
+     * Construtor que utiliza o ForkJoinPool comum da JVM e blocos de 64 MB
+     */
+    public LeitorResultadosCarga() {
+        this(ForkJoinPool.commonPool(), TAMANHO_BLOCO_PADRAO);
+    }
+
+    /**
+     * Construtor com pool e tamanho de bloco
+     * @param pool O pool que processa os blocos
+     * @param tamanhoBloco O tamanho de cada bloco em bytes (até pouco menos de 2 GB)
+     */
+    public LeitorResultadosCarga(ForkJoinPool pool, int tamanhoBloco) {
+        if (tamanhoBloco <= 0 || tamanhoBloco > Integer.MAX_VALUE - MAXIMO_LINHA - 1) {
+            throw new IllegalArgumentException("Tamanho de bloco inválido: " + tamanhoBloco);
+        }
+        this.pool = pool;
+        this.tamanhoBloco = tamanhoBloco;
+    }
+
+    /**
+     * Lê um arquivo de resultados
+     * @param arquivo O caminho do arquivo JTL/CSV
+     * @return o resultado consolidado do teste
+     * @throws IOException se houver erro de leitura
+     * @throws IllegalArgumentException se o cabeçalho não tiver as colunas timeStamp e elapsed
+     *         ou se alguma linha passar de 64 KB
+     */
+    public ResultadoCarga ler(Path arquivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            long tamanho = canal.size();
+            Layout layout = lerCabecalho(canal, tamanho);
+            layout.segundoReferencia = segundoReferencia(canal, tamanho, layout);
+
+            List<Callable<Acumulador>> tarefas = new ArrayList<>();
+            for (long inicio = layout.inicioDados; inicio < tamanho; inicio += tamanhoBloco) {
+                long inicioBloco = inicio;
+                long fimBloco = Math.min(tamanho, inicio + tamanhoBloco);
+                tarefas.add(() -> lerBloco(canal, tamanho, layout, inicioBloco, fimBloco));
+            }
+
+            Acumulador total = new Acumulador(layout);
+            try {
+                for (Future<Acumulador> futuro : pool.invokeAll(tarefas)) {
+                    total.mesclar(futuro.get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Leitura interrompida: " + arquivo, e);
+            } catch (ExecutionException e) {
+                throw ExcecoesTarefas.desembrulhar(e, IOException.class, IOException::new);
+            }
+            return new ResultadoCarga(total);
+        }
+    }
+
+    // Lê o cabeçalho e localiza as colunas e o início dos dados
+    private static Layout lerCabecalho(FileChannel canal, long tamanho) throws IOException {
+        MappedByteBuffer mapa = canal.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(tamanho, MAXIMO_LINHA));
+        byte[] bytes = new byte[mapa.remaining()];
+        mapa.get(bytes);
+
+        int fim = 0;
+        while (fim < bytes.length && bytes[fim] != '\n') {
+            fim++;
+        }
+        if (fim == bytes.length && bytes.length == MAXIMO_LINHA) {
+            throw new IllegalArgumentException("Cabeçalho maior que " + MAXIMO_LINHA + " bytes");
+        }
+        int inicio = bytes.length >= 3 && (bytes[0] & 0xFF) == 0xEF && (bytes[1] & 0xFF) == 0xBB
+                     && (bytes[2] & 0xFF) == 0xBF ? 3 : 0;
+        String[] nomes = new String(bytes, inicio, fim - inicio, StandardCharsets.UTF_8).trim().split(",");
+
+        Layout layout = new Layout();
+        layout.inicioDados = Math.min(tamanho, fim + 1);
+        for (int i = 0; i < nomes.length; i++) {
+            String nome = nomes[i].trim();
+            if (nome.equals(COLUNA_INICIO)) {
+                layout.colunaInicio = i;
+            } else if (nome.equals(COLUNA_DECORRIDO)) {
+                layout.colunaDecorrido = i;
+            } else if (nome.equals(COLUNA_SUCESSO)) {
+                layout.colunaSucesso = i;
+            }
+        }
+        if (layout.colunaInicio < 0 || layout.colunaDecorrido < 0) {
+            throw new IllegalArgumentException("Cabeçalho sem as colunas " + COLUNA_INICIO + " e " + COLUNA_DECORRIDO);
+        }
+        layout.ultimaColuna = Math.max(layout.colunaInicio, Math.max(layout.colunaDecorrido, layout.colunaSucesso));
+        return layout;
+    }
+
+    // Segundo de início da primeira linha válida, referência da janela de segundos contados
+    private static long segundoReferencia(FileChannel canal, long tamanho, Layout layout) throws IOException {
+        Campos campos = new Campos(layout);
+        Acumulador primeira = new Acumulador(Long.MIN_VALUE, Long.MAX_VALUE);
+        long posicao = layout.inicioDados;
+        while (posicao < tamanho) {
+            MappedByteBuffer mapa = canal.map(FileChannel.MapMode.READ_ONLY, posicao,
+                                              Math.min(tamanho - posicao, TAMANHO_JANELA));
+            byte[] bytes = new byte[mapa.remaining()];
+            mapa.get(bytes);
+            int linha = 0;
+            while (linha < bytes.length) {
+                int quebra = linha;
+                while (quebra < bytes.length && bytes[quebra] != '\n') {
+                    quebra++;
+                }
+                if (quebra == bytes.length && posicao + quebra < tamanho) {
+                    if (linha == 0) {
+                        throw linhaLonga(posicao);
+                    }
+                    break;
+                }
+                processarLinha(bytes, linha, quebra, campos, primeira);
+                if (primeira.decorridos.getQuantidade() > 0) {
+                    return primeira.inicio / 1000;
+                }
+                linha = quebra + 1;
+            }
+            posicao += linha;
+        }
+        return 0;
+    }
+
+    // Processa as linhas que começam em [inicio, fim)
+    private static Acumulador lerBloco(FileChannel canal, long tamanho, Layout layout, long inicio, long fim)
+            throws IOException {
+        // Mapeia a partir do byte anterior para saber se a primeira linha começa exatamente no início
+        long inicioMapa = inicio > layout.inicioDados ? inicio - 1 : inicio;
+        long fimMapa = Math.min(tamanho, fim + MAXIMO_LINHA);
+        MappedByteBuffer mapa = canal.map(FileChannel.MapMode.READ_ONLY, inicioMapa, fimMapa - inicioMapa);
+
+        Acumulador acumulador = new Acumulador(layout);
+        Campos campos = new Campos(layout);
+        byte[] janela = new byte[(int) Math.min(TAMANHO_JANELA + MAXIMO_LINHA, fimMapa - inicioMapa)];
+        int preenchido = 0;
+        long posicaoJanela = inicioMapa;
+        boolean descartarParcial = inicioMapa < inicio;
+
+        while (true) {
+            int lidos = Math.min(janela.length - preenchido, mapa.remaining());
+            mapa.get(janela, preenchido, lidos);
+            preenchido += lidos;
+            boolean ultimaJanela = !mapa.hasRemaining();
+
+            int linha = 0;
+            if (descartarParcial) {
+                while (linha < preenchido && janela[linha] != '\n') {
+                    linha++;
+                }
+                if (linha == preenchido) {
+                    // Nenhuma linha começa neste bloco, ou a linha parcial é longa demais
+                    if (ultimaJanela || posicaoJanela + preenchido >= fim) {
+                        return acumulador;
+                    }
+                    throw linhaLonga(posicaoJanela);
+                }
+                linha++;
+                descartarParcial = false;
+            }
+
+            while (linha < preenchido && posicaoJanela + linha < fim) {
+                int quebra = linha;
+                while (quebra < preenchido && janela[quebra] != '\n') {
+                    quebra++;
+                }
+                if (quebra == preenchido && !(ultimaJanela && fimMapa == tamanho)) {
+                    if (ultimaJanela || linha == 0) {
+                        throw linhaLonga(posicaoJanela + linha);
+                    }
+                    break;
+                }
+                processarLinha(janela, linha, quebra, campos, acumulador);
+                linha = quebra + 1;
+            }
+
+            if (ultimaJanela || posicaoJanela + linha >= fim) {
+                return acumulador;
+            }
+            // Move a linha incompleta para o início da janela
+            System.arraycopy(janela, linha, janela, 0, preenchido - linha);
+            preenchido -= linha;
+            posicaoJanela += linha;
+        }
+    }
+
+    private static void processarLinha(byte[] bytes, int inicio, int fim, Campos campos, Acumulador acumulador) {
+        if (fim > inicio && bytes[fim - 1] == '\r') {
+            fim--;
+        }
+        if (fim == inicio) {
+            return;
+        }
+        if (!campos.separar(bytes, inicio, fim)) {
+            acumulador.linhasIgnoradas++;
+            return;
+        }
+        Layout layout = campos.layout;
+        double momento = campos.converter(bytes, layout.colunaInicio);
+        double decorrido = campos.converter(bytes, layout.colunaDecorrido);
+        if (!(momento >= 0) || !(decorrido >= 0) || momento == Double.POSITIVE_INFINITY
+                || decorrido == Double.POSITIVE_INFINITY) {
+            acumulador.linhasIgnoradas++;
+            return;
+        }
+        boolean sucesso = layout.colunaSucesso < 0 || campos.verdadeiro(bytes, layout.colunaSucesso);
+        acumulador.registrar((long) momento, decorrido, sucesso);
+    }
+
+    private static IllegalArgumentException linhaLonga(long posicao) {
+        return new IllegalArgumentException("Linha maior que " + MAXIMO_LINHA + " bytes na posição " + posicao);
+    }
+
+    // Posições das colunas usadas e início dos dados
+    private static final class Layout {
+        private long inicioDados;
+        private int colunaInicio = -1;
+        private int colunaDecorrido = -1;
+        private int colunaSucesso = -1;
+        private int ultimaColuna;
+        private long segundoReferencia;
+    }
+
+    // Delimitação dos campos de uma linha, até a última coluna usada
+    private static final class Campos {
+        private final Layout layout;
+        private final int[] inicios;
+        private final int[] fins;
+
+        Campos(Layout layout) {
+            this.layout = layout;
+            this.inicios = new int[layout.ultimaColuna + 1];
+            this.fins = new int[layout.ultimaColuna + 1];
+        }
+
+        // Retorna false se a linha tiver menos campos que o necessário
+        boolean separar(byte[] bytes, int inicio, int fim) {
+            int campo = 0;
+            int posicao = inicio;
+            inicios[0] = inicio;
+            boolean entreAspas = false;
+            while (posicao < fim) {
+                byte b = bytes[posicao];
+                if (b == '"') {
+                    entreAspas = !entreAspas;
+                } else if (b == ',' && !entreAspas) {
+                    fins[campo] = posicao;
+                    if (campo == layout.ultimaColuna) {
+                        return true;
+                    }
+                    inicios[++campo] = posicao + 1;
+                }
+                posicao++;
+            }
+            fins[campo] = fim;
+            return campo == layout.ultimaColuna;
+        }
+
+        double converter(byte[] bytes, int coluna) {
+            int inicio = inicios[coluna];
+            int fim = fins[coluna];
+            if (fim - inicio > MAXIMO_CAMPO_NUMERICO) {
+                return Double.NaN;
+            }
+            return ConversorNumeros.converter(bytes, inicio, fim);
+        }
+
+        boolean verdadeiro(byte[] bytes, int coluna) {
+            int inicio = inicios[coluna];
+            return fins[coluna] - inicio == 4 && (bytes[inicio] | 0x20) == 't' && (bytes[inicio + 1] | 0x20) == 'r'
+                && (bytes[inicio + 2] | 0x20) == 'u' && (bytes[inicio + 3] | 0x20) == 'e';
+        }
+    }
+
+    // Acumulador mesclável de um bloco
+    private static final class Acumulador {
+        private final HistogramaLatencias decorridos = new HistogramaLatencias();
+        private long falhas;
+        private long linhasIgnoradas;
+        private long inicio = Long.MAX_VALUE;
+        private long fim = Long.MIN_VALUE;
+        // Requisições por segundo de início, a partir do segundo primeiroSegundo
+        private long[] porSegundo = new long[0];
+        private long primeiroSegundo;
+        // Segundo de início da última requisição a começar
+        private long ultimoSegundo = Long.MIN_VALUE;
+        // Segundos de início aceitos; as linhas fora deles são ignoradas
+        private final long minimoSegundo;
+        private final long maximoSegundo;
+
+        Acumulador(Layout layout) {
+            this(layout.segundoReferencia - MAXIMO_SEGUNDOS, layout.segundoReferencia + MAXIMO_SEGUNDOS);
+        }
+
+        Acumulador(long minimoSegundo, long maximoSegundo) {
+            this.minimoSegundo = minimoSegundo;
+            this.maximoSegundo = maximoSegundo;
+        }
+
+        void registrar(long momento, double decorrido, boolean sucesso) {
+            if (momento / 1000 < minimoSegundo || momento / 1000 > maximoSegundo) {
+                linhasIgnoradas++;
+                return;
+            }
+            decorridos.registrar(decorrido);
+            if (!sucesso) {
+                falhas++;
+            }
+            inicio = Math.min(inicio, momento);
+            fim = Math.max(fim, momento + (long) Math.ceil(decorrido));
+            ultimoSegundo = Math.max(ultimoSegundo, momento / 1000);
+            contar(momento / 1000, 1);
+        }
+
+        void mesclar(Acumulador outro) {
+            decorridos.mesclar(outro.decorridos);
+            falhas += outro.falhas;
+            linhasIgnoradas += outro.linhasIgnoradas;
+            inicio = Math.min(inicio, outro.inicio);
+            fim = Math.max(fim, outro.fim);
+            ultimoSegundo = Math.max(ultimoSegundo, outro.ultimoSegundo);
+            for (int i = 0; i < outro.porSegundo.length; i++) {
+                if (outro.porSegundo[i] != 0) {
+                    contar(outro.primeiroSegundo + i, outro.porSegundo[i]);
+                }
+            }
+        }
+
+        private void contar(long segundo, long quantidade) {
+            if (porSegundo.length == 0) {
+                porSegundo = new long[16];
+                primeiroSegundo = segundo;
+            }
+            long deslocamento = segundo - primeiroSegundo;
+            if (deslocamento < 0) {
+                // Os resultados são gravados ao terminar e podem começar antes dos anteriores
+                int antes = (int) Math.max(-deslocamento, porSegundo.length / 2);
+                long[] maior = new long[porSegundo.length + antes];
+                System.arraycopy(porSegundo, 0, maior, antes, porSegundo.length);
+                porSegundo = maior;
+                primeiroSegundo -= antes;
+                deslocamento += antes;
+            } else if (deslocamento >= porSegundo.length) {
+                porSegundo = Arrays.copyOf(porSegundo, (int) Math.max(deslocamento + 1, porSegundo.length * 2L));
+            }
+            porSegundo[(int) deslocamento] += quantidade;
+        }
+    }
+
+    /**
+     * Resultado consolidado de um teste de carga
+     */
+    public static final class ResultadoCarga {
+        private final HistogramaLatencias decorridos;
+        private final long falhas;
+        private final long linhasIgnoradas;
+        private final long inicio;
+        private final long fim;
+        private final long[] porSegundo;
+
+        private ResultadoCarga(Acumulador acumulador) {
+            this.decorridos = acumulador.decorridos;
+            this.falhas = acumulador.falhas;
+            this.linhasIgnoradas = acumulador.linhasIgnoradas;
+            this.inicio = acumulador.inicio;
+            this.fim = acumulador.fim;
+            if (decorridos.getQuantidade() == 0) {
+                this.porSegundo = new long[0];
+            } else {
+                int deslocamento = (int) (inicio / 1000 - acumulador.primeiroSegundo);
+                int segundos = (int) (acumulador.ultimoSegundo - inicio / 1000) + 1;
+                this.porSegundo = Arrays.copyOfRange(acumulador.porSegundo, deslocamento, deslocamento + segundos);
+            }
+        }
+
+        /**
+         * Retorna os critérios de performance derivados do teste, para
+         * {@code calcularPontuacaoDimensao("performance", ...)}: tempo_resposta (média em ms),
+         * percentil_95 (ms) e throughput (requisições por segundo)
+         * @return os valores por critério; vazio se não houver requisições
+         */
+        public Map<String, Double> getDadosPerformance() {
+            Map<String, Double> dados = new LinkedHashMap<>();
+            if (getQuantidade() > 0) {
+                dados.put("tempo_resposta", getTempoMedio());
+                dados.put("percentil_95", getPercentil(95));
+                double vazao = getVazao();
+                if (!Double.isNaN(vazao)) {
+                    dados.put("throughput", vazao);
+                }
+            }
+            return dados;
+        }
+
+        /**
+         * Retorna os critérios de performance deste teste (carga de referência) com a
+         * escalabilidade medida contra um teste com o dobro de usuários
+         * @param cargaDobrada O resultado do teste com 2x usuários
+         * @return os valores de {@link #getDadosPerformance()} e escalabilidade (% de aumento do
+         *         tempo médio de resposta com 2x usuários)
+         */
+        public Map<String, Double> getDadosPerformance(ResultadoCarga cargaDobrada) {
+            Map<String, Double> dados = getDadosPerformance();
+            double degradacao = getDegradacao(cargaDobrada);
+            if (!Double.isNaN(degradacao)) {
+                dados.put("escalabilidade", degradacao);
+            }
+            return dados;
+        }
+
+        /**
+         * Retorna o aumento percentual do tempo médio de resposta em outro teste
+         * @param outra O resultado do outro teste, normalmente com o dobro de usuários
+         * @return a degradação em %, negativa se o outro teste for mais rápido, ou NaN se algum
+         *         teste não tiver requisições
+         */
+        public double getDegradacao(ResultadoCarga outra) {
+            double referencia = getTempoMedio();
+            if (!(referencia > 0) || outra.getQuantidade() == 0) {
+                return Double.NaN;
+            }
+            return (outra.getTempoMedio() / referencia - 1) * 100;
+        }
+
+        /**
+         * Retorna o número de requisições
+         * @return o número de requisições
+         */
+        public long getQuantidade() {
+            return decorridos.getQuantidade();
+        }
+
+        /**
+         * Retorna o número de requisições sem sucesso
+         * @return o número de falhas
+         */
+        public long getFalhas() {
+            return falhas;
+        }
+
+        /**
+         * Retorna o número de linhas ignoradas por terem tempos inválidos
+         * @return o número de linhas
+         */
+        public long getLinhasIgnoradas() {
+            return linhasIgnoradas;
+        }
+
+        /**
+         * Retorna o tempo médio de resposta
+         * @return a média exata em milissegundos, ou NaN se não houver requisições
+         */
+        public double getTempoMedio() {
+            return decorridos.getMedia();
+        }
+
+        /**
+         * Estima um percentil do tempo de resposta
+         * @param percentil O percentil, entre 0 (exclusive) e 100
+         * @return o tempo estimado em milissegundos, ou NaN se não houver requisições
+         */
+        public double getPercentil(double percentil) {
+            return decorridos.getPercentil(percentil);
+        }
+
+        /**
+         * Retorna a duração do teste, do início da primeira requisição ao fim da última
+         * @return a duração em segundos (0 se não houver requisições)
+         */
+        public double getDuracaoSegundos() {
+            return getQuantidade() == 0 ? 0 : (fim - inicio) / 1000.0;
+        }
+
+        /**
+         * Retorna a vazão média do teste
+         * @return requisições por segundo, ou NaN se a duração for zero
+         */
+        public double getVazao() {
+            double duracao = getDuracaoSegundos();
+            return duracao > 0 ? getQuantidade() / duracao : Double.NaN;
+        }
+
+        /**
+         * Retorna o número de requisições iniciadas em cada segundo do teste
+         * @return as contagens, a partir do segundo da primeira requisição (cópia)
+         */
+        public long[] getRequisicoesPorSegundo() {
+            return porSegundo.clone();
+        }
+
+        /**
+         * Retorna o início do teste
+         * @return o início da primeira requisição, em milissegundos desde a época
+         */
+        public long getInicio() {
+            return inicio;
+        }
+    }
+}
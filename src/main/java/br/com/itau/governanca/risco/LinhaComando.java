@@ -0,0 +1,339 @@
+package br.com.itau.governanca.risco;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Ponto de entrada de linha de comando, com os mesmos argumentos do script Python:
+ * <pre>
+ *   LinhaComando [opções] &lt;nome_aplicacao&gt; &lt;versao&gt; &lt;arquivo_csv&gt; [arquivo_saida]
+ *   LinhaComando [opções] --lote &lt;versao&gt; &lt;diretorio_saida&gt; &lt;arquivo_csv&gt;...
+ * </pre>
+ * Opções: {@code --modelo <arquivo.properties>} avalia com um modelo externo (ver
+ * {@link ConfiguracaoModelo}) e {@code --tempo} imprime em stderr o tempo desde o início
+ * da JVM até o {@code main} e até o primeiro relatório gravado.
+ * <p>
+ * No modo lote, cada aplicação de cada arquivo (ver {@link LeitorCsvAvaliacao}) gera um
+ * relatório; o nome e a versão vêm das colunas Aplicação/Versão, ou do nome do arquivo e da
+ * versão informada. No nome do arquivo do relatório, caracteres fora de letras, dígitos,
+ * {@code .}, {@code -} e {@code _} viram {@code _}; se o nome já tiver sido usado na execução,
+ * recebe o sufixo {@code _2}, {@code _3}... em vez de sobrescrever o relatório anterior.
+ * <p>
+ * Como a classe roda a cada etapa de pipeline, o caminho até o primeiro relatório evita o que
+ * encarece a inicialização da JVM: não há reflexão, lambdas nem {@code String.format}, e as
+ * classes opcionais (configuração externa, medição de tempo) só são carregadas quando usadas.
+ * O build gera um arquivo AppCDS para o jar (perfil {@code cds}) e publica os tempos medidos.
+ */
+public final class LinhaComando {
+
+    private static final String USO =
+        "Uso: LinhaComando [--modelo <arquivo.properties>] [--tempo] <nome_aplicacao> <versao> <arquivo_csv> [arquivo_saida]\n"
+        + "     LinhaComando [--modelo <arquivo.properties>] [--tempo] --lote <versao> <diretorio_saida> <arquivo_csv>...";
+
+    private final PrintStream saida;
+    private final PrintStream erros;
+    private CalculadoraRisco calculadora;
+    private EscritorJsonRelatorio escritor;
+    private String dataAvaliacao;
+    private boolean medirTempo;
+    private long inicioMain;
+    private boolean primeiroRelatorio = true;
+
+    private LinhaComando(PrintStream saida, PrintStream erros) {
+        this.saida = saida;
+        this.erros = erros;
+    }
+
+    /**
+     * Executa a linha de comando, encerrando a JVM com código 1 em caso de erro
+     * @param args Os argumentos
+     */
+    public static void main(String[] args) {
+        int codigo = executar(args, System.out, System.err);
+        if (codigo != 0) {
+            System.exit(codigo);
+        }
+    }
+
+    /**
+     * Executa a linha de comando sem encerrar a JVM
+     * @param args Os argumentos
+     * @param saida O destino do resumo
+     * @param erros O destino das mensagens de erro e dos tempos
+     * @return 0 em caso de sucesso, 1 em caso de erro
+     */
+    public static int executar(String[] args, PrintStream saida, PrintStream erros) {
+        return new LinhaComando(saida, erros).executar(args);
+    }
+
+    private int executar(String[] args) {
+        inicioMain = System.currentTimeMillis();
+        String arquivoModelo = null;
+        int i = 0;
+        while (i < args.length && args[i].startsWith("--") && !args[i].equals("--lote")) {
+            if (args[i].equals("--tempo")) {
+                medirTempo = true;
+                i++;
+            } else if (args[i].equals("--modelo") && i + 1 < args.length) {
+                arquivoModelo = args[i + 1];
+                i += 2;
+            } else {
+                erros.println(USO);
+                return 1;
+            }
+        }
+
+        boolean lote = i < args.length && args[i].equals("--lote");
+        int restantes = args.length - i;
+        if (lote ? restantes < 4 : restantes < 3 || restantes > 4) {
+            erros.println(USO);
+            return 1;
+        }
+
+        try {
+            calculadora = arquivoModelo != null
+                ? new CalculadoraRisco(ConfiguracaoModelo.carregar(Paths.get(arquivoModelo)))
+                : new CalculadoraRisco();
+        } catch (IOException | IllegalArgumentException e) {
+            erros.println("Erro ao carregar o modelo: " + e.getMessage());
+            return 1;
+        }
+        escritor = new EscritorJsonRelatorio(calculadora, true);
+        dataAvaliacao = dataAtual();
+
+        if (lote) {
+            return avaliarLote(args[i + 1], Paths.get(args[i + 2]), args, i + 3);
+        }
+        String nomeAplicacao = args[i];
+        String versao = args[i + 1];
+        String arquivoSaida = restantes > 3 ? args[i + 3]
+            : "relatorio_" + nomeAplicacao.replace(' ', '_') + "_" + versao + ".json";
+        return avaliarArquivo(nomeAplicacao, versao, Paths.get(args[i + 2]), Paths.get(arquivoSaida));
+    }
+
+    // Modo do script Python: uma aplicação, resumo completo na saída
+    private int avaliarArquivo(String nomeAplicacao, String versao, Path csv, Path arquivoSaida) {
+        double[] valores = calculadora.getModelo().novoVetorValores();
+        try {
+            new LeitorCsvAvaliacao(calculadora.getModelo()).ler(csv, new UltimaAplicacao(valores));
+        } catch (IOException e) {
+            erros.println("Erro ao carregar CSV: " + e);
+            erros.println("Não foi possível processar os dados de entrada.");
+            return 1;
+        }
+
+        ResultadoAvaliacao resultado = calculadora.avaliar(nomeAplicacao, versao, valores);
+        saida.println();
+        saida.println("Relatório de Risco - " + nomeAplicacao + " v" + versao);
+        saida.println("--------------------------------------------------");
+        saida.println("Classificação: " + resultado.getClassificacao());
+        saida.println("Pontuação: " + duasCasas(resultado.getPontuacaoTotal()));
+        saida.println("Status: " + resultado.getStatus());
+        if (resultado.getMascaraVetos() != 0) {
+            saida.println();
+            saida.println("Critérios de veto atingidos:");
+            for (String veto : resultado.getVetos()) {
+                saida.println("- " + veto);
+            }
+        }
+        saida.println();
+        saida.println("Pontuações por dimensão:");
+        ModeloCompilado modelo = calculadora.getModelo();
+        for (int d = 0; d < modelo.getNumDimensoes(); d++) {
+            double pontuacao = resultado.getPontuacaoDimensao(modelo.getNomeDimensao(d));
+            if (pontuacao == pontuacao) {
+                saida.println("- " + rotuloDimensao(modelo.getNomeDimensao(d)) + ": " + duasCasas(pontuacao));
+            }
+        }
+
+        if (!gravar(resultado, valores, arquivoSaida)) {
+            return 1;
+        }
+        saida.println("Relatório salvo em " + arquivoSaida);
+        return 0;
+    }
+
+    // Modo lote: um relatório por aplicação, uma linha de resumo por relatório
+    private int avaliarLote(String versaoPadrao, Path diretorioSaida, String[] args, int primeiro) {
+        try {
+            Files.createDirectories(diretorioSaida);
+        } catch (IOException e) {
+            erros.println("Erro ao criar o diretório de saída: " + e);
+            return 1;
+        }
+        LeitorCsvAvaliacao leitor = new LeitorCsvAvaliacao(calculadora.getModelo());
+        Set<String> usados = new HashSet<>();
+        int codigo = 0;
+        for (int i = primeiro; i < args.length; i++) {
+            Path csv = Paths.get(args[i]);
+            GravadorLote gravador = new GravadorLote(nomeBase(csv), versaoPadrao, diretorioSaida, usados);
+            try {
+                leitor.ler(csv, gravador);
+            } catch (IOException e) {
+                erros.println("Erro ao carregar CSV " + csv + ": " + e);
+                codigo = 1;
+            }
+            if (gravador.falhou) {
+                codigo = 1;
+            }
+        }
+        return codigo;
+    }
+
+    // Grava o relatório da avaliação já pontuada, sem pontuar de novo
+    private boolean gravar(ResultadoAvaliacao resultado, double[] valores, Path arquivoSaida) {
+        ModeloCompilado modelo = calculadora.getModelo();
+        double[] pontuacoes = new double[modelo.getNumDimensoes()];
+        for (int d = 0; d < pontuacoes.length; d++) {
+            pontuacoes[d] = resultado.getPontuacaoDimensao(modelo.getNomeDimensao(d));
+        }
+        try (OutputStream arquivo = Files.newOutputStream(arquivoSaida)) {
+            escritor.escrever(resultado.getNomeAplicacao(), resultado.getVersao(), dataAvaliacao, valores,
+                              pontuacoes, resultado.getPontuacaoTotal(), resultado.getMascaraVetos(), arquivo);
+        } catch (IOException e) {
+            erros.println("Erro ao salvar relatório: " + e);
+            return false;
+        }
+        if (medirTempo && primeiroRelatorio) {
+            primeiroRelatorio = false;
+            imprimirTempos(System.currentTimeMillis());
+        }
+        return true;
+    }
+
+    // Tempos desde o início da JVM; o java.management só é carregado depois do relatório medido
+    private void imprimirTempos(long primeiroRelatorio) {
+        long inicioJvm = ManagementFactory.getRuntimeMXBean().getStartTime();
+        erros.println("Tempo até o main: " + (inicioMain - inicioJvm) + " ms");
+        erros.println("Tempo até o primeiro relatório: " + (primeiroRelatorio - inicioJvm) + " ms");
+    }
+
+    private static String nomeBase(Path csv) {
+        String nome = csv.getFileName().toString();
+        int ponto = nome.lastIndexOf('.');
+        return ponto > 0 ? nome.substring(0, ponto) : nome;
+    }
+
+    private static String rotuloDimensao(String dimensao) {
+        switch (dimensao) {
+            case "bugs": return "Bugs";
+            case "performance": return "Performance";
+            case "seguranca": return "Segurança";
+            case "experiencia": return "Experiência";
+            default: return dimensao;
+        }
+    }
+
+    // dd/MM/yyyy, como o script Python, sem DateTimeFormatter
+    private static String dataAtual() {
+        LocalDate hoje = LocalDate.now();
+        return doisDigitos(hoje.getDayOfMonth()) + "/" + doisDigitos(hoje.getMonthValue()) + "/" + hoje.getYear();
+    }
+
+    private static String doisDigitos(int valor) {
+        return valor < 10 ? "0" + valor : Integer.toString(valor);
+    }
+
+    // Nome de arquivo com apenas letras, dígitos, '.', '-' e '_'
+    private static String nomeArquivo(String texto) {
+        StringBuilder nome = new StringBuilder(texto.length());
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            nome.append(Character.isLetterOrDigit(c) || c == '.' || c == '-' || c == '_' ? c : '_');
+        }
+        return nome.toString();
+    }
+
+    /**
+     * Formata um número com duas casas decimais como o {@code :.2f} do Python: o valor binário
+     * exato é arredondado com metades para o par e o sinal de valores negativos é mantido
+     * mesmo quando o resultado é zero ({@code -0.00}), sem {@code String.format}
+     * @param valor O número
+     * @return o número formatado
+     */
+    static String duasCasas(double valor) {
+        if (valor != valor) {
+            return "nan";
+        }
+        String sinal = Double.doubleToRawLongBits(valor) < 0 ? "-" : "";
+        if (Double.isInfinite(valor)) {
+            return sinal + "inf";
+        }
+        return sinal + new BigDecimal(Math.abs(valor)).setScale(2, RoundingMode.HALF_EVEN).toPlainString();
+    }
+
+    // Guarda a última aplicação do arquivo, como o carregar_dados_csv do script Python
+    private static final class UltimaAplicacao implements LeitorCsvAvaliacao.Consumidor {
+        private final double[] destino;
+
+        UltimaAplicacao(double[] destino) {
+            this.destino = destino;
+        }
+
+        @Override
+        public void aceitar(String nomeAplicacao, String versao, double[] valores) {
+            System.arraycopy(valores, 0, destino, 0, valores.length);
+        }
+    }
+
+    // Grava o relatório de cada aplicação de um arquivo do lote
+    private final class GravadorLote implements LeitorCsvAvaliacao.Consumidor {
+        private final String nomePadrao;
+        private final String versaoPadrao;
+        private final Path diretorio;
+        // Nomes de relatório já gravados na execução, em todos os arquivos do lote
+        private final Set<String> usados;
+        private boolean falhou;
+
+        GravadorLote(String nomePadrao, String versaoPadrao, Path diretorio, Set<String> usados) {
+            this.nomePadrao = nomePadrao;
+            this.versaoPadrao = versaoPadrao;
+            this.diretorio = diretorio;
+            this.usados = usados;
+        }
+
+        @Override
+        public void aceitar(String nomeAplicacao, String versao, double[] valores) {
+            String nome = nomeAplicacao != null && !nomeAplicacao.isEmpty() ? nomeAplicacao : nomePadrao;
+            String versaoAplicacao = versao != null && !versao.isEmpty() ? versao : versaoPadrao;
+            Path arquivo = arquivoRelatorio(nome, versaoAplicacao);
+            if (arquivo == null) {
+                falhou = true;
+                return;
+            }
+            ResultadoAvaliacao resultado = calculadora.avaliar(nome, versaoAplicacao, valores);
+            if (!gravar(resultado, valores, arquivo)) {
+                falhou = true;
+                return;
+            }
+            saida.println(nome + " v" + versaoAplicacao + ": " + resultado.getStatus() + " - "
+                + resultado.getClassificacao() + " (" + duasCasas(resultado.getPontuacaoTotal()) + ") -> " + arquivo);
+        }
+
+        // Arquivo único dentro do diretório de saída, ou null se o nome não puder ser usado
+        private Path arquivoRelatorio(String nome, String versaoAplicacao) {
+            String base = "relatorio_" + nomeArquivo(nome) + "_" + nomeArquivo(versaoAplicacao);
+            String candidato = base + ".json";
+            for (int sufixo = 2; !usados.add(candidato); sufixo++) {
+                candidato = base + "_" + sufixo + ".json";
+            }
+            Path raiz = diretorio.toAbsolutePath().normalize();
+            Path arquivo = raiz.resolve(candidato).normalize();
+            if (!raiz.equals(arquivo.getParent())) {
+                erros.println("Nome de relatório fora do diretório de saída: " + candidato);
+                return null;
+            }
+            return arquivo;
+        }
+    }
+}
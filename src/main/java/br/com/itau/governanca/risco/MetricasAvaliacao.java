@@ -0,0 +1,422 @@
+package br.com.itau.governanca.risco;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Instrumentação das avaliações de uma {@link CalculadoraRisco}: contadores por status e por
+ * veto, histogramas das pontuações por dimensão e histogramas das durações das etapas de
+ * pontuação, classificação (faixa, vetos e status) e montagem do relatório.
+ * <p>
+ * Os contadores são {@link LongAdder}s, com células por thread sob disputa, e os histogramas
+ * têm faixas fixas, de modo que registrar uma avaliação custa alguns incrementos sem bloqueios
+ * nem alocações. As faixas de duração são potências de 2 de 64 ns a 2<sup>26</sup> ns (cerca de
+ * 67 ms), localizadas com uma única instrução; as de pontuação seguem os limites das
+ * classificações (1,5 e 2,2). As leituras somam as células no momento da chamada e não são
+ * um instantâneo atômico do conjunto.
+ * <p>
+ * As métricas podem ser lidas por JMX ({@link #registrarJmx(String)}) ou exportadas no formato
+ * texto do Prometheus ({@link #exportarPrometheus()}). Uma instância pode ser compartilhada por
+ * calculadoras de modelos com as mesmas dimensões.
+ */
+public class MetricasAvaliacao implements MetricasAvaliacaoMBean {
+
+    /** Etapa de pontuação das dimensões e do total */
+    public static final int ETAPA_PONTUACAO = 0;
+    /** Etapa de classificação: faixa de risco, vetos e status */
+    public static final int ETAPA_CLASSIFICACAO = 1;
+    /** Etapa de montagem do relatório ou do resultado */
+    public static final int ETAPA_RELATORIO = 2;
+
+    private static final String[] NOMES_ETAPAS = {"pontuacao", "classificacao", "relatorio"};
+
+    // Faixas de duração: limites 2^EXPOENTE_MINIMO .. 2^EXPOENTE_MAXIMO ns, mais o excedente
+    private static final int EXPOENTE_MINIMO = 6;
+    private static final int EXPOENTE_MAXIMO = 26;
+    private static final double[] LIMITES_DURACAO = new double[EXPOENTE_MAXIMO - EXPOENTE_MINIMO + 1];
+
+    // Faixas de pontuação, incluindo os limites VERDE e AMARELO
+    private static final double[] LIMITES_PONTUACAO = {
+        1.0, 1.25, ClassificacaoRisco.LIMITE_VERDE, 1.75, 2.0, ClassificacaoRisco.LIMITE_AMARELO, 2.5, 2.75, 3.0
+    };
+
+    static {
+        for (int i = 0; i < LIMITES_DURACAO.length; i++) {
+            LIMITES_DURACAO[i] = 1L << (EXPOENTE_MINIMO + i);
+        }
+    }
+
+    private final String[] nomesDimensoes;
+    private final LongAdder[] avaliacoes = novosContadores(StatusAvaliacao.values().length);
+    private final LongAdder[] vetos = novosContadores(RegrasVeto.quantidade());
+    private final Histograma[] pontuacoes;
+    private final Histograma[] duracoes = new Histograma[NOMES_ETAPAS.length];
+
+    /**
+     * Construtor
+     * @param modelo O modelo cujas dimensões terão histogramas de pontuação
+     */
+    public MetricasAvaliacao(ModeloCompilado modelo) {
+        this.nomesDimensoes = modelo.nomesDimensoes().clone();
+        this.pontuacoes = new Histograma[nomesDimensoes.length];
+        for (int d = 0; d < pontuacoes.length; d++) {
+            pontuacoes[d] = new Histograma(LIMITES_PONTUACAO.length);
+        }
+        for (int e = 0; e < duracoes.length; e++) {
+            duracoes[e] = new Histograma(LIMITES_DURACAO.length);
+        }
+    }
+
+    /**
+     * Verifica se as métricas podem ser usadas com um modelo
+     * @param modelo O modelo
+     * @return true se o modelo tem as mesmas dimensões, na mesma ordem
+     */
+    public boolean compativel(ModeloCompilado modelo) {
+        return Arrays.equals(nomesDimensoes, modelo.nomesDimensoes());
+    }
+
+    /**
+     * Registra o status, os vetos e as durações das etapas de uma avaliação
+     * @param status O status da avaliação
+     * @param mascaraVetos A máscara dos vetos atingidos
+     * @param pontuacaoNanos A duração da pontuação
+     * @param classificacaoNanos A duração da classificação
+     * @param relatorioNanos A duração da montagem do relatório
+     */
+    void registrarAvaliacao(StatusAvaliacao status, int mascaraVetos,
+                            long pontuacaoNanos, long classificacaoNanos, long relatorioNanos) {
+        avaliacoes[status.ordinal()].increment();
+        for (int m = mascaraVetos; m != 0; m &= m - 1) {
+            vetos[Integer.numberOfTrailingZeros(m)].increment();
+        }
+        registrarDuracao(ETAPA_PONTUACAO, pontuacaoNanos);
+        registrarDuracao(ETAPA_CLASSIFICACAO, classificacaoNanos);
+        registrarDuracao(ETAPA_RELATORIO, relatorioNanos);
+    }
+
+    /**
+     * Registra a pontuação de uma dimensão
+     * @param dimensao O ordinal da dimensão no modelo
+     * @param pontuacao A pontuação ponderada da dimensão
+     */
+    void registrarPontuacao(int dimensao, double pontuacao) {
+        int faixa = 0;
+        while (faixa < LIMITES_PONTUACAO.length && pontuacao > LIMITES_PONTUACAO[faixa]) {
+            faixa++;
+        }
+        pontuacoes[dimensao].registrar(faixa, pontuacao);
+    }
+
+    /**
+     * Registra a duração de uma etapa
+     * @param etapa A etapa (ETAPA_*)
+     * @param nanos A duração em nanossegundos
+     */
+    void registrarDuracao(int etapa, long nanos) {
+        // Menor expoente e com nanos <= 2^e; durações <= 0 (relógio sem resolução) vão para a primeira faixa
+        int expoente = 64 - Long.numberOfLeadingZeros(Math.max(nanos, 1) - 1);
+        int faixa = Math.min(Math.max(expoente - EXPOENTE_MINIMO, 0), LIMITES_DURACAO.length);
+        duracoes[etapa].registrar(faixa, nanos);
+    }
+
+    /**
+     * Retorna o número de avaliações com um status
+     * @param status O status
+     * @return o número de avaliações
+     */
+    public long getAvaliacoes(StatusAvaliacao status) {
+        return avaliacoes[status.ordinal()].sum();
+    }
+
+    /**
+     * Retorna o número de avaliações em que um veto foi atingido
+     * @param veto O bit do veto (CalculadoraRisco.VETO_*)
+     * @return o número de ocorrências
+     */
+    public long getOcorrenciasVeto(int veto) {
+        if (Integer.bitCount(veto) != 1 || Integer.numberOfTrailingZeros(veto) >= vetos.length) {
+            throw new IllegalArgumentException("Bit de veto inválido: " + veto);
+        }
+        return vetos[Integer.numberOfTrailingZeros(veto)].sum();
+    }
+
+    /**
+     * Retorna o número de pontuações registradas para uma dimensão
+     * @param dimensao O ordinal da dimensão
+     * @return o número de pontuações
+     */
+    public long getQuantidadePontuacoes(int dimensao) {
+        return pontuacoes[dimensao].quantidade();
+    }
+
+    /**
+     * Retorna a pontuação média de uma dimensão
+     * @param dimensao O ordinal da dimensão
+     * @return a média, ou NaN sem pontuações
+     */
+    public double getPontuacaoMedia(int dimensao) {
+        return pontuacoes[dimensao].media();
+    }
+
+    /**
+     * Retorna o número de durações registradas para uma etapa
+     * @param etapa A etapa (ETAPA_*)
+     * @return o número de durações
+     */
+    public long getQuantidadeDuracoes(int etapa) {
+        return duracoes[etapa].quantidade();
+    }
+
+    /**
+     * Retorna a duração média de uma etapa
+     * @param etapa A etapa (ETAPA_*)
+     * @return a média em nanossegundos, ou NaN sem durações
+     */
+    public double getDuracaoMediaNanos(int etapa) {
+        return duracoes[etapa].media();
+    }
+
+    /**
+     * Estima um percentil da duração de uma etapa pelo limite superior da sua faixa
+     * @param etapa A etapa (ETAPA_*)
+     * @param percentil O percentil, entre 0 e 100
+     * @return o limite superior em nanossegundos (infinito se excede a última faixa), ou NaN sem durações
+     */
+    public double getPercentilDuracaoNanos(int etapa, double percentil) {
+        if (!(percentil >= 0 && percentil <= 100)) {
+            throw new IllegalArgumentException("Percentil fora de [0, 100]: " + percentil);
+        }
+        long[] contagens = duracoes[etapa].contagens();
+        long total = 0;
+        for (long contagem : contagens) {
+            total += contagem;
+        }
+        if (total == 0) {
+            return Double.NaN;
+        }
+        long posicao = Math.max(1, (long) Math.ceil(percentil / 100 * total));
+        long acumulado = 0;
+        for (int i = 0; i < LIMITES_DURACAO.length; i++) {
+            acumulado += contagens[i];
+            if (acumulado >= posicao) {
+                return LIMITES_DURACAO[i];
+            }
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    @Override
+    public long getAprovadas() {
+        return getAvaliacoes(StatusAvaliacao.APROVADO);
+    }
+
+    @Override
+    public long getCondicionadas() {
+        return getAvaliacoes(StatusAvaliacao.CONDICIONADO);
+    }
+
+    @Override
+    public long getBloqueadas() {
+        return getAvaliacoes(StatusAvaliacao.BLOQUEADO);
+    }
+
+    @Override
+    public String[] getRegrasVeto() {
+        String[] mensagens = new String[vetos.length];
+        for (int i = 0; i < mensagens.length; i++) {
+            mensagens[i] = RegrasVeto.mensagem(i);
+        }
+        return mensagens;
+    }
+
+    @Override
+    public long[] getOcorrenciasVetos() {
+        long[] ocorrencias = new long[vetos.length];
+        for (int i = 0; i < ocorrencias.length; i++) {
+            ocorrencias[i] = vetos[i].sum();
+        }
+        return ocorrencias;
+    }
+
+    @Override
+    public String[] getDimensoes() {
+        return nomesDimensoes.clone();
+    }
+
+    @Override
+    public double[] getPontuacoesMedias() {
+        double[] medias = new double[pontuacoes.length];
+        for (int d = 0; d < medias.length; d++) {
+            medias[d] = pontuacoes[d].media();
+        }
+        return medias;
+    }
+
+    @Override
+    public double getDuracaoMediaPontuacaoNanos() {
+        return getDuracaoMediaNanos(ETAPA_PONTUACAO);
+    }
+
+    @Override
+    public double getDuracaoMediaClassificacaoNanos() {
+        return getDuracaoMediaNanos(ETAPA_CLASSIFICACAO);
+    }
+
+    @Override
+    public double getDuracaoMediaRelatorioNanos() {
+        return getDuracaoMediaNanos(ETAPA_RELATORIO);
+    }
+
+    @Override
+    public String exportarPrometheus() {
+        StringBuilder texto = new StringBuilder(8192);
+        try {
+            escreverPrometheus(texto);
+        } catch (IOException e) {
+            // StringBuilder não lança IOException
+            throw new IllegalStateException(e);
+        }
+        return texto.toString();
+    }
+
+    /**
+     * Escreve todas as métricas no formato texto do Prometheus (versão 0.0.4), com as durações
+     * em segundos
+     * @param saida O destino do texto
+     * @throws IOException se a escrita falhar
+     */
+    public void escreverPrometheus(Appendable saida) throws IOException {
+        saida.append("# HELP risco_avaliacoes_total Avaliações por status\n");
+        saida.append("# TYPE risco_avaliacoes_total counter\n");
+        for (int s = 0; s < avaliacoes.length; s++) {
+            saida.append("risco_avaliacoes_total{status=\"").append(StatusAvaliacao.doOrdinal(s).name())
+                 .append("\"} ").append(Long.toString(avaliacoes[s].sum())).append('\n');
+        }
+
+        saida.append("# HELP risco_vetos_total Avaliações em que cada veto foi atingido\n");
+        saida.append("# TYPE risco_vetos_total counter\n");
+        for (int i = 0; i < vetos.length; i++) {
+            saida.append("risco_vetos_total{veto=\"").append(Integer.toString(i + 1)).append("\",mensagem=\"");
+            escaparRotulo(RegrasVeto.mensagem(i), saida);
+            saida.append("\"} ").append(Long.toString(vetos[i].sum())).append('\n');
+        }
+
+        saida.append("# HELP risco_pontuacao_dimensao Pontuação ponderada por dimensão\n");
+        saida.append("# TYPE risco_pontuacao_dimensao histogram\n");
+        for (int d = 0; d < pontuacoes.length; d++) {
+            escreverHistograma(saida, "risco_pontuacao_dimensao", "dimensao", nomesDimensoes[d],
+                               pontuacoes[d], LIMITES_PONTUACAO, 1);
+        }
+
+        saida.append("# HELP risco_etapa_duracao_segundos Duração das etapas da avaliação\n");
+        saida.append("# TYPE risco_etapa_duracao_segundos histogram\n");
+        for (int e = 0; e < duracoes.length; e++) {
+            escreverHistograma(saida, "risco_etapa_duracao_segundos", "etapa", NOMES_ETAPAS[e],
+                               duracoes[e], LIMITES_DURACAO, 1e-9);
+        }
+    }
+
+    /**
+     * Registra as métricas no servidor de MBeans da plataforma, com o nome
+     * {@code br.com.itau.governanca.risco:type=MetricasAvaliacao,name=<nome>}
+     * @param nome O nome que distingue a instância
+     * @return o nome JMX registrado, para removê-lo com {@code unregisterMBean}
+     * @throws IllegalStateException se o registro falhar (por exemplo, nome já registrado)
+     */
+    public ObjectName registrarJmx(String nome) {
+        try {
+            ObjectName nomeJmx = new ObjectName("br.com.itau.governanca.risco:type=MetricasAvaliacao,name="
+                + ObjectName.quote(nome));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, nomeJmx);
+            return nomeJmx;
+        } catch (JMException e) {
+            throw new IllegalStateException("Não foi possível registrar as métricas " + nome + " no JMX", e);
+        }
+    }
+
+    // Buckets cumulativos, soma e contagem; a contagem é a do último bucket, para ficar coerente com eles
+    private static void escreverHistograma(Appendable saida, String metrica, String rotulo, String valorRotulo,
+                                           Histograma histograma, double[] limites, double escala)
+            throws IOException {
+        long[] contagens = histograma.contagens();
+        long acumulado = 0;
+        for (int i = 0; i <= limites.length; i++) {
+            acumulado += contagens[i];
+            saida.append(metrica).append("_bucket{").append(rotulo).append("=\"");
+            escaparRotulo(valorRotulo, saida);
+            saida.append("\",le=\"").append(i < limites.length ? Double.toString(limites[i] * escala) : "+Inf")
+                 .append("\"} ").append(Long.toString(acumulado)).append('\n');
+        }
+        saida.append(metrica).append("_sum{").append(rotulo).append("=\"");
+        escaparRotulo(valorRotulo, saida);
+        saida.append("\"} ").append(Double.toString(histograma.soma.sum() * escala)).append('\n');
+        saida.append(metrica).append("_count{").append(rotulo).append("=\"");
+        escaparRotulo(valorRotulo, saida);
+        saida.append("\"} ").append(Long.toString(acumulado)).append('\n');
+    }
+
+    // Escapes de valores de rótulos do formato texto: barra invertida, aspas e quebra de linha
+    private static void escaparRotulo(String valor, Appendable saida) throws IOException {
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == '\\' || c == '"') {
+                saida.append('\\').append(c);
+            } else if (c == '\n') {
+                saida.append("\\n");
+            } else {
+                saida.append(c);
+            }
+        }
+    }
+
+    private static LongAdder[] novosContadores(int quantidade) {
+        LongAdder[] contadores = new LongAdder[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            contadores[i] = new LongAdder();
+        }
+        return contadores;
+    }
+
+    // Histograma de faixas fixas: um contador por faixa, mais a faixa excedente, e a soma dos valores
+    private static final class Histograma {
+        private final LongAdder[] faixas;
+        private final DoubleAdder soma = new DoubleAdder();
+
+        Histograma(int numLimites) {
+            this.faixas = novosContadores(numLimites + 1);
+        }
+
+        void registrar(int faixa, double valor) {
+            faixas[faixa].increment();
+            soma.add(valor);
+        }
+
+        long[] contagens() {
+            long[] contagens = new long[faixas.length];
+            for (int i = 0; i < faixas.length; i++) {
+                contagens[i] = faixas[i].sum();
+            }
+            return contagens;
+        }
+
+        long quantidade() {
+            long total = 0;
+            for (LongAdder faixa : faixas) {
+                total += faixa.sum();
+            }
+            return total;
+        }
+
+        double media() {
+            long total = quantidade();
+            return total == 0 ? Double.NaN : soma.sum() / total;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package br.com.itau.governanca.risco;
+
+/**
+ * Interface JMX das {@link MetricasAvaliacao}
+ */
+public interface MetricasAvaliacaoMBean {
+
+    /**
+     * Retorna o número de avaliações aprovadas
+     * @return o número de avaliações com status APROVADO
+     */
+    long getAprovadas();
+
+    /**
+     * Retorna o número de avaliações condicionadas
+     * @return o número de avaliações com status CONDICIONADO
+     */
+    long getCondicionadas();
+
+    /**
+     * Retorna o número de avaliações bloqueadas
+     * @return o número de avaliações com status BLOQUEADO
+     */
+    long getBloqueadas();
+
+    /**
+     * Retorna as mensagens das regras de veto, na ordem dos bits
+     * @return as mensagens dos vetos
+     */
+    String[] getRegrasVeto();
+
+    /**
+     * Retorna o número de ocorrências de cada veto, na ordem de {@link #getRegrasVeto()}
+     * @return as ocorrências por regra
+     */
+    long[] getOcorrenciasVetos();
+
+    /**
+     * Retorna os nomes das dimensões do modelo
+     * @return os nomes das dimensões
+     */
+    String[] getDimensoes();
+
+    /**
+     * Retorna a pontuação média de cada dimensão, na ordem de {@link #getDimensoes()}
+     * @return as pontuações médias (NaN para dimensões sem pontuações)
+     */
+    double[] getPontuacoesMedias();
+
+    /**
+     * Retorna a duração média da etapa de pontuação
+     * @return a duração média em nanossegundos, ou NaN sem avaliações
+     */
+    double getDuracaoMediaPontuacaoNanos();
+
+    /**
+     * Retorna a duração média da etapa de classificação e vetos
+     * @return a duração média em nanossegundos, ou NaN sem avaliações
+     */
+    double getDuracaoMediaClassificacaoNanos();
+
+    /**
+     * Retorna a duração média da montagem do relatório
+     * @return a duração média em nanossegundos, ou NaN sem avaliações
+     */
+    double getDuracaoMediaRelatorioNanos();
+
+    /**
+     * Exporta todas as métricas no formato texto do Prometheus
+     * @return o texto das métricas
+     */
+    String exportarPrometheus();
+}
@@ -0,0 +1,650 @@
+package br.com.itau.governanca.risco;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Modelo de risco compilado em arrays primitivos.
+ * Dimensões e critérios são resolvidos uma única vez para índices inteiros (ordinais)
+ * e os pesos e limiares ficam dispostos em arrays planos, permitindo classificar e
+ * pontuar sem buscas em mapas nem alocações por chamada.
+ * <p>
+ * Os critérios recebem ordinais globais contíguos por dimensão: os critérios da dimensão
+ * {@code d} ocupam o intervalo {@code [inicioDimensao(d), fimDimensao(d))}.
+ * Nos arrays de valores indexados por critério, {@code Double.NaN} indica critério ausente.
+ * <p>
+ * Instâncias são imutáveis e podem ser compartilhadas entre threads.
+ */
+public final class ModeloCompilado {
+
+    /** Índice retornado quando uma dimensão ou critério não existe no modelo */
+    public static final int SEM_INDICE = -1;
+
+    /** Versão do modelo padrão, embutido no código */
+    public static final String VERSAO_PADRAO = "padrao";
+
+    private final String versao;
+
+    private final String[] nomesDimensoes;
+    private final double[] pesosDimensoes;
+    private final int[] inicioDimensao;
+
+    private final String[] nomesCriterios;
+    private final int[] dimensaoCriterio;
+    private final double[] pesosCriterios;
+    private final double[] limiaresBaixo;
+    private final double[] limiaresMedio;
+    private final boolean[] invertido;
+
+    // Limiares normalizados por inversão de sinal: o valor multiplicado pelo sinal (-1 nos
+    // critérios invertidos) é comparado com os dois limites, sempre como "maior que"
+    private final double[] sinais;
+    private final double[] limitesBaixo;
+    private final double[] limitesAlto;
+
+    private final Map<String, Integer> indicesDimensoes;
+    private final List<Map<String, Integer>> indicesCriterios;
+
+    // Hash de todos os nomes, pesos e limiares; identifica a versão do modelo
+    private final long assinatura;
+
+    private ModeloCompilado(Construtor construtor) {
+        int numDimensoes = construtor.nomesDimensoes.size();
+        int numCriterios = construtor.nomesCriterios.size();
+
+        this.versao = construtor.versao;
+        this.nomesDimensoes = construtor.nomesDimensoes.toArray(new String[0]);
+        this.pesosDimensoes = new double[numDimensoes];
+        this.inicioDimensao = new int[numDimensoes + 1];
+        this.nomesCriterios = new String[numCriterios];
+        this.dimensaoCriterio = new int[numCriterios];
+        this.pesosCriterios = new double[numCriterios];
+        this.limiaresBaixo = new double[numCriterios];
+        this.limiaresMedio = new double[numCriterios];
+        this.invertido = new boolean[numCriterios];
+        this.sinais = new double[numCriterios];
+        this.limitesBaixo = new double[numCriterios];
+        this.limitesAlto = new double[numCriterios];
+
+        Map<String, Integer> dimensoes = new HashMap<>();
+        List<Map<String, Integer>> criterios = new ArrayList<>();
+
+        // Reordena os critérios para que cada dimensão ocupe um intervalo contíguo
+        int ordinal = 0;
+        for (int d = 0; d < numDimensoes; d++) {
+            pesosDimensoes[d] = construtor.pesosDimensoes.get(d);
+            dimensoes.put(nomesDimensoes[d], d);
+            inicioDimensao[d] = ordinal;
+
+            Map<String, Integer> criteriosDimensao = new HashMap<>();
+            for (int i = 0; i < numCriterios; i++) {
+                if (construtor.dimensaoCriterio.get(i) != d) {
+                    continue;
+                }
+                nomesCriterios[ordinal] = construtor.nomesCriterios.get(i);
+                dimensaoCriterio[ordinal] = d;
+                pesosCriterios[ordinal] = construtor.pesosCriterios.get(i);
+                limiaresBaixo[ordinal] = construtor.limiaresBaixo.get(i);
+                limiaresMedio[ordinal] = construtor.limiaresMedio.get(i);
+                invertido[ordinal] = construtor.invertido.get(i);
+                criteriosDimensao.put(nomesCriterios[ordinal], ordinal);
+                ordinal++;
+            }
+            criterios.add(Collections.unmodifiableMap(criteriosDimensao));
+        }
+        inicioDimensao[numDimensoes] = ordinal;
+
+        // 1 + (v > baixo) + (v > baixo && v > medio) == 1 + (v > baixo) + (v > max(baixo, medio)),
+        // e nos invertidos v < limiar equivale a -v > -limiar
+        for (int c = 0; c < numCriterios; c++) {
+            sinais[c] = invertido[c] ? -1.0 : 1.0;
+            limitesBaixo[c] = sinais[c] * limiaresBaixo[c];
+            limitesAlto[c] = Math.max(limitesBaixo[c], sinais[c] * limiaresMedio[c]);
+        }
+
+        this.indicesDimensoes = Collections.unmodifiableMap(dimensoes);
+        this.indicesCriterios = Collections.unmodifiableList(criterios);
+        this.assinatura = calcularAssinatura();
+    }
+
+    // FNV-1a de 64 bits sobre a estrutura do modelo, na ordem dos ordinais
+    private long calcularAssinatura() {
+        long hash = 0xcbf29ce484222325L;
+        for (int d = 0; d < nomesDimensoes.length; d++) {
+            hash = misturar(hash, nomesDimensoes[d].hashCode());
+            hash = misturar(hash, Double.doubleToLongBits(pesosDimensoes[d]));
+            hash = misturar(hash, inicioDimensao[d + 1]);
+        }
+        for (int c = 0; c < nomesCriterios.length; c++) {
+            hash = misturar(hash, nomesCriterios[c].hashCode());
+            hash = misturar(hash, Double.doubleToLongBits(pesosCriterios[c]));
+            hash = misturar(hash, Double.doubleToLongBits(limiaresBaixo[c]));
+            hash = misturar(hash, Double.doubleToLongBits(limiaresMedio[c]));
+            hash = misturar(hash, invertido[c] ? 1 : 0);
+        }
+        return hash;
+    }
+
+    private static long misturar(long hash, long valor) {
+        for (int i = 0; i < 8; i++) {
+            hash ^= (valor >>> (i * 8)) & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Cria o modelo padrão do Banco Itaú, com os pesos e limiares definidos em
+     * modelo_risco_qualidade_itau.md
+     * @return o modelo padrão compilado
+     */
+    public static ModeloCompilado padrao() {
+        return new Construtor()
+            .dimensao("bugs", 0.25)
+                .criterio("densidade_defeitos", 0.25, 2.0, 5.0, false)
+                .criterio("cobertura_testes", 0.20, 90.0, 70.0, true)
+                .criterio("bugs_criticos", 0.30, 0.0, 2.0, false)
+                .criterio("taxa_regressao", 0.15, 1.0, 3.0, false)
+                .criterio("mtbf", 0.10, 720.0, 168.0, true)
+            .dimensao("performance", 0.25)
+                .criterio("tempo_resposta", 0.25, 300.0, 800.0, false)
+                .criterio("percentil_95", 0.25, 800.0, 2000.0, false)
+                .criterio("utilizacao_recursos", 0.15, 60.0, 85.0, false)
+                .criterio("escalabilidade", 0.15, 10.0, 30.0, false)
+                .criterio("tempo_inicializacao", 0.05, 5.0, 15.0, false)
+                .criterio("throughput", 0.15, 100.0, 50.0, true)
+            .dimensao("seguranca", 0.30)
+                .criterio("vulnerabilidades_criticas", 0.30, 0.0, 1.0, false)
+                .criterio("vulnerabilidades_totais", 0.20, 5.0, 15.0, false)
+                .criterio("owasp_top10", 0.20, 100.0, 90.0, true)
+                .criterio("seguranca_dados", 0.15, 100.0, 95.0, true)
+                // Sem faixa de risco médio: limiar médio igual ao baixo, como no arquivo de configuração
+                .criterio("autenticacao_autorizacao", 0.10, 2.0, 2.0, false)
+                .criterio("pentest", 0.05, 2.0, 2.0, false)
+                // Sem peso na pontuação: usado apenas pelo veto 5
+                .criterio("conformidade_regulatoria", 0.0, 0.0, 1.0, false)
+            .dimensao("experiencia", 0.20)
+                .criterio("satisfacao_usuario", 0.25, 70.0, 40.0, true)
+                .criterio("taxa_erro_usuario", 0.20, 2.0, 5.0, false)
+                .criterio("tempo_conclusao_tarefa", 0.15, 10.0, 30.0, false)
+                .criterio("acessibilidade", 0.10, 95.0, 80.0, true)
+                .criterio("taxa_abandono", 0.15, 5.0, 15.0, false)
+                .criterio("adocao_funcionalidades", 0.15, 60.0, 30.0, true)
+            .construir();
+    }
+
+    /**
+     * Classifica um critério como baixo (1), médio (2) ou alto (3) risco
+     * @param criterio O ordinal do critério
+     * @param valor O valor a ser classificado
+     * @return A classificação de risco (1=baixo, 2=médio, 3=alto)
+     */
+    public int classificar(int criterio, double valor) {
+        // Sem desvios; valores NaN falham as duas comparações e resultam em 3
+        double normalizado = sinais[criterio] * valor;
+        return 1 + (normalizado <= limitesBaixo[criterio] ? 0 : 1)
+                 + (normalizado <= limitesAlto[criterio] ? 0 : 1);
+    }
+
+    /**
+     * Classifica os valores de um critério para um lote de aplicações, sem desvios por valor
+     * @param criterio O ordinal do critério
+     * @param valores Os valores do critério, um por aplicação (NaN = ausente)
+     * @param quantidade O número de valores a classificar
+     * @param destino Saída: a classificação de cada valor (1 a 3, ou 0 para ausentes)
+     */
+    public void classificarColuna(int criterio, double[] valores, int quantidade, byte[] destino) {
+        classificar(valores, quantidade, sinais[criterio], limitesBaixo[criterio], limitesAlto[criterio], destino);
+    }
+
+    /**
+     * Classifica os valores de todos os critérios de uma aplicação, sem desvios por critério;
+     * adequado a modelos com centenas de critérios
+     * @param valores Os valores de todos os critérios do modelo (NaN = ausente)
+     * @param destino Saída: a classificação de cada critério (1 a 3, ou 0 para ausentes)
+     */
+    public void classificarTodos(double[] valores, byte[] destino) {
+        for (int c = 0; c < nomesCriterios.length; c++) {
+            double valor = valores[c];
+            double normalizado = sinais[c] * valor;
+            int classificacao = 1 + (normalizado > limitesBaixo[c] ? 1 : 0) + (normalizado > limitesAlto[c] ? 1 : 0);
+            destino[c] = (byte) (valor == valor ? classificacao : 0);
+        }
+    }
+
+    /**
+     * Núcleo da classificação em lote sobre limites já normalizados por sinal
+     * @param valores Os valores, um por aplicação (NaN = ausente)
+     * @param quantidade O número de valores a classificar
+     * @param sinal -1 para critérios invertidos, 1 para os demais
+     * @param limiteBaixo O limiar baixo multiplicado pelo sinal
+     * @param limiteAlto O maior entre os limiares baixo e médio multiplicados pelo sinal
+     * @param destino Saída: a classificação de cada valor (1 a 3, ou 0 para ausentes)
+     */
+    static void classificar(double[] valores, int quantidade, double sinal, double limiteBaixo, double limiteAlto,
+                            byte[] destino) {
+        for (int i = 0; i < quantidade; i++) {
+            double valor = valores[i];
+            double normalizado = sinal * valor;
+            int classificacao = 1 + (normalizado > limiteBaixo ? 1 : 0) + (normalizado > limiteAlto ? 1 : 0);
+            destino[i] = (byte) (valor == valor ? classificacao : 0);
+        }
+    }
+
+    /**
+     * Calcula a pontuação ponderada de uma dimensão a partir de um vetor de valores
+     * indexado pelo ordinal global do critério. Critérios com valor NaN são ignorados.
+     * @param dimensao O ordinal da dimensão
+     * @param valores Os valores de todos os critérios do modelo
+     * @return A pontuação ponderada da dimensão (0 se nenhum critério estiver presente)
+     */
+    public double pontuarDimensao(int dimensao, double[] valores) {
+        double pontuacaoTotal = 0;
+        double pesoTotal = 0;
+
+        for (int c = inicioDimensao[dimensao], fim = inicioDimensao[dimensao + 1]; c < fim; c++) {
+            // Ausentes (NaN) somam zero à pontuação e ao peso, sem desvio
+            double valor = valores[c];
+            double pesoPresente = valor == valor ? pesosCriterios[c] : 0.0;
+            double normalizado = sinais[c] * valor;
+            int classificacao = 1 + (normalizado > limitesBaixo[c] ? 1 : 0) + (normalizado > limitesAlto[c] ? 1 : 0);
+            pontuacaoTotal += classificacao * pesoPresente;
+            pesoTotal += pesoPresente;
+        }
+
+        if (pesoTotal == 0) {
+            return 0;
+        }
+
+        return pontuacaoTotal / pesoTotal;
+    }
+
+    /**
+     * Calcula a pontuação total ponderada de todas as dimensões
+     * @param valores Os valores de todos os critérios do modelo (NaN para ausentes)
+     * @param pontuacoesDimensoes Array de saída com uma posição por dimensão, ou null
+     * @return A pontuação total de risco
+     */
+    public double pontuarTotal(double[] valores, double[] pontuacoesDimensoes) {
+        double riscoTotal = 0;
+
+        for (int d = 0; d < nomesDimensoes.length; d++) {
+            double pontuacao = pontuarDimensao(d, valores);
+            if (pontuacoesDimensoes != null) {
+                pontuacoesDimensoes[d] = pontuacao;
+            }
+            riscoTotal += pontuacao * pesosDimensoes[d];
+        }
+
+        return riscoTotal;
+    }
+
+    /**
+     * Pontua um lote de aplicações em formato colunar. Os laços percorrem cada coluna de
+     * critério de forma contígua e sem desvios por aplicação: critérios ausentes (NaN)
+     * contribuem com peso zero, o que preserva exatamente a ordem das somas de
+     * {@link #pontuarTotal(double[], double[])}.
+     * @param colunas Uma coluna de valores por critério (null = ausente em todo o lote)
+     * @param quantidade O número de aplicações
+     * @param pontuacoesDimensoes Saída: uma linha por dimensão com a pontuação de cada aplicação
+     * @param pesosAcumulados Área de trabalho com ao menos {@code quantidade} posições
+     * @param totais Saída: a pontuação total de cada aplicação
+     */
+    void pontuarLote(double[][] colunas, int quantidade, double[][] pontuacoesDimensoes,
+                     double[] pesosAcumulados, double[] totais) {
+        Arrays.fill(totais, 0, quantidade, 0.0);
+
+        for (int d = 0; d < nomesDimensoes.length; d++) {
+            double[] pontuacoes = pontuacoesDimensoes[d];
+            Arrays.fill(pontuacoes, 0, quantidade, 0.0);
+            Arrays.fill(pesosAcumulados, 0, quantidade, 0.0);
+
+            for (int c = inicioDimensao[d], fim = inicioDimensao[d + 1]; c < fim; c++) {
+                double[] coluna = colunas[c];
+                if (coluna == null) {
+                    continue;
+                }
+                double peso = pesosCriterios[c];
+                double sinal = sinais[c];
+                double limiteBaixo = limitesBaixo[c];
+                double limiteAlto = limitesAlto[c];
+
+                for (int i = 0; i < quantidade; i++) {
+                    double valor = coluna[i];
+                    double pesoPresente = valor == valor ? peso : 0.0;
+                    double normalizado = sinal * valor;
+                    int classificacao = 1 + (normalizado > limiteBaixo ? 1 : 0) + (normalizado > limiteAlto ? 1 : 0);
+                    pontuacoes[i] += classificacao * pesoPresente;
+                    pesosAcumulados[i] += pesoPresente;
+                }
+            }
+
+            double pesoDimensao = pesosDimensoes[d];
+            for (int i = 0; i < quantidade; i++) {
+                double pesoTotal = pesosAcumulados[i];
+                double pontuacao = pesoTotal == 0 ? 0 : pontuacoes[i] / pesoTotal;
+                pontuacoes[i] = pontuacao;
+                totais[i] += pontuacao * pesoDimensao;
+            }
+        }
+    }
+
+    /**
+     * Retorna o ordinal de uma dimensão
+     * @param dimensao O nome da dimensão
+     * @return O ordinal, ou {@link #SEM_INDICE} se a dimensão não existir
+     */
+    public int indiceDimensao(String dimensao) {
+        Integer indice = indicesDimensoes.get(dimensao);
+        return indice == null ? SEM_INDICE : indice;
+    }
+
+    /**
+     * Retorna o ordinal global de um critério dentro de uma dimensão
+     * @param dimensao O ordinal da dimensão
+     * @param criterio O nome do critério
+     * @return O ordinal, ou {@link #SEM_INDICE} se o critério não pertencer à dimensão
+     */
+    public int indiceCriterio(int dimensao, String criterio) {
+        Integer indice = indicesCriterios.get(dimensao).get(criterio);
+        return indice == null ? SEM_INDICE : indice;
+    }
+
+    /**
+     * Retorna o ordinal global de um critério
+     * @param dimensao O nome da dimensão
+     * @param criterio O nome do critério
+     * @return O ordinal, ou {@link #SEM_INDICE} se a dimensão ou o critério não existirem
+     */
+    public int indiceCriterio(String dimensao, String criterio) {
+        int d = indiceDimensao(dimensao);
+        return d == SEM_INDICE ? SEM_INDICE : indiceCriterio(d, criterio);
+    }
+
+    /**
+     * Cria um vetor de valores vazio (todos os critérios ausentes) para este modelo
+     * @return um array com uma posição NaN por critério
+     */
+    public double[] novoVetorValores() {
+        double[] valores = new double[nomesCriterios.length];
+        Arrays.fill(valores, Double.NaN);
+        return valores;
+    }
+
+    /**
+     * Cria as colunas de um lote vazio (todos os critérios ausentes) para este modelo
+     * @param quantidade O número de aplicações do lote
+     * @return uma coluna de valores NaN por critério
+     */
+    public double[][] novasColunas(int quantidade) {
+        double[][] colunas = new double[nomesCriterios.length][quantidade];
+        for (double[] coluna : colunas) {
+            Arrays.fill(coluna, Double.NaN);
+        }
+        return colunas;
+    }
+
+    /**
+     * Converte os dados no formato aninhado de mapas para um vetor indexado por critério.
+     * Critérios desconhecidos são ignorados, como em {@code calcularPontuacaoDimensao}.
+     * @param dados Um mapa com os valores para as dimensões e critérios
+     * @param valores O vetor de destino, com uma posição por critério
+     * @return o próprio vetor de destino
+     */
+    public double[] preencherValores(Map<String, Map<String, Double>> dados, double[] valores) {
+        Arrays.fill(valores, Double.NaN);
+        for (Map.Entry<String, Map<String, Double>> entry : dados.entrySet()) {
+            int d = indiceDimensaoObrigatoria(entry.getKey());
+            for (Map.Entry<String, Double> valor : entry.getValue().entrySet()) {
+                int c = indiceCriterio(d, valor.getKey());
+                if (c != SEM_INDICE) {
+                    valores[c] = valor.getValue();
+                }
+            }
+        }
+        return valores;
+    }
+
+    /**
+     * Retorna o array interno com os nomes das dimensões, na ordem dos ordinais.
+     * Compartilhado entre resultados; não deve ser alterado.
+     * @return os nomes das dimensões
+     */
+    String[] nomesDimensoes() {
+        return nomesDimensoes;
+    }
+
+    /**
+     * Retorna o ordinal de uma dimensão, falhando se ela não existir
+     * @param dimensao O nome da dimensão
+     * @return O ordinal da dimensão
+     * @throws IllegalArgumentException se a dimensão não existir no modelo
+     */
+    int indiceDimensaoObrigatoria(String dimensao) {
+        int d = indiceDimensao(dimensao);
+        if (d == SEM_INDICE) {
+            throw new IllegalArgumentException("Dimensão desconhecida: " + dimensao);
+        }
+        return d;
+    }
+
+    /**
+     * Retorna o ordinal de um critério, falhando se ele não existir
+     * @param dimensao O nome da dimensão
+     * @param criterio O nome do critério
+     * @return O ordinal do critério
+     * @throws IllegalArgumentException se a dimensão ou o critério não existirem no modelo
+     */
+    int indiceCriterioObrigatorio(String dimensao, String criterio) {
+        int c = indiceCriterio(indiceDimensaoObrigatoria(dimensao), criterio);
+        if (c == SEM_INDICE) {
+            throw new IllegalArgumentException("Critério desconhecido: " + dimensao + "." + criterio);
+        }
+        return c;
+    }
+
+    /**
+     * Retorna a versão declarada do modelo (por exemplo, a versão do arquivo de configuração)
+     * @return a versão do modelo
+     */
+    public String getVersao() {
+        return versao;
+    }
+
+    /**
+     * Retorna a assinatura do modelo: um hash de todos os nomes, pesos e limiares.
+     * Modelos com a mesma estrutura têm a mesma assinatura, o que permite usá-la
+     * como versão do modelo em chaves de cache e registros persistidos.
+     * @return a assinatura do modelo
+     */
+    public long getAssinatura() {
+        return assinatura;
+    }
+
+    /**
+     * Retorna o número de dimensões do modelo
+     * @return o número de dimensões
+     */
+    public int getNumDimensoes() {
+        return nomesDimensoes.length;
+    }
+
+    /**
+     * Retorna o número total de critérios do modelo
+     * @return o número de critérios
+     */
+    public int getNumCriterios() {
+        return nomesCriterios.length;
+    }
+
+    /**
+     * Retorna o nome de uma dimensão
+     * @param dimensao O ordinal da dimensão
+     * @return o nome da dimensão
+     */
+    public String getNomeDimensao(int dimensao) {
+        return nomesDimensoes[dimensao];
+    }
+
+    /**
+     * Retorna o nome de um critério
+     * @param criterio O ordinal do critério
+     * @return o nome do critério
+     */
+    public String getNomeCriterio(int criterio) {
+        return nomesCriterios[criterio];
+    }
+
+    /**
+     * Retorna o peso de uma dimensão no risco total
+     * @param dimensao O ordinal da dimensão
+     * @return o peso da dimensão
+     */
+    public double getPesoDimensao(int dimensao) {
+        return pesosDimensoes[dimensao];
+    }
+
+    /**
+     * Retorna o peso de um critério dentro da sua dimensão
+     * @param criterio O ordinal do critério
+     * @return o peso do critério
+     */
+    public double getPesoCriterio(int criterio) {
+        return pesosCriterios[criterio];
+    }
+
+    /**
+     * Retorna o limiar de baixo risco de um critério
+     * @param criterio O ordinal do critério
+     * @return o limiar de baixo risco
+     */
+    public double getLimiarBaixo(int criterio) {
+        return limiaresBaixo[criterio];
+    }
+
+    /**
+     * Retorna o limiar de médio risco de um critério
+     * @param criterio O ordinal do critério
+     * @return o limiar de médio risco
+     */
+    public double getLimiarMedio(int criterio) {
+        return limiaresMedio[criterio];
+    }
+
+    /**
+     * Verifica se valores maiores do critério representam menor risco
+     * @param criterio O ordinal do critério
+     * @return true se o critério é invertido
+     */
+    public boolean isInvertido(int criterio) {
+        return invertido[criterio];
+    }
+
+    /**
+     * Retorna a dimensão a que pertence um critério
+     * @param criterio O ordinal do critério
+     * @return O ordinal da dimensão
+     */
+    public int getDimensaoCriterio(int criterio) {
+        return dimensaoCriterio[criterio];
+    }
+
+    /**
+     * Retorna o primeiro ordinal de critério da dimensão
+     * @param dimensao O ordinal da dimensão
+     * @return O ordinal inicial (inclusivo)
+     */
+    public int inicioDimensao(int dimensao) {
+        return inicioDimensao[dimensao];
+    }
+
+    /**
+     * Retorna o ordinal seguinte ao último critério da dimensão
+     * @param dimensao O ordinal da dimensão
+     * @return O ordinal final (exclusivo)
+     */
+    public int fimDimensao(int dimensao) {
+        return inicioDimensao[dimensao + 1];
+    }
+
+    /**
+     * Construtor incremental do modelo. Cada critério pertence à última dimensão declarada.
+     */
+    public static final class Construtor {
+        private final List<String> nomesDimensoes = new ArrayList<>();
+        private final List<Double> pesosDimensoes = new ArrayList<>();
+        private final List<String> nomesCriterios = new ArrayList<>();
+        private final List<Integer> dimensaoCriterio = new ArrayList<>();
+        private final List<Double> pesosCriterios = new ArrayList<>();
+        private final List<Double> limiaresBaixo = new ArrayList<>();
+        private final List<Double> limiaresMedio = new ArrayList<>();
+        private final List<Boolean> invertido = new ArrayList<>();
+        private String versao = VERSAO_PADRAO;
+
+        /**
+         * Define a versão do modelo. Não faz parte da assinatura.
+         * @param versao A versão do modelo
+         * @return este construtor
+         */
+        public Construtor versao(String versao) {
+            this.versao = versao;
+            return this;
+        }
+
+        /**
+         * Declara uma nova dimensão
+         * @param nome O nome da dimensão
+         * @param peso O peso da dimensão no risco total
+         * @return este construtor
+         */
+        public Construtor dimensao(String nome, double peso) {
+            if (nomesDimensoes.contains(nome)) {
+                throw new IllegalArgumentException("Dimensão duplicada: " + nome);
+            }
+            nomesDimensoes.add(nome);
+            pesosDimensoes.add(peso);
+            return this;
+        }
+
+        /**
+         * Declara um critério na última dimensão declarada
+         * @param nome O nome do critério
+         * @param peso O peso do critério dentro da dimensão
+         * @param limiarBaixo Limite da faixa de baixo risco
+         * @param limiarMedio Limite da faixa de médio risco
+         * @param invertido true se valores maiores representam menor risco
+         * @return este construtor
+         */
+        public Construtor criterio(String nome, double peso, double limiarBaixo, double limiarMedio,
+                                   boolean invertido) {
+            if (nomesDimensoes.isEmpty()) {
+                throw new IllegalStateException("Nenhuma dimensão declarada para o critério " + nome);
+            }
+            int dimensao = nomesDimensoes.size() - 1;
+            for (int i = 0; i < nomesCriterios.size(); i++) {
+                if (dimensaoCriterio.get(i) == dimensao && nomesCriterios.get(i).equals(nome)) {
+                    throw new IllegalArgumentException("Critério duplicado: " + nome);
+                }
+            }
+            nomesCriterios.add(nome);
+            dimensaoCriterio.add(dimensao);
+            pesosCriterios.add(peso);
+            limiaresBaixo.add(limiarBaixo);
+            limiaresMedio.add(limiarMedio);
+            this.invertido.add(invertido);
+            return this;
+        }
+
+        /**
+         * Compila o modelo declarado
+         * @return o modelo compilado e imutável
+         */
+        public ModeloCompilado construir() {
+            return new ModeloCompilado(this);
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package br.com.itau.governanca.risco;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Avaliação contínua a partir da telemetria de produção, para o gate G6 (KPIs estáveis após
+ * o deploy) e o veto de taxa de erro em produção.
+ * <p>
+ * Consome eventos brutos (requisições com latência e indicação de erro, sessões concluídas ou
+ * abandonadas) e mantém, por aplicação, uma janela deslizante dividida em fatias de duração
+ * fixa: cada fatia guarda um {@link HistogramaLatencias} e os contadores de requisições, erros,
+ * sessões e abandonos. A cada {@link #processarTick(long)}, as fatias da janela são mescladas e
+ * os agregados alimentam o {@link AvaliadorIncremental}:
+ * <ul>
+ *   <li>performance.tempo_resposta: média das latências (ms)</li>
+ *   <li>performance.percentil_95: P95 das latências (ms)</li>
+ *   <li>experiencia.taxa_erro_usuario: requisições com erro (%)</li>
+ *   <li>experiencia.taxa_abandono: sessões abandonadas (%)</li>
+ * </ul>
+ * Os quatro agregados de um tick são aplicados de uma só vez, de modo que o ouvinte do avaliador
+ * vê no máximo uma mudança de status por aplicação e tick, sem estados intermediários. Critérios
+ * sem eventos na janela são removidos (NaN); os demais critérios da aplicação são carregados
+ * diretamente no avaliador. A janela avança em passos de uma fatia, e a memória por aplicação é
+ * fixa: {@code fatias + 1} histogramas, independentemente do volume de eventos.
+ * <p>
+ * São descartados os eventos anteriores à janela e, depois do primeiro tick, os eventos uma
+ * janela inteira ou mais à frente do último tick (relógios adiantados), que de outro modo
+ * avançariam a janela além de todas as fatias válidas. Eventos de aplicações diferentes podem
+ * ser registrados em paralelo.
+ */
+public class MonitorTelemetria {
+
+    private final AvaliadorIncremental avaliador;
+    private final long duracaoFatia;
+    private final int numFatias;
+    // Critérios alimentados pelo monitor (os presentes no modelo) e a posição do agregado de cada um
+    private final int[] criterios;
+    private final int[] agregados;
+    private final ConcurrentHashMap<String, JanelaAplicacao> janelas = new ConcurrentHashMap<>();
+    private final LongAdder descartados = new LongAdder();
+    // Período do tick mais recente; eventos a uma janela ou mais dele são descartados
+    private volatile long periodoTick = Long.MIN_VALUE;
+
+    /**
+     * Construtor
+     * @param avaliador O avaliador que recebe os agregados e notifica as mudanças de status
+     * @param duracaoJanelaMilis A duração da janela deslizante em milissegundos
+     * @param fatias O número de fatias da janela (a duração deve ser múltipla dele)
+     */
+    public MonitorTelemetria(AvaliadorIncremental avaliador, long duracaoJanelaMilis, int fatias) {
+        if (fatias <= 0 || duracaoJanelaMilis <= 0 || duracaoJanelaMilis % fatias != 0) {
+            throw new IllegalArgumentException("A janela de " + duracaoJanelaMilis
+                + " ms deve ser positiva e divisível em " + fatias + " fatias");
+        }
+        this.avaliador = avaliador;
+        this.duracaoFatia = duracaoJanelaMilis / fatias;
+        this.numFatias = fatias;
+        ModeloCompilado modelo = avaliador.getCalculadora().getModelo();
+        int[] todos = {
+            modelo.indiceCriterio("performance", "tempo_resposta"),
+            modelo.indiceCriterio("performance", "percentil_95"),
+            modelo.indiceCriterio("experiencia", "taxa_erro_usuario"),
+            modelo.indiceCriterio("experiencia", "taxa_abandono")
+        };
+        int presentes = 0;
+        for (int criterio : todos) {
+            if (criterio != ModeloCompilado.SEM_INDICE) {
+                presentes++;
+            }
+        }
+        this.criterios = new int[presentes];
+        this.agregados = new int[presentes];
+        for (int i = 0, j = 0; i < todos.length; i++) {
+            if (todos[i] != ModeloCompilado.SEM_INDICE) {
+                criterios[j] = todos[i];
+                agregados[j++] = i;
+            }
+        }
+    }
+
+    /**
+     * Registra uma requisição atendida em produção
+     * @param nomeAplicacao O nome da aplicação
+     * @param instante O instante da requisição (epoch ms)
+     * @param latenciaMilis A latência em milissegundos
+     * @param erro true se a requisição terminou com erro
+     */
+    public void registrarRequisicao(String nomeAplicacao, long instante, double latenciaMilis, boolean erro) {
+        long periodo = Math.floorDiv(instante, duracaoFatia);
+        if (adiantado(periodo)) {
+            descartados.increment();
+            return;
+        }
+        JanelaAplicacao janela = janela(nomeAplicacao);
+        synchronized (janela) {
+            Fatia fatia = janela.fatia(periodo);
+            if (fatia == null) {
+                descartados.increment();
+                return;
+            }
+            fatia.latencias.registrar(latenciaMilis);
+            if (erro) {
+                fatia.erros++;
+            }
+        }
+    }
+
+    /**
+     * Registra o fim de uma sessão de usuário
+     * @param nomeAplicacao O nome da aplicação
+     * @param instante O instante do fim da sessão (epoch ms)
+     * @param abandonada true se o usuário abandonou a sessão sem concluir a tarefa
+     */
+    public void registrarSessao(String nomeAplicacao, long instante, boolean abandonada) {
+        long periodo = Math.floorDiv(instante, duracaoFatia);
+        if (adiantado(periodo)) {
+            descartados.increment();
+            return;
+        }
+        JanelaAplicacao janela = janela(nomeAplicacao);
+        synchronized (janela) {
+            Fatia fatia = janela.fatia(periodo);
+            if (fatia == null) {
+                descartados.increment();
+                return;
+            }
+            fatia.sessoes++;
+            if (abandonada) {
+                fatia.abandonos++;
+            }
+        }
+    }
+
+    /**
+     * Fecha a janela no instante informado e reavalia todas as aplicações com os agregados
+     * das fatias que terminam até esse instante, inclusive a fatia em andamento
+     * @param agora O instante do tick (epoch ms)
+     * @return o número de aplicações reavaliadas
+     */
+    public int processarTick(long agora) {
+        long periodoAtual = Math.floorDiv(agora, duracaoFatia);
+        if (periodoAtual > periodoTick) {
+            periodoTick = periodoAtual;
+        }
+        double[] valores = new double[criterios.length];
+        double[] medidas = new double[4];
+        int reavaliadas = 0;
+        for (Map.Entry<String, JanelaAplicacao> entrada : janelas.entrySet()) {
+            JanelaAplicacao janela = entrada.getValue();
+            synchronized (janela) {
+                janela.consolidar(periodoAtual);
+                medidas[0] = janela.mediaLatencia;
+                medidas[1] = janela.percentil95;
+                medidas[2] = janela.taxaErro;
+                medidas[3] = janela.taxaAbandono;
+                for (int i = 0; i < criterios.length; i++) {
+                    valores[i] = medidas[agregados[i]];
+                }
+                avaliador.atualizar(entrada.getKey(), criterios, valores);
+            }
+            reavaliadas++;
+        }
+        return reavaliadas;
+    }
+
+    /**
+     * Remove a janela de uma aplicação (o estado no avaliador é mantido)
+     * @param nomeAplicacao O nome da aplicação
+     * @return true se a aplicação tinha janela
+     */
+    public boolean remover(String nomeAplicacao) {
+        return janelas.remove(nomeAplicacao) != null;
+    }
+
+    /**
+     * Retorna a média das latências da janela no último tick
+     * @param nomeAplicacao O nome da aplicação
+     * @return a média em milissegundos, ou NaN se não houve requisições
+     */
+    public double getMediaLatencia(String nomeAplicacao) {
+        JanelaAplicacao janela = janelaExistente(nomeAplicacao);
+        synchronized (janela) {
+            return janela.mediaLatencia;
+        }
+    }
+
+    /**
+     * Retorna o P95 das latências da janela no último tick
+     * @param nomeAplicacao O nome da aplicação
+     * @return o P95 em milissegundos, ou NaN se não houve requisições
+     */
+    public double getPercentil95(String nomeAplicacao) {
+        JanelaAplicacao janela = janelaExistente(nomeAplicacao);
+        synchronized (janela) {
+            return janela.percentil95;
+        }
+    }
+
+    /**
+     * Retorna a taxa de erro da janela no último tick
+     * @param nomeAplicacao O nome da aplicação
+     * @return o percentual de requisições com erro, ou NaN se não houve requisições
+     */
+    public double getTaxaErro(String nomeAplicacao) {
+        JanelaAplicacao janela = janelaExistente(nomeAplicacao);
+        synchronized (janela) {
+            return janela.taxaErro;
+        }
+    }
+
+    /**
+     * Retorna a taxa de abandono da janela no último tick
+     * @param nomeAplicacao O nome da aplicação
+     * @return o percentual de sessões abandonadas, ou NaN se não houve sessões
+     */
+    public double getTaxaAbandono(String nomeAplicacao) {
+        JanelaAplicacao janela = janelaExistente(nomeAplicacao);
+        synchronized (janela) {
+            return janela.taxaAbandono;
+        }
+    }
+
+    /**
+     * Retorna o número de eventos descartados por serem anteriores à janela ou adiantados
+     * @return o número de eventos descartados
+     */
+    public long getDescartados() {
+        return descartados.sum();
+    }
+
+    /**
+     * Retorna o avaliador alimentado pelo monitor
+     * @return o avaliador
+     */
+    public AvaliadorIncremental getAvaliador() {
+        return avaliador;
+    }
+
+    // Antes do primeiro tick não há referência de tempo e todos os eventos são aceitos
+    private boolean adiantado(long periodo) {
+        long tick = periodoTick;
+        return tick != Long.MIN_VALUE && periodo - tick >= numFatias;
+    }
+
+    private JanelaAplicacao janela(String nomeAplicacao) {
+        JanelaAplicacao janela = janelas.get(nomeAplicacao);
+        return janela != null ? janela : janelas.computeIfAbsent(nomeAplicacao, nome -> new JanelaAplicacao());
+    }
+
+    private JanelaAplicacao janelaExistente(String nomeAplicacao) {
+        JanelaAplicacao janela = janelas.get(nomeAplicacao);
+        if (janela == null) {
+            throw new IllegalArgumentException("Aplicação desconhecida: " + nomeAplicacao);
+        }
+        return janela;
+    }
+
+    // Agregados de um período de duracaoFatia
+    private static final class Fatia {
+        private long periodo = Long.MIN_VALUE;
+        private final HistogramaLatencias latencias = new HistogramaLatencias();
+        private long erros;
+        private long sessoes;
+        private long abandonos;
+
+        void reiniciar(long novoPeriodo) {
+            periodo = novoPeriodo;
+            latencias.limpar();
+            erros = 0;
+            sessoes = 0;
+            abandonos = 0;
+        }
+    }
+
+    // Janela circular de uma aplicação; acessada sempre sob o seu próprio monitor
+    private final class JanelaAplicacao {
+        private final Fatia[] fatias = new Fatia[numFatias];
+        private final HistogramaLatencias consolidado = new HistogramaLatencias();
+        private long periodoMaisRecente = Long.MIN_VALUE;
+        private double mediaLatencia = Double.NaN;
+        private double percentil95 = Double.NaN;
+        private double taxaErro = Double.NaN;
+        private double taxaAbandono = Double.NaN;
+
+        JanelaAplicacao() {
+            for (int i = 0; i < numFatias; i++) {
+                fatias[i] = new Fatia();
+            }
+        }
+
+        // Fatia do período, reaproveitando a posição de um período que saiu da janela;
+        // null se o período já saiu da janela
+        Fatia fatia(long periodo) {
+            if (periodoMaisRecente != Long.MIN_VALUE && periodo <= periodoMaisRecente - numFatias) {
+                return null;
+            }
+            Fatia fatia = fatias[(int) Math.floorMod(periodo, (long) numFatias)];
+            if (fatia.periodo != periodo) {
+                fatia.reiniciar(periodo);
+            }
+            if (periodo > periodoMaisRecente) {
+                periodoMaisRecente = periodo;
+            }
+            return fatia;
+        }
+
+        void consolidar(long periodoAtual) {
+            if (periodoAtual > periodoMaisRecente) {
+                periodoMaisRecente = periodoAtual;
+            }
+            consolidado.limpar();
+            long erros = 0;
+            long sessoes = 0;
+            long abandonos = 0;
+            for (Fatia fatia : fatias) {
+                if (fatia.periodo <= periodoAtual && fatia.periodo > periodoAtual - numFatias) {
+                    consolidado.mesclar(fatia.latencias);
+                    erros += fatia.erros;
+                    sessoes += fatia.sessoes;
+                    abandonos += fatia.abandonos;
+                }
+            }
+            long requisicoes = consolidado.getQuantidade();
+            mediaLatencia = consolidado.getMedia();
+            percentil95 = consolidado.getPercentil(95);
+            taxaErro = requisicoes == 0 ? Double.NaN : erros * 100.0 / requisicoes;
+            taxaAbandono = sessoes == 0 ? Double.NaN : abandonos * 100.0 / sessoes;
+        }
+    }
+}
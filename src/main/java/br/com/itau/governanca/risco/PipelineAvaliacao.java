@@ -0,0 +1,651 @@
+package br.com.itau.governanca.risco;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Pipeline em estágios para a avaliação noturna do portfólio: ingestão dos CSVs, pontuação,
+ * vetos e persistência, cada estágio em uma thread própria.
+ * <p>
+ * Os estágios trocam eventos por um anel pré-alocado no estilo do LMAX Disruptor: cada posição
+ * do anel é um {@link Evento} mutável, reutilizado a cada volta, com os vetores de valores e
+ * pontuações do modelo, sem mapas nem alocação por aplicação. Cada estágio tem uma única
+ * sequência, escrita só pela sua thread, com o último evento que concluiu; um estágio processa
+ * os eventos até a sequência do anterior e a ingestão só reaproveita uma posição depois que a
+ * persistência a liberou. Não há locks: a publicação de uma sequência (escrita ordenada) torna
+ * visíveis os campos que o estágio gravou no evento.
+ * <p>
+ * Nas fronteiras os eventos andam em lotes de até {@code tamanhoLote}: a ingestão publica a
+ * cada lote e cada estágio processa tudo o que estiver disponível (até o tamanho do lote)
+ * antes de publicar a sua sequência uma vez; a persistência é avisada do fim de cada lote por
+ * {@link Persistencia#concluirLote()}. A espera por eventos segue a {@link EstrategiaEspera}
+ * configurada.
+ * <p>
+ * Cada estágio conta eventos, lotes, tempo ocupado e tempo de espera
+ * ({@link EstatisticasEtapa}); o estágio com mais tempo ocupado é o que limita a execução
+ * ({@link #getEtapaGargalo()}). A latência de ponta a ponta (da ingestão à persistência) fica
+ * em um {@link HistogramaLatencias}. As estatísticas são da última execução.
+ * <p>
+ * Instâncias executam uma avaliação por vez e podem ser reutilizadas.
+ */
+public class PipelineAvaliacao {
+
+    /** Estágio de leitura dos CSVs, na thread que chama {@link #executar(Collection, String)} */
+    public static final int ETAPA_INGESTAO = 0;
+    /** Estágio de pontuação das dimensões e total */
+    public static final int ETAPA_PONTUACAO = 1;
+    /** Estágio de verificação dos vetos */
+    public static final int ETAPA_VETO = 2;
+    /** Estágio de persistência dos resultados */
+    public static final int ETAPA_PERSISTENCIA = 3;
+
+    private static final String[] NOMES_ETAPAS = {"ingestao", "pontuacao", "veto", "persistencia"};
+
+    /** Capacidade padrão do anel */
+    public static final int CAPACIDADE_PADRAO = 1024;
+    /** Tamanho padrão dos lotes nas fronteiras entre estágios */
+    public static final int TAMANHO_LOTE_PADRAO = 64;
+
+    /**
+     * Como um estágio espera por eventos do estágio anterior (ou a ingestão, por posições livres)
+     */
+    public enum EstrategiaEspera {
+        /** Gira continuamente: menor latência, ocupa um núcleo por estágio mesmo ocioso */
+        OCUPADA,
+        /** Gira brevemente e depois cede o processador com {@link Thread#yield()} */
+        CEDENTE,
+        /** Gira, cede e por fim estaciona a thread por 50 µs: menor uso de CPU quando ocioso */
+        ESTACIONADA
+    }
+
+    /**
+     * Destino dos eventos avaliados, chamado apenas pela thread de persistência
+     */
+    public interface Persistencia {
+
+        /**
+         * Persiste uma avaliação. O evento é reutilizado e só é válido durante a chamada.
+         * @param evento A avaliação pontuada e com os vetos verificados
+         * @throws IOException se houver erro de gravação
+         */
+        void persistir(Evento evento) throws IOException;
+
+        /**
+         * Chamado ao fim de cada lote, para descarregar buffers uma vez por lote
+         * @throws IOException se houver erro de gravação
+         */
+        default void concluirLote() throws IOException {
+        }
+    }
+
+    private final CalculadoraRisco calculadora;
+    private final Persistencia persistencia;
+    private final EstrategiaEspera estrategia;
+    private final int tamanhoLote;
+    private final Evento[] anel;
+    private final int mascara;
+    private final Sequencia[] sequencias = new Sequencia[NOMES_ETAPAS.length];
+    private final EstatisticasEtapa[] estatisticas = new EstatisticasEtapa[NOMES_ETAPAS.length];
+    private final HistogramaLatencias latencias = new HistogramaLatencias();
+
+    private volatile Throwable falha;
+
+    /**
+     * Construtor com a capacidade, o tamanho de lote e a estratégia de espera padrão (CEDENTE)
+     * @param calculadora A calculadora que pontua e verifica os vetos
+     * @param persistencia O destino das avaliações
+     */
+    public PipelineAvaliacao(CalculadoraRisco calculadora, Persistencia persistencia) {
+        this(calculadora, persistencia, CAPACIDADE_PADRAO, TAMANHO_LOTE_PADRAO, EstrategiaEspera.CEDENTE);
+    }
+
+    /**
+     * Construtor
+     * @param calculadora A calculadora que pontua e verifica os vetos
+     * @param persistencia O destino das avaliações
+     * @param capacidade O número de eventos do anel (potência de 2)
+     * @param tamanhoLote O número máximo de eventos por lote nas fronteiras (até a capacidade)
+     * @param estrategia A estratégia de espera dos estágios
+     * @throws IllegalArgumentException se a capacidade não for potência de 2 ou o lote for inválido
+     */
+    public PipelineAvaliacao(CalculadoraRisco calculadora, Persistencia persistencia, int capacidade,
+                             int tamanhoLote, EstrategiaEspera estrategia) {
+        if (capacidade < 2 || Integer.bitCount(capacidade) != 1) {
+            throw new IllegalArgumentException("A capacidade do anel deve ser uma potência de 2: " + capacidade);
+        }
+        if (tamanhoLote < 1 || tamanhoLote > capacidade) {
+            throw new IllegalArgumentException("O tamanho do lote deve estar entre 1 e a capacidade: " + tamanhoLote);
+        }
+        this.calculadora = calculadora;
+        this.persistencia = persistencia;
+        this.estrategia = estrategia;
+        this.tamanhoLote = tamanhoLote;
+        this.mascara = capacidade - 1;
+        this.anel = new Evento[capacidade];
+        ModeloCompilado modelo = calculadora.getModelo();
+        for (int i = 0; i < capacidade; i++) {
+            anel[i] = new Evento(modelo);
+        }
+        for (int etapa = 0; etapa < sequencias.length; etapa++) {
+            sequencias[etapa] = new Sequencia();
+            estatisticas[etapa] = new EstatisticasEtapa(NOMES_ETAPAS[etapa]);
+        }
+    }
+
+    /**
+     * Avalia todas as aplicações dos arquivos CSV (ver {@link LeitorCsvAvaliacao}) e as entrega
+     * à persistência na ordem de leitura. O nome e a versão vêm das colunas Aplicação/Versão, ou
+     * do nome do arquivo e da versão informada.
+     * @param arquivos Os arquivos CSV
+     * @param versaoPadrao A versão das aplicações de arquivos sem a coluna Versão
+     * @return O número de aplicações avaliadas
+     * @throws IOException se houver erro de leitura ou de persistência; a execução é interrompida
+     *         e os eventos restantes são descartados
+     */
+    public long executar(Collection<Path> arquivos, String versaoPadrao) throws IOException {
+        iniciar();
+        Thread[] threads = new Thread[NOMES_ETAPAS.length];
+        for (int etapa = ETAPA_PONTUACAO; etapa < threads.length; etapa++) {
+            int consumidora = etapa;
+            threads[etapa] = new Thread(() -> consumir(consumidora), "pipeline-avaliacao-" + NOMES_ETAPAS[etapa]);
+            threads[etapa].setDaemon(true);
+            threads[etapa].start();
+        }
+
+        Ingestao ingestao = new Ingestao(versaoPadrao);
+        try {
+            LeitorCsvAvaliacao leitor = new LeitorCsvAvaliacao(calculadora.getModelo());
+            for (Path arquivo : arquivos) {
+                if (falha != null) {
+                    break;
+                }
+                ingestao.arquivo = nomeBase(arquivo);
+                leitor.ler(arquivo, ingestao);
+            }
+        } catch (IOException | RuntimeException e) {
+            if (!(e instanceof Interrompida)) {
+                registrarFalha(e);
+            }
+        } finally {
+            ingestao.encerrar();
+        }
+
+        boolean interrompida = false;
+        for (int etapa = ETAPA_PONTUACAO; etapa < threads.length; etapa++) {
+            while (true) {
+                try {
+                    threads[etapa].join();
+                    break;
+                } catch (InterruptedException e) {
+                    interrompida = true;
+                }
+            }
+        }
+        if (interrompida) {
+            Thread.currentThread().interrupt();
+        }
+
+        Throwable erro = falha;
+        if (erro instanceof IOException) {
+            throw (IOException) erro;
+        } else if (erro instanceof UncheckedIOException) {
+            throw ((UncheckedIOException) erro).getCause();
+        } else if (erro instanceof RuntimeException) {
+            throw (RuntimeException) erro;
+        } else if (erro instanceof Error) {
+            throw (Error) erro;
+        }
+        return sequencias[ETAPA_PERSISTENCIA].get() + 1;
+    }
+
+    private void iniciar() {
+        falha = null;
+        latencias.limpar();
+        for (int etapa = 0; etapa < sequencias.length; etapa++) {
+            sequencias[etapa].set(-1);
+            sequencias[etapa].concluida = false;
+            estatisticas[etapa].limpar();
+        }
+    }
+
+    // Laço de um estágio consumidor: espera o anterior, processa um lote e publica a sequência
+    private void consumir(int etapa) {
+        Sequencia anterior = sequencias[etapa - 1];
+        Sequencia propria = sequencias[etapa];
+        EstatisticasEtapa contadores = estatisticas[etapa];
+        long proxima = propria.get() + 1;
+        try {
+            while (true) {
+                long inicioEspera = System.nanoTime();
+                long disponivel = aguardar(proxima, anterior);
+                long inicio = System.nanoTime();
+                contadores.tempoEspera += inicio - inicioEspera;
+                if (disponivel < proxima) {
+                    break;
+                }
+                long ultima = Math.min(disponivel, proxima + tamanhoLote - 1);
+                if (falha == null) {
+                    try {
+                        processarLote(etapa, proxima, ultima);
+                    } catch (IOException | RuntimeException | Error e) {
+                        // Os estágios seguem avançando sem processar, para que a ingestão termine
+                        registrarFalha(e);
+                    }
+                }
+                propria.publicar(ultima);
+                contadores.tempoOcupado += System.nanoTime() - inicio;
+                contadores.eventos += ultima - proxima + 1;
+                contadores.lotes++;
+                proxima = ultima + 1;
+            }
+        } finally {
+            propria.concluida = true;
+        }
+    }
+
+    private void processarLote(int etapa, long primeira, long ultima) throws IOException {
+        if (etapa == ETAPA_PONTUACAO) {
+            for (long s = primeira; s <= ultima; s++) {
+                Evento evento = anel[(int) s & mascara];
+                evento.pontuacaoTotal = calculadora.calcularPontuacaoTotal(evento.valores, evento.pontuacoesDimensoes);
+            }
+        } else if (etapa == ETAPA_VETO) {
+            for (long s = primeira; s <= ultima; s++) {
+                Evento evento = anel[(int) s & mascara];
+                evento.vetos = calculadora.verificarVetos(evento.valores);
+            }
+        } else {
+            for (long s = primeira; s <= ultima; s++) {
+                Evento evento = anel[(int) s & mascara];
+                persistencia.persistir(evento);
+                latencias.registrar((System.nanoTime() - evento.ingestao) / 1e6);
+            }
+            persistencia.concluirLote();
+        }
+    }
+
+    // Espera até a sequência do estágio anterior alcançar 'proxima'; retorna a sequência
+    // disponível, ou um valor menor que 'proxima' se o anterior terminou sem produzi-la
+    private long aguardar(long proxima, Sequencia anterior) {
+        int tentativas = 0;
+        while (true) {
+            long disponivel = anterior.get();
+            if (disponivel >= proxima) {
+                return disponivel;
+            }
+            if (anterior.concluida) {
+                // Relê depois da conclusão: a última publicação pode ter ocorrido entre as leituras
+                return anterior.get();
+            }
+            esperar(tentativas++);
+        }
+    }
+
+    private void esperar(int tentativas) {
+        if (estrategia == EstrategiaEspera.OCUPADA || tentativas < 100) {
+            Thread.onSpinWait();
+        } else if (estrategia == EstrategiaEspera.CEDENTE || tentativas < 200) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(50_000);
+        }
+    }
+
+    private synchronized void registrarFalha(Throwable erro) {
+        if (falha == null) {
+            falha = erro;
+        }
+    }
+
+    private static String nomeBase(Path arquivo) {
+        String nome = arquivo.getFileName().toString();
+        int ponto = nome.lastIndexOf('.');
+        return ponto > 0 ? nome.substring(0, ponto) : nome;
+    }
+
+    /**
+     * Retorna os contadores de um estágio na última execução
+     * @param etapa O estágio (ETAPA_*)
+     * @return os contadores do estágio
+     */
+    public EstatisticasEtapa getEstatisticas(int etapa) {
+        return estatisticas[etapa];
+    }
+
+    /**
+     * Retorna o estágio que limitou a última execução: o de maior tempo ocupado
+     * @return o estágio (ETAPA_*)
+     */
+    public int getEtapaGargalo() {
+        int gargalo = ETAPA_INGESTAO;
+        for (int etapa = 1; etapa < estatisticas.length; etapa++) {
+            if (estatisticas[etapa].tempoOcupado > estatisticas[gargalo].tempoOcupado) {
+                gargalo = etapa;
+            }
+        }
+        return gargalo;
+    }
+
+    /**
+     * Retorna as latências de ponta a ponta da última execução, da publicação pela ingestão
+     * ao fim da persistência de cada evento, em milissegundos
+     * @return o histograma de latências
+     */
+    public HistogramaLatencias getLatencias() {
+        return latencias;
+    }
+
+    /**
+     * Retorna a capacidade do anel
+     * @return o número de eventos pré-alocados
+     */
+    public int getCapacidade() {
+        return anel.length;
+    }
+
+    // Estágio de ingestão: copia cada aplicação lida para a próxima posição livre do anel
+    private final class Ingestao implements LeitorCsvAvaliacao.Consumidor {
+        private final String versaoPadrao;
+        private final Sequencia cursor = sequencias[ETAPA_INGESTAO];
+        private final Sequencia liberada = sequencias[ETAPA_PERSISTENCIA];
+        private final EstatisticasEtapa contadores = estatisticas[ETAPA_INGESTAO];
+        private final long inicio = System.nanoTime();
+        private String arquivo;
+        private long reservada = -1;
+        // Última sequência liberada pela persistência que a ingestão leu, para evitar releituras
+        private long liberadaConhecida = -1;
+
+        Ingestao(String versaoPadrao) {
+            this.versaoPadrao = versaoPadrao;
+        }
+
+        @Override
+        public void aceitar(String nomeAplicacao, String versao, double[] valores) {
+            if (falha != null) {
+                throw new Interrompida();
+            }
+            long sequencia = reservada + 1;
+            if (sequencia - anel.length > liberadaConhecida) {
+                aguardarPosicao(sequencia - anel.length);
+            }
+            Evento evento = anel[(int) sequencia & mascara];
+            evento.nomeAplicacao = nomeAplicacao != null && !nomeAplicacao.isEmpty() ? nomeAplicacao : arquivo;
+            evento.versao = versao != null && !versao.isEmpty() ? versao : versaoPadrao;
+            System.arraycopy(valores, 0, evento.valores, 0, valores.length);
+            evento.sequencia = sequencia;
+            evento.ingestao = System.nanoTime();
+            reservada = sequencia;
+            if (reservada - cursor.get() >= tamanhoLote) {
+                publicar();
+            }
+        }
+
+        // Espera a persistência liberar a posição; publica antes o lote parcial, que ela pode
+        // estar esperando
+        private void aguardarPosicao(long necessaria) {
+            publicar();
+            long inicioEspera = System.nanoTime();
+            int tentativas = 0;
+            while ((liberadaConhecida = liberada.get()) < necessaria) {
+                if (falha != null || liberada.concluida) {
+                    contadores.tempoEspera += System.nanoTime() - inicioEspera;
+                    throw new Interrompida();
+                }
+                esperar(tentativas++);
+            }
+            contadores.tempoEspera += System.nanoTime() - inicioEspera;
+        }
+
+        private void publicar() {
+            if (reservada > cursor.get()) {
+                contadores.eventos += reservada - cursor.get();
+                contadores.lotes++;
+                cursor.publicar(reservada);
+            }
+        }
+
+        void encerrar() {
+            publicar();
+            contadores.tempoOcupado = System.nanoTime() - inicio - contadores.tempoEspera;
+            cursor.concluida = true;
+        }
+    }
+
+    /**
+     * Persistência que grava os relatórios em um arquivo JSON Lines (um relatório compacto por
+     * linha, como o {@link EscritorJsonRelatorio}), descarregando o buffer uma vez por lote
+     */
+    public static final class ArquivoRelatorios implements Persistencia, Closeable {
+        private final EscritorJsonRelatorio escritor;
+        private final String dataAvaliacao;
+        private final OutputStream saida;
+
+        /**
+         * Construtor que cria (ou substitui) o arquivo
+         * @param calculadora A calculadora do pipeline, que define o modelo dos relatórios
+         * @param arquivo O arquivo de destino
+         * @param dataAvaliacao Data da avaliação, ou null para omitir o campo
+         * @throws IOException se o arquivo não puder ser criado
+         */
+        public ArquivoRelatorios(CalculadoraRisco calculadora, Path arquivo, String dataAvaliacao) throws IOException {
+            this.escritor = new EscritorJsonRelatorio(calculadora);
+            this.dataAvaliacao = dataAvaliacao;
+            this.saida = new BufferedOutputStream(Files.newOutputStream(arquivo), 256 * 1024);
+        }
+
+        @Override
+        public void persistir(Evento evento) throws IOException {
+            escritor.escrever(evento.nomeAplicacao, evento.versao, dataAvaliacao, evento.valores,
+                              evento.pontuacoesDimensoes, evento.pontuacaoTotal, evento.vetos, saida);
+            saida.write('\n');
+        }
+
+        @Override
+        public void concluirLote() throws IOException {
+            saida.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            saida.close();
+        }
+    }
+
+    // Interrompe a leitura do CSV quando a execução falhou em outro estágio
+    private static final class Interrompida extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        Interrompida() {
+            super(null, null, false, false);
+        }
+    }
+
+    // Sequência de um estágio, isolada em sua própria linha de cache para evitar falso
+    // compartilhamento entre os núcleos dos estágios
+    @SuppressWarnings("unused")
+    private static final class Sequencia extends AtomicLong {
+        private static final long serialVersionUID = 1L;
+        private long p1, p2, p3, p4, p5, p6, p7;
+        // Indica que o estágio terminou e não publicará mais eventos
+        volatile boolean concluida;
+
+        Sequencia() {
+            super(-1);
+        }
+
+        // Escrita ordenada: os campos gravados antes ficam visíveis a quem ler a sequência
+        void publicar(long sequencia) {
+            lazySet(sequencia);
+        }
+    }
+
+    /**
+     * Evento de avaliação reutilizado em uma posição do anel
+     */
+    public static final class Evento {
+        private final double[] valores;
+        private final double[] pontuacoesDimensoes;
+        private String nomeAplicacao;
+        private String versao;
+        private double pontuacaoTotal;
+        private int vetos;
+        private long sequencia;
+        private long ingestao;
+
+        private Evento(ModeloCompilado modelo) {
+            this.valores = modelo.novoVetorValores();
+            this.pontuacoesDimensoes = new double[modelo.getNumDimensoes()];
+        }
+
+        /**
+         * Retorna o nome da aplicação
+         * @return o nome da coluna Aplicação, ou o nome do arquivo sem extensão
+         */
+        public String getNomeAplicacao() {
+            return nomeAplicacao;
+        }
+
+        /**
+         * Retorna a versão da aplicação
+         * @return a versão da coluna Versão, ou a versão padrão da execução
+         */
+        public String getVersao() {
+            return versao;
+        }
+
+        /**
+         * Retorna os valores dos critérios, indexados pelo ordinal (NaN = ausente)
+         * @return o vetor reutilizado do evento
+         */
+        public double[] getValores() {
+            return valores;
+        }
+
+        /**
+         * Retorna as pontuações por dimensão, indexadas pelo ordinal
+         * @return o vetor reutilizado do evento
+         */
+        public double[] getPontuacoesDimensoes() {
+            return pontuacoesDimensoes;
+        }
+
+        /**
+         * Retorna a pontuação total
+         * @return a pontuação total de risco
+         */
+        public double getPontuacaoTotal() {
+            return pontuacaoTotal;
+        }
+
+        /**
+         * Retorna a máscara de vetos
+         * @return os bits VETO_* da CalculadoraRisco
+         */
+        public int getVetos() {
+            return vetos;
+        }
+
+        /**
+         * Retorna a posição do evento na ordem de leitura
+         * @return a sequência, a partir de 0
+         */
+        public long getSequencia() {
+            return sequencia;
+        }
+    }
+
+    /**
+     * Contadores de um estágio do pipeline. São escritos apenas pela thread do estágio e
+     * devem ser lidos depois de {@link #executar(Collection, String)}.
+     */
+    public static final class EstatisticasEtapa {
+        private final String nome;
+        private long eventos;
+        private long lotes;
+        private long tempoOcupado;
+        private long tempoEspera;
+
+        private EstatisticasEtapa(String nome) {
+            this.nome = nome;
+        }
+
+        private void limpar() {
+            eventos = 0;
+            lotes = 0;
+            tempoOcupado = 0;
+            tempoEspera = 0;
+        }
+
+        /**
+         * Retorna o nome do estágio
+         * @return ingestao, pontuacao, veto ou persistencia
+         */
+        public String getNome() {
+            return nome;
+        }
+
+        /**
+         * Retorna o número de eventos processados
+         * @return os eventos
+         */
+        public long getEventos() {
+            return eventos;
+        }
+
+        /**
+         * Retorna o número de lotes publicados
+         * @return os lotes
+         */
+        public long getLotes() {
+            return lotes;
+        }
+
+        /**
+         * Retorna o tamanho médio dos lotes
+         * @return eventos por lote, ou 0 sem lotes
+         */
+        public double getTamanhoMedioLote() {
+            return lotes == 0 ? 0 : (double) eventos / lotes;
+        }
+
+        /**
+         * Retorna o tempo em que o estágio esteve processando
+         * @return o tempo ocupado em nanossegundos
+         */
+        public long getTempoOcupadoNanos() {
+            return tempoOcupado;
+        }
+
+        /**
+         * Retorna o tempo em que o estágio esperou pelo anterior (ou, na ingestão, por posições livres)
+         * @return o tempo de espera em nanossegundos
+         */
+        public long getTempoEsperaNanos() {
+            return tempoEspera;
+        }
+
+        /**
+         * Retorna o tempo médio de processamento de um evento no estágio
+         * @return a latência média em nanossegundos, ou NaN sem eventos
+         */
+        public double getLatenciaMediaNanos() {
+            return eventos == 0 ? Double.NaN : (double) tempoOcupado / eventos;
+        }
+
+        /**
+         * Retorna a vazão do estágio considerando só o tempo ocupado: o máximo que ele sustenta
+         * @return eventos por segundo, ou NaN sem tempo ocupado
+         */
+        public double getVazao() {
+            return tempoOcupado == 0 ? Double.NaN : eventos * 1e9 / tempoOcupado;
+        }
+    }
+}
@@ -0,0 +1,564 @@
+package br.com.itau.governanca.risco;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Armazena os resultados de avaliação de todo o portfólio em colunas de arrays primitivos, para
+ * as consultas do dashboard de qualidade: aplicações de maior risco, piores pontuações por
+ * dimensão, vetos mais frequentes, distribuição da pontuação total e resumos por status e por
+ * classificação.
+ * <p>
+ * Cada campo do {@link ResultadoAvaliacao} é uma coluna (pontuação total, uma coluna por
+ * dimensão do modelo, ordinais de classificação e status, máscara de vetos) e os nomes de
+ * aplicação e versão são codificados em dicionários, de modo que cada linha ocupa algumas dezenas
+ * de bytes. As consultas percorrem as colunas sequencialmente, sem objetos por linha: contagens
+ * e somas são laços sobre arrays que o JIT pode vetorizar, e os top-N mantêm um heap limitado a
+ * N linhas, descartando a maioria das linhas com uma única comparação.
+ * <p>
+ * A inclusão de linhas não é sincronizada; consultas podem ser feitas em paralelo entre si,
+ * mas não durante uma inclusão.
+ */
+public class PortfolioColunar {
+
+    private static final int CAPACIDADE_PADRAO = 1024;
+
+    private final ModeloCompilado modelo;
+    private final Dicionario aplicacoes = new Dicionario();
+    private final Dicionario versoes = new Dicionario();
+    private int quantidade;
+    private int[] codigosAplicacoes;
+    private int[] codigosVersoes;
+    private double[] pontuacoesTotais;
+    private double[][] pontuacoesDimensoes;
+    private byte[] classificacoes;
+    private byte[] status;
+    private int[] vetos;
+
+    /**
+     * Construtor
+     * @param modelo O modelo cujas dimensões terão colunas de pontuação
+     */
+    public PortfolioColunar(ModeloCompilado modelo) {
+        this(modelo, CAPACIDADE_PADRAO);
+    }
+
+    /**
+     * Construtor que reserva as colunas para um número de linhas
+     * @param modelo O modelo cujas dimensões terão colunas de pontuação
+     * @param capacidade O número de linhas reservadas inicialmente
+     */
+    public PortfolioColunar(ModeloCompilado modelo, int capacidade) {
+        if (capacidade <= 0) {
+            throw new IllegalArgumentException("A capacidade deve ser positiva: " + capacidade);
+        }
+        this.modelo = modelo;
+        this.codigosAplicacoes = new int[capacidade];
+        this.codigosVersoes = new int[capacidade];
+        this.pontuacoesTotais = new double[capacidade];
+        this.pontuacoesDimensoes = new double[modelo.getNumDimensoes()][capacidade];
+        this.classificacoes = new byte[capacidade];
+        this.status = new byte[capacidade];
+        this.vetos = new int[capacidade];
+    }
+
+    /**
+     * Inclui um resultado; dimensões ausentes do resultado ou do modelo ficam ausentes (NaN)
+     * @param resultado O resultado da avaliação
+     * @return a linha do resultado
+     */
+    public int adicionar(ResultadoAvaliacao resultado) {
+        if (quantidade == pontuacoesTotais.length) {
+            redimensionar(quantidade * 2);
+        }
+        int linha = quantidade++;
+        codigosAplicacoes[linha] = aplicacoes.codificar(resultado.getNomeAplicacao());
+        codigosVersoes[linha] = versoes.codificar(resultado.getVersao());
+        pontuacoesTotais[linha] = resultado.getPontuacaoTotal();
+        for (int d = 0; d < pontuacoesDimensoes.length; d++) {
+            pontuacoesDimensoes[d][linha] = resultado.getPontuacaoDimensao(modelo.getNomeDimensao(d));
+        }
+        classificacoes[linha] = (byte) resultado.getClassificacaoRisco().ordinal();
+        status[linha] = (byte) resultado.getStatusAvaliacao().ordinal();
+        vetos[linha] = resultado.getMascaraVetos();
+        return linha;
+    }
+
+    /**
+     * Inclui vários resultados
+     * @param resultados Os resultados das avaliações
+     */
+    public void adicionarTodos(List<ResultadoAvaliacao> resultados) {
+        if (quantidade + resultados.size() > pontuacoesTotais.length) {
+            redimensionar(Math.max(quantidade + resultados.size(), quantidade * 2));
+        }
+        for (ResultadoAvaliacao resultado : resultados) {
+            adicionar(resultado);
+        }
+    }
+
+    /**
+     * Retorna as linhas das aplicações de maior pontuação total, da maior para a menor
+     * @param n O número máximo de linhas
+     * @param filtro O status das linhas consideradas, ou null para todas
+     * @return as linhas, com empates na ordem de inclusão
+     */
+    public int[] maioresRiscos(int n, StatusAvaliacao filtro) {
+        return maiores(pontuacoesTotais, n, filtro == null ? -1 : filtro.ordinal());
+    }
+
+    /**
+     * Retorna as linhas com as piores (maiores) pontuações de uma dimensão, da pior para a
+     * melhor; linhas sem a dimensão são ignoradas
+     * @param dimensao O ordinal da dimensão no modelo
+     * @param n O número máximo de linhas
+     * @return as linhas, com empates na ordem de inclusão
+     */
+    public int[] pioresPontuacoes(int dimensao, int n) {
+        return maiores(pontuacoesDimensoes[dimensao], n, -1);
+    }
+
+    /**
+     * Conta as linhas em que cada veto foi atingido
+     * @return as ocorrências por regra, na posição do bit (o veto {@code 1 << i} em {@code [i]})
+     */
+    public int[] contarVetos() {
+        int[] ocorrencias = new int[RegrasVeto.quantidade()];
+        for (int i = 0; i < ocorrencias.length; i++) {
+            int total = 0;
+            for (int linha = 0; linha < quantidade; linha++) {
+                total += (vetos[linha] >>> i) & 1;
+            }
+            ocorrencias[i] = total;
+        }
+        return ocorrencias;
+    }
+
+    /**
+     * Distribui as pontuações totais em faixas de mesma largura; valores fora do intervalo
+     * são contados na primeira ou na última faixa
+     * @param minimo O início da primeira faixa
+     * @param maximo O fim da última faixa
+     * @param faixas O número de faixas
+     * @return o número de linhas em cada faixa
+     */
+    public int[] distribuirPontuacoes(double minimo, double maximo, int faixas) {
+        if (faixas <= 0 || !(maximo > minimo)) {
+            throw new IllegalArgumentException("Intervalo [" + minimo + ", " + maximo + "] com "
+                + faixas + " faixas inválido");
+        }
+        int[] contagens = new int[faixas];
+        double escala = faixas / (maximo - minimo);
+        for (int linha = 0; linha < quantidade; linha++) {
+            int faixa = (int) ((pontuacoesTotais[linha] - minimo) * escala);
+            contagens[Math.min(Math.max(faixa, 0), faixas - 1)]++;
+        }
+        return contagens;
+    }
+
+    /**
+     * Resume as linhas por status ({@link StatusAvaliacao#ordinal()})
+     * @return o resumo dos grupos
+     */
+    public Agrupamento agruparPorStatus() {
+        return agrupar(status, StatusAvaliacao.values().length);
+    }
+
+    /**
+     * Resume as linhas por classificação ({@link ClassificacaoRisco#ordinal()})
+     * @return o resumo dos grupos
+     */
+    public Agrupamento agruparPorClassificacao() {
+        return agrupar(classificacoes, ClassificacaoRisco.values().length);
+    }
+
+    /**
+     * Conta as linhas por status e classificação
+     * @return as contagens indexadas por [status][classificação]
+     */
+    public int[][] contarPorStatusEClassificacao() {
+        int numClassificacoes = ClassificacaoRisco.values().length;
+        int[] contagens = new int[StatusAvaliacao.values().length * numClassificacoes];
+        for (int linha = 0; linha < quantidade; linha++) {
+            contagens[status[linha] * numClassificacoes + classificacoes[linha]]++;
+        }
+        int[][] tabela = new int[StatusAvaliacao.values().length][];
+        for (int s = 0; s < tabela.length; s++) {
+            tabela[s] = Arrays.copyOfRange(contagens, s * numClassificacoes, (s + 1) * numClassificacoes);
+        }
+        return tabela;
+    }
+
+    /**
+     * Retorna as linhas de uma aplicação, na ordem de inclusão
+     * @param nomeAplicacao O nome da aplicação
+     * @return as linhas, vazio se a aplicação não foi incluída
+     */
+    public int[] linhasAplicacao(String nomeAplicacao) {
+        int codigo = aplicacoes.codigo(nomeAplicacao);
+        if (codigo < 0) {
+            return new int[0];
+        }
+        int total = 0;
+        for (int linha = 0; linha < quantidade; linha++) {
+            total += codigosAplicacoes[linha] == codigo ? 1 : 0;
+        }
+        int[] linhas = new int[total];
+        for (int linha = 0, i = 0; i < total; linha++) {
+            if (codigosAplicacoes[linha] == codigo) {
+                linhas[i++] = linha;
+            }
+        }
+        return linhas;
+    }
+
+    /**
+     * Reconstrói o resultado de uma linha
+     * @param linha A linha
+     * @return o resultado da avaliação, com as pontuações nas dimensões do modelo
+     */
+    public ResultadoAvaliacao getResultado(int linha) {
+        verificarLinha(linha);
+        double[] pontuacoes = new double[pontuacoesDimensoes.length];
+        for (int d = 0; d < pontuacoes.length; d++) {
+            pontuacoes[d] = pontuacoesDimensoes[d][linha];
+        }
+        return new ResultadoAvaliacao(getNomeAplicacao(linha), getVersao(linha), pontuacoesTotais[linha],
+                                      getClassificacao(linha), getStatus(linha), vetos[linha],
+                                      modelo.nomesDimensoes(), pontuacoes);
+    }
+
+    /**
+     * Retorna o nome da aplicação de uma linha
+     * @param linha A linha
+     * @return o nome da aplicação
+     */
+    public String getNomeAplicacao(int linha) {
+        verificarLinha(linha);
+        return aplicacoes.valor(codigosAplicacoes[linha]);
+    }
+
+    /**
+     * Retorna a versão de uma linha
+     * @param linha A linha
+     * @return a versão da aplicação
+     */
+    public String getVersao(int linha) {
+        verificarLinha(linha);
+        return versoes.valor(codigosVersoes[linha]);
+    }
+
+    /**
+     * Retorna a pontuação total de uma linha
+     * @param linha A linha
+     * @return a pontuação total de risco
+     */
+    public double getPontuacaoTotal(int linha) {
+        verificarLinha(linha);
+        return pontuacoesTotais[linha];
+    }
+
+    /**
+     * Retorna a pontuação de uma dimensão em uma linha
+     * @param dimensao O ordinal da dimensão no modelo
+     * @param linha A linha
+     * @return a pontuação da dimensão, ou NaN se ela não foi avaliada
+     */
+    public double getPontuacaoDimensao(int dimensao, int linha) {
+        verificarLinha(linha);
+        return pontuacoesDimensoes[dimensao][linha];
+    }
+
+    /**
+     * Retorna a classificação de uma linha
+     * @param linha A linha
+     * @return a classificação de risco
+     */
+    public ClassificacaoRisco getClassificacao(int linha) {
+        verificarLinha(linha);
+        return ClassificacaoRisco.doOrdinal(classificacoes[linha]);
+    }
+
+    /**
+     * Retorna o status de uma linha
+     * @param linha A linha
+     * @return o status da avaliação
+     */
+    public StatusAvaliacao getStatus(int linha) {
+        verificarLinha(linha);
+        return StatusAvaliacao.doOrdinal(status[linha]);
+    }
+
+    /**
+     * Retorna a máscara de vetos de uma linha
+     * @param linha A linha
+     * @return a máscara de vetos (bits VETO_* da CalculadoraRisco)
+     */
+    public int getMascaraVetos(int linha) {
+        verificarLinha(linha);
+        return vetos[linha];
+    }
+
+    /**
+     * Retorna o número de linhas
+     * @return o número de resultados incluídos
+     */
+    public int getQuantidade() {
+        return quantidade;
+    }
+
+    /**
+     * Retorna o número de aplicações distintas
+     * @return o tamanho do dicionário de nomes
+     */
+    public int getNumAplicacoes() {
+        return aplicacoes.tamanho();
+    }
+
+    /**
+     * Retorna o modelo das colunas de dimensão
+     * @return o modelo
+     */
+    public ModeloCompilado getModelo() {
+        return modelo;
+    }
+
+    // Top-N por um heap de mínimo limitado a n linhas; a raiz é a menor linha mantida, com
+    // empates resolvidos a favor da linha incluída primeiro. NaN nunca entra.
+    private int[] maiores(double[] coluna, int n, int filtroStatus) {
+        if (n < 0) {
+            throw new IllegalArgumentException("Número de linhas negativo: " + n);
+        }
+        int[] heap = new int[Math.min(n, quantidade)];
+        int tamanho = 0;
+        for (int linha = 0; linha < quantidade; linha++) {
+            double valor = coluna[linha];
+            if (valor != valor || (filtroStatus >= 0 && status[linha] != filtroStatus)) {
+                continue;
+            }
+            if (tamanho < heap.length) {
+                heap[tamanho] = linha;
+                subir(coluna, heap, tamanho++);
+            } else if (tamanho > 0 && valor > coluna[heap[0]]) {
+                heap[0] = linha;
+                descer(coluna, heap, tamanho);
+            }
+        }
+        // Retira a raiz repetidamente, preenchendo do fim para o início
+        int[] ordenadas = new int[tamanho];
+        for (int i = tamanho - 1; i >= 0; i--) {
+            ordenadas[i] = heap[0];
+            heap[0] = heap[i];
+            descer(coluna, heap, i);
+        }
+        return ordenadas;
+    }
+
+    // true se a linha a vem antes de b no heap de mínimo
+    private static boolean menor(double[] coluna, int a, int b) {
+        return coluna[a] < coluna[b] || (coluna[a] == coluna[b] && a > b);
+    }
+
+    private static void subir(double[] coluna, int[] heap, int posicao) {
+        while (posicao > 0) {
+            int pai = (posicao - 1) >>> 1;
+            if (!menor(coluna, heap[posicao], heap[pai])) {
+                return;
+            }
+            int troca = heap[pai];
+            heap[pai] = heap[posicao];
+            heap[posicao] = troca;
+            posicao = pai;
+        }
+    }
+
+    private static void descer(double[] coluna, int[] heap, int tamanho) {
+        int posicao = 0;
+        while (true) {
+            int filho = 2 * posicao + 1;
+            if (filho >= tamanho) {
+                return;
+            }
+            if (filho + 1 < tamanho && menor(coluna, heap[filho + 1], heap[filho])) {
+                filho++;
+            }
+            if (!menor(coluna, heap[filho], heap[posicao])) {
+                return;
+            }
+            int troca = heap[filho];
+            heap[filho] = heap[posicao];
+            heap[posicao] = troca;
+            posicao = filho;
+        }
+    }
+
+    // Resumo por uma coluna de ordinais: uma passada para as pontuações totais e uma por dimensão
+    private Agrupamento agrupar(byte[] chaves, int numGrupos) {
+        int[] quantidades = new int[numGrupos];
+        double[] somas = new double[numGrupos];
+        double[] minimos = new double[numGrupos];
+        double[] maximos = new double[numGrupos];
+        Arrays.fill(minimos, Double.POSITIVE_INFINITY);
+        Arrays.fill(maximos, Double.NEGATIVE_INFINITY);
+        for (int linha = 0; linha < quantidade; linha++) {
+            int grupo = chaves[linha];
+            double valor = pontuacoesTotais[linha];
+            quantidades[grupo]++;
+            somas[grupo] += valor;
+            minimos[grupo] = Math.min(minimos[grupo], valor);
+            maximos[grupo] = Math.max(maximos[grupo], valor);
+        }
+
+        int numDimensoes = pontuacoesDimensoes.length;
+        double[][] somasDimensoes = new double[numGrupos][numDimensoes];
+        int[][] presencas = new int[numGrupos][numDimensoes];
+        double[] somasGrupos = new double[numGrupos];
+        int[] presencasGrupos = new int[numGrupos];
+        for (int d = 0; d < numDimensoes; d++) {
+            double[] coluna = pontuacoesDimensoes[d];
+            Arrays.fill(somasGrupos, 0);
+            Arrays.fill(presencasGrupos, 0);
+            // Sem desvios: dimensões ausentes (NaN) somam 0 e não contam
+            for (int linha = 0; linha < quantidade; linha++) {
+                double valor = coluna[linha];
+                boolean presente = valor == valor;
+                int grupo = chaves[linha];
+                somasGrupos[grupo] += presente ? valor : 0;
+                presencasGrupos[grupo] += presente ? 1 : 0;
+            }
+            for (int g = 0; g < numGrupos; g++) {
+                somasDimensoes[g][d] = somasGrupos[g];
+                presencas[g][d] = presencasGrupos[g];
+            }
+        }
+        return new Agrupamento(quantidades, somas, minimos, maximos, somasDimensoes, presencas);
+    }
+
+    private void redimensionar(int capacidade) {
+        codigosAplicacoes = Arrays.copyOf(codigosAplicacoes, capacidade);
+        codigosVersoes = Arrays.copyOf(codigosVersoes, capacidade);
+        pontuacoesTotais = Arrays.copyOf(pontuacoesTotais, capacidade);
+        for (int d = 0; d < pontuacoesDimensoes.length; d++) {
+            pontuacoesDimensoes[d] = Arrays.copyOf(pontuacoesDimensoes[d], capacidade);
+        }
+        classificacoes = Arrays.copyOf(classificacoes, capacidade);
+        status = Arrays.copyOf(status, capacidade);
+        vetos = Arrays.copyOf(vetos, capacidade);
+    }
+
+    private void verificarLinha(int linha) {
+        if (linha < 0 || linha >= quantidade) {
+            throw new IllegalArgumentException("Linha " + linha + " fora de [0, " + quantidade + ")");
+        }
+    }
+
+    /**
+     * Resumo das linhas de cada grupo: quantidade, média, mínimo e máximo da pontuação total
+     * e média de cada dimensão
+     */
+    public static final class Agrupamento {
+        private final int[] quantidades;
+        private final double[] somas;
+        private final double[] minimos;
+        private final double[] maximos;
+        private final double[][] somasDimensoes;
+        private final int[][] presencas;
+
+        private Agrupamento(int[] quantidades, double[] somas, double[] minimos, double[] maximos,
+                            double[][] somasDimensoes, int[][] presencas) {
+            this.quantidades = quantidades;
+            this.somas = somas;
+            this.minimos = minimos;
+            this.maximos = maximos;
+            this.somasDimensoes = somasDimensoes;
+            this.presencas = presencas;
+        }
+
+        /**
+         * Retorna o número de grupos
+         * @return o número de ordinais da chave
+         */
+        public int getNumGrupos() {
+            return quantidades.length;
+        }
+
+        /**
+         * Retorna o número de linhas do grupo
+         * @param grupo O ordinal do grupo
+         * @return o número de linhas
+         */
+        public int getQuantidade(int grupo) {
+            return quantidades[grupo];
+        }
+
+        /**
+         * Retorna a média da pontuação total do grupo
+         * @param grupo O ordinal do grupo
+         * @return a média, ou NaN se o grupo está vazio
+         */
+        public double getMediaPontuacao(int grupo) {
+            return quantidades[grupo] == 0 ? Double.NaN : somas[grupo] / quantidades[grupo];
+        }
+
+        /**
+         * Retorna a menor pontuação total do grupo
+         * @param grupo O ordinal do grupo
+         * @return o mínimo, ou NaN se o grupo está vazio
+         */
+        public double getMinimo(int grupo) {
+            return quantidades[grupo] == 0 ? Double.NaN : minimos[grupo];
+        }
+
+        /**
+         * Retorna a maior pontuação total do grupo
+         * @param grupo O ordinal do grupo
+         * @return o máximo, ou NaN se o grupo está vazio
+         */
+        public double getMaximo(int grupo) {
+            return quantidades[grupo] == 0 ? Double.NaN : maximos[grupo];
+        }
+
+        /**
+         * Retorna a média de uma dimensão nas linhas do grupo em que ela foi avaliada
+         * @param grupo O ordinal do grupo
+         * @param dimensao O ordinal da dimensão no modelo
+         * @return a média, ou NaN se nenhuma linha do grupo avaliou a dimensão
+         */
+        public double getMediaDimensao(int grupo, int dimensao) {
+            int presentes = presencas[grupo][dimensao];
+            return presentes == 0 ? Double.NaN : somasDimensoes[grupo][dimensao] / presentes;
+        }
+    }
+
+    // Dicionário de Strings para códigos sequenciais
+    private static final class Dicionario {
+        private final Map<String, Integer> codigos = new HashMap<>();
+        private final List<String> valores = new ArrayList<>();
+
+        int codificar(String valor) {
+            Integer codigo = codigos.get(valor);
+            if (codigo == null) {
+                codigo = valores.size();
+                codigos.put(valor, codigo);
+                valores.add(valor);
+            }
+            return codigo;
+        }
+
+        int codigo(String valor) {
+            Integer codigo = codigos.get(valor);
+            return codigo == null ? -1 : codigo;
+        }
+
+        String valor(int codigo) {
+            return valores.get(codigo);
+        }
+
+        int tamanho() {
+            return valores.size();
+        }
+    }
+}
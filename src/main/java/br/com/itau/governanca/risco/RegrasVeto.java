@@ -0,0 +1,267 @@
+package br.com.itau.governanca.risco;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Regras de veto (bloqueadores absolutos) do modelo, declaradas em uma tabela e compiladas
+ * para os ordinais de um {@link ModeloCompilado}.
+ * <p>
+ * Cada regra compara um critério com um limite e, se atingida, liga o bit da sua posição na
+ * tabela ({@code 1 << i}). A compilação descarta as regras de critérios ausentes do modelo e
+ * ordena os predicados pelo ordinal do critério em arrays planos, com o limite já multiplicado
+ * pelo sinal da comparação: a verificação completa é um único laço sem desvios por regra, e a
+ * verificação de um critério percorre apenas os seus predicados. Valores ausentes (NaN) nunca
+ * vetam. As mensagens só são montadas ao descrever uma máscara.
+ * <p>
+ * Incluir uma regra é acrescentar uma linha em {@link #REGRAS}; o limite é de 32 regras.
+ * Instâncias são imutáveis e podem ser compartilhadas entre threads.
+ */
+final class RegrasVeto {
+
+    // Comparação das regras (valor * comparação > limite * comparação)
+    private static final int MAIOR_QUE = 1;
+
+    // Regras na ordem dos bits VETO_* da CalculadoraRisco
+    private static final Regra[] REGRAS = {
+        new Regra("Vulnerabilidade crítica de segurança não mitigada",
+                  "seguranca", "vulnerabilidades_criticas", MAIOR_QUE, 0),
+        new Regra("Tempo de resposta P95 > 3000ms em operações críticas",
+                  "performance", "percentil_95", MAIOR_QUE, 3000),
+        new Regra("Bugs que impedem fluxo principal do cliente",
+                  "bugs", "bugs_criticos", MAIOR_QUE, 0),
+        new Regra("Taxa de erro em produção >1% para operações críticas",
+                  "experiencia", "taxa_erro_usuario", MAIOR_QUE, 1),
+        new Regra("Falha em validação de conformidade regulatória",
+                  "seguranca", "conformidade_regulatoria", MAIOR_QUE, 0)
+    };
+
+    private static final String[] MENSAGENS = new String[REGRAS.length];
+
+    static {
+        if (REGRAS.length > Integer.SIZE) {
+            throw new IllegalStateException("No máximo " + Integer.SIZE + " regras de veto");
+        }
+        for (int i = 0; i < REGRAS.length; i++) {
+            MENSAGENS[i] = REGRAS[i].mensagem;
+        }
+    }
+
+    // Predicados compilados, ordenados pelo ordinal do critério
+    private final int[] criterios;
+    private final double[] sinais;
+    private final double[] limites;
+    private final int[] bits;
+    // Nomes do critério de cada predicado, para os dados aninhados
+    private final String[] dimensoes;
+    private final String[] nomesCriterios;
+    // Predicados do critério c: [inicioCriterio[c], inicioCriterio[c + 1])
+    private final int[] inicioCriterio;
+    // Bits de todas as regras do critério
+    private final int[] bitsCriterio;
+
+    /**
+     * Compila as regras para os ordinais de um modelo
+     * @param modelo O modelo cujos ordinais serão usados
+     */
+    RegrasVeto(ModeloCompilado modelo) {
+        int numCriterios = modelo.getNumCriterios();
+        int[] criterioRegra = new int[REGRAS.length];
+        int[] contagem = new int[numCriterios + 1];
+        int quantidade = 0;
+        for (int i = 0; i < REGRAS.length; i++) {
+            criterioRegra[i] = modelo.indiceCriterio(REGRAS[i].dimensao, REGRAS[i].criterio);
+            if (criterioRegra[i] != ModeloCompilado.SEM_INDICE) {
+                contagem[criterioRegra[i] + 1]++;
+                quantidade++;
+            }
+        }
+
+        inicioCriterio = new int[numCriterios + 1];
+        for (int c = 0; c < numCriterios; c++) {
+            inicioCriterio[c + 1] = inicioCriterio[c] + contagem[c + 1];
+        }
+        criterios = new int[quantidade];
+        sinais = new double[quantidade];
+        limites = new double[quantidade];
+        bits = new int[quantidade];
+        dimensoes = new String[quantidade];
+        nomesCriterios = new String[quantidade];
+        bitsCriterio = new int[numCriterios];
+        int[] proxima = Arrays.copyOf(inicioCriterio, numCriterios);
+        for (int i = 0; i < REGRAS.length; i++) {
+            int c = criterioRegra[i];
+            if (c == ModeloCompilado.SEM_INDICE) {
+                continue;
+            }
+            int p = proxima[c]++;
+            criterios[p] = c;
+            sinais[p] = REGRAS[i].comparacao;
+            limites[p] = REGRAS[i].comparacao * REGRAS[i].limite;
+            bits[p] = 1 << i;
+            dimensoes[p] = REGRAS[i].dimensao;
+            nomesCriterios[p] = REGRAS[i].criterio;
+            bitsCriterio[c] |= 1 << i;
+        }
+    }
+
+    /**
+     * Verifica todas as regras. Não aloca memória.
+     * @param valores Os valores de todos os critérios do modelo (NaN = ausente)
+     * @return a máscara dos vetos atingidos
+     */
+    int verificar(double[] valores) {
+        int vetos = 0;
+        for (int p = 0; p < criterios.length; p++) {
+            vetos |= valores[criterios[p]] * sinais[p] > limites[p] ? bits[p] : 0;
+        }
+        return vetos;
+    }
+
+    /**
+     * Verifica se alguma regra foi atingida, parando na primeira
+     * @param valores Os valores de todos os critérios do modelo (NaN = ausente)
+     * @return true se algum veto foi atingido
+     */
+    boolean algumVeto(double[] valores) {
+        for (int p = 0; p < criterios.length; p++) {
+            if (valores[criterios[p]] * sinais[p] > limites[p]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Verifica apenas as regras de um critério
+     * @param criterio O ordinal do critério
+     * @param valor O valor do critério (NaN = ausente)
+     * @return a máscara dos vetos do critério atingidos
+     */
+    int verificar(int criterio, double valor) {
+        int vetos = 0;
+        for (int p = inicioCriterio[criterio], fim = inicioCriterio[criterio + 1]; p < fim; p++) {
+            vetos |= valor * sinais[p] > limites[p] ? bits[p] : 0;
+        }
+        return vetos;
+    }
+
+    /**
+     * Retorna os bits das regras de um critério
+     * @param criterio O ordinal do critério
+     * @return a máscara com os bits das regras do critério, ou 0 se ele não participa de vetos
+     */
+    int bitsCriterio(int criterio) {
+        return bitsCriterio[criterio];
+    }
+
+    /**
+     * Marca os vetos de um lote em formato colunar, uma regra por vez sobre a coluna do
+     * seu critério; colunas null são ignoradas
+     * @param colunas Uma coluna de valores por critério do modelo
+     * @param quantidade O número de aplicações no lote
+     * @param vetos As máscaras de vetos das aplicações, acumuladas com OR
+     */
+    void marcarLote(double[][] colunas, int quantidade, int[] vetos) {
+        for (int p = 0; p < criterios.length; p++) {
+            double[] coluna = colunas[criterios[p]];
+            if (coluna == null) {
+                continue;
+            }
+            double sinal = sinais[p];
+            double limite = limites[p];
+            int bit = bits[p];
+            for (int i = 0; i < quantidade; i++) {
+                vetos[i] |= coluna[i] * sinal > limite ? bit : 0;
+            }
+        }
+    }
+
+    /**
+     * Verifica os predicados compilados sobre os dados aninhados por dimensão e critério;
+     * critérios ausentes dos dados ou nulos não vetam
+     * @param dados Um mapa com os valores para as dimensões e critérios
+     * @return a máscara dos vetos atingidos
+     */
+    int verificar(Map<String, Map<String, Double>> dados) {
+        int vetos = 0;
+        for (int p = 0; p < criterios.length; p++) {
+            Map<String, Double> dimensao = dados.get(dimensoes[p]);
+            Double valor = dimensao != null ? dimensao.get(nomesCriterios[p]) : null;
+            if (valor != null && valor * sinais[p] > limites[p]) {
+                vetos |= bits[p];
+            }
+        }
+        return vetos;
+    }
+
+    /**
+     * Converte uma máscara de vetos nas mensagens correspondentes, na ordem das regras
+     * @param mascara A máscara de bits
+     * @return as mensagens dos vetos presentes na máscara
+     */
+    static List<String> descrever(int mascara) {
+        List<String> vetos = new ArrayList<>(Integer.bitCount(mascara & mascaraTodas()));
+        for (int i = 0; i < MENSAGENS.length; i++) {
+            if ((mascara & (1 << i)) != 0) {
+                vetos.add(MENSAGENS[i]);
+            }
+        }
+        return vetos;
+    }
+
+    /**
+     * Retorna a posição da regra com a mensagem informada
+     * @param mensagem A mensagem do veto
+     * @return a posição da regra (o bit é {@code 1 << posição}), ou -1 se não houver
+     */
+    static int indiceMensagem(String mensagem) {
+        for (int i = 0; i < MENSAGENS.length; i++) {
+            if (MENSAGENS[i].equals(mensagem)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Retorna o número de regras da tabela
+     * @return o número de regras (o bit da regra i é {@code 1 << i})
+     */
+    static int quantidade() {
+        return REGRAS.length;
+    }
+
+    /**
+     * Retorna a mensagem de uma regra
+     * @param regra A posição da regra na tabela
+     * @return a mensagem do veto
+     */
+    static String mensagem(int regra) {
+        return MENSAGENS[regra];
+    }
+
+    // Máscara com os bits de todas as regras
+    private static int mascaraTodas() {
+        return REGRAS.length == Integer.SIZE ? -1 : (1 << REGRAS.length) - 1;
+    }
+
+    // Linha da tabela de regras
+    private static final class Regra {
+        private final String mensagem;
+        private final String dimensao;
+        private final String criterio;
+        private final int comparacao;
+        private final double limite;
+
+        Regra(String mensagem, String dimensao, String criterio, int comparacao, double limite) {
+            this.mensagem = mensagem;
+            this.dimensao = dimensao;
+            this.criterio = criterio;
+            this.comparacao = comparacao;
+            this.limite = limite;
+        }
+    }
+}
@@ -1,23 +1,38 @@
 package br.com.itau.governanca.risco;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.List;
 
 /**
- * Classe que representa o resultado de uma avaliação de risco
+ * Classe que representa o resultado de uma avaliação de risco.
+ * Instâncias são imutáveis: as coleções expostas não podem ser alteradas.
+ * <p>
+ * Internamente a classificação e o status são enums, os vetos uma máscara de bits
+ * (VETO_* da CalculadoraRisco) e as pontuações por dimensão um array primitivo. O mapa
+ * de pontuações e a lista de vetos são montados apenas se forem solicitados.
  */
 public class ResultadoAvaliacao {
     private final String nomeAplicacao;
     private final String versao;
     private final double pontuacaoTotal;
-    private final String classificacao;
-    private final Map<String, Double> pontuacoesDimensoes;
-    private final List<String> vetos;
-    private final String status;
+    private final ClassificacaoRisco classificacao;
+    private final StatusAvaliacao status;
+    private final int vetos;
+    // Dimensões avaliadas e suas pontuações (NaN = dimensão sem critérios, omitida do mapa)
+    private final String[] nomesDimensoes;
+    private final double[] pontuacoesDimensoes;
+    
+    // Visões montadas sob demanda
+    private Map<String, Double> mapaPontuacoes;
+    private List<String> listaVetos;
     
     /**
      * Construtor que cria um ResultadoAvaliacao a partir do relatório gerado pela CalculadoraRisco
      * @param relatorio O relatório gerado pela CalculadoraRisco
+     * @throws IllegalArgumentException se a classificação, o status ou algum veto não forem reconhecidos,
+     *         ou se o relatório não tiver a classificação, o status ou a lista de vetos
      */
     @SuppressWarnings("unchecked")
     public ResultadoAvaliacao(Map<String, Object> relatorio) {
@@ -26,11 +41,53 @@ public class ResultadoAvaliacao {
         
         Map<String, Object> resultado = (Map<String, Object>) relatorio.get("resultado");
         this.pontuacaoTotal = (double) resultado.get("pontuacao_total");
-        this.classificacao = (String) resultado.get("classificacao");
-        this.pontuacoesDimensoes = (Map<String, Double>) resultado.get("pontuacoes_dimensoes");
+        this.classificacao = ClassificacaoRisco.doRotulo((String) obrigatorio(resultado, "classificacao"));
+        
+        Map<String, Double> pontuacoes = (Map<String, Double>) resultado.get("pontuacoes_dimensoes");
+        this.nomesDimensoes = new String[pontuacoes.size()];
+        this.pontuacoesDimensoes = new double[pontuacoes.size()];
+        int d = 0;
+        for (Map.Entry<String, Double> entry : pontuacoes.entrySet()) {
+            nomesDimensoes[d] = entry.getKey();
+            pontuacoesDimensoes[d++] = entry.getValue();
+        }
         
-        this.vetos = (List<String>) relatorio.get("vetos");
-        this.status = (String) relatorio.get("status");
+        // Cópia: a lista do relatório pode ser alterada depois pelo chamador
+        this.listaVetos = List.copyOf((List<String>) obrigatorio(relatorio, "vetos"));
+        this.vetos = CalculadoraRisco.mascaraVetos(listaVetos);
+        this.status = StatusAvaliacao.valueOf((String) obrigatorio(relatorio, "status"));
+    }
+    
+    // Valor de um campo obrigatório do relatório
+    private static Object obrigatorio(Map<String, Object> mapa, String campo) {
+        Object valor = mapa.get(campo);
+        if (valor == null) {
+            throw new IllegalArgumentException("Relatório sem o campo " + campo);
+        }
+        return valor;
+    }
+    
+    /**
+     * Construtor usado pela avaliação tipada e pelos leitores, sem o mapa do relatório
+     * @param nomeAplicacao Nome da aplicação
+     * @param versao Versão da aplicação
+     * @param pontuacaoTotal A pontuação total de risco
+     * @param classificacao A classificação de risco
+     * @param status O status da avaliação
+     * @param vetos A máscara de vetos (bits VETO_* da CalculadoraRisco)
+     * @param nomesDimensoes Os nomes das dimensões, na ordem das pontuações (não é copiado)
+     * @param pontuacoesDimensoes As pontuações por dimensão, NaN para dimensões omitidas (não é copiado)
+     */
+    ResultadoAvaliacao(String nomeAplicacao, String versao, double pontuacaoTotal, ClassificacaoRisco classificacao,
+                       StatusAvaliacao status, int vetos, String[] nomesDimensoes, double[] pontuacoesDimensoes) {
+        this.nomeAplicacao = nomeAplicacao;
+        this.versao = versao;
+        this.pontuacaoTotal = pontuacaoTotal;
+        this.classificacao = classificacao;
+        this.status = status;
+        this.vetos = vetos;
+        this.nomesDimensoes = nomesDimensoes;
+        this.pontuacoesDimensoes = pontuacoesDimensoes;
     }
     
     /**
@@ -38,7 +95,7 @@ public class ResultadoAvaliacao {
      * @return true se foi aprovada, false caso contrário
      */
     public boolean isAprovado() {
-        return "APROVADO".equals(status);
+        return status == StatusAvaliacao.APROVADO;
     }
     
     /**
@@ -46,7 +103,7 @@ public class ResultadoAvaliacao {
      * @return true se foi bloqueada, false caso contrário
      */
     public boolean isBloqueado() {
-        return "BLOQUEADO".equals(status);
+        return status == StatusAvaliacao.BLOQUEADO;
     }
     
     /**
@@ -54,7 +111,7 @@ public class ResultadoAvaliacao {
      * @return true se foi aprovada com condições, false caso contrário
      */
     public boolean isCondicionado() {
-        return "CONDICIONADO".equals(status);
+        return status == StatusAvaliacao.CONDICIONADO;
     }
     
     /**
@@ -62,7 +119,7 @@ public class ResultadoAvaliacao {
      * @return true se tem baixo risco, false caso contrário
      */
     public boolean isBaixoRisco() {
-        return classificacao.startsWith("VERDE");
+        return classificacao == ClassificacaoRisco.VERDE;
     }
     
     /**
@@ -70,7 +127,7 @@ public class ResultadoAvaliacao {
      * @return true se tem médio risco, false caso contrário
      */
     public boolean isMedioRisco() {
-        return classificacao.startsWith("AMARELO");
+        return classificacao == ClassificacaoRisco.AMARELO;
     }
     
     /**
@@ -78,7 +135,7 @@ public class ResultadoAvaliacao {
      * @return true se tem alto risco, false caso contrário
      */
     public boolean isAltoRisco() {
-        return classificacao.startsWith("VERMELHO");
+        return classificacao == ClassificacaoRisco.VERMELHO;
     }
     
     /**
@@ -110,6 +167,14 @@ public class ResultadoAvaliacao {
      * @return a classificação de risco
      */
     public String getClassificacao() {
+        return classificacao.getRotulo();
+    }
+    
+    /**
+     * Retorna a classificação de risco como enum
+     * @return a classificação de risco
+     */
+    public ClassificacaoRisco getClassificacaoRisco() {
         return classificacao;
     }
     
@@ -118,7 +183,32 @@ public class ResultadoAvaliacao {
      * @return as pontuações por dimensão
      */
     public Map<String, Double> getPontuacoesDimensoes() {
-        return pontuacoesDimensoes;
+        Map<String, Double> mapa = mapaPontuacoes;
+        if (mapa == null) {
+            Map<String, Double> pontuacoes = new LinkedHashMap<>();
+            for (int d = 0; d < nomesDimensoes.length; d++) {
+                if (pontuacoesDimensoes[d] == pontuacoesDimensoes[d]) {
+                    pontuacoes.put(nomesDimensoes[d], pontuacoesDimensoes[d]);
+                }
+            }
+            mapa = Collections.unmodifiableMap(pontuacoes);
+            mapaPontuacoes = mapa;
+        }
+        return mapa;
+    }
+    
+    /**
+     * Retorna a pontuação de uma dimensão sem montar o mapa de pontuações
+     * @param dimensao O nome da dimensão
+     * @return a pontuação da dimensão, ou NaN se ela não foi avaliada
+     */
+    public double getPontuacaoDimensao(String dimensao) {
+        for (int d = 0; d < nomesDimensoes.length; d++) {
+            if (nomesDimensoes[d].equals(dimensao)) {
+                return pontuacoesDimensoes[d];
+            }
+        }
+        return Double.NaN;
     }
     
     /**
@@ -126,6 +216,19 @@ public class ResultadoAvaliacao {
      * @return os vetos aplicados
      */
     public List<String> getVetos() {
+        List<String> lista = listaVetos;
+        if (lista == null) {
+            lista = Collections.unmodifiableList(CalculadoraRisco.descreverVetos(vetos));
+            listaVetos = lista;
+        }
+        return lista;
+    }
+    
+    /**
+     * Retorna os vetos aplicados como máscara de bits
+     * @return a máscara de vetos (bits VETO_* da CalculadoraRisco)
+     */
+    public int getMascaraVetos() {
         return vetos;
     }
     
@@ -134,6 +237,14 @@ public class ResultadoAvaliacao {
      * @return o status da avaliação
      */
     public String getStatus() {
+        return status.name();
+    }
+    
+    /**
+     * Retorna o status da avaliação como enum
+     * @return o status da avaliação
+     */
+    public StatusAvaliacao getStatusAvaliacao() {
         return status;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,106 @@
+package br.com.itau.governanca.risco;
+
+/**
+ * Resultado da avaliação de um lote de aplicações em formato colunar.
+ * Os arrays são expostos diretamente, sem cópia, e podem ser reaproveitados entre lotes
+ * através de {@link CalculadoraRisco#avaliarLote(double[][], int, ResultadoLote)}.
+ * Apenas as primeiras {@link #getQuantidade()} posições de cada array são válidas.
+ */
+public class ResultadoLote {
+    private int quantidade;
+    private double[][] pontuacoesDimensoes;
+    private double[] pesosAcumulados;
+    private double[] pontuacoesTotais;
+    private byte[] classificacoes;
+    private int[] vetos;
+    
+    /**
+     * Construtor que reserva os arrays para um lote
+     * @param numDimensoes O número de dimensões do modelo
+     * @param capacidade O número máximo de aplicações do lote
+     */
+    public ResultadoLote(int numDimensoes, int capacidade) {
+        alocar(numDimensoes, capacidade);
+    }
+    
+    // Garante capacidade para o lote, realocando apenas se necessário
+    void preparar(int numDimensoes, int quantidade) {
+        if (pontuacoesDimensoes.length != numDimensoes || pontuacoesTotais.length < quantidade) {
+            alocar(numDimensoes, quantidade);
+        }
+        this.quantidade = quantidade;
+    }
+    
+    private void alocar(int numDimensoes, int capacidade) {
+        this.pontuacoesDimensoes = new double[numDimensoes][capacidade];
+        this.pesosAcumulados = new double[capacidade];
+        this.pontuacoesTotais = new double[capacidade];
+        this.classificacoes = new byte[capacidade];
+        this.vetos = new int[capacidade];
+        this.quantidade = 0;
+    }
+    
+    /**
+     * Retorna a classificação de uma aplicação do lote
+     * @param aplicacao A posição da aplicação no lote
+     * @return a classificação de risco
+     */
+    public ClassificacaoRisco getClassificacao(int aplicacao) {
+        return ClassificacaoRisco.doOrdinal(classificacoes[aplicacao]);
+    }
+    
+    /**
+     * Retorna o status de uma aplicação do lote: BLOQUEADO se houver vetos, APROVADO se
+     * o risco for baixo e CONDICIONADO caso contrário
+     * @param aplicacao A posição da aplicação no lote
+     * @return o status da avaliação
+     */
+    public String getStatus(int aplicacao) {
+        return StatusAvaliacao.de(getClassificacao(aplicacao), vetos[aplicacao]).name();
+    }
+    
+    /**
+     * Retorna o número de aplicações avaliadas no lote
+     * @return o número de aplicações
+     */
+    public int getQuantidade() {
+        return quantidade;
+    }
+    
+    /**
+     * Retorna as pontuações por dimensão, indexadas por [dimensão][aplicação]
+     * @return as pontuações por dimensão
+     */
+    public double[][] getPontuacoesDimensoes() {
+        return pontuacoesDimensoes;
+    }
+    
+    /**
+     * Retorna as pontuações totais de risco de cada aplicação
+     * @return as pontuações totais
+     */
+    public double[] getPontuacoesTotais() {
+        return pontuacoesTotais;
+    }
+    
+    /**
+     * Retorna os ordinais de {@link ClassificacaoRisco} de cada aplicação
+     * @return as classificações
+     */
+    public byte[] getClassificacoes() {
+        return classificacoes;
+    }
+    
+    /**
+     * Retorna as máscaras de vetos (bits VETO_* da CalculadoraRisco) de cada aplicação
+     * @return as máscaras de vetos
+     */
+    public int[] getVetos() {
+        return vetos;
+    }
+    
+    // Área de trabalho usada durante a pontuação
+    double[] getPesosAcumulados() {
+        return pesosAcumulados;
+    }
+}
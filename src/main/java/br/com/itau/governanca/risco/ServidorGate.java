@@ -0,0 +1,342 @@
+package br.com.itau.governanca.risco;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Servidor HTTP de longa duração para o gate de qualidade, baseado no servidor HTTP embutido
+ * no JDK, para que pipelines de CI/CD avaliem aplicações sem iniciar uma JVM por verificação.
+ * <p>
+ * Endpoints:
+ * <ul>
+ *   <li>{@code POST /avaliacoes}: recebe {@code {"nome_aplicacao", "versao", "dados_detalhados"}}
+ *       em JSON e responde o relatório de {@code gerarRelatorio} em JSON (esquema de
+ *       relatorio_qube.json, sem {@code data_avaliacao}), com os dados na ordem do modelo.
+ *       Dimensões ou critérios fora do modelo, dimensões vazias e valores nulos, que
+ *       {@code gerarRelatorio} não aceita, são recusados com 400;</li>
+ *   <li>{@code GET /saude}: responde a versão e a assinatura do modelo em uso.</li>
+ * </ul>
+ * <p>
+ * As conexões são mantidas abertas entre requisições (keep-alive) e requisições enviadas em
+ * sequência na mesma conexão (pipelining) são respondidas na ordem de chegada. A thread de
+ * despacho do servidor apenas admite a requisição; a leitura, a avaliação e a resposta são
+ * feitas em um executor de threads virtuais, quando a JVM (21+) as oferece, ou de threads de
+ * plataforma do tamanho da capacidade caso contrário (ver {@link AvaliadorPortfolio#criarExecutorIo(int)}).
+ * <p>
+ * O número de requisições em andamento é limitado pela capacidade: cada requisição admitida
+ * ocupa um contexto (leitor, escritor e buffers reutilizados) de uma fila de tamanho fixo. Sem
+ * contexto livre, a requisição é recusada imediatamente com 503 e {@code Retry-After}, de modo
+ * que a sobrecarga não acumula filas nem memória.
+ */
+public class ServidorGate implements AutoCloseable {
+
+    /** Capacidade padrão: número máximo de requisições em andamento */
+    public static final int CAPACIDADE_PADRAO = 256;
+
+    /** Tamanho máximo do corpo de uma requisição */
+    public static final int TAMANHO_MAXIMO_REQUISICAO = 64 * 1024;
+
+    private static final String TIPO_JSON = "application/json; charset=utf-8";
+
+    private static final Logger LOG = Logger.getLogger(ServidorGate.class.getName());
+
+    private final CalculadoraRisco calculadoraFixa;
+    private final GerenciadorModelo gerenciador;
+    private final HttpServer servidor;
+    private final ExecutorService executor;
+    private final ArrayBlockingQueue<Contexto> contextosLivres;
+
+    private final LongAdder atendidas = new LongAdder();
+    private final LongAdder rejeitadas = new LongAdder();
+    private final LongAdder invalidas = new LongAdder();
+
+    /**
+     * Construtor com um modelo fixo
+     * @param calculadora A calculadora usada em todas as avaliações
+     * @param endereco O endereço de escuta (porta 0 para uma porta livre)
+     * @param capacidade O número máximo de requisições em andamento
+     * @throws IOException se o endereço não puder ser usado
+     */
+    public ServidorGate(CalculadoraRisco calculadora, InetSocketAddress endereco, int capacidade)
+            throws IOException {
+        this(calculadora, null, endereco, capacidade);
+    }
+
+    /**
+     * Construtor que acompanha as trocas de modelo do gerenciador: cada requisição é avaliada
+     * com o modelo em uso no momento em que é processada
+     * @param gerenciador O gerenciador do modelo
+     * @param endereco O endereço de escuta (porta 0 para uma porta livre)
+     * @param capacidade O número máximo de requisições em andamento
+     * @throws IOException se o endereço não puder ser usado
+     */
+    public ServidorGate(GerenciadorModelo gerenciador, InetSocketAddress endereco, int capacidade)
+            throws IOException {
+        this(null, gerenciador, endereco, capacidade);
+    }
+
+    private ServidorGate(CalculadoraRisco calculadora, GerenciadorModelo gerenciador,
+                         InetSocketAddress endereco, int capacidade) throws IOException {
+        if (capacidade <= 0) {
+            throw new IllegalArgumentException("A capacidade deve ser positiva: " + capacidade);
+        }
+        this.calculadoraFixa = calculadora;
+        this.gerenciador = gerenciador;
+        this.contextosLivres = new ArrayBlockingQueue<>(capacidade);
+        for (int i = 0; i < capacidade; i++) {
+            contextosLivres.add(new Contexto());
+        }
+        // Sem threads virtuais, uma thread de plataforma por contexto: nunca há mais requisições em andamento
+        this.executor = AvaliadorPortfolio.criarExecutorIo(capacidade);
+        this.servidor = HttpServer.create(endereco, capacidade);
+        // Sem executor: o handler roda na thread de despacho e apenas admite a requisição
+        servidor.createContext("/avaliacoes", troca -> admitir(troca, true));
+        servidor.createContext("/saude", troca -> admitir(troca, false));
+    }
+
+    /**
+     * Inicia o atendimento das requisições
+     */
+    public void iniciar() {
+        servidor.start();
+    }
+
+    /**
+     * Retorna a porta em que o servidor escuta
+     * @return a porta
+     */
+    public int getPorta() {
+        return servidor.getAddress().getPort();
+    }
+
+    /**
+     * Para o servidor, aguardando até {@code segundos} pelas requisições em andamento
+     * @param segundos O tempo máximo de espera
+     */
+    public void parar(int segundos) {
+        servidor.stop(segundos);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(segundos, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executor.shutdownNow();
+    }
+
+    /**
+     * Para o servidor imediatamente
+     */
+    @Override
+    public void close() {
+        parar(0);
+    }
+
+    /**
+     * Retorna o número de avaliações respondidas com sucesso
+     * @return o número de requisições atendidas
+     */
+    public long getAtendidas() {
+        return atendidas.sum();
+    }
+
+    /**
+     * Retorna o número de requisições recusadas por falta de capacidade (503)
+     * @return o número de requisições rejeitadas
+     */
+    public long getRejeitadas() {
+        return rejeitadas.sum();
+    }
+
+    /**
+     * Retorna o número de requisições malformadas (4xx)
+     * @return o número de requisições inválidas
+     */
+    public long getInvalidas() {
+        return invalidas.sum();
+    }
+
+    // Executado na thread de despacho: reserva um contexto ou recusa a requisição
+    private void admitir(HttpExchange troca, boolean avaliacao) throws IOException {
+        Contexto contexto = contextosLivres.poll();
+        if (contexto == null) {
+            rejeitadas.increment();
+            troca.getResponseHeaders().set("Retry-After", "1");
+            responderErro(troca, 503, "Capacidade esgotada, tente novamente");
+            return;
+        }
+        try {
+            executor.execute(() -> processar(troca, contexto, avaliacao));
+        } catch (RuntimeException e) {
+            // Executor encerrado durante a parada do servidor
+            contextosLivres.add(contexto);
+            troca.close();
+        }
+    }
+
+    private void processar(HttpExchange troca, Contexto contexto, boolean avaliacao) {
+        try {
+            if (avaliacao) {
+                avaliar(troca, contexto);
+            } else {
+                saude(troca);
+            }
+        } catch (IOException e) {
+            // Conexão encerrada pelo cliente
+        } catch (RuntimeException e) {
+            // Os detalhes ficam no log; o cliente recebe apenas uma mensagem genérica
+            LOG.log(Level.SEVERE, "Falha ao atender " + troca.getRequestMethod() + " " + troca.getRequestURI(), e);
+            if (troca.getResponseCode() < 0) {
+                try {
+                    responderErro(troca, 500, "Erro interno do servidor");
+                } catch (IOException ignorada) {
+                    // Conexão encerrada pelo cliente
+                }
+            }
+        } finally {
+            troca.close();
+            contextosLivres.add(contexto);
+        }
+    }
+
+    private void avaliar(HttpExchange troca, Contexto contexto) throws IOException {
+        if (!"POST".equals(troca.getRequestMethod())) {
+            invalidas.increment();
+            troca.getResponseHeaders().set("Allow", "POST");
+            responderErro(troca, 405, "Use POST em /avaliacoes");
+            return;
+        }
+        int tamanho = contexto.lerCorpo(troca.getRequestBody());
+        if (tamanho < 0) {
+            invalidas.increment();
+            responderErro(troca, 413, "Requisição maior que " + TAMANHO_MAXIMO_REQUISICAO + " bytes");
+            return;
+        }
+
+        contexto.atualizarModelo(calculadora());
+        try {
+            contexto.leitor.lerRequisicao(contexto.entrada, 0, tamanho, contexto.valores);
+        } catch (IllegalArgumentException e) {
+            invalidas.increment();
+            responderErro(troca, 400, e.getMessage());
+            return;
+        }
+
+        contexto.saida.reset();
+        contexto.escritor.escrever(contexto.leitor.getNomeAplicacaoLido(), contexto.leitor.getVersaoLida(),
+                                   null, contexto.valores, contexto.saida);
+        // Contada antes do envio, como as inválidas: o cliente pode ler a resposta antes do fim da escrita
+        atendidas.increment();
+        troca.getResponseHeaders().set("Content-Type", TIPO_JSON);
+        troca.sendResponseHeaders(200, contexto.saida.size());
+        try (OutputStream corpo = troca.getResponseBody()) {
+            contexto.saida.writeTo(corpo);
+        }
+    }
+
+    private void saude(HttpExchange troca) throws IOException {
+        ModeloCompilado modelo = calculadora().getModelo();
+        responder(troca, 200, "{\"status\":\"OK\",\"versao_modelo\":" + texto(modelo.getVersao())
+            + ",\"assinatura_modelo\":\"" + Long.toHexString(modelo.getAssinatura()) + "\"}");
+    }
+
+    private static void responderErro(HttpExchange troca, int codigo, String mensagem) throws IOException {
+        responder(troca, codigo, "{\"erro\":" + texto(mensagem) + "}");
+    }
+
+    private static void responder(HttpExchange troca, int codigo, String json) throws IOException {
+        byte[] corpo = json.getBytes(StandardCharsets.UTF_8);
+        troca.getResponseHeaders().set("Content-Type", TIPO_JSON);
+        troca.sendResponseHeaders(codigo, corpo.length);
+        try (OutputStream saida = troca.getResponseBody()) {
+            saida.write(corpo);
+        }
+    }
+
+    // String JSON com aspas e escapes
+    private static String texto(String valor) {
+        return new String(EscritorJsonRelatorio.codificar(valor), StandardCharsets.UTF_8);
+    }
+
+    private CalculadoraRisco calculadora() {
+        return gerenciador != null ? gerenciador.getCalculadora() : calculadoraFixa;
+    }
+
+    /**
+     * Inicia o servidor a partir da linha de comando
+     * @param args porta [arquivo de configuração do modelo] [capacidade]
+     * @throws IOException se o servidor não puder ser iniciado
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 3) {
+            System.err.println("Uso: ServidorGate <porta> [arquivo_modelo.properties] [capacidade]");
+            System.exit(1);
+        }
+        InetSocketAddress endereco = new InetSocketAddress(Integer.parseInt(args[0]));
+        int capacidade = args.length > 2 ? Integer.parseInt(args[2]) : CAPACIDADE_PADRAO;
+        ServidorGate servidor;
+        if (args.length > 1) {
+            GerenciadorModelo gerenciador = new GerenciadorModelo(Paths.get(args[1]));
+            gerenciador.iniciarMonitoramento();
+            servidor = new ServidorGate(gerenciador, endereco, capacidade);
+        } else {
+            servidor = new ServidorGate(new CalculadoraRisco(), endereco, capacidade);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> servidor.parar(5)));
+        servidor.iniciar();
+        System.out.println("Gate de qualidade em http://localhost:" + servidor.getPorta() + "/avaliacoes");
+    }
+
+    // Estado reutilizado por uma requisição em andamento; leitor e escritor não são thread-safe
+    private static final class Contexto {
+        private byte[] entrada = new byte[4096];
+        private final ByteArrayOutputStream saida = new ByteArrayOutputStream(4096);
+        private CalculadoraRisco calculadora;
+        private LeitorJsonRelatorio leitor;
+        private EscritorJsonRelatorio escritor;
+        private double[] valores;
+
+        // Recria leitor e escritor apenas quando o modelo em uso muda
+        void atualizarModelo(CalculadoraRisco atual) {
+            if (atual != calculadora) {
+                calculadora = atual;
+                leitor = new LeitorJsonRelatorio(atual.getModelo());
+                escritor = new EscritorJsonRelatorio(atual);
+                valores = atual.getModelo().novoVetorValores();
+            }
+        }
+
+        // Lê o corpo inteiro para o buffer de entrada; -1 se exceder o tamanho máximo
+        int lerCorpo(InputStream corpo) throws IOException {
+            int tamanho = 0;
+            while (true) {
+                if (tamanho == entrada.length) {
+                    if (tamanho >= TAMANHO_MAXIMO_REQUISICAO) {
+                        return corpo.read() < 0 ? tamanho : -1;
+                    }
+                    entrada = Arrays.copyOf(entrada, Math.min(entrada.length * 2, TAMANHO_MAXIMO_REQUISICAO));
+                }
+                int lidos = corpo.read(entrada, tamanho, entrada.length - tamanho);
+                if (lidos < 0) {
+                    return tamanho;
+                }
+                tamanho += lidos;
+            }
+        }
+    }
+}
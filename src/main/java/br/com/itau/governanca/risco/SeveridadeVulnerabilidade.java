@@ -0,0 +1,62 @@
+package br.com.itau.governanca.risco;
+
+/**
+ * Severidade de uma vulnerabilidade encontrada por uma ferramenta de varredura, com o peso
+ * com que ela entra no total ponderado (critério vulnerabilidades_totais)
+ */
+public enum SeveridadeVulnerabilidade {
+    INFORMATIVA(0.0),
+    BAIXA(0.25),
+    MEDIA(0.5),
+    ALTA(1.0),
+    CRITICA(1.0);
+
+    private static final SeveridadeVulnerabilidade[] VALORES = values();
+
+    private final double peso;
+
+    SeveridadeVulnerabilidade(double peso) {
+        this.peso = peso;
+    }
+
+    /**
+     * Classifica uma nota de severidade de segurança na escala do CVSS (0 a 10), como a
+     * propriedade security-severity das regras SARIF
+     * @param nota A nota de severidade
+     * @return CRITICA a partir de 9,0, ALTA a partir de 7,0, MEDIA a partir de 4,0, BAIXA
+     *         acima de 0 e INFORMATIVA para 0
+     * @throws IllegalArgumentException se a nota estiver fora do intervalo [0, 10]
+     */
+    public static SeveridadeVulnerabilidade daNota(double nota) {
+        if (!(nota >= 0.0 && nota <= 10.0)) {
+            throw new IllegalArgumentException("Nota de severidade fora do intervalo [0, 10]: " + nota);
+        }
+        if (nota >= 9.0) {
+            return CRITICA;
+        } else if (nota >= 7.0) {
+            return ALTA;
+        } else if (nota >= 4.0) {
+            return MEDIA;
+        } else if (nota > 0.0) {
+            return BAIXA;
+        }
+        return INFORMATIVA;
+    }
+
+    /**
+     * Retorna a severidade a partir do seu ordinal, sem alocar o array de values()
+     * @param ordinal O ordinal da severidade
+     * @return A severidade correspondente
+     */
+    public static SeveridadeVulnerabilidade doOrdinal(int ordinal) {
+        return VALORES[ordinal];
+    }
+
+    /**
+     * Retorna o peso da severidade no total ponderado de vulnerabilidades
+     * @return o peso, de 0 (informativa) a 1 (alta e crítica)
+     */
+    public double getPeso() {
+        return peso;
+    }
+}
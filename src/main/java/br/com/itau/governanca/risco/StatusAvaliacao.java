@@ -0,0 +1,40 @@
+package br.com.itau.governanca.risco;
+
+/**
+ * Status final de uma avaliação para o gate de qualidade
+ */
+public enum StatusAvaliacao {
+    /** Baixo risco e nenhum veto: liberada para produção */
+    APROVADO,
+    /** Risco médio ou alto sem vetos: liberação condicionada a um plano de mitigação */
+    CONDICIONADO,
+    /** Algum critério de veto foi atingido */
+    BLOQUEADO;
+
+    private static final StatusAvaliacao[] VALORES = values();
+
+    /**
+     * Determina o status a partir da classificação e da máscara de vetos
+     * @param classificacao A classificação de risco
+     * @param vetos A máscara de vetos (bits VETO_* da CalculadoraRisco)
+     * @return o status da avaliação
+     */
+    public static StatusAvaliacao de(ClassificacaoRisco classificacao, int vetos) {
+        if (vetos != 0) {
+            return BLOQUEADO;
+        } else if (classificacao == ClassificacaoRisco.VERDE) {
+            return APROVADO;
+        } else {
+            return CONDICIONADO;
+        }
+    }
+
+    /**
+     * Retorna o status a partir do seu ordinal, sem alocar o array de values()
+     * @param ordinal O ordinal do status
+     * @return o status correspondente
+     */
+    public static StatusAvaliacao doOrdinal(int ordinal) {
+        return VALORES[ordinal];
+    }
+}
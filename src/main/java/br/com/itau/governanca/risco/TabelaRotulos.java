@@ -0,0 +1,77 @@
+package br.com.itau.governanca.risco;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Tabela de hash aberta que associa rótulos (em bytes UTF-8) a índices inteiros.
+ * A busca é feita diretamente sobre um trecho de um array de bytes, sem criar Strings,
+ * e por isso é usada pelos leitores de arquivos para resolver rótulos em ordinais do modelo.
+ * Instâncias são imutáveis após a inserção dos rótulos.
+ */
+final class TabelaRotulos {
+
+    /** Valor retornado quando o rótulo não está na tabela */
+    static final int AUSENTE = -1;
+
+    private final byte[][] chaves;
+    private final int[] valores;
+    private final int mascara;
+
+    /**
+     * Construtor que reserva espaço para a quantidade informada de rótulos
+     * @param capacidade O número máximo de rótulos
+     */
+    TabelaRotulos(int capacidade) {
+        int tamanho = Integer.highestOneBit(Math.max(4, capacidade * 2) - 1) << 1;
+        this.chaves = new byte[tamanho][];
+        this.valores = new int[tamanho];
+        this.mascara = tamanho - 1;
+        Arrays.fill(valores, AUSENTE);
+    }
+
+    /**
+     * Associa um rótulo a um valor
+     * @param rotulo O rótulo
+     * @param valor O valor (não negativo)
+     */
+    void inserir(String rotulo, int valor) {
+        byte[] chave = rotulo.getBytes(StandardCharsets.UTF_8);
+        int posicao = hash(chave, 0, chave.length) & mascara;
+        while (chaves[posicao] != null && !Arrays.equals(chaves[posicao], chave)) {
+            posicao = (posicao + 1) & mascara;
+        }
+        chaves[posicao] = chave;
+        valores[posicao] = valor;
+    }
+
+    /**
+     * Busca o valor associado ao trecho {@code [inicio, fim)} de um array de bytes
+     * @param bytes Os bytes que contêm o rótulo
+     * @param inicio A posição inicial (inclusiva)
+     * @param fim A posição final (exclusiva)
+     * @return O valor associado, ou {@link #AUSENTE}
+     */
+    int buscar(byte[] bytes, int inicio, int fim) {
+        int posicao = hash(bytes, inicio, fim) & mascara;
+        byte[] chave;
+        while ((chave = chaves[posicao]) != null) {
+            if (chave.length == fim - inicio
+                    && Arrays.equals(chave, 0, chave.length, bytes, inicio, fim)) {
+                return valores[posicao];
+            }
+            posicao = (posicao + 1) & mascara;
+        }
+        return AUSENTE;
+    }
+
+    // FNV-1a de 32 bits
+    private static int hash(byte[] bytes, int inicio, int fim) {
+        int hash = 0x811c9dc5;
+        for (int i = inicio; i < fim; i++) {
+            hash ^= bytes[i];
+            hash *= 0x01000193;
+        }
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,172 @@
+package br.com.itau.governanca.risco;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Testes unitários para o AgregadorVulnerabilidades e o IndiceVulnerabilidades, com saídas de
+ * exemplo em src/test/resources/varreduras
+ */
+public class AgregadorVulnerabilidadesTest {
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    @DisplayName("Deve agregar SARIF e ZAP sem duplicadas e preencher a dimensão seguranca")
+    public void testVarredurasDeExemplo() throws Exception {
+        AgregadorVulnerabilidades agregador = new AgregadorVulnerabilidades();
+        AgregadorVulnerabilidades.ResultadoAgregacao resultado = agregador.agregar(exemplos());
+
+        // SARIF: 2 críticas, 2 altas, 1 média (regras depois dos resultados), 1 baixa e 1 informativa;
+        // ZAP: 2 altas, 2 médias, 1 baixa e 1 informativa
+        assertEquals(2, resultado.getArquivos());
+        assertEquals(2, resultado.getQuantidade(SeveridadeVulnerabilidade.CRITICA));
+        assertEquals(4, resultado.getQuantidade(SeveridadeVulnerabilidade.ALTA));
+        assertEquals(3, resultado.getQuantidade(SeveridadeVulnerabilidade.MEDIA));
+        assertEquals(2, resultado.getQuantidade(SeveridadeVulnerabilidade.BAIXA));
+        assertEquals(2, resultado.getQuantidade(SeveridadeVulnerabilidade.INFORMATIVA));
+        assertEquals(13, resultado.getTotal());
+        assertEquals(13, resultado.getNovas());
+        assertEquals(3, resultado.getDuplicadas());
+        assertEquals(3, resultado.getIgnoradas());
+
+        // A03 (injeção) por CWE e por nota no resultado, A08 por CWE, A02 por tag OWASP e A04 pelo cweid do ZAP
+        assertEquals(6, resultado.getQuantidadeCategoria(3));
+        assertEquals(1, resultado.getQuantidadeCategoria(8));
+        assertEquals(1, resultado.getQuantidadeCategoria(2));
+        assertEquals(1, resultado.getQuantidadeCategoria(4));
+        assertEquals(2, resultado.getQuantidadeCategoria(0));
+        assertEquals(0, resultado.getQuantidadeCategoria(1));
+
+        Map<String, Double> dados = resultado.getDadosSeguranca();
+        assertEquals(2.0, dados.get("vulnerabilidades_criticas"));
+        assertEquals(2 + 4 + 3 * 0.5 + 2 * 0.25, dados.get("vulnerabilidades_totais"), 1e-12);
+        assertEquals(60.0, dados.get("owasp_top10"), 1e-12);
+        assertEquals(13, agregador.getIndice().getQuantidade());
+
+        // A crítica aciona o veto de vulnerabilidades
+        CalculadoraRisco calculadora = new CalculadoraRisco();
+        assertEquals(calculadora.calcularPontuacaoDimensao("seguranca",
+                         Map.of("vulnerabilidades_criticas", 2.0, "vulnerabilidades_totais", 8.0, "owasp_top10", 60.0)),
+                     calculadora.calcularPontuacaoDimensao("seguranca", dados), 1e-12);
+    }
+
+    @Test
+    @DisplayName("Deve reutilizar o índice persistido e classificar apenas as vulnerabilidades novas")
+    public void testIndicePersistido() throws Exception {
+        Path arquivoIndice = diretorio.resolve("vulnerabilidades.idx");
+        IndiceVulnerabilidades indice = IndiceVulnerabilidades.carregar(arquivoIndice);
+        assertEquals(0, indice.getQuantidade());
+        Map<String, Double> primeira = new AgregadorVulnerabilidades(indice).agregar(exemplos()).getDadosSeguranca();
+        indice.salvar(arquivoIndice);
+
+        // Segunda noite: as mesmas vulnerabilidades, todas conhecidas, com os mesmos critérios
+        IndiceVulnerabilidades carregado = IndiceVulnerabilidades.carregar(arquivoIndice);
+        assertEquals(13, carregado.getQuantidade());
+        assertEquals(1, carregado.getExecucao());
+        AgregadorVulnerabilidades agregador = new AgregadorVulnerabilidades(carregado);
+        AgregadorVulnerabilidades.ResultadoAgregacao segunda = agregador.agregar(exemplos());
+        assertEquals(2, segunda.getExecucao());
+        assertEquals(0, segunda.getNovas());
+        assertEquals(13, segunda.getConhecidas());
+        assertEquals(primeira, segunda.getDadosSeguranca());
+
+        // Terceira noite: só o ZAP; as vulnerabilidades do SAST não estão mais presentes
+        AgregadorVulnerabilidades.ResultadoAgregacao terceira = agregador.agregar(exemplo("zap_canais.json"));
+        assertEquals(6, terceira.getTotal());
+        assertEquals(0, terceira.getNovas());
+        assertEquals(Map.of("vulnerabilidades_criticas", 0.0, "vulnerabilidades_totais", 2 + 2 * 0.5 + 0.25,
+                            "owasp_top10", 80.0), terceira.getDadosSeguranca());
+        assertEquals(7, carregado.descartarAusentes(1));
+        assertEquals(6, carregado.getQuantidade());
+
+        // Varredura sintética grande, com mensagens maiores que o buffer de leitura
+        Path grande = diretorio.resolve("grande.sarif");
+        escreverSarif(grande, 20_000);
+        AgregadorVulnerabilidades.ResultadoAgregacao sintetica = agregador.agregar(grande);
+        assertEquals(5000, sintetica.getTotal());
+        assertEquals(15_000, sintetica.getDuplicadas());
+        assertEquals(1250, sintetica.getQuantidade(SeveridadeVulnerabilidade.CRITICA));
+        assertEquals(3750, sintetica.getQuantidade(SeveridadeVulnerabilidade.MEDIA));
+        carregado.salvar(arquivoIndice);
+        assertEquals(5006, IndiceVulnerabilidades.carregar(arquivoIndice).getQuantidade());
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar formatos desconhecidos, JSON inválido e índices corrompidos")
+    public void testEntradasInvalidas() throws IOException {
+        AgregadorVulnerabilidades agregador = new AgregadorVulnerabilidades();
+        assertThrows(IllegalArgumentException.class,
+                     () -> agregador.agregar(escrever("gitlab.json", "{\"version\":\"15\",\"vulnerabilities\":[]}")));
+        assertThrows(IllegalArgumentException.class,
+                     () -> agregador.agregar(escrever("truncado.sarif", "{\"runs\":[{\"results\":[{\"ruleId\":\"x")));
+        assertThrows(IllegalArgumentException.class, () -> agregador.agregar(escrever("nota.sarif",
+                     "{\"runs\":[{\"results\":[{\"ruleId\":\"x\",\"properties\":{\"security-severity\":\"11\"}}]}]}")));
+        assertThrows(IllegalArgumentException.class,
+                     () -> agregador.agregar(escrever("sobra.sarif", "{\"runs\":[]} {}")));
+
+        AgregadorVulnerabilidades.ResultadoAgregacao vazio = agregador.agregar(escrever("vazio.sarif", "{\"runs\":[]}"));
+        assertEquals(Map.of("vulnerabilidades_criticas", 0.0, "vulnerabilidades_totais", 0.0, "owasp_top10", 100.0),
+                     vazio.getDadosSeguranca());
+
+        assertThrows(IllegalStateException.class,
+                     () -> IndiceVulnerabilidades.carregar(escrever("corrompido.idx", "nao e um indice")));
+        assertThrows(IllegalArgumentException.class, () -> new IndiceVulnerabilidades().descartarAusentes(0));
+        assertThrows(IllegalArgumentException.class, () -> SeveridadeVulnerabilidade.daNota(Double.NaN));
+        assertEquals(SeveridadeVulnerabilidade.CRITICA, SeveridadeVulnerabilidade.daNota(9.0));
+        assertEquals(SeveridadeVulnerabilidade.INFORMATIVA, SeveridadeVulnerabilidade.daNota(0.0));
+    }
+
+    // Método auxiliar que localiza as saídas de exemplo no classpath
+    private static List<Path> exemplos() throws URISyntaxException {
+        return Arrays.asList(exemplo("sast_contas.sarif"), exemplo("zap_canais.json"));
+    }
+
+    private static Path exemplo(String nome) throws URISyntaxException {
+        return Paths.get(AgregadorVulnerabilidadesTest.class.getResource("/varreduras/" + nome).toURI());
+    }
+
+    private Path escrever(String nome, String conteudo) throws IOException {
+        return Files.write(diretorio.resolve(nome), conteudo.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Método auxiliar que grava um SARIF em que cada uma de 'resultados / 4' vulnerabilidades
+    // aparece quatro vezes; uma em cada quatro é crítica e as demais, médias
+    private static void escreverSarif(Path arquivo, int resultados) throws IOException {
+        char[] longa = new char[70_000];
+        Arrays.fill(longa, 'x');
+        try (BufferedWriter escritor = Files.newBufferedWriter(arquivo, StandardCharsets.UTF_8)) {
+            escritor.write("{\"runs\":[{\"tool\":{\"driver\":{\"name\":\"Sintetica\",\"rules\":["
+                + "{\"id\":\"critica\",\"properties\":{\"tags\":[\"security\",\"CWE-502\"],\"security-severity\":\"9.9\"}},"
+                + "{\"id\":\"media\",\"properties\":{\"tags\":[\"security\"],\"security-severity\":\"5.0\"}}]}},\n"
+                + "\"results\":[\n");
+            int distintas = resultados / 4;
+            for (int i = 0; i < resultados; i++) {
+                int vulnerabilidade = i % distintas;
+                if (i > 0) {
+                    escritor.write(",\n");
+                }
+                escritor.write("{\"ruleId\":\"" + (vulnerabilidade % 4 == 0 ? "critica" : "media")
+                    + "\",\"message\":{\"text\":\"Ocorr\\u00eancia " + vulnerabilidade
+                    + (i == 7 ? " " + new String(longa) : "") + "\"},"
+                    + "\"partialFingerprints\":{\"primaryLocationLineHash\":\"" + Integer.toHexString(vulnerabilidade * 7919)
+                    + ":1\"}}");
+            }
+            escritor.write("]}]}\n");
+        }
+    }
+}
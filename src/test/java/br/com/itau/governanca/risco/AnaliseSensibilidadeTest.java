@@ -0,0 +1,163 @@
+package br.com.itau.governanca.risco;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Testes unitários para a AnaliseSensibilidade e o CenarioSensibilidade
+ */
+public class AnaliseSensibilidadeTest {
+
+    private static final int QUANTIDADE = 4000;
+
+    private final CalculadoraRisco calculadora = new CalculadoraRisco();
+    private final ModeloCompilado modelo = calculadora.getModelo();
+
+    @Test
+    @DisplayName("Deve produzir os mesmos resultados que avaliar o portfólio com o modelo de cada cenário")
+    public void testEquivalenciaComModeloAlterado() {
+        double[][] colunas = criarColunas(new Random(21));
+        List<CenarioSensibilidade> cenarios = CenarioSensibilidade.grade(
+            Arrays.asList(new CenarioSensibilidade("p95 atual"),
+                          new CenarioSensibilidade("p95 1500").limiarMedio("performance", "percentil_95", 1500),
+                          new CenarioSensibilidade("p95 500/1200").limiarBaixo("performance", "percentil_95", 500)
+                                                                   .limiarMedio("performance", "percentil_95", 1200)),
+            Arrays.asList(new CenarioSensibilidade("seguranca atual"),
+                          new CenarioSensibilidade("seguranca 0.35").pesoDimensao("seguranca", 0.35)
+                                                                    .pesoDimensao("experiencia", 0.15)),
+            Arrays.asList(new CenarioSensibilidade("cobertura atual"),
+                          new CenarioSensibilidade("cobertura 80/60").limiarBaixo("bugs", "cobertura_testes", 80)
+                                                                     .limiarMedio("bugs", "cobertura_testes", 60)
+                                                                     .pesoCriterio("bugs", "mtbf", 0.0)));
+        assertEquals(12, cenarios.size());
+        assertEquals("p95 1500 + seguranca 0.35 + cobertura atual", cenarios.get(6).getNome());
+
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            AnaliseSensibilidade analise = new AnaliseSensibilidade(calculadora, colunas, QUANTIDADE, pool);
+            List<AnaliseSensibilidade.ResultadoCenario> resultados = analise.avaliar(cenarios);
+            assertEquals(cenarios.size(), resultados.size());
+
+            for (int s = 0; s < cenarios.size(); s++) {
+                CenarioSensibilidade cenario = cenarios.get(s);
+                AnaliseSensibilidade.ResultadoCenario resultado = resultados.get(s);
+                ResultadoLote esperado = new CalculadoraRisco(cenario.aplicar(modelo)).avaliarLote(colunas, QUANTIDADE);
+                assertEquals(cenario.getNome(), resultado.getNome());
+
+                int alteradas = 0;
+                int[] porStatus = new int[StatusAvaliacao.values().length];
+                for (int i = 0; i < QUANTIDADE; i++) {
+                    assertEquals(esperado.getPontuacoesTotais()[i], resultado.getPontuacaoTotal(i), cenario.getNome());
+                    StatusAvaliacao status = StatusAvaliacao.de(esperado.getClassificacao(i), esperado.getVetos()[i]);
+                    porStatus[status.ordinal()]++;
+                    if (status != analise.getStatusBase(i)) {
+                        assertEquals(i, resultado.getAlteradas()[alteradas++]);
+                    }
+                }
+                assertEquals(alteradas, resultado.getAlteradas().length);
+                for (StatusAvaliacao status : StatusAvaliacao.values()) {
+                    assertEquals(porStatus[status.ordinal()], resultado.getQuantidade(status));
+                }
+            }
+
+            // O cenário sem alterações reaproveita tudo e não altera nenhuma aplicação
+            AnaliseSensibilidade.ResultadoCenario atual = resultados.get(0);
+            assertEquals(0, atual.getCriteriosReclassificados());
+            assertEquals(0, atual.getDimensoesRepontuadas());
+            assertEquals(0, atual.getAlteradas().length);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Deve reportar as transições de status e classificação de cada cenário")
+    public void testTransicoes() {
+        double[][] colunas = criarColunas(new Random(34));
+        AnaliseSensibilidade analise = new AnaliseSensibilidade(calculadora, colunas, QUANTIDADE);
+
+        // Limiar médio mais baixo só pode piorar a classificação do critério
+        AnaliseSensibilidade.ResultadoCenario mais = analise.avaliar(
+            new CenarioSensibilidade("p95 1500").limiarMedio("performance", "percentil_95", 1500));
+        assertEquals(1, mais.getCriteriosReclassificados());
+        assertEquals(1, mais.getDimensoesRepontuadas());
+        assertEquals(0, mais.getTransicoes(StatusAvaliacao.CONDICIONADO, StatusAvaliacao.APROVADO));
+        assertEquals(0, mais.getTransicoes(ClassificacaoRisco.VERMELHO, ClassificacaoRisco.AMARELO));
+        assertTrue(mais.getTransicoes(ClassificacaoRisco.AMARELO, ClassificacaoRisco.VERMELHO) > 0);
+        assertTrue(mais.getTransicoes(StatusAvaliacao.APROVADO, StatusAvaliacao.CONDICIONADO) > 0);
+        // Vetos não dependem de pesos e limiares
+        int bloqueadas = mais.getTransicoes(StatusAvaliacao.BLOQUEADO, StatusAvaliacao.BLOQUEADO);
+        assertEquals(bloqueadas, mais.getQuantidade(StatusAvaliacao.BLOQUEADO));
+        int totalClassificacoes = 0;
+        for (ClassificacaoRisco classificacao : ClassificacaoRisco.values()) {
+            totalClassificacoes += mais.getQuantidade(classificacao);
+        }
+        assertEquals(QUANTIDADE, totalClassificacoes);
+        for (int i : mais.getAlteradas()) {
+            assertNotEquals(StatusAvaliacao.BLOQUEADO, analise.getStatusBase(i));
+        }
+
+        // Peso de dimensão alterado apenas recombina as pontuações existentes
+        AnaliseSensibilidade.ResultadoCenario peso = analise.avaliar(
+            new CenarioSensibilidade("seguranca 0.35").pesoDimensao("seguranca", 0.35));
+        assertEquals(0, peso.getCriteriosReclassificados());
+        assertEquals(0, peso.getDimensoesRepontuadas());
+        assertTrue(peso.getAlteradas().length > 0);
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar alterações inválidas e nomes inexistentes")
+    public void testValidacoes() {
+        assertThrows(IllegalArgumentException.class,
+                     () -> new CenarioSensibilidade("negativo").pesoDimensao("bugs", -0.1));
+        assertThrows(IllegalArgumentException.class,
+                     () -> new CenarioSensibilidade("nan").limiarBaixo("bugs", "mtbf", Double.NaN));
+
+        AnaliseSensibilidade analise = new AnaliseSensibilidade(calculadora, criarColunas(new Random(3)), QUANTIDADE);
+        List<CenarioSensibilidade> cenarios = Arrays.asList(
+            new CenarioSensibilidade("valido").pesoDimensao("bugs", 0.3),
+            new CenarioSensibilidade("invalido").limiarMedio("performance", "latencia", 10));
+        assertThrows(IllegalArgumentException.class, () -> analise.avaliar(cenarios));
+        assertThrows(IllegalArgumentException.class,
+                     () -> new CenarioSensibilidade("dimensao").pesoDimensao("custos", 0.1).aplicar(modelo));
+
+        assertTrue(CenarioSensibilidade.grade().isEmpty());
+        assertTrue(CenarioSensibilidade.grade(Arrays.asList(new CenarioSensibilidade("a")), Arrays.asList()).isEmpty());
+    }
+
+    // Método auxiliar para criar colunas com valores em torno dos limiares e critérios ausentes
+    private double[][] criarColunas(Random random) {
+        double[][] colunas = modelo.novasColunas(QUANTIDADE);
+        for (int c = 0; c < colunas.length; c++) {
+            double escala = Math.max(modelo.getLimiarBaixo(c), modelo.getLimiarMedio(c)) * 1.5 + 2;
+            for (int i = 0; i < QUANTIDADE; i++) {
+                if (random.nextInt(8) != 0) {
+                    colunas[c][i] = Math.floor(random.nextDouble() * escala);
+                }
+            }
+        }
+        // A maior parte das aplicações dentro dos limites de veto, para que o status dependa da pontuação
+        int[] vetados = {
+            modelo.indiceCriterio("seguranca", "vulnerabilidades_criticas"), modelo.indiceCriterio("bugs", "bugs_criticos"),
+            modelo.indiceCriterio("seguranca", "conformidade_regulatoria"), modelo.indiceCriterio("experiencia", "taxa_erro_usuario")
+        };
+        int percentil95 = modelo.indiceCriterio("performance", "percentil_95");
+        for (int i = 0; i < QUANTIDADE; i++) {
+            if (random.nextInt(5) != 0) {
+                for (int c : vetados) {
+                    colunas[c][i] = Math.min(colunas[c][i], 0);
+                }
+                colunas[percentil95][i] = Math.min(colunas[percentil95][i], 3000);
+            }
+        }
+        // Uma coluna inteira ausente, como um critério não coletado
+        colunas[modelo.indiceCriterio("experiencia", "acessibilidade")] = null;
+        return colunas;
+    }
+}
@@ -0,0 +1,251 @@
+package br.com.itau.governanca.risco;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Testes unitários para o AvaliadorDuravel
+ */
+public class AvaliadorDuravelTest {
+
+    @TempDir
+    Path diretorio;
+
+    private final CalculadoraRisco calculadora = new CalculadoraRisco();
+    private final ModeloCompilado modelo = calculadora.getModelo();
+
+    @Test
+    @DisplayName("Deve recuperar o mesmo estado a partir do checkpoint e da cauda do diário")
+    public void testRecuperacao() throws IOException {
+        AvaliadorIncremental referencia = new AvaliadorIncremental(calculadora, null);
+        List<String> eventos = new ArrayList<>();
+        Random random = new Random(17);
+        AvaliadorDuravel duravel = new AvaliadorDuravel(diretorio, calculadora,
+            (nome, anterior, atual, total, vetos) -> eventos.add(nome + ":" + anterior + "->" + atual), 500);
+        assertEquals(0, duravel.getSequencia());
+        assertEquals(0, duravel.getRegistrosReproduzidos());
+
+        for (int i = 0; i < 3000; i++) {
+            aplicar(random, duravel, referencia);
+        }
+        assertFalse(eventos.isEmpty());
+        assertEquals(duravel.getSequencia(), duravel.getSequenciaDuravel());
+        long checkpoint = duravel.getSequenciaCheckpoint();
+        assertTrue(checkpoint > duravel.getSequencia() - 500 && checkpoint <= duravel.getSequencia());
+        // Apenas o checkpoint atual e o segmento que começa logo após ele
+        assertEquals(1, listar("checkpoint-*.ckpt").size());
+        assertEquals(List.of(String.format("diario-%019d.log", checkpoint + 1)), listar("diario-*.log"));
+        long sequencia = duravel.getSequencia();
+        duravel.close();
+
+        // Reinício: o ouvinte não é chamado e só a cauda após o checkpoint é reproduzida
+        eventos.clear();
+        AvaliadorDuravel recuperado = new AvaliadorDuravel(diretorio, calculadora,
+            (nome, anterior, atual, total, vetos) -> eventos.add(nome), 500);
+        assertEquals(sequencia, recuperado.getSequencia());
+        assertEquals(sequencia - checkpoint, recuperado.getRegistrosReproduzidos());
+        assertTrue(recuperado.getTempoRecuperacaoNanos() > 0);
+        assertTrue(eventos.isEmpty());
+        verificarIgual(referencia, recuperado);
+
+        // Queda durante uma gravação: o registro parcial é descartado e o diário continua
+        for (int i = 0; i < 100; i++) {
+            aplicar(random, recuperado, referencia);
+        }
+        sequencia = recuperado.getSequencia();
+        Path ultimo = diretorio.resolve(listar("diario-*.log").get(0));
+        try (FileChannel canal = FileChannel.open(ultimo, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            canal.write(ByteBuffer.wrap(new byte[] {40, 0, 0, 0, 1, 2, 3}));
+        }
+        recuperado = new AvaliadorDuravel(diretorio, calculadora, null, 500);
+        assertEquals(sequencia, recuperado.getSequencia());
+        verificarIgual(referencia, recuperado);
+        for (int i = 0; i < 100; i++) {
+            aplicar(random, recuperado, referencia);
+        }
+        assertEquals(recuperado.getSequencia(), recuperado.checkpoint());
+        recuperado.close();
+
+        // Sem cauda para reproduzir, a abertura é apenas a leitura do checkpoint
+        recuperado = new AvaliadorDuravel(diretorio, calculadora, null, 500);
+        assertEquals(0, recuperado.getRegistrosReproduzidos());
+        verificarIgual(referencia, recuperado);
+        recuperado.close();
+    }
+
+    @Test
+    @DisplayName("Deve anotar atualizações e transições de várias threads com gravação em grupo")
+    public void testGravacaoEmGrupo() throws Exception {
+        List<String> eventos = Collections.synchronizedList(new ArrayList<>());
+        AvaliadorDuravel duravel = new AvaliadorDuravel(diretorio, calculadora,
+            (nome, anterior, atual, total, vetos) -> eventos.add(nome), 0);
+        int threads = 4;
+        int atualizacoes = 1500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> tarefas = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                String nome = "App " + t;
+                Random random = new Random(t);
+                tarefas.add(executor.submit(() -> {
+                    for (int i = 0; i < atualizacoes; i++) {
+                        int criterio = random.nextInt(modelo.getNumCriterios());
+                        duravel.atualizar(nome, criterio, valorAleatorio(random, criterio));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> tarefa : tarefas) {
+                tarefa.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // Cada atualização e cada mudança de status ocupa um registro; nenhuma precisa de um force próprio
+        assertEquals(threads * atualizacoes + eventos.size(), duravel.getSequencia());
+        assertEquals(duravel.getSequencia(), duravel.getSequenciaDuravel());
+        // Com 4 threads disputando, parte das atualizações chega durante o force de outra
+        assertTrue(duravel.getSincronizacoes() < threads * atualizacoes,
+                   duravel.getSincronizacoes() + " sincronizações");
+        assertEquals(0, duravel.getSequenciaCheckpoint());
+        double[][] valores = new double[threads][];
+        for (int t = 0; t < threads; t++) {
+            valores[t] = duravel.getValores("App " + t);
+        }
+        duravel.close();
+
+        AvaliadorDuravel recuperado = new AvaliadorDuravel(diretorio, calculadora, null, 0);
+        assertEquals(threads * atualizacoes + eventos.size(), recuperado.getRegistrosReproduzidos());
+        for (int t = 0; t < threads; t++) {
+            assertArrayEquals(valores[t], recuperado.getValores("App " + t));
+        }
+        recuperado.close();
+    }
+
+    @Test
+    @DisplayName("Deve confirmar a atualização mesmo quando o checkpoint automático falha")
+    public void testFalhaNoCheckpoint() throws IOException {
+        // Diretórios no lugar dos arquivos temporários impedem a gravação dos checkpoints
+        List<Path> bloqueios = new ArrayList<>();
+        for (long sequencia = 1; sequencia <= 100; sequencia++) {
+            bloqueios.add(Files.createDirectory(diretorio.resolve(String.format("checkpoint-%019d.ckpt.tmp", sequencia))));
+        }
+        AvaliadorIncremental referencia = new AvaliadorIncremental(calculadora, null);
+        Random random = new Random(5);
+        AvaliadorDuravel duravel = new AvaliadorDuravel(diretorio, calculadora, null, 10);
+        for (int i = 0; i < 20; i++) {
+            aplicar(random, duravel, referencia);
+        }
+        assertNotNull(duravel.getUltimoErroCheckpoint());
+        assertEquals(0, duravel.getSequenciaCheckpoint());
+        assertEquals(duravel.getSequencia(), duravel.getSequenciaDuravel());
+
+        for (Path bloqueio : bloqueios) {
+            Files.delete(bloqueio);
+        }
+        aplicar(random, duravel, referencia);
+        assertNull(duravel.getUltimoErroCheckpoint());
+        assertEquals(duravel.getSequencia(), duravel.getSequenciaCheckpoint());
+        duravel.close();
+
+        AvaliadorDuravel recuperado = new AvaliadorDuravel(diretorio, calculadora, null, 10);
+        verificarIgual(referencia, recuperado);
+        recuperado.close();
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar entradas inválidas sem anotá-las e arquivos corrompidos ou de outro modelo")
+    public void testEntradasInvalidas() throws IOException {
+        AvaliadorDuravel duravel = new AvaliadorDuravel(diretorio, calculadora, null);
+        duravel.atualizar("App", "bugs", "densidade_defeitos", 10);
+        long sequencia = duravel.getSequencia();
+        assertThrows(IllegalArgumentException.class, () -> duravel.atualizar("App", modelo.getNumCriterios(), 1));
+        assertThrows(IllegalArgumentException.class, () -> duravel.atualizar("App", "bugs", "inexistente", 1));
+        assertThrows(IllegalArgumentException.class, () -> duravel.carregar("App", new double[1]));
+        assertEquals(sequencia, duravel.getSequencia());
+        assertTrue(duravel.remover("App"));
+        assertFalse(duravel.remover("App"));
+        duravel.carregar("Outra", modelo.novoVetorValores());
+        duravel.checkpoint();
+        duravel.close();
+        assertThrows(IllegalStateException.class, () -> duravel.atualizar("App", 0, 1));
+        assertThrows(IllegalArgumentException.class,
+                     () -> new AvaliadorDuravel(diretorio, calculadora, null, -1));
+
+        // Outro modelo
+        ModeloCompilado outro = new ModeloCompilado.Construtor().dimensao("bugs", 1)
+            .criterio("densidade_defeitos", 1, 1, 3, false).construir();
+        assertThrows(IllegalStateException.class,
+                     () -> new AvaliadorDuravel(diretorio, new CalculadoraRisco(outro), null));
+
+        // Checkpoint corrompido
+        Path checkpoint = diretorio.resolve(listar("checkpoint-*.ckpt").get(0));
+        byte[] conteudo = Files.readAllBytes(checkpoint);
+        conteudo[conteudo.length / 2] ^= 1;
+        Files.write(checkpoint, conteudo);
+        assertThrows(IllegalStateException.class, () -> new AvaliadorDuravel(diretorio, calculadora, null));
+    }
+
+    private void aplicar(Random random, AvaliadorDuravel duravel, AvaliadorIncremental referencia) throws IOException {
+        String nome = "App " + random.nextInt(20);
+        int operacao = random.nextInt(100);
+        if (operacao == 0) {
+            assertEquals(referencia.remover(nome), duravel.remover(nome));
+        } else if (operacao < 5) {
+            double[] valores = modelo.novoVetorValores();
+            for (int c = 0; c < valores.length; c++) {
+                valores[c] = random.nextInt(4) == 0 ? Double.NaN : valorAleatorio(random, c);
+            }
+            assertEquals(referencia.carregar(nome, valores), duravel.carregar(nome, valores));
+        } else {
+            int criterio = random.nextInt(modelo.getNumCriterios());
+            double valor = random.nextInt(10) == 0 ? Double.NaN : valorAleatorio(random, criterio);
+            assertEquals(referencia.atualizar(nome, criterio, valor), duravel.atualizar(nome, criterio, valor));
+        }
+    }
+
+    private void verificarIgual(AvaliadorIncremental referencia, AvaliadorDuravel duravel) {
+        assertEquals(referencia.getQuantidadeAplicacoes(), duravel.getQuantidadeAplicacoes());
+        for (String nome : referencia.getAplicacoes()) {
+            assertArrayEquals(referencia.getValores(nome), duravel.getValores(nome), nome);
+            assertEquals(referencia.getStatus(nome), duravel.getStatus(nome), nome);
+            assertEquals(referencia.getVetos(nome), duravel.getVetos(nome), nome);
+            assertEquals(referencia.getPontuacaoTotal(nome), duravel.getPontuacaoTotal(nome), 1e-9, nome);
+            for (int d = 0; d < modelo.getNumDimensoes(); d++) {
+                assertEquals(referencia.getPontuacaoDimensao(nome, d), duravel.getPontuacaoDimensao(nome, d), 1e-9);
+            }
+        }
+    }
+
+    // Valor aleatório em torno dos limiares do critério, cobrindo as três faixas
+    private double valorAleatorio(Random random, int criterio) {
+        return random.nextDouble() * modelo.getLimiarMedio(criterio) * 1.5;
+    }
+
+    private List<String> listar(String padrao) throws IOException {
+        List<String> nomes = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(diretorio, padrao)) {
+            stream.forEach(arquivo -> nomes.add(arquivo.getFileName().toString()));
+        }
+        Collections.sort(nomes);
+        return nomes;
+    }
+}
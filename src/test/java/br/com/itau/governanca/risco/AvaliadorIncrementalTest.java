@@ -0,0 +1,153 @@
+package br.com.itau.governanca.risco;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Testes unitários para o AvaliadorIncremental
+ */
+public class AvaliadorIncrementalTest {
+
+    private CalculadoraRisco calculadora;
+    private ModeloCompilado modelo;
+    private List<String> eventos;
+    private AvaliadorIncremental avaliador;
+
+    @BeforeEach
+    public void setUp() {
+        calculadora = new CalculadoraRisco();
+        modelo = calculadora.getModelo();
+        eventos = new ArrayList<>();
+        avaliador = new AvaliadorIncremental(calculadora,
+            (nome, anterior, atual, total, vetos) -> eventos.add(nome + ":" + anterior + "->" + atual));
+    }
+
+    @Test
+    @DisplayName("Deve manter pontuações e vetos iguais ao cálculo completo após cada atualização")
+    public void testAtualizacoesEquivalentesAoCalculoCompleto() {
+        Random random = new Random(42);
+        double[] valores = modelo.novoVetorValores();
+        double[] esperadas = new double[modelo.getNumDimensoes()];
+        double[][] colunas = modelo.novasColunas(1);
+
+        for (int i = 0; i < 5000; i++) {
+            int criterio = random.nextInt(modelo.getNumCriterios());
+            double valor = random.nextInt(10) == 0 ? Double.NaN : valorAleatorio(random, criterio);
+            valores[criterio] = valor;
+            StatusAvaliacao status = avaliador.atualizar("App", criterio, valor);
+
+            double total = calculadora.calcularPontuacaoTotal(valores, esperadas);
+            assertEquals(total, avaliador.getPontuacaoTotal("App"), 1e-9);
+            for (int d = 0; d < modelo.getNumDimensoes(); d++) {
+                assertEquals(esperadas[d], avaliador.getPontuacaoDimensao("App", d), 1e-9);
+            }
+
+            for (int c = 0; c < valores.length; c++) {
+                colunas[c][0] = valores[c];
+            }
+            ResultadoLote lote = calculadora.avaliarLote(colunas, 1);
+            assertEquals(lote.getVetos()[0], avaliador.getVetos("App"));
+            assertEquals(lote.getStatus(0), status.name());
+        }
+        assertArrayEquals(valores, avaliador.getValores("App"));
+    }
+
+    @Test
+    @DisplayName("Deve emitir evento apenas quando o status muda")
+    public void testEventosSomenteNaMudancaDeStatus() {
+        int percentil95 = modelo.indiceCriterio("performance", "percentil_95");
+        int vulnerabilidades = modelo.indiceCriterio("seguranca", "vulnerabilidades_totais");
+
+        // bugs = 3 * 0.25 e seguranca = 3 * 0.30: total 1.65 (AMARELO)
+        avaliador.atualizar("App", "bugs", "densidade_defeitos", 10);
+        assertEquals(StatusAvaliacao.CONDICIONADO, avaliador.atualizar("App", vulnerabilidades, 20));
+        assertEquals(StatusAvaliacao.CONDICIONADO, avaliador.atualizar("App", percentil95, 500));
+        assertEquals(StatusAvaliacao.CONDICIONADO, avaliador.atualizar("App", "performance", "percentil_95", 900));
+        assertEquals(List.of("App:APROVADO->CONDICIONADO"), eventos);
+
+        assertEquals(StatusAvaliacao.BLOQUEADO, avaliador.atualizar("App", percentil95, 3500));
+        assertEquals(StatusAvaliacao.BLOQUEADO, avaliador.atualizar("App", percentil95, 4000));
+        assertEquals(CalculadoraRisco.VETO_PERCENTIL_95, avaliador.getVetos("App"));
+        assertEquals(StatusAvaliacao.CONDICIONADO, avaliador.atualizar("App", percentil95, 2500));
+        // Sem a segurança o total cai para 1.5 (VERDE)
+        assertEquals(StatusAvaliacao.APROVADO, avaliador.atualizar("App", vulnerabilidades, Double.NaN));
+
+        assertEquals(List.of("App:APROVADO->CONDICIONADO", "App:CONDICIONADO->BLOQUEADO",
+                             "App:BLOQUEADO->CONDICIONADO", "App:CONDICIONADO->APROVADO"), eventos);
+    }
+
+    @Test
+    @DisplayName("Deve carregar o estado completo de uma aplicação")
+    public void testCarregar() {
+        double[] valores = modelo.novoVetorValores();
+        valores[modelo.indiceCriterio("bugs", "bugs_criticos")] = 2;
+        valores[modelo.indiceCriterio("bugs", "densidade_defeitos")] = 1.2;
+
+        assertEquals(StatusAvaliacao.BLOQUEADO, avaliador.carregar("App", valores));
+        assertEquals(calculadora.calcularPontuacaoTotal(valores, null), avaliador.getPontuacaoTotal("App"), 0.0);
+        assertEquals(CalculadoraRisco.VETO_BUGS_CRITICOS, avaliador.getVetos("App"));
+        assertEquals(List.of("App:APROVADO->BLOQUEADO"), eventos);
+
+        assertThrows(IllegalArgumentException.class, () -> avaliador.carregar("App", new double[3]));
+        assertThrows(IllegalArgumentException.class, () -> avaliador.getStatus("Outra"));
+        // Ordinal inválido não deixa uma aplicação sem métricas no estado
+        assertThrows(IllegalArgumentException.class, () -> avaliador.atualizar("Fantasma", modelo.getNumCriterios(), 1.0));
+        assertThrows(IllegalArgumentException.class, () -> avaliador.atualizar("Fantasma", -1, 1.0));
+        assertEquals(1, avaliador.getQuantidadeAplicacoes());
+        assertTrue(avaliador.remover("App"));
+        assertEquals(0, avaliador.getQuantidadeAplicacoes());
+    }
+
+    @Test
+    @DisplayName("Deve recalcular a dimensão quando só resta o critério de peso zero")
+    public void testRemocaoAteCriterioSemPeso() {
+        int seguranca = modelo.indiceDimensao("seguranca");
+        int conformidade = modelo.indiceCriterio("seguranca", "conformidade_regulatoria");
+        Random random = new Random(7);
+        double[] valores = modelo.novoVetorValores();
+        double[] esperadas = new double[modelo.getNumDimensoes()];
+
+        for (int rodada = 0; rodada < 200; rodada++) {
+            // Preenche a dimensão em ordem aleatória e remove tudo menos o critério de peso zero
+            List<Integer> criterios = new ArrayList<>();
+            for (int c = modelo.inicioDimensao(seguranca); c < modelo.fimDimensao(seguranca); c++) {
+                criterios.add(c);
+            }
+            Collections.shuffle(criterios, random);
+            for (int c : criterios) {
+                valores[c] = c == conformidade ? random.nextInt(2) : valorAleatorio(random, c);
+                avaliador.atualizar("App", c, valores[c]);
+            }
+            Collections.shuffle(criterios, random);
+            for (int c : criterios) {
+                if (c == conformidade) {
+                    continue;
+                }
+                valores[c] = Double.NaN;
+                StatusAvaliacao status = avaliador.atualizar("App", c, valores[c]);
+
+                double total = calculadora.calcularPontuacaoTotal(valores, esperadas);
+                assertEquals(esperadas[seguranca], avaliador.getPontuacaoDimensao("App", seguranca), 1e-12);
+                assertEquals(total, avaliador.getPontuacaoTotal("App"), 1e-12);
+                assertEquals(StatusAvaliacao.de(ClassificacaoRisco.de(total), calculadora.verificarVetos(valores)),
+                             status);
+            }
+            assertEquals(0.0, avaliador.getPontuacaoDimensao("App", seguranca), 0.0);
+        }
+    }
+
+    // Valores em torno dos limiares do critério, para provocar mudanças de classificação
+    private double valorAleatorio(Random random, int criterio) {
+        double baixo = modelo.getLimiarBaixo(criterio);
+        double medio = modelo.getLimiarMedio(criterio);
+        double amplitude = Math.abs(medio - baixo) * 2 + 1;
+        return Math.min(baixo, medio) - amplitude / 2 + random.nextDouble() * amplitude * 2;
+    }
+}
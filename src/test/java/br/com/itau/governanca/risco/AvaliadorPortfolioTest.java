@@ -0,0 +1,153 @@
+package br.com.itau.governanca.risco;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Testes unitários para o AvaliadorPortfolio
+ */
+public class AvaliadorPortfolioTest {
+
+    private CalculadoraRisco calculadora;
+    private ForkJoinPool pool;
+    private AvaliadorPortfolio avaliador;
+
+    @BeforeEach
+    public void setUp() {
+        calculadora = new CalculadoraRisco();
+        pool = new ForkJoinPool(4);
+        avaliador = new AvaliadorPortfolio(calculadora, pool);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Deve avaliar em paralelo mantendo a ordem e os resultados da avaliação sequencial")
+    public void testAvaliacaoParalelaNaOrdem() {
+        List<AplicacaoPortfolio> aplicacoes = criarPortfolio(1000);
+
+        List<ResultadoAvaliacao> resultados = avaliador.avaliar(aplicacoes);
+
+        assertEquals(aplicacoes.size(), resultados.size());
+        for (int i = 0; i < aplicacoes.size(); i++) {
+            AplicacaoPortfolio aplicacao = aplicacoes.get(i);
+            ResultadoAvaliacao esperado = new ResultadoAvaliacao(calculadora.gerarRelatorio(
+                aplicacao.getNomeAplicacao(), aplicacao.getVersao(), aplicacao.getDados()));
+            ResultadoAvaliacao obtido = resultados.get(i);
+
+            assertEquals(aplicacao.getNomeAplicacao(), obtido.getNomeAplicacao());
+            assertEquals(esperado.getPontuacaoTotal(), obtido.getPontuacaoTotal(), 0.0);
+            assertEquals(esperado.getStatus(), obtido.getStatus());
+            assertEquals(esperado.getVetos(), obtido.getVetos());
+        }
+    }
+
+    @Test
+    @DisplayName("Deve carregar métricas no executor de I/O e devolver os resultados na ordem")
+    public void testAvaliacaoComCarregador() throws IOException {
+        List<AplicacaoPortfolio> portfolio = criarPortfolio(200);
+        List<Integer> referencias = new ArrayList<>();
+        for (int i = 0; i < portfolio.size(); i++) {
+            referencias.add(i);
+        }
+
+        List<ResultadoAvaliacao> resultados = avaliador.avaliar(referencias, referencia -> {
+            // Simula latência variável de I/O para embaralhar a ordem de conclusão
+            try {
+                Thread.sleep(referencia % 3);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return portfolio.get(referencia);
+        });
+
+        assertEquals(portfolio.size(), resultados.size());
+        for (int i = 0; i < portfolio.size(); i++) {
+            assertEquals(portfolio.get(i).getNomeAplicacao(), resultados.get(i).getNomeAplicacao());
+        }
+    }
+
+    @Test
+    @DisplayName("Deve limitar as threads de plataforma do executor de I/O")
+    public void testExecutorIoLimitado() throws Exception {
+        ExecutorService executorIo = AvaliadorPortfolio.criarExecutorIo(2);
+        try {
+            if (executorIo instanceof ThreadPoolExecutor) {
+                // Sem threads virtuais (JVM anterior à 21): pool fixo, sem uma thread por referência
+                assertEquals(2, ((ThreadPoolExecutor) executorIo).getMaximumPoolSize());
+            }
+            List<String> referencias = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                referencias.add("App " + i);
+            }
+            List<ResultadoAvaliacao> resultados = avaliador.avaliar(referencias,
+                referencia -> new AplicacaoPortfolio(referencia, "1.0", new HashMap<>()), executorIo);
+            assertEquals("App 19", resultados.get(19).getNomeAplicacao());
+        } finally {
+            executorIo.shutdownNow();
+        }
+        assertThrows(IllegalArgumentException.class, () -> AvaliadorPortfolio.criarExecutorIo(0));
+    }
+
+    @Test
+    @DisplayName("Deve propagar a IOException do carregador de métricas")
+    public void testFalhaNoCarregador() {
+        ExecutorService executorIo = AvaliadorPortfolio.criarExecutorIo();
+        try {
+            List<String> referencias = List.of("ok", "falha");
+            IOException erro = assertThrows(IOException.class, () -> avaliador.avaliar(referencias, referencia -> {
+                if ("falha".equals(referencia)) {
+                    throw new IOException("métricas indisponíveis");
+                }
+                return new AplicacaoPortfolio(referencia, "1.0", new HashMap<>());
+            }, executorIo));
+            assertEquals("métricas indisponíveis", erro.getMessage());
+        } finally {
+            executorIo.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Deve expor resultados imutáveis")
+    public void testResultadosImutaveis() {
+        List<ResultadoAvaliacao> resultados = avaliador.avaliar(criarPortfolio(1));
+        assertThrows(UnsupportedOperationException.class, () -> resultados.get(0).getVetos().add("x"));
+        assertThrows(UnsupportedOperationException.class, () -> resultados.get(0).getPontuacoesDimensoes().clear());
+        assertThrows(UnsupportedOperationException.class, () -> resultados.remove(0));
+    }
+
+    private List<AplicacaoPortfolio> criarPortfolio(int quantidade) {
+        ModeloCompilado modelo = calculadora.getModelo();
+        Random random = new Random(3);
+        List<AplicacaoPortfolio> aplicacoes = new ArrayList<>();
+        for (int i = 0; i < quantidade; i++) {
+            Map<String, Map<String, Double>> dados = new HashMap<>();
+            for (int d = 0; d < modelo.getNumDimensoes(); d++) {
+                Map<String, Double> criterios = new HashMap<>();
+                for (int c = modelo.inicioDimensao(d); c < modelo.fimDimensao(d); c++) {
+                    double escala = Math.max(modelo.getLimiarBaixo(c), modelo.getLimiarMedio(c)) * 2 + 2;
+                    criterios.put(modelo.getNomeCriterio(c), Math.floor(random.nextDouble() * escala));
+                }
+                dados.put(modelo.getNomeDimensao(d), criterios);
+            }
+            aplicacoes.add(new AplicacaoPortfolio("App " + i, "1." + i, dados));
+        }
+        return aplicacoes;
+    }
+}
@@ -0,0 +1,147 @@
+package br.com.itau.governanca.risco;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Testes unitários para o CacheAvaliacoes
+ */
+public class CacheAvaliacoesTest {
+
+    private CalculadoraRisco calculadora;
+    private ModeloCompilado modelo;
+
+    @BeforeEach
+    public void setUp() {
+        calculadora = new CalculadoraRisco();
+        modelo = calculadora.getModelo();
+    }
+
+    @Test
+    @DisplayName("Deve atender métricas repetidas pelo cache com o mesmo resultado da calculadora")
+    public void testAcertosEquivalentesACalculadora() {
+        CacheAvaliacoes cache = new CacheAvaliacoes(calculadora, 10);
+        Map<String, Map<String, Double>> dados = criarDados(650.0, 1.0);
+
+        ResultadoAvaliacao primeiro = cache.avaliar("App", "1.0", dados);
+        ResultadoAvaliacao segundo = cache.avaliar("App", "1.1", dados);
+        ResultadoAvaliacao esperado = calculadora.avaliar("App", "1.1", dados);
+
+        assertEquals(1, cache.getFalhas());
+        assertEquals(1, cache.getAcertos());
+        assertEquals(1, cache.getTamanho());
+        assertEquals("1.1", segundo.getVersao());
+        assertEquals(esperado.getPontuacaoTotal(), segundo.getPontuacaoTotal(), 0.0);
+        assertEquals(esperado.getStatusAvaliacao(), segundo.getStatusAvaliacao());
+        assertEquals(esperado.getMascaraVetos(), segundo.getMascaraVetos());
+        assertEquals(esperado.getPontuacoesDimensoes(), segundo.getPontuacoesDimensoes());
+        assertEquals(primeiro.getPontuacoesDimensoes(), segundo.getPontuacoesDimensoes());
+
+        Map<String, Object> relatorio = cache.gerarRelatorio("App", "1.0", dados);
+        Map<String, Object> relatorioEsperado = calculadora.gerarRelatorio("App", "1.0", dados);
+        assertEquals(relatorioEsperado, relatorio);
+        assertEquals(relatorioEsperado.toString(), relatorio.toString());
+        assertEquals(calculadora.calcularRiscoTotal(dados).toString(), cache.calcularRiscoTotal(dados).toString());
+        assertEquals(3, cache.getAcertos());
+    }
+
+    @Test
+    @DisplayName("Deve gerar o mesmo relatório da calculadora para qualquer ordem e conjunto de dimensões")
+    public void testRelatorioIdenticoACalculadora() {
+        CacheAvaliacoes cache = new CacheAvaliacoes(calculadora, 10);
+        Map<String, Map<String, Double>> dados = new LinkedHashMap<>();
+        dados.put("seguranca", new LinkedHashMap<>(Map.of("conformidade_regulatoria", 0.0)));
+        dados.put("experiencia", new LinkedHashMap<>(Map.of("taxa_erro_usuario", 0.7, "criterio_extra", 3.0)));
+        dados.put("bugs", new LinkedHashMap<>(Map.of("bugs_criticos", 0.0)));
+        Map<String, Map<String, Double>> invertidos = new LinkedHashMap<>();
+        invertidos.put("bugs", dados.get("bugs"));
+        invertidos.put("experiencia", dados.get("experiencia"));
+        invertidos.put("seguranca", dados.get("seguranca"));
+
+        for (int i = 0; i < 2; i++) {
+            for (Map<String, Map<String, Double>> entrada : List.of(dados, invertidos)) {
+                assertEquals(calculadora.gerarRelatorio("App", "1.0", entrada).toString(),
+                             cache.gerarRelatorio("App", "1.0", entrada).toString());
+                assertEquals(calculadora.avaliar("App", "1.0", entrada).getPontuacoesDimensoes().toString(),
+                             cache.avaliar("App", "1.0", entrada).getPontuacoesDimensoes().toString());
+            }
+        }
+        // A ordem das dimensões faz parte da chave; o critério fora do modelo não
+        assertEquals(2, cache.getTamanho());
+        assertThrows(IllegalArgumentException.class,
+            () -> cache.gerarRelatorio("App", "1.0", Map.of("desconhecida", Map.of("x", 1.0))));
+    }
+
+    @Test
+    @DisplayName("Deve usar os valores exatos na chave e na pontuação")
+    public void testValoresExatos() {
+        CacheAvaliacoes cache = new CacheAvaliacoes(calculadora, 10);
+        int percentil95 = modelo.indiceCriterio("performance", "percentil_95");
+        double[] valores = {800.0, 800.001, Double.NEGATIVE_INFINITY, Double.NaN, 1e300,
+                            Double.MAX_VALUE, Double.POSITIVE_INFINITY};
+
+        for (int repeticao = 0; repeticao < 2; repeticao++) {
+            for (double valor : valores) {
+                double[] vetor = modelo.novoVetorValores();
+                vetor[percentil95] = valor;
+                ResultadoAvaliacao esperado = calculadora.avaliar("App", "1.0", vetor);
+                ResultadoAvaliacao obtido = cache.avaliar("App", "1.0", vetor);
+                assertEquals(esperado.getPontuacaoTotal(), obtido.getPontuacaoTotal(), 0.0);
+                assertEquals(esperado.getStatusAvaliacao(), obtido.getStatusAvaliacao());
+                assertEquals(esperado.getMascaraVetos(), obtido.getMascaraVetos());
+                assertEquals(esperado.getPontuacoesDimensoes(), obtido.getPontuacoesDimensoes());
+            }
+        }
+
+        // 800.0 é o limiar baixo do percentil_95: 800.001 já é risco médio
+        assertEquals(valores.length, cache.getFalhas());
+        assertEquals(valores.length, cache.getAcertos());
+        assertEquals(valores.length, cache.getTamanho());
+    }
+
+    @Test
+    @DisplayName("Deve remover a entrada usada há mais tempo ao atingir a capacidade")
+    public void testRemocaoLru() {
+        CacheAvaliacoes cache = new CacheAvaliacoes(calculadora, 2);
+
+        cache.avaliar("A", "1", criarDados(100.0, 1.0));
+        cache.avaliar("B", "1", criarDados(200.0, 1.0));
+        cache.avaliar("A", "1", criarDados(100.0, 1.0));
+        cache.avaliar("C", "1", criarDados(300.0, 1.0));
+
+        assertEquals(1, cache.getRemocoes());
+        assertEquals(2, cache.getTamanho());
+
+        // A foi usada depois de B, portanto B foi removida
+        cache.avaliar("A", "1", criarDados(100.0, 1.0));
+        assertEquals(2, cache.getAcertos());
+        cache.avaliar("B", "1", criarDados(200.0, 1.0));
+        assertEquals(4, cache.getFalhas());
+
+        cache.limpar();
+        assertEquals(0, cache.getTamanho());
+        assertThrows(IllegalArgumentException.class, () -> new CacheAvaliacoes(calculadora, 0));
+        assertThrows(IllegalArgumentException.class, () -> cache.avaliar("A", "1", new double[3]));
+    }
+
+    // Método auxiliar para criar dados de performance e experiência
+    private Map<String, Map<String, Double>> criarDados(double percentil95, double taxaErro) {
+        Map<String, Map<String, Double>> dados = new HashMap<>();
+        Map<String, Double> performance = new HashMap<>();
+        performance.put("percentil_95", percentil95);
+        performance.put("tempo_resposta", 250.0);
+        dados.put("performance", performance);
+        Map<String, Double> experiencia = new HashMap<>();
+        experiencia.put("taxa_erro_usuario", taxaErro);
+        experiencia.put("satisfacao_usuario", 80.0);
+        dados.put("experiencia", experiencia);
+        return dados;
+    }
+}
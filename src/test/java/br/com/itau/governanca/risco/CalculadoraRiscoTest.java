@@ -151,6 +151,30 @@ public class CalculadoraRiscoTest {
         assertEquals(2, vetos.size());
     }
     
+    @Test
+    @DisplayName("Deve vetar falha de conformidade regulatória sem alterar a pontuação")
+    public void testVetoConformidadeRegulatoria() {
+        Map<String, Map<String, Double>> dados = criarDadosBaixoRisco();
+        double pontuacaoSemConformidade = (double) calculadora.calcularRiscoTotal(dados).get("pontuacao_total");
+        
+        dados.get("seguranca").put("conformidade_regulatoria", 1.0);
+        List<String> vetos = calculadora.verificarVetos(dados);
+        assertEquals(List.of("Falha em validação de conformidade regulatória"), vetos);
+        assertEquals(CalculadoraRisco.VETO_CONFORMIDADE_REGULATORIA, CalculadoraRisco.mascaraVetos(vetos));
+        assertEquals(pontuacaoSemConformidade, (double) calculadora.calcularRiscoTotal(dados).get("pontuacao_total"), 0.0);
+        assertEquals("BLOQUEADO", calculadora.gerarRelatorio("Aplicacao Teste", "1.0", dados).get("status"));
+        
+        ModeloCompilado modelo = calculadora.getModelo();
+        int conformidade = modelo.indiceCriterio("seguranca", "conformidade_regulatoria");
+        double[] valores = modelo.novoVetorValores();
+        assertFalse(calculadora.possuiVeto(valores));
+        valores[conformidade] = 2;
+        assertTrue(calculadora.possuiVeto(valores));
+        assertEquals(CalculadoraRisco.VETO_CONFORMIDADE_REGULATORIA, calculadora.verificarVetos(valores));
+        assertEquals(CalculadoraRisco.VETO_CONFORMIDADE_REGULATORIA, calculadora.bitVeto(conformidade));
+        assertEquals(0, calculadora.verificarVeto(conformidade, 0));
+    }
+    
     @Test
     @DisplayName("Deve gerar relatório correto para aplicação de baixo risco sem vetos")
     public void testGerarRelatorioAplicacaoBaixoRiscoSemVetos() {
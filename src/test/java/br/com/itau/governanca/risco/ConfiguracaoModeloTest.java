@@ -0,0 +1,98 @@
+package br.com.itau.governanca.risco;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ * Testes unitários para a ConfiguracaoModelo
+ */
+public class ConfiguracaoModeloTest {
+
+    private static final String ARQUIVO_MODELO = "documentacao/relatorios/modelo_risco_qualidade_itau.properties";
+
+    private static final String CONFIGURACAO_MINIMA =
+        "versao=3\n"
+        + "dimensoes=bugs, seguranca\n"
+        + "dimensao.bugs.peso=0.4\n"
+        + "dimensao.bugs.criterios=bugs_criticos, cobertura_testes\n"
+        + "criterio.bugs.bugs_criticos=0.5, 0, 2\n"
+        + "criterio.bugs.cobertura_testes=0.5, 90, 70, invertido\n"
+        + "dimensao.seguranca.peso=0.6\n"
+        + "dimensao.seguranca.criterios=vulnerabilidades_criticas\n"
+        + "criterio.seguranca.vulnerabilidades_criticas=1.0, 0, 1\n";
+
+    @Test
+    @DisplayName("Deve carregar o arquivo de configuração equivalente ao modelo padrão")
+    public void testArquivoEquivalenteAoPadrao() throws IOException {
+        ModeloCompilado carregado = ConfiguracaoModelo.carregar(Paths.get(ARQUIVO_MODELO));
+        ModeloCompilado padrao = ModeloCompilado.padrao();
+
+        assertEquals("2024.1", carregado.getVersao());
+        // Mesma assinatura: históricos e diários gravados com um modelo abrem com o outro
+        assertEquals(padrao.getAssinatura(), carregado.getAssinatura());
+        assertEquals(padrao.getNumDimensoes(), carregado.getNumDimensoes());
+        assertEquals(padrao.getNumCriterios(), carregado.getNumCriterios());
+
+        Random random = new Random(7);
+        for (int c = 0; c < padrao.getNumCriterios(); c++) {
+            assertEquals(padrao.getNomeCriterio(c), carregado.getNomeCriterio(c));
+            assertEquals(padrao.getPesoCriterio(c), carregado.getPesoCriterio(c), 0.0);
+            double[] amostras = {
+                padrao.getLimiarBaixo(c), padrao.getLimiarMedio(c), 0.0, 1.0, 1.5,
+                random.nextDouble() * 3000, random.nextDouble() * 100
+            };
+            for (double valor : amostras) {
+                assertEquals(padrao.classificar(c, valor), carregado.classificar(c, valor),
+                             padrao.getNomeCriterio(c) + " = " + valor);
+            }
+        }
+        for (int d = 0; d < padrao.getNumDimensoes(); d++) {
+            assertEquals(padrao.getNomeDimensao(d), carregado.getNomeDimensao(d));
+            assertEquals(padrao.getPesoDimensao(d), carregado.getPesoDimensao(d), 0.0);
+        }
+    }
+
+    @Test
+    @DisplayName("Deve compilar a configuração na ordem declarada")
+    public void testConfiguracaoMinima() throws IOException {
+        ModeloCompilado modelo = ConfiguracaoModelo.carregar(new StringReader(CONFIGURACAO_MINIMA), "teste");
+
+        assertEquals("3", modelo.getVersao());
+        assertEquals(2, modelo.getNumDimensoes());
+        assertEquals(1, modelo.indiceDimensao("seguranca"));
+        assertEquals(1, modelo.indiceCriterio("bugs", "cobertura_testes"));
+        assertTrue(modelo.isInvertido(1));
+        assertEquals(0.6, modelo.getPesoDimensao(1), 0.0);
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar pesos que não somam 1, limiares fora de ordem e chaves inválidas")
+    public void testConfiguracoesInvalidas() {
+        assertInvalida(CONFIGURACAO_MINIMA.replace("dimensao.seguranca.peso=0.6", "dimensao.seguranca.peso=0.5"),
+                       "das dimensões somam");
+        assertInvalida(CONFIGURACAO_MINIMA.replace("bugs_criticos=0.5,", "bugs_criticos=0.4,"),
+                       "dos critérios da dimensão bugs");
+        assertInvalida(CONFIGURACAO_MINIMA.replace("bugs_criticos=0.5, 0, 2", "bugs_criticos=0.5, 3, 2"),
+                       "limiares fora de ordem");
+        assertInvalida(CONFIGURACAO_MINIMA.replace("0.5, 90, 70, invertido", "0.5, 70, 90, invertido"),
+                       "limiares fora de ordem");
+        assertInvalida(CONFIGURACAO_MINIMA.replace("0.5, 90, 70, invertido", "0.5, 90, 70, inverso"),
+                       "esperado 'peso");
+        assertInvalida(CONFIGURACAO_MINIMA.replace("1.0, 0, 1", "1.0, zero, 1"), "número inválido");
+        assertInvalida(CONFIGURACAO_MINIMA.replace("1.0, 0, 1", "1.0, NaN, 1"), "não finito");
+        assertInvalida(CONFIGURACAO_MINIMA.replace("versao=3\n", ""), "chave obrigatória ausente: versao");
+        assertInvalida(CONFIGURACAO_MINIMA + "criterio.bugs.mtbf=0.1, 720, 168, invertido\n", "sem uso");
+    }
+
+    private void assertInvalida(String configuracao, String trechoMensagem) {
+        IllegalArgumentException erro = assertThrows(IllegalArgumentException.class,
+            () -> ConfiguracaoModelo.carregar(new StringReader(configuracao), "teste"));
+        assertTrue(erro.getMessage().contains(trechoMensagem), erro.getMessage());
+    }
+}
@@ -0,0 +1,103 @@
+package br.com.itau.governanca.risco;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Testes unitários para o ConsolidadorLatencias
+ */
+public class ConsolidadorLatenciasTest {
+
+    private CalculadoraRisco calculadora;
+    private ConsolidadorLatencias consolidador;
+
+    @BeforeEach
+    public void setUp() {
+        calculadora = new CalculadoraRisco();
+        consolidador = new ConsolidadorLatencias(calculadora);
+    }
+
+    @Test
+    @DisplayName("Deve consolidar o P95 de 40 nós igual ao das latências reunidas, e não à média dos P95")
+    public void testConsolidarNos() {
+        Random random = new Random(17);
+        double[] todas = new double[40 * 2000];
+        double somaP95PorNo = 0;
+        int n = 0;
+        for (int no = 0; no < 40; no++) {
+            HistogramaLatencias histograma = new HistogramaLatencias();
+            // Poucos nós degradados concentram a cauda
+            double escala = no < 4 ? 2500 : 400;
+            for (int i = 0; i < 2000; i++) {
+                double latencia = 50 + random.nextDouble() * escala;
+                histograma.registrar(latencia);
+                todas[n++] = latencia;
+            }
+            somaP95PorNo += histograma.getPercentil(95);
+            byte[] dados = histograma.serializar();
+            byte[] recebido = new byte[dados.length + 8];
+            System.arraycopy(dados, 0, recebido, 4, dados.length);
+            consolidador.receber(recebido, 4, dados.length);
+        }
+        Arrays.sort(todas);
+        double p95Exato = todas[(int) Math.ceil(0.95 * todas.length) - 1];
+
+        assertEquals(40, consolidador.getNos());
+        assertEquals(todas.length, consolidador.getQuantidade());
+        assertEquals(p95Exato, consolidador.getPercentil95(), p95Exato * 0.016);
+        assertTrue(somaP95PorNo / 40 < p95Exato * 0.75, "a média dos P95 subestima a cauda");
+        assertEquals(Arrays.stream(todas).average().getAsDouble(), consolidador.getMedia(), 1e-6);
+    }
+
+    @Test
+    @DisplayName("Deve alimentar a pontuação da dimensão performance com a média e o P95 consolidados")
+    public void testPontuarPerformance() {
+        HistogramaLatencias histograma = new HistogramaLatencias();
+        for (int i = 1; i <= 100; i++) {
+            histograma.registrar(i * 10);
+        }
+        consolidador.receber(histograma);
+
+        Map<String, Double> outros = new HashMap<>();
+        outros.put("throughput", 150.0);
+        Map<String, Double> esperado = new HashMap<>(outros);
+        esperado.put("tempo_resposta", 505.0);
+        esperado.put("percentil_95", consolidador.getPercentil95());
+        assertEquals(calculadora.calcularPontuacaoDimensao("performance", esperado),
+                     consolidador.pontuarPerformance(outros), 0.0);
+        assertEquals(1, outros.size());
+
+        ModeloCompilado modelo = calculadora.getModelo();
+        double[] valores = modelo.novoVetorValores();
+        consolidador.preencher(valores);
+        assertEquals(505.0, valores[modelo.indiceCriterio("performance", "tempo_resposta")], 1e-9);
+
+        consolidador.limpar();
+        consolidador.preencher(valores);
+        assertTrue(Double.isNaN(valores[modelo.indiceCriterio("performance", "percentil_95")]));
+        assertEquals(calculadora.calcularPontuacaoDimensao("performance", outros),
+                     consolidador.pontuarPerformance(outros), 0.0);
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar bytes que não são exatamente um histograma sem alterar o consolidado")
+    public void testRejeitarInvalidos() {
+        HistogramaLatencias histograma = new HistogramaLatencias();
+        histograma.registrar(100);
+        byte[] dados = histograma.serializar();
+        consolidador.receber(dados, 0, dados.length);
+
+        byte[] sobra = Arrays.copyOf(dados, dados.length + 1);
+        assertThrows(IllegalArgumentException.class, () -> consolidador.receber(sobra, 0, sobra.length));
+        assertThrows(IllegalArgumentException.class, () -> consolidador.receber(dados, 0, dados.length - 2));
+        assertEquals(1, consolidador.getQuantidade());
+        assertEquals(1, consolidador.getNos());
+    }
+}
@@ -0,0 +1,100 @@
+package br.com.itau.governanca.risco;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Testes unitários para o EscritorJsonRelatorio
+ */
+public class EscritorJsonRelatorioTest {
+
+    private static final Path RELATORIO_QUBE = Paths.get("documentacao", "relatorios", "relatorio_qube.json");
+
+    private CalculadoraRisco calculadora;
+    private ModeloCompilado modelo;
+    private double[] valoresQube;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        calculadora = new CalculadoraRisco();
+        modelo = calculadora.getModelo();
+        valoresQube = modelo.novoVetorValores();
+        new LeitorJsonRelatorio(modelo).ler(ByteBuffer.wrap(Files.readAllBytes(RELATORIO_QUBE)), valoresQube);
+    }
+
+    @Test
+    @DisplayName("Deve reproduzir byte a byte o relatorio_qube.json gerado pelo script Python")
+    public void testReproduzirRelatorioQube() throws IOException {
+        EscritorJsonRelatorio escritor = new EscritorJsonRelatorio(calculadora, true);
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+
+        int escritos = escritor.escrever("Qube AICUBE", "1.0", "28/05/2025", valoresQube, saida);
+
+        assertEquals(saida.size(), escritos);
+        assertEquals(new String(Files.readAllBytes(RELATORIO_QUBE), StandardCharsets.UTF_8),
+                     saida.toString(StandardCharsets.UTF_8.name()));
+    }
+
+    @Test
+    @DisplayName("Deve escrever JSON compacto em ByteBuffer omitindo dimensões ausentes")
+    public void testCompactoEmByteBuffer() {
+        double[] valores = modelo.novoVetorValores();
+        valores[modelo.indiceCriterio("performance", "percentil_95")] = 3500;
+        valores[modelo.indiceCriterio("bugs", "densidade_defeitos")] = 0.1;
+        double[] pontuacoes = new double[modelo.getNumDimensoes()];
+        double total = calculadora.calcularPontuacaoTotal(valores, pontuacoes);
+
+        EscritorJsonRelatorio escritor = new EscritorJsonRelatorio(calculadora);
+        ByteBuffer destino = ByteBuffer.allocate(1024);
+        int escritos = escritor.escrever("App \"X\"", "2.0", null, valores, pontuacoes, total,
+                                         calculadora.verificarVetos(valores), destino);
+
+        String json = new String(destino.array(), 0, escritos, StandardCharsets.UTF_8);
+        assertEquals("{\"nome_aplicacao\":\"App \\\"X\\\"\",\"versao\":\"2.0\",\"resultado\":"
+            + "{\"pontuacao_total\":1.0,\"classificacao\":\"VERDE (Baixo Risco)\","
+            + "\"pontuacoes_dimensoes\":{\"bugs\":1.0,\"performance\":3.0}},"
+            + "\"vetos\":[\"Tempo de resposta P95 > 3000ms em operações críticas\"],\"status\":\"BLOQUEADO\","
+            + "\"dados_detalhados\":{\"bugs\":{\"densidade_defeitos\":0.1},\"performance\":{\"percentil_95\":3500.0}}}",
+            json);
+
+        assertThrows(BufferOverflowException.class,
+            () -> escritor.escrever("App", "1.0", null, valores, ByteBuffer.allocate(16)));
+    }
+
+    @Test
+    @DisplayName("Deve formatar números de forma que a leitura recupere o mesmo double")
+    public void testFormatacaoNumeros() throws IOException {
+        double[] numeros = {0.0, -0.0, 1.0, 0.9, 3.8, 1.7249999999999999, 0.1 + 0.2, 123456.789, -42.5,
+                            1e-7, 1e20, 999999999999999.0, Double.MIN_VALUE, Double.MAX_VALUE};
+        LeitorJsonRelatorio leitor = new LeitorJsonRelatorio(modelo);
+        EscritorJsonRelatorio escritor = new EscritorJsonRelatorio(calculadora);
+        double[] valores = modelo.novoVetorValores();
+        double[] lidos = modelo.novoVetorValores();
+        int criterio = modelo.indiceCriterio("performance", "tempo_resposta");
+
+        for (double numero : numeros) {
+            valores[criterio] = numero;
+            ByteArrayOutputStream saida = new ByteArrayOutputStream();
+            escritor.escrever("App", "1.0", null, valores, saida);
+            leitor.ler(ByteBuffer.wrap(saida.toByteArray()), lidos);
+            assertEquals(Double.doubleToLongBits(numero), Double.doubleToLongBits(lidos[criterio]),
+                         saida.toString(StandardCharsets.UTF_8.name()));
+        }
+
+        valores[criterio] = 3.8;
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        escritor.escrever("App", "1.0", null, valores, saida);
+        assertTrue(saida.toString(StandardCharsets.UTF_8.name()).contains("\"tempo_resposta\":3.8}"));
+    }
+}
@@ -0,0 +1,118 @@
+package br.com.itau.governanca.risco;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Testes unitários para o GerenciadorModelo
+ */
+public class GerenciadorModeloTest {
+
+    private static final Path ARQUIVO_MODELO = Paths.get("documentacao/relatorios/modelo_risco_qualidade_itau.properties");
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    @DisplayName("Deve trocar o modelo na recarga e manter o atual se o arquivo for inválido")
+    public void testRecarregar() throws IOException {
+        Path arquivo = diretorio.resolve("modelo.properties");
+        Files.copy(ARQUIVO_MODELO, arquivo);
+        List<String> trocas = new ArrayList<>();
+
+        try (GerenciadorModelo gerenciador = new GerenciadorModelo(arquivo,
+                (anterior, atual) -> trocas.add(anterior.getVersao() + "->" + atual.getVersao()))) {
+            CalculadoraRisco inicial = gerenciador.getCalculadora();
+            int p95 = inicial.getModelo().indiceCriterio("performance", "percentil_95");
+            assertEquals(2, inicial.classificarCriterio(p95, 1500));
+
+            // Mesmo conteúdo: nenhuma troca
+            assertFalse(gerenciador.recarregar());
+
+            escrever(arquivo, "percentil_95=0.25, 800.0, 2000.0", "percentil_95=0.25, 1600.0, 2000.0", "2024.2");
+            assertTrue(gerenciador.recarregar());
+            assertEquals("2024.2", gerenciador.getModelo().getVersao());
+            assertEquals(1, gerenciador.getCalculadora().classificarCriterio(p95, 1500));
+            // A calculadora obtida antes da troca continua com o modelo anterior
+            assertEquals(2, inicial.classificarCriterio(p95, 1500));
+
+            escrever(arquivo, "dimensao.seguranca.peso=0.30", "dimensao.seguranca.peso=0.40", "2024.3");
+            assertFalse(gerenciador.recarregar());
+            assertTrue(gerenciador.getUltimoErro() instanceof IllegalArgumentException);
+            assertEquals("2024.2", gerenciador.getModelo().getVersao());
+
+            assertEquals(1, gerenciador.getRecargas());
+            assertEquals(List.of("2024.1->2024.2"), trocas);
+        }
+    }
+
+    @Test
+    @DisplayName("Deve recarregar o modelo quando o arquivo monitorado muda")
+    public void testMonitoramento() throws Exception {
+        Path arquivo = diretorio.resolve("modelo.properties");
+        Files.copy(ARQUIVO_MODELO, arquivo);
+
+        try (GerenciadorModelo gerenciador = new GerenciadorModelo(arquivo)) {
+            gerenciador.iniciarMonitoramento();
+            assertThrows(IllegalStateException.class, gerenciador::iniciarMonitoramento);
+
+            // Grava em um arquivo temporário e move, como faria uma ferramenta de implantação
+            Path temporario = diretorio.resolve("modelo.tmp");
+            Files.copy(ARQUIVO_MODELO, temporario);
+            escrever(temporario, "dimensao.bugs.peso=0.25", "dimensao.bugs.peso=0.25", "2024.9");
+            Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            long limite = System.nanoTime() + 20_000_000_000L;
+            while (!"2024.9".equals(gerenciador.getModelo().getVersao()) && System.nanoTime() < limite) {
+                Thread.sleep(20);
+            }
+            assertEquals("2024.9", gerenciador.getModelo().getVersao());
+        }
+    }
+
+    @Test
+    @DisplayName("Deve continuar monitorando quando o ouvinte falha")
+    public void testOuvinteComFalha() throws Exception {
+        Path arquivo = diretorio.resolve("modelo.properties");
+        Files.copy(ARQUIVO_MODELO, arquivo);
+
+        try (GerenciadorModelo gerenciador = new GerenciadorModelo(arquivo, (anterior, atual) -> {
+            throw new IllegalStateException("ouvinte com defeito");
+        })) {
+            gerenciador.iniciarMonitoramento();
+            for (String versao : new String[] {"2024.8", "2024.9"}) {
+                Path temporario = diretorio.resolve("modelo.tmp");
+                Files.copy(ARQUIVO_MODELO, temporario);
+                escrever(temporario, "dimensao.bugs.peso=0.25", "dimensao.bugs.peso=0.25", versao);
+                Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+                long limite = System.nanoTime() + 20_000_000_000L;
+                while (!versao.equals(gerenciador.getModelo().getVersao()) && System.nanoTime() < limite) {
+                    Thread.sleep(20);
+                }
+                // A segunda troca só acontece se a thread sobreviveu à falha da primeira
+                assertEquals(versao, gerenciador.getModelo().getVersao());
+            }
+            assertEquals(2, gerenciador.getRecargas());
+        }
+    }
+
+    // Substitui um trecho do arquivo e a sua versão
+    private void escrever(Path arquivo, String trecho, String substituto, String versao) throws IOException {
+        String conteudo = new String(Files.readAllBytes(arquivo), StandardCharsets.UTF_8)
+            .replace(trecho, substituto)
+            .replaceAll("versao=.*", "versao=" + versao);
+        Files.write(arquivo, conteudo.getBytes(StandardCharsets.UTF_8));
+    }
+}
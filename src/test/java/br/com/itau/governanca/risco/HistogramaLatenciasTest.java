@@ -0,0 +1,136 @@
+package br.com.itau.governanca.risco;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Testes unitários para o HistogramaLatencias
+ */
+public class HistogramaLatenciasTest {
+
+    @Test
+    @DisplayName("Deve estimar percentis com erro relativo limitado e média exata")
+    public void testPrecisao() {
+        Random random = new Random(11);
+        double[] amostras = new double[100_000];
+        HistogramaLatencias histograma = new HistogramaLatencias();
+        double soma = 0;
+        for (int i = 0; i < amostras.length; i++) {
+            // Distribuição log-normal, com cauda longa como as latências reais
+            amostras[i] = Math.exp(5.5 + random.nextGaussian() * 0.8);
+            histograma.registrar(amostras[i]);
+            soma += amostras[i];
+        }
+        Arrays.sort(amostras);
+
+        for (double percentil : new double[] {50, 90, 95, 99, 100}) {
+            double exato = amostras[(int) Math.ceil(percentil / 100 * amostras.length) - 1];
+            assertEquals(exato, histograma.getPercentil(percentil), exato * 0.016, "P" + percentil);
+        }
+        assertEquals(soma / amostras.length, histograma.getMedia(), 1e-9);
+        assertEquals(amostras[0], histograma.getMinimo(), 0.0);
+        assertEquals(amostras[amostras.length - 1], histograma.getMaximo(), 0.0);
+        assertEquals(amostras.length, histograma.getQuantidade());
+    }
+
+    @Test
+    @DisplayName("Deve mesclar histogramas como se as amostras fossem registradas em um só")
+    public void testMesclar() {
+        Random random = new Random(3);
+        HistogramaLatencias unico = new HistogramaLatencias();
+        HistogramaLatencias consolidado = new HistogramaLatencias();
+        for (int no = 0; no < 8; no++) {
+            HistogramaLatencias parcial = new HistogramaLatencias();
+            for (int i = 0; i < 1000; i++) {
+                double latencia = random.nextDouble() * (no + 1) * 500;
+                parcial.registrar(latencia);
+                unico.registrar(latencia);
+            }
+            consolidado.mesclar(parcial);
+        }
+        consolidado.mesclar(new HistogramaLatencias());
+
+        assertEquals(unico.getQuantidade(), consolidado.getQuantidade());
+        assertEquals(unico.getMedia(), consolidado.getMedia(), 1e-9);
+        for (double percentil : new double[] {1, 50, 95, 99.9}) {
+            assertEquals(unico.getPercentil(percentil), consolidado.getPercentil(percentil), 0.0);
+        }
+    }
+
+    @Test
+    @DisplayName("Deve serializar somente as faixas não vazias e restaurar o mesmo histograma")
+    public void testSerializacao() {
+        Random random = new Random(5);
+        HistogramaLatencias histograma = new HistogramaLatencias();
+        for (int i = 0; i < 50_000; i++) {
+            histograma.registrar(80 + random.nextDouble() * 400);
+        }
+        histograma.registrar(12_000);
+
+        byte[] dados = histograma.serializar();
+        assertEquals(histograma.getTamanhoSerializado(), dados.length);
+        assertTrue(dados.length < 400, "tamanho " + dados.length);
+
+        HistogramaLatencias restaurado = HistogramaLatencias.desserializar(ByteBuffer.wrap(dados));
+        assertEquals(histograma.getQuantidade(), restaurado.getQuantidade());
+        assertEquals(histograma.getMedia(), restaurado.getMedia(), 0.0);
+        assertEquals(histograma.getMaximo(), restaurado.getMaximo(), 0.0);
+        for (double percentil : new double[] {1, 50, 95, 100}) {
+            assertEquals(histograma.getPercentil(percentil), restaurado.getPercentil(percentil), 0.0);
+        }
+
+        // Vários histogramas em sequência no mesmo buffer
+        ByteBuffer buffer = ByteBuffer.allocate(2 * HistogramaLatencias.TAMANHO_MAXIMO_SERIALIZADO);
+        new HistogramaLatencias().serializar(buffer);
+        histograma.serializar(buffer);
+        buffer.flip();
+        HistogramaLatencias mesclado = new HistogramaLatencias();
+        mesclado.mesclar(buffer);
+        mesclado.mesclar(buffer);
+        assertFalse(buffer.hasRemaining());
+        assertEquals(histograma.getPercentil(95), mesclado.getPercentil(95), 0.0);
+
+        // Conteúdo truncado ou adulterado não altera o histograma
+        assertThrows(IllegalArgumentException.class,
+            () -> mesclado.mesclar(ByteBuffer.wrap(Arrays.copyOf(dados, dados.length - 1))));
+        byte[] adulterado = dados.clone();
+        adulterado[0] = 9;
+        assertThrows(IllegalArgumentException.class, () -> mesclado.mesclar(ByteBuffer.wrap(adulterado)));
+        assertEquals(histograma.getQuantidade(), mesclado.getQuantidade());
+    }
+
+    @Test
+    @DisplayName("Deve tratar histograma vazio, extremos da faixa e valores inválidos")
+    public void testLimites() {
+        HistogramaLatencias histograma = new HistogramaLatencias();
+        assertTrue(Double.isNaN(histograma.getPercentil(95)));
+        assertTrue(Double.isNaN(histograma.getMedia()));
+
+        histograma.registrar(0);
+        histograma.registrar(0.01);
+        histograma.registrar(5_000_000);
+        assertEquals(0.0, histograma.getPercentil(33), 0.0);
+        assertEquals(5_000_000, histograma.getPercentil(100), 0.0);
+        assertEquals(0, HistogramaLatencias.faixa(0.01));
+        assertEquals(HistogramaLatencias.NUM_FAIXAS - 1, HistogramaLatencias.faixa(5_000_000));
+        assertEquals(HistogramaLatencias.MAXIMO_MILIS, HistogramaLatencias.limiteInferior(HistogramaLatencias.NUM_FAIXAS), 0.0);
+
+        // Cada faixa começa onde a anterior termina
+        for (int i = 1; i < HistogramaLatencias.NUM_FAIXAS; i++) {
+            assertEquals(i, HistogramaLatencias.faixa(HistogramaLatencias.limiteInferior(i)));
+            assertEquals(i - 1, HistogramaLatencias.faixa(Math.nextDown(HistogramaLatencias.limiteInferior(i))));
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> histograma.registrar(-1));
+        assertThrows(IllegalArgumentException.class, () -> histograma.registrar(Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> histograma.getPercentil(0));
+        histograma.limpar();
+        assertEquals(0, histograma.getQuantidade());
+        assertTrue(Double.isNaN(histograma.getMaximo()));
+    }
+}
@@ -0,0 +1,180 @@
+package br.com.itau.governanca.risco;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Testes unitários para o HistoricoAvaliacoes
+ */
+public class HistoricoAvaliacoesTest {
+
+    @TempDir
+    Path diretorio;
+
+    private CalculadoraRisco calculadora;
+    private ModeloCompilado modelo;
+    private Map<String, Map<String, Double>> dadosQube;
+
+    @BeforeEach
+    public void setUp() {
+        calculadora = new CalculadoraRisco();
+        modelo = calculadora.getModelo();
+
+        dadosQube = new HashMap<>();
+        Map<String, Double> bugs = new HashMap<>();
+        bugs.put("densidade_defeitos", 1.2);
+        bugs.put("bugs_criticos", 0.0);
+        bugs.put("cobertura_testes", 82.0);
+        dadosQube.put("bugs", bugs);
+        Map<String, Double> performance = new HashMap<>();
+        performance.put("percentil_95", 650.0);
+        performance.put("taxa_erro", 0.3);
+        dadosQube.put("performance", performance);
+        Map<String, Double> seguranca = new HashMap<>();
+        seguranca.put("vulnerabilidades_criticas", 0.0);
+        dadosQube.put("seguranca", seguranca);
+    }
+
+    @Test
+    @DisplayName("Deve gravar e ler de volta um resultado com os dados detalhados")
+    public void testRegistrarELer() throws IOException {
+        ResultadoAvaliacao resultado = new ResultadoAvaliacao(
+            calculadora.gerarRelatorio("Qube AICUBE", "1.0", dadosQube));
+
+        try (HistoricoAvaliacoes historico = new HistoricoAvaliacoes(diretorio, modelo)) {
+            historico.registrar(1000L, resultado, dadosQube);
+
+            List<String> lidos = new ArrayList<>();
+            long visitados = historico.percorrer("Qube AICUBE", 0, Long.MAX_VALUE, registro -> {
+                assertEquals(1000L, registro.getInstante());
+                assertEquals(resultado.getPontuacaoTotal(), registro.getPontuacaoTotal(), 0.0);
+                assertEquals(StatusAvaliacao.APROVADO, registro.getStatus());
+                assertEquals(resultado.getClassificacao(), registro.getClassificacao().getRotulo());
+                assertEquals(0, registro.getVetos());
+                int bugs = modelo.indiceDimensao("bugs");
+                assertEquals(resultado.getPontuacoesDimensoes().get("bugs"),
+                             registro.getPontuacaoDimensao(bugs), 0.0);
+                assertEquals(650.0, registro.getValor(modelo.indiceCriterio("performance", "percentil_95")), 0.0);
+                assertTrue(Double.isNaN(registro.getValor(modelo.indiceCriterio("experiencia", "acessibilidade"))));
+                lidos.add(registro.getNomeAplicacao() + "@" + registro.getVersao());
+            });
+
+            assertEquals(1, visitados);
+            assertEquals(List.of("Qube AICUBE@1.0"), lidos);
+        }
+    }
+
+    @Test
+    @DisplayName("Deve percorrer apenas o histórico da aplicação no intervalo informado")
+    public void testPercorrerHistoricoAplicacao() throws IOException {
+        double[] valores = modelo.preencherValores(dadosQube, modelo.novoVetorValores());
+        double[] pontuacoes = new double[modelo.getNumDimensoes()];
+        double total = calculadora.calcularPontuacaoTotal(valores, pontuacoes);
+
+        try (HistoricoAvaliacoes historico = new HistoricoAvaliacoes(diretorio, modelo)) {
+            for (int i = 0; i < 100; i++) {
+                historico.registrar(i, "App " + (i % 4), "v" + i, valores, pontuacoes, total,
+                                    i % 8 == 0 ? CalculadoraRisco.VETO_TAXA_ERRO : 0);
+            }
+
+            List<Long> instantes = new ArrayList<>();
+            List<StatusAvaliacao> status = new ArrayList<>();
+            historico.percorrer("App 0", 20, 40, registro -> {
+                instantes.add(registro.getInstante());
+                status.add(registro.getStatus());
+            });
+
+            assertEquals(List.of(20L, 24L, 28L, 32L, 36L), instantes);
+            assertEquals(List.of(StatusAvaliacao.APROVADO, StatusAvaliacao.BLOQUEADO, StatusAvaliacao.APROVADO,
+                                 StatusAvaliacao.BLOQUEADO, StatusAvaliacao.APROVADO), status);
+            assertEquals(0, historico.percorrer("App inexistente", 0, Long.MAX_VALUE, registro -> fail()));
+            assertEquals(100, historico.percorrerTodos(registro -> { }));
+        }
+    }
+
+    @Test
+    @DisplayName("Deve abrir novos segmentos e continuar anexando após reabrir o histórico")
+    public void testSegmentosEReabertura() throws IOException {
+        double[] valores = modelo.novoVetorValores();
+        double[] pontuacoes = new double[modelo.getNumDimensoes()];
+
+        try (HistoricoAvaliacoes historico = new HistoricoAvaliacoes(diretorio, modelo, 10)) {
+            for (int i = 0; i < 25; i++) {
+                historico.registrar(i, "App", "1.0", valores, pontuacoes, 1.0, 0);
+            }
+            historico.sincronizar();
+        }
+        assertEquals(3, contarSegmentos());
+
+        // Simula uma gravação interrompida no último segmento
+        Path ultimo = diretorio.resolve("segmento-000002.hist");
+        try (FileChannel canal = FileChannel.open(ultimo, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            canal.write(ByteBuffer.wrap(new byte[17]));
+        }
+
+        try (HistoricoAvaliacoes historico = new HistoricoAvaliacoes(diretorio, modelo, 10)) {
+            assertEquals(25, historico.getQuantidadeRegistros());
+            for (int i = 25; i < 32; i++) {
+                historico.registrar(i, "App", "1.0", valores, pontuacoes, 1.0, 0);
+            }
+            List<Long> instantes = new ArrayList<>();
+            historico.percorrer("App", 0, Long.MAX_VALUE, registro -> instantes.add(registro.getInstante()));
+            assertEquals(32, instantes.size());
+            for (int i = 0; i < 32; i++) {
+                assertEquals(i, (long) instantes.get(i));
+            }
+        }
+        assertEquals(4, contarSegmentos());
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar segmentos gravados com outro layout de modelo")
+    public void testLayoutIncompativel() throws IOException {
+        try (HistoricoAvaliacoes historico = new HistoricoAvaliacoes(diretorio, modelo)) {
+            historico.registrar(0, "App", "1.0", modelo.novoVetorValores(), new double[modelo.getNumDimensoes()],
+                                1.0, 0);
+        }
+
+        ModeloCompilado outro = new ModeloCompilado.Construtor()
+            .dimensao("bugs", 1.0)
+            .criterio("bugs_criticos", 1.0, 0, 2, false)
+            .construir();
+        assertThrows(IllegalStateException.class, () -> new HistoricoAvaliacoes(diretorio, outro));
+
+        // Mesmos números de dimensões e critérios (mesmo layout), mas outro limiar
+        ModeloCompilado.Construtor construtor = new ModeloCompilado.Construtor();
+        for (int d = 0; d < modelo.getNumDimensoes(); d++) {
+            construtor.dimensao(modelo.getNomeDimensao(d), modelo.getPesoDimensao(d));
+            for (int c = modelo.inicioDimensao(d); c < modelo.fimDimensao(d); c++) {
+                double medio = modelo.getLimiarMedio(c) + (c == 0 ? 1 : 0);
+                construtor.criterio(modelo.getNomeCriterio(c), modelo.getPesoCriterio(c), modelo.getLimiarBaixo(c),
+                                    medio, modelo.isInvertido(c));
+            }
+        }
+        ModeloCompilado mesmoLayout = construtor.construir();
+        assertNotEquals(modelo.getAssinatura(), mesmoLayout.getAssinatura());
+        assertThrows(IllegalStateException.class, () -> new HistoricoAvaliacoes(diretorio, mesmoLayout));
+    }
+
+    private long contarSegmentos() throws IOException {
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            return arquivos.filter(p -> p.getFileName().toString().endsWith(".hist")).collect(Collectors.counting());
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package br.com.itau.governanca.risco;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Testes unitários para o LeitorCsvAvaliacao
+ */
+public class LeitorCsvAvaliacaoTest {
+
+    private static final Path AVALIACAO_QUBE = Paths.get("documentacao", "relatorios", "avaliacao_qube.csv");
+
+    private CalculadoraRisco calculadora;
+    private ModeloCompilado modelo;
+    private LeitorCsvAvaliacao leitor;
+
+    @BeforeEach
+    public void setUp() {
+        calculadora = new CalculadoraRisco();
+        modelo = calculadora.getModelo();
+        leitor = new LeitorCsvAvaliacao(modelo);
+    }
+
+    @Test
+    @DisplayName("Deve carregar avaliacao_qube.csv com os mesmos valores do script Python")
+    public void testCarregarAvaliacaoQube() throws IOException {
+        Map<String, Map<String, Double>> dados = leitor.carregarDados(AVALIACAO_QUBE);
+
+        assertEquals(5, dados.get("bugs").size());
+        assertEquals(6, dados.get("performance").size());
+        assertEquals(6, dados.get("seguranca").size());
+        assertEquals(6, dados.get("experiencia").size());
+        assertEquals(1.2, dados.get("bugs").get("densidade_defeitos"), 0.0);
+        assertEquals(650.0, dados.get("performance").get("percentil_95"), 0.0);
+        assertEquals(3.8, dados.get("performance").get("tempo_inicializacao"), 0.0);
+        assertEquals(2.0, dados.get("seguranca").get("autenticacao_autorizacao"), 0.0);
+        assertEquals(0.9, dados.get("experiencia").get("taxa_erro_usuario"), 0.0);
+
+        // As linhas "Pontuação Total ..." são ignoradas
+        assertEquals(4, leitor.getLinhasIgnoradas());
+
+        Map<String, Object> relatorio = calculadora.gerarRelatorio("Qube AICUBE", "1.0", dados);
+        assertEquals("APROVADO", relatorio.get("status"));
+    }
+
+    @Test
+    @DisplayName("Deve separar aplicações concatenadas pelo cabeçalho repetido")
+    public void testArquivosConcatenados() throws IOException {
+        byte[] conteudo = Files.readAllBytes(AVALIACAO_QUBE);
+        ByteArrayOutputStream concatenado = new ByteArrayOutputStream();
+        int copias = 3000;   // ~4 MB, atravessa muitas fronteiras do buffer
+        for (int i = 0; i < copias; i++) {
+            concatenado.write(conteudo);
+            concatenado.write('\n');
+        }
+
+        double esperado = (double) calculadora.calcularRiscoTotal(leitor.carregarDados(AVALIACAO_QUBE))
+            .get("pontuacao_total");
+        double[] pontuacoes = new double[modelo.getNumDimensoes()];
+        List<Double> totais = new ArrayList<>();
+        int aplicacoes = leitor.ler(new ByteArrayInputStream(concatenado.toByteArray()),
+            (nome, versao, valores) -> {
+                assertNull(nome);
+                assertNull(versao);
+                totais.add(calculadora.calcularPontuacaoTotal(valores, pontuacoes));
+            });
+
+        assertEquals(copias, aplicacoes);
+        assertEquals(copias, totais.size());
+        for (double total : totais) {
+            assertEquals(esperado, total, 1e-12);
+        }
+    }
+
+    @Test
+    @DisplayName("Deve separar aplicações pelas colunas Aplicação e Versão")
+    public void testColunasAplicacaoVersao() throws IOException {
+        String csv = "\uFEFFAplicação,Versão,Dimensão,Critério,Métrica,Valor Atual\r\n"
+            + "App A,1.0,Bugs,Bugs críticos pendentes,Número absoluto,2\r\n"
+            + "App A,1.0,Performance,\"Percentil 95 de tempo de resposta\",\"P95, em ms\",3500\r\n"
+            + "App B,2.0,Segurança,Vulnerabilidades críticas,Número absoluto,0\r\n"
+            + "App B,2.0,Segurança,Critério inexistente,Número absoluto,5\r\n"
+            + "App B,2.1,Experiência,Taxa de erro do usuário,%,abc\r\n"
+            + "App B,2.1,Experiência,Acessibilidade,%, 96 ";
+
+        List<String> identificacoes = new ArrayList<>();
+        List<double[]> valoresLidos = new ArrayList<>();
+        int aplicacoes = leitor.ler(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+            (nome, versao, valores) -> {
+                identificacoes.add(nome + "@" + versao);
+                valoresLidos.add(valores.clone());
+            });
+
+        assertEquals(3, aplicacoes);
+        assertEquals(List.of("App A@1.0", "App B@2.0", "App B@2.1"), identificacoes);
+        assertEquals(2.0, valoresLidos.get(0)[modelo.indiceCriterio("bugs", "bugs_criticos")], 0.0);
+        assertEquals(3500.0, valoresLidos.get(0)[modelo.indiceCriterio("performance", "percentil_95")], 0.0);
+        assertTrue(Double.isNaN(valoresLidos.get(0)[modelo.indiceCriterio("seguranca", "vulnerabilidades_criticas")]));
+        assertEquals(0.0, valoresLidos.get(1)[modelo.indiceCriterio("seguranca", "vulnerabilidades_criticas")], 0.0);
+        assertEquals(96.0, valoresLidos.get(2)[modelo.indiceCriterio("experiencia", "acessibilidade")], 0.0);
+        assertTrue(Double.isNaN(valoresLidos.get(2)[modelo.indiceCriterio("experiencia", "taxa_erro_usuario")]));
+        assertEquals(2, leitor.getLinhasIgnoradas());
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar cabeçalhos sem as colunas obrigatórias")
+    public void testCabecalhoInvalido() {
+        String csv = "Dimensão,Métrica\nBugs,1\n";
+        assertThrows(IllegalArgumentException.class,
+            () -> leitor.ler(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), (n, v, valores) -> { }));
+    }
+
+    @Test
+    @DisplayName("Deve converter números a partir de bytes como Double.parseDouble")
+    public void testConversorNumeros() {
+        String[] numeros = {"0", "1.2", "-3.75", "+42", "980", "0.9", "123456789.123456", "1e3", "2.5E-2",
+                            "0.1234567890123456789", " 7.5 ", "1234567890123456789012"};
+        for (String numero : numeros) {
+            byte[] bytes = numero.getBytes(StandardCharsets.US_ASCII);
+            assertEquals(Double.parseDouble(numero.trim()), ConversorNumeros.converter(bytes, 0, bytes.length), 0.0,
+                         numero);
+        }
+        for (String invalido : new String[] {"", " ", "abc", "1.2.3", "-", "."}) {
+            byte[] bytes = invalido.getBytes(StandardCharsets.US_ASCII);
+            assertTrue(Double.isNaN(ConversorNumeros.converter(bytes, 0, bytes.length)), invalido);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package br.com.itau.governanca.risco;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Testes unitários para o LeitorJsonRelatorio
+ */
+public class LeitorJsonRelatorioTest {
+
+    private CalculadoraRisco calculadora;
+    private ModeloCompilado modelo;
+    private LeitorJsonRelatorio leitor;
+
+    @BeforeEach
+    public void setUp() {
+        calculadora = new CalculadoraRisco();
+        modelo = calculadora.getModelo();
+        leitor = new LeitorJsonRelatorio(modelo);
+    }
+
+    @Test
+    @DisplayName("Deve ler o relatorio_qube.json gerado pelo script Python")
+    public void testLerRelatorioQube() throws IOException {
+        byte[] json = Files.readAllBytes(Paths.get("documentacao", "relatorios", "relatorio_qube.json"));
+        double[] valores = modelo.novoVetorValores();
+
+        ResultadoAvaliacao resultado = leitor.ler(ByteBuffer.wrap(json), valores);
+
+        assertEquals("Qube AICUBE", resultado.getNomeAplicacao());
+        assertEquals("1.0", resultado.getVersao());
+        assertEquals(1.0, resultado.getPontuacaoTotal(), 0.0);
+        assertTrue(resultado.isBaixoRisco());
+        assertTrue(resultado.isBloqueado());
+        assertEquals(List.of("Taxa de erro em produção >1% para operações críticas"), resultado.getVetos());
+        assertEquals(4, resultado.getPontuacoesDimensoes().size());
+        assertEquals(1.0, resultado.getPontuacoesDimensoes().get("seguranca"), 0.0);
+        assertEquals(1.8, valores[modelo.indiceCriterio("experiencia", "taxa_erro_usuario")], 0.0);
+        assertEquals(980.0, valores[modelo.indiceCriterio("bugs", "mtbf")], 0.0);
+        assertEquals(CalculadoraRisco.VETO_TAXA_ERRO, calculadora.verificarVetos(valores));
+    }
+
+    @Test
+    @DisplayName("Deve ler de volta o relatório escrito com o mesmo resultado do gerarRelatorio")
+    public void testIdaEVolta() throws IOException {
+        Map<String, Map<String, Double>> dados = new HashMap<>();
+        Map<String, Double> bugs = new HashMap<>();
+        bugs.put("densidade_defeitos", 4.0);
+        bugs.put("bugs_criticos", 1.0);
+        dados.put("bugs", bugs);
+        Map<String, Double> seguranca = new HashMap<>();
+        seguranca.put("owasp_top10", 85.0);
+        dados.put("seguranca", seguranca);
+        ResultadoAvaliacao esperado = new ResultadoAvaliacao(calculadora.gerarRelatorio("App", "3.1", dados));
+
+        double[] valores = modelo.preencherValores(dados, modelo.novoVetorValores());
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        new EscritorJsonRelatorio(calculadora).escrever("App", "3.1", null, valores, saida);
+        double[] lidos = new double[modelo.getNumCriterios()];
+        ResultadoAvaliacao resultado = leitor.ler(saida.toByteArray(), 0, saida.size(), lidos);
+
+        assertEquals(esperado.getPontuacaoTotal(), resultado.getPontuacaoTotal(), 0.0);
+        assertEquals(esperado.getClassificacao(), resultado.getClassificacao());
+        assertEquals(esperado.getStatus(), resultado.getStatus());
+        assertEquals(esperado.getVetos(), resultado.getVetos());
+        assertEquals(esperado.getPontuacoesDimensoes(), resultado.getPontuacoesDimensoes());
+        assertArrayEquals(valores, lidos);
+    }
+
+    @Test
+    @DisplayName("Deve ignorar chaves desconhecidas e decodificar escapes")
+    public void testChavesDesconhecidasEEscapes() {
+        String json = " { \"extra\": {\"a\": [1, true, null, \"x\"]}, \"nome_aplicacao\": \"App \\\"\\u00e7\\\"\","
+            + "\"resultado\": {\"pontuacao_total\": 2.5e0, \"classificacao\": \"VERMELHO (Alto Risco)\","
+            + "\"pontuacoes_dimensoes\": {\"nova\": 3.0}, \"outro\": false},"
+            + "\"vetos\": [], \"status\": \"CONDICIONADO\", \"dados_detalhados\": {\"bugs\": {\"x\": 1}}} ";
+
+        ResultadoAvaliacao resultado = leitor.ler(json.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("App \"ç\"", resultado.getNomeAplicacao());
+        assertNull(resultado.getVersao());
+        assertEquals(2.5, resultado.getPontuacaoTotal(), 0.0);
+        assertTrue(resultado.isAltoRisco());
+        assertTrue(resultado.isCondicionado());
+        assertEquals(3.0, resultado.getPontuacoesDimensoes().get("nova"), 0.0);
+        assertTrue(resultado.getVetos().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar JSON inválido ou incompleto")
+    public void testJsonInvalido() {
+        String[] invalidos = {
+            "", "{", "{\"status\": \"APROVADO\"", "{\"status\" \"APROVADO\"}", "[]",
+            "{\"resultado\": {\"pontuacao_total\": abc}}", "{\"status\": \"APROVADO\"} x",
+            "{\"status\": \"APROVADO\"}",
+            "{\"resultado\": {\"pontuacao_total\": \"9.8\", \"classificacao\": \"VERDE (Baixo Risco)\"}, \"status\": \"APROVADO\"}",
+            "{\"resultado\": {\"pontuacao_total\": 9.8, \"classificacao\": \"VERDE (Baixo Risco)\"}, \"status\": \"APROVADO\","
+                + " \"versao\": \"\\u12\"}"
+        };
+        for (String invalido : invalidos) {
+            assertThrows(IllegalArgumentException.class,
+                () -> leitor.ler(invalido.getBytes(StandardCharsets.UTF_8)), invalido);
+        }
+
+        // A posição do erro é a do array, mesmo lendo um trecho no meio dele
+        byte[] trecho = "xx{\"status\" \"APROVADO\"}".getBytes(StandardCharsets.UTF_8);
+        IllegalArgumentException erro = assertThrows(IllegalArgumentException.class,
+            () -> leitor.ler(trecho, 2, trecho.length, null));
+        assertEquals("JSON inválido na posição 12: esperado ':'", erro.getMessage());
+    }
+
+    @Test
+    @DisplayName("Deve ler uma requisição de avaliação sem resultado")
+    public void testLerRequisicao() {
+        byte[] json = ("{\"nome_aplicacao\": \"App\", \"versao\": \"2.1\","
+            + "\"dados_detalhados\": {\"performance\": {\"percentil_95\": 3500}}}").getBytes(StandardCharsets.UTF_8);
+        double[] valores = modelo.novoVetorValores();
+
+        leitor.lerRequisicao(json, 0, json.length, valores);
+
+        assertEquals("App", leitor.getNomeAplicacaoLido());
+        assertEquals("2.1", leitor.getVersaoLida());
+        assertEquals(3500.0, valores[modelo.indiceCriterio("performance", "percentil_95")], 0.0);
+        assertTrue(Double.isNaN(valores[modelo.indiceCriterio("bugs", "mtbf")]));
+        assertThrows(IllegalArgumentException.class, () -> leitor.lerRequisicao(json, 0, json.length - 1, valores));
+    }
+}
@@ -0,0 +1,147 @@
+package br.com.itau.governanca.risco;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Testes unitários para o LeitorRelatoriosAnalise, com relatórios de exemplo em
+ * src/test/resources/relatorios
+ */
+public class LeitorRelatoriosAnaliseTest {
+
+    @TempDir
+    Path diretorio;
+
+    private final LeitorRelatoriosAnalise leitor = new LeitorRelatoriosAnalise();
+
+    @Test
+    @DisplayName("Deve ler JaCoCo, cobertura genérica do SonarQube e SpotBugs e preencher a dimensão bugs")
+    public void testRelatoriosDeExemplo() throws Exception {
+        // Apenas os contadores LINE do relatório, mesmo com grupos e pacotes aninhados
+        LeitorRelatoriosAnalise.ResultadoAnalise contas = leitor.ler(exemplo("jacoco_contas.xml"));
+        assertEquals(352, contas.getLinhasCobertas());
+        assertEquals(400, contas.getLinhasCobertura());
+        assertEquals(88.0, contas.getCoberturaLinhas(), 1e-12);
+        assertTrue(Double.isNaN(contas.getDensidadeDefeitos()));
+        assertEquals(Map.of("cobertura_testes", 88.0), contas.getDadosBugs());
+
+        LeitorRelatoriosAnalise.ResultadoAnalise pagamentos = leitor.ler(exemplo("jacoco_pagamentos.xml"));
+        assertEquals(208, pagamentos.getLinhasCobertas());
+        assertEquals(300, pagamentos.getLinhasCobertura());
+
+        LeitorRelatoriosAnalise.ResultadoAnalise canais = leitor.ler(exemplo("sonar_cobertura_canais.xml"));
+        assertEquals(75.0, canais.getCoberturaLinhas(), 1e-12);
+
+        LeitorRelatoriosAnalise.ResultadoAnalise spotbugs = leitor.ler(exemplo("spotbugs_contas.xml"));
+        assertEquals(3, spotbugs.getDefeitos());
+        assertEquals(1500, spotbugs.getLinhasCodigo());
+        assertEquals(Map.of("densidade_defeitos", 2.0), spotbugs.getDadosBugs());
+
+        LeitorRelatoriosAnalise.ResultadoAnalise todos = leitor.ler(Arrays.asList(
+            exemplo("jacoco_contas.xml"), exemplo("jacoco_pagamentos.xml"),
+            exemplo("sonar_cobertura_canais.xml"), exemplo("spotbugs_contas.xml")));
+        Map<String, Double> dados = todos.getDadosBugs();
+        assertEquals(100.0 * 566 / 708, dados.get("cobertura_testes"), 1e-12);
+        assertEquals(2.0, dados.get("densidade_defeitos"), 1e-12);
+
+        CalculadoraRisco calculadora = new CalculadoraRisco();
+        assertEquals(calculadora.calcularPontuacaoDimensao("bugs",
+                         Map.of("cobertura_testes", 100.0 * 566 / 708, "densidade_defeitos", 2.0)),
+                     calculadora.calcularPontuacaoDimensao("bugs", dados), 1e-12);
+    }
+
+    @Test
+    @DisplayName("Deve somar os relatórios de muitos módulos lidos em paralelo")
+    public void testModulosEmParalelo() throws IOException {
+        List<Path> arquivos = new ArrayList<>();
+        long cobertas = 0;
+        long total = 0;
+        for (int modulo = 0; modulo < 12; modulo++) {
+            Path arquivo = diretorio.resolve("jacoco_" + modulo + ".xml");
+            long[] linhas = escreverJacoco(arquivo, 2000 + modulo * 100, modulo);
+            cobertas += linhas[0];
+            total += linhas[1];
+            arquivos.add(arquivo);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            LeitorRelatoriosAnalise.ResultadoAnalise resultado = new LeitorRelatoriosAnalise(pool).ler(arquivos);
+            assertEquals(cobertas, resultado.getLinhasCobertas());
+            assertEquals(total, resultado.getLinhasCobertura());
+            assertEquals(total, resultado.getLinhasCodigo());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar formatos desconhecidos, XML inválido e entidades externas")
+    public void testRelatoriosInvalidos() throws IOException {
+        Path desconhecido = escrever("pmd.xml", "<pmd version=\"7.0\"><file name=\"A.java\"/></pmd>");
+        assertThrows(IllegalArgumentException.class, () -> leitor.ler(desconhecido));
+
+        Path truncado = escrever("truncado.xml", "<report name=\"x\"><counter type=\"LINE\" missed=\"1\" covered=\"2\"/>");
+        assertThrows(IOException.class, () -> leitor.ler(truncado));
+
+        Path atributoInvalido = escrever("atributo.xml", "<report><counter type=\"LINE\" missed=\"x\" covered=\"2\"/></report>");
+        assertThrows(IllegalArgumentException.class, () -> leitor.ler(atributoInvalido));
+
+        Path segredo = escrever("segredo.txt", "123");
+        Path externa = escrever("externa.xml", "<?xml version=\"1.0\"?><!DOCTYPE report [<!ENTITY x SYSTEM \""
+            + segredo.toUri() + "\">]><report><counter type=\"LINE\" missed=\"&x;\" covered=\"1\"/></report>");
+        assertThrows(IOException.class, () -> leitor.ler(externa));
+
+        // Sem relatórios de cobertura ou de análise estática os critérios ficam de fora
+        LeitorRelatoriosAnalise.ResultadoAnalise vazio = leitor.ler(escrever("vazio.xml", "<coverage version=\"1\"/>"));
+        assertTrue(vazio.getDadosBugs().isEmpty());
+    }
+
+    // Método auxiliar que localiza um relatório de exemplo no classpath
+    private static Path exemplo(String nome) throws URISyntaxException {
+        return Paths.get(LeitorRelatoriosAnaliseTest.class.getResource("/relatorios/" + nome).toURI());
+    }
+
+    private Path escrever(String nome, String conteudo) throws IOException {
+        return Files.write(diretorio.resolve(nome), conteudo.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Método auxiliar que grava um relatório JaCoCo com uma classe por linha; retorna {cobertas, total}
+    private static long[] escreverJacoco(Path arquivo, int classes, int semente) throws IOException {
+        long cobertas = 0;
+        long perdidas = 0;
+        try (BufferedWriter escritor = Files.newBufferedWriter(arquivo, StandardCharsets.UTF_8)) {
+            escritor.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                + "<!DOCTYPE report PUBLIC \"-//JACOCO//DTD Report 1.1//EN\" \"report.dtd\">\n<report name=\"m\">\n"
+                + "<package name=\"br/com/itau/m" + semente + "\">\n");
+            for (int i = 0; i < classes; i++) {
+                int c = (i * 31 + semente) % 40;
+                int p = (i * 17 + semente) % 9;
+                cobertas += c;
+                perdidas += p;
+                escritor.write("<class name=\"C" + i + "\"><method name=\"m\"><counter type=\"LINE\" missed=\"" + p
+                    + "\" covered=\"" + c + "\"/></method><counter type=\"LINE\" missed=\"" + p + "\" covered=\"" + c
+                    + "\"/></class>\n");
+            }
+            escritor.write("<counter type=\"LINE\" missed=\"" + perdidas + "\" covered=\"" + cobertas + "\"/></package>\n"
+                + "<counter type=\"INSTRUCTION\" missed=\"1\" covered=\"1\"/>"
+                + "<counter type=\"LINE\" missed=\"" + perdidas + "\" covered=\"" + cobertas + "\"/></report>\n");
+        }
+        return new long[] {cobertas, cobertas + perdidas};
+    }
+}
@@ -0,0 +1,184 @@
+package br.com.itau.governanca.risco;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Testes unitários para o LeitorResultadosCarga
+ */
+public class LeitorResultadosCargaTest {
+
+    private static final String CABECALHO = "timeStamp,elapsed,label,responseCode,responseMessage,threadName,"
+                                          + "dataType,success,failureMessage,bytes,sentBytes,grpThreads,allThreads,URL,"
+                                          + "Latency,IdleTime,Connect";
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    @DisplayName("Deve produzir o mesmo resultado com qualquer tamanho de bloco, igual à leitura sequencial")
+    public void testBlocosEquivalentes() throws IOException {
+        Random random = new Random(11);
+        long inicio = 1_700_000_000_000L;
+        StringBuilder conteudo = new StringBuilder(CABECALHO).append('\n');
+        HistogramaLatencias esperado = new HistogramaLatencias();
+        long[] porSegundo = new long[64];
+        long falhas = 0;
+        long primeiro = Long.MAX_VALUE;
+        long fim = Long.MIN_VALUE;
+        for (int i = 0; i < 3000; i++) {
+            // Gravadas ao terminar: os inícios não estão em ordem
+            long momento = inicio + i * 15L + random.nextInt(2000);
+            int decorrido = random.nextInt(100) == 0 ? 20_000 + random.nextInt(5000) : random.nextInt(900);
+            boolean sucesso = random.nextInt(20) != 0;
+            String mensagem = sucesso ? "OK" : "\"Falha, conexão recusada\"";
+            conteudo.append(momento).append(',').append(decorrido).append(",GET /contas,")
+                    .append(sucesso ? "200" : "503").append(',').append(mensagem).append(",Usuarios 1-")
+                    .append(i % 50).append(",text,").append(sucesso).append(",,1234,120,50,50,")
+                    .append("https://api/contas,").append(decorrido / 2).append(",0,3")
+                    .append(i % 7 == 0 ? "\r\n" : "\n");
+            esperado.registrar(decorrido);
+            porSegundo[(int) (momento / 1000 - inicio / 1000)]++;
+            primeiro = Math.min(primeiro, momento);
+            fim = Math.max(fim, momento + decorrido);
+            if (!sucesso) {
+                falhas++;
+            }
+            if (i == 1500) {
+                // Cabeçalho repetido e linha em branco, como em arquivos concatenados
+                conteudo.append(CABECALHO).append("\n\n");
+            }
+        }
+        conteudo.setLength(conteudo.length() - 1);
+        Path arquivo = escrever("resultados.jtl", conteudo.toString());
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int tamanhoBloco : new int[] {41, 1000, 65_536, LeitorResultadosCarga.TAMANHO_BLOCO_PADRAO}) {
+                LeitorResultadosCarga.ResultadoCarga resultado = new LeitorResultadosCarga(pool, tamanhoBloco).ler(arquivo);
+                String bloco = "bloco " + tamanhoBloco;
+                assertEquals(3000, resultado.getQuantidade(), bloco);
+                assertEquals(falhas, resultado.getFalhas(), bloco);
+                assertEquals(1, resultado.getLinhasIgnoradas(), bloco);
+                assertEquals(esperado.getMedia(), resultado.getTempoMedio(), 1e-9, bloco);
+                assertEquals(esperado.getPercentil(95), resultado.getPercentil(95), bloco);
+                assertEquals(esperado.getPercentil(99.9), resultado.getPercentil(99.9), bloco);
+                assertEquals(primeiro, resultado.getInicio(), bloco);
+                assertEquals((fim - primeiro) / 1000.0, resultado.getDuracaoSegundos(), bloco);
+
+                long[] segundos = resultado.getRequisicoesPorSegundo();
+                assertEquals(3000, Arrays.stream(segundos).sum(), bloco);
+                int deslocamento = (int) (primeiro / 1000 - inicio / 1000);
+                assertArrayEquals(Arrays.copyOfRange(porSegundo, deslocamento, deslocamento + segundos.length), segundos, bloco);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Deve derivar tempo_resposta, percentil_95, throughput e escalabilidade para a dimensão performance")
+    public void testDadosPerformance() throws IOException {
+        // 1x: 20 requisições de 100 a 290 ms em 2 segundos; 2x: as mesmas com 50% a mais
+        StringBuilder base = new StringBuilder("timeStamp,elapsed,success\n");
+        StringBuilder dobrada = new StringBuilder("timeStamp,elapsed,success\n");
+        for (int i = 0; i < 20; i++) {
+            base.append(1000 + i * 85).append(',').append(100 + i * 10).append(",true\n");
+            dobrada.append(1000 + i * 85).append(',').append(150 + i * 15).append(i == 3 ? ",false\n" : ",true\n");
+        }
+        LeitorResultadosCarga leitor = new LeitorResultadosCarga();
+        LeitorResultadosCarga.ResultadoCarga carga = leitor.ler(escrever("1x.csv", base.toString()));
+        LeitorResultadosCarga.ResultadoCarga cargaDobrada = leitor.ler(escrever("2x.csv", dobrada.toString()));
+
+        // Fim da última requisição: 1000 + 19 * 85 + 290 = 2905 ms
+        assertEquals(1.905, carga.getDuracaoSegundos(), 1e-12);
+        assertEquals(1, cargaDobrada.getFalhas());
+        assertEquals(50.0, carga.getDegradacao(cargaDobrada), 1e-9);
+
+        Map<String, Double> dados = carga.getDadosPerformance(cargaDobrada);
+        assertEquals(195.0, dados.get("tempo_resposta"), 1e-9);
+        assertEquals(carga.getPercentil(95), dados.get("percentil_95"));
+        assertEquals(280.0, dados.get("percentil_95"), 280.0 * 0.02);
+        assertEquals(20 / 1.905, dados.get("throughput"), 1e-9);
+        assertEquals(50.0, dados.get("escalabilidade"), 1e-9);
+        assertFalse(carga.getDadosPerformance().containsKey("escalabilidade"));
+
+        CalculadoraRisco calculadora = new CalculadoraRisco();
+        assertEquals(calculadora.calcularPontuacaoDimensao("performance",
+                         Map.of("tempo_resposta", 195.0, "percentil_95", dados.get("percentil_95"),
+                                "throughput", 20 / 1.905, "escalabilidade", 50.0)),
+                     calculadora.calcularPontuacaoDimensao("performance", dados), 1e-12);
+    }
+
+    @Test
+    @DisplayName("Deve contar as requisições até o segundo de início da última, inclusive em segundos exatos")
+    public void testRequisicoesPorSegundo() throws IOException {
+        LeitorResultadosCarga leitor = new LeitorResultadosCarga(ForkJoinPool.commonPool(), 8);
+
+        // A última requisição começa exatamente no início de um segundo e dura 0 ms
+        LeitorResultadosCarga.ResultadoCarga exatos = leitor.ler(escrever("exatos.csv",
+            "timeStamp,elapsed\n1700000001000,0\n1700000002000,0\n"));
+        assertArrayEquals(new long[] {1, 1}, exatos.getRequisicoesPorSegundo());
+
+        // Requisições longas não criam segundos sem inícios depois da última
+        LeitorResultadosCarga.ResultadoCarga longas = leitor.ler(escrever("longas.csv",
+            "timeStamp,elapsed\n1700000001500,4000\n1700000000999,10\n"));
+        assertArrayEquals(new long[] {1, 1}, longas.getRequisicoesPorSegundo());
+    }
+
+    @Test
+    @DisplayName("Deve ignorar linhas com início distante da primeira linha válida")
+    public void testInicioForaDaJanela() throws IOException {
+        LeitorResultadosCarga leitor = new LeitorResultadosCarga(ForkJoinPool.commonPool(), 16);
+
+        // Um timeStamp 0 entre inícios em milissegundos desde a época não cria décadas de segundos
+        LeitorResultadosCarga.ResultadoCarga espurio = leitor.ler(escrever("espurio.csv",
+            "timeStamp,elapsed\n1700000001000,10\n0,10\n1700000002500,20\n9000000000000000,5\n"));
+        assertEquals(2, espurio.getQuantidade());
+        assertEquals(2, espurio.getLinhasIgnoradas());
+        assertEquals(1_700_000_001_000L, espurio.getInicio());
+        assertArrayEquals(new long[] {1, 1}, espurio.getRequisicoesPorSegundo());
+
+        // A referência é a primeira linha válida: uma linha espúria no início é a única contada
+        LeitorResultadosCarga.ResultadoCarga primeira = leitor.ler(escrever("primeira.csv",
+            "timeStamp,elapsed\nx,1\n0,10\n1700000001000,10\n1700000002500,20\n"));
+        assertEquals(1, primeira.getQuantidade());
+        assertEquals(3, primeira.getLinhasIgnoradas());
+        assertArrayEquals(new long[] {1}, primeira.getRequisicoesPorSegundo());
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar cabeçalhos sem as colunas de tempo e linhas longas demais")
+    public void testArquivosInvalidos() throws IOException {
+        LeitorResultadosCarga leitor = new LeitorResultadosCarga(ForkJoinPool.commonPool(), 100);
+        assertThrows(IllegalArgumentException.class, () -> leitor.ler(escrever("sem_elapsed.csv", "timeStamp,label\n1,a\n")));
+        assertThrows(IllegalArgumentException.class, () -> new LeitorResultadosCarga(ForkJoinPool.commonPool(), 0));
+
+        char[] longa = new char[70_000];
+        Arrays.fill(longa, 'x');
+        String conteudo = "timeStamp,elapsed,label\n1000,5,a\n1001,6," + new String(longa) + "\n1002,7,b\n";
+        assertThrows(IllegalArgumentException.class, () -> leitor.ler(escrever("longa.csv", conteudo)));
+
+        LeitorResultadosCarga.ResultadoCarga vazio = leitor.ler(escrever("vazio.csv", "timeStamp,elapsed\n"));
+        assertEquals(0, vazio.getQuantidade());
+        assertTrue(vazio.getDadosPerformance().isEmpty());
+        assertTrue(Double.isNaN(vazio.getDegradacao(vazio)));
+        assertEquals(0, vazio.getRequisicoesPorSegundo().length);
+    }
+
+    // Método auxiliar para gravar um arquivo de resultados no diretório temporário
+    private Path escrever(String nome, String conteudo) throws IOException {
+        return Files.write(diretorio.resolve(nome), conteudo.getBytes(StandardCharsets.UTF_8));
+    }
+}
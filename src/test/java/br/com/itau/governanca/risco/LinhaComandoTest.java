@@ -0,0 +1,141 @@
+package br.com.itau.governanca.risco;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+/**
+ * Testes unitários para a LinhaComando
+ */
+public class LinhaComandoTest {
+
+    private static final String CSV_QUBE = "documentacao/relatorios/avaliacao_qube.csv";
+
+    @TempDir
+    Path diretorio;
+
+    private final ByteArrayOutputStream saida = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream erros = new ByteArrayOutputStream();
+
+    @Test
+    @DisplayName("Deve imprimir o resumo e gravar o relatório como o script Python")
+    public void testModoScript() throws IOException {
+        Path arquivo = diretorio.resolve("relatorio.json");
+        assertEquals(0, executar("--tempo", "Qube AICUBE", "1.0", CSV_QUBE, arquivo.toString()));
+
+        String texto = texto(saida);
+        assertTrue(texto.startsWith(System.lineSeparator() + "Relatório de Risco - Qube AICUBE v1.0"), texto);
+        assertTrue(texto.contains("Classificação: VERDE (Baixo Risco)"), texto);
+        assertTrue(texto.contains("Pontuação: 1.00"), texto);
+        assertTrue(texto.contains("Status: APROVADO"), texto);
+        assertTrue(texto.contains("- Segurança: 1.00"), texto);
+        assertTrue(texto.contains("Relatório salvo em " + arquivo), texto);
+        assertTrue(texto(erros).contains("Tempo até o primeiro relatório: "), texto(erros));
+
+        byte[] json = Files.readAllBytes(arquivo);
+        CalculadoraRisco calculadora = new CalculadoraRisco();
+        ResultadoAvaliacao lido = new LeitorJsonRelatorio(calculadora.getModelo())
+            .ler(json, 0, json.length, calculadora.getModelo().novoVetorValores());
+        assertEquals("Qube AICUBE", lido.getNomeAplicacao());
+        assertEquals(StatusAvaliacao.APROVADO, lido.getStatusAvaliacao());
+    }
+
+    @Test
+    @DisplayName("Deve gravar um relatório por aplicação no modo lote")
+    public void testModoLote() throws IOException {
+        Path csv = diretorio.resolve("portfolio.csv");
+        Files.write(csv, ("Aplicação,Versão,Dimensão,Critério,Valor Atual\n"
+            + "Pagamentos,2.1,Segurança,Vulnerabilidades críticas,1\n"
+            + "Cadastro,,Performance,Percentil 95 de tempo de resposta,500\n").getBytes(StandardCharsets.UTF_8));
+        Path saidaLote = diretorio.resolve("saida");
+
+        assertEquals(0, executar("--lote", "9.0", saidaLote.toString(), csv.toString(), CSV_QUBE));
+
+        assertTrue(Files.exists(saidaLote.resolve("relatorio_Pagamentos_2.1.json")));
+        assertTrue(Files.exists(saidaLote.resolve("relatorio_Cadastro_9.0.json")));
+        assertTrue(Files.exists(saidaLote.resolve("relatorio_avaliacao_qube_9.0.json")));
+        String texto = texto(saida);
+        assertTrue(texto.contains("Pagamentos v2.1: BLOQUEADO"), texto);
+        assertTrue(texto.contains("Cadastro v9.0: APROVADO"), texto);
+    }
+
+    @Test
+    @DisplayName("Deve gravar relatórios com nomes únicos e dentro do diretório de saída no modo lote")
+    public void testModoLoteNomesDeArquivo() throws IOException {
+        // Sem colunas Aplicação/Versão: as duas aplicações usam o nome do arquivo
+        String cabecalho = "Dimensão,Critério,Valor Atual\n";
+        Path repetido = diretorio.resolve("repetido.csv");
+        Files.write(repetido, (cabecalho + "Segurança,Vulnerabilidades críticas,1\n"
+            + cabecalho + "Performance,Percentil 95 de tempo de resposta,500\n").getBytes(StandardCharsets.UTF_8));
+        Path caminhos = diretorio.resolve("caminhos.csv");
+        Files.write(caminhos, ("Aplicação,Versão,Dimensão,Critério,Valor Atual\n"
+            + "../../fora,1/../2,Performance,Percentil 95 de tempo de resposta,500\n").getBytes(StandardCharsets.UTF_8));
+        Path saidaLote = diretorio.resolve("saida");
+
+        assertEquals(0, executar("--lote", "1.0", saidaLote.toString(), repetido.toString(), caminhos.toString()));
+
+        assertTrue(Files.exists(saidaLote.resolve("relatorio_repetido_1.0.json")));
+        assertTrue(Files.exists(saidaLote.resolve("relatorio_repetido_1.0_2.json")));
+        assertTrue(Files.exists(saidaLote.resolve("relatorio_.._.._fora_1_.._2.json")));
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            assertEquals(3, arquivos.count());
+        }
+        String texto = texto(saida);
+        assertTrue(texto.contains("repetido v1.0: BLOQUEADO"), texto);
+        assertTrue(texto.contains("repetido v1.0: APROVADO"), texto);
+    }
+
+    @Test
+    @DisplayName("Deve retornar erro para argumentos inválidos e arquivos inexistentes")
+    public void testErros() {
+        assertEquals(1, executar("Qube AICUBE", "1.0"));
+        assertTrue(texto(erros).startsWith("Uso: "));
+        assertEquals(1, executar("--desconhecida", "Qube AICUBE", "1.0", CSV_QUBE));
+
+        erros.reset();
+        assertEquals(1, executar("Qube AICUBE", "1.0", diretorio.resolve("ausente.csv").toString(),
+                                 diretorio.resolve("saida.json").toString()));
+        assertTrue(texto(erros).contains("Não foi possível processar os dados de entrada."), texto(erros));
+    }
+
+    @Test
+    @DisplayName("Deve formatar duas casas como o :.2f do Python, arredondando o valor binário exato")
+    public void testDuasCasas() {
+        assertEquals("1.00", LinhaComando.duasCasas(1.0));
+        assertEquals("0.05", LinhaComando.duasCasas(0.05));
+        assertEquals("2.12", LinhaComando.duasCasas(2.125));
+        assertEquals("-0.50", LinhaComando.duasCasas(-0.5));
+        assertEquals("-0.00", LinhaComando.duasCasas(-0.001));
+        // Saídas do Python para valores de três casas que não são metades exatas em binário
+        assertEquals("2.21", LinhaComando.duasCasas(2.205));
+        assertEquals("1.51", LinhaComando.duasCasas(1.515));
+        assertEquals("1.05", LinhaComando.duasCasas(1.055));
+        assertEquals("2.81", LinhaComando.duasCasas(2.815));
+        assertEquals("1.73", LinhaComando.duasCasas(1.725));
+        assertEquals("2.19", LinhaComando.duasCasas(2.195));
+        assertEquals("0.01", LinhaComando.duasCasas(0.005));
+    }
+
+    // Método auxiliar para executar a linha de comando capturando as saídas
+    private int executar(String... args) {
+        try {
+            return LinhaComando.executar(args, new PrintStream(saida, true, "UTF-8"), new PrintStream(erros, true, "UTF-8"));
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String texto(ByteArrayOutputStream fluxo) {
+        return new String(fluxo.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
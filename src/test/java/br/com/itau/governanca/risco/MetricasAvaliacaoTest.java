@@ -0,0 +1,185 @@
+package br.com.itau.governanca.risco;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Testes unitários para as MetricasAvaliacao
+ */
+public class MetricasAvaliacaoTest {
+
+    private final ModeloCompilado modelo = ModeloCompilado.padrao();
+    private final MetricasAvaliacao metricas = new MetricasAvaliacao(modelo);
+    private final CalculadoraRisco calculadora = new CalculadoraRisco(modelo, metricas);
+
+    @Test
+    @DisplayName("Deve contar status, vetos, pontuações e etapas sem alterar os relatórios")
+    public void testRegistrarAvaliacoes() {
+        Map<String, Map<String, Double>> aprovada = dadosBugs(0.0);
+        Map<String, Map<String, Double>> bloqueada = dadosBugs(2.0);
+        bloqueada.put("seguranca", new HashMap<>(Map.of("conformidade_regulatoria", 1.0)));
+
+        CalculadoraRisco semMetricas = new CalculadoraRisco(modelo);
+        assertEquals(semMetricas.gerarRelatorio("App", "1.0", aprovada), calculadora.gerarRelatorio("App", "1.0", aprovada));
+        assertEquals(semMetricas.gerarRelatorio("App", "1.0", bloqueada), calculadora.gerarRelatorio("App", "1.0", bloqueada));
+        assertEquals(StatusAvaliacao.BLOQUEADO, calculadora.avaliar("App", "1.0", bloqueada).getStatusAvaliacao());
+        assertEquals(StatusAvaliacao.CONDICIONADO, calculadora.avaliar("App", "1.0", valoresAltoRiscoSemVetos()).getStatusAvaliacao());
+
+        assertEquals(1, metricas.getAprovadas());
+        assertEquals(1, metricas.getCondicionadas());
+        assertEquals(2, metricas.getBloqueadas());
+        assertEquals(2, metricas.getOcorrenciasVeto(CalculadoraRisco.VETO_BUGS_CRITICOS));
+        assertEquals(2, metricas.getOcorrenciasVeto(CalculadoraRisco.VETO_CONFORMIDADE_REGULATORIA));
+        assertEquals(0, metricas.getOcorrenciasVeto(CalculadoraRisco.VETO_TAXA_ERRO));
+        assertArrayEquals(new long[] {0, 0, 2, 0, 2}, metricas.getOcorrenciasVetos());
+
+        int bugs = modelo.indiceDimensao("bugs");
+        int seguranca = modelo.indiceDimensao("seguranca");
+        assertEquals(4, metricas.getQuantidadePontuacoes(bugs));
+        assertEquals(3, metricas.getQuantidadePontuacoes(seguranca));
+        for (int etapa = MetricasAvaliacao.ETAPA_PONTUACAO; etapa <= MetricasAvaliacao.ETAPA_RELATORIO; etapa++) {
+            assertEquals(4, metricas.getQuantidadeDuracoes(etapa));
+            assertTrue(metricas.getDuracaoMediaNanos(etapa) >= 0);
+        }
+
+        // As avaliações parciais e a calculadora sem métricas não são contadas
+        calculadora.calcularRiscoTotal(aprovada);
+        calculadora.verificarVetos(bloqueada);
+        assertEquals(4, metricas.getQuantidadeDuracoes(MetricasAvaliacao.ETAPA_PONTUACAO));
+        assertNull(semMetricas.getMetricas());
+        assertSame(metricas, calculadora.getMetricas());
+
+        assertThrows(IllegalArgumentException.class, () -> metricas.getOcorrenciasVeto(3));
+        assertThrows(IllegalArgumentException.class, () -> metricas.getOcorrenciasVeto(1 << 20));
+        ModeloCompilado outrasDimensoes = new ModeloCompilado.Construtor().dimensao("bugs", 1)
+            .criterio("bugs_criticos", 1, 0, 2, false).construir();
+        assertThrows(IllegalArgumentException.class, () -> new CalculadoraRisco(outrasDimensoes, metricas));
+    }
+
+    @Test
+    @DisplayName("Deve exportar contadores e histogramas cumulativos no formato do Prometheus")
+    public void testExportarPrometheus() {
+        calculadora.gerarRelatorio("App", "1.0", dadosBugs(1.0));
+        metricas.registrarDuracao(MetricasAvaliacao.ETAPA_RELATORIO, 1L << 40);
+
+        String texto = metricas.exportarPrometheus();
+        assertTrue(texto.contains("# TYPE risco_avaliacoes_total counter\n"), texto);
+        assertTrue(texto.contains("risco_avaliacoes_total{status=\"BLOQUEADO\"} 1\n"), texto);
+        assertTrue(texto.contains("risco_avaliacoes_total{status=\"APROVADO\"} 0\n"), texto);
+        assertTrue(texto.contains("risco_vetos_total{veto=\"3\",mensagem=\"Bugs que impedem fluxo principal do cliente\"} 1\n"), texto);
+        assertTrue(texto.contains("risco_pontuacao_dimensao_bucket{dimensao=\"bugs\",le=\"+Inf\"} 1\n"), texto);
+        assertTrue(texto.contains("risco_pontuacao_dimensao_count{dimensao=\"performance\"} 0\n"), texto);
+        assertTrue(texto.contains("risco_etapa_duracao_segundos_bucket{etapa=\"relatorio\",le=\"6.4E-8\"}"), texto);
+        assertTrue(texto.contains("risco_etapa_duracao_segundos_count{etapa=\"relatorio\"} 2\n"), texto);
+
+        // Buckets cumulativos e não decrescentes, terminando na contagem
+        long anterior = 0;
+        for (String linha : texto.split("\n")) {
+            if (linha.startsWith("risco_etapa_duracao_segundos_bucket{etapa=\"relatorio\"")) {
+                long acumulado = Long.parseLong(linha.substring(linha.lastIndexOf(' ') + 1));
+                assertTrue(acumulado >= anterior, linha);
+                anterior = acumulado;
+            }
+        }
+        assertEquals(2, anterior);
+    }
+
+    @Test
+    @DisplayName("Deve localizar as faixas de duração e estimar percentis pelo limite superior")
+    public void testFaixasDuracao() {
+        int etapa = MetricasAvaliacao.ETAPA_CLASSIFICACAO;
+        assertTrue(Double.isNaN(metricas.getPercentilDuracaoNanos(etapa, 50)));
+        metricas.registrarDuracao(etapa, 0);
+        metricas.registrarDuracao(etapa, 64);
+        assertEquals(64, metricas.getPercentilDuracaoNanos(etapa, 100));
+        metricas.registrarDuracao(etapa, 65);
+        metricas.registrarDuracao(etapa, 1000);
+        assertEquals(64, metricas.getPercentilDuracaoNanos(etapa, 50));
+        assertEquals(128, metricas.getPercentilDuracaoNanos(etapa, 75));
+        assertEquals(1024, metricas.getPercentilDuracaoNanos(etapa, 100));
+        metricas.registrarDuracao(etapa, Long.MAX_VALUE);
+        assertEquals(Double.POSITIVE_INFINITY, metricas.getPercentilDuracaoNanos(etapa, 100));
+        assertThrows(IllegalArgumentException.class, () -> metricas.getPercentilDuracaoNanos(etapa, 101));
+    }
+
+    @Test
+    @DisplayName("Deve manter as contagens exatas com várias threads avaliando ao mesmo tempo")
+    public void testConcorrencia() throws Exception {
+        int threads = 8;
+        int porThread = 5000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            Future<?>[] tarefas = new Future<?>[threads];
+            for (int t = 0; t < threads; t++) {
+                double bugsCriticos = t % 2;
+                tarefas[t] = executor.submit(() -> {
+                    Map<String, Map<String, Double>> dados = dadosBugs(bugsCriticos);
+                    for (int i = 0; i < porThread; i++) {
+                        calculadora.avaliar("App", "1.0", dados);
+                    }
+                });
+            }
+            for (Future<?> tarefa : tarefas) {
+                tarefa.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        long metade = threads / 2 * (long) porThread;
+        assertEquals(metade, metricas.getAprovadas());
+        assertEquals(metade, metricas.getBloqueadas());
+        assertEquals(metade, metricas.getOcorrenciasVeto(CalculadoraRisco.VETO_BUGS_CRITICOS));
+        assertEquals(2 * metade, metricas.getQuantidadeDuracoes(MetricasAvaliacao.ETAPA_RELATORIO));
+    }
+
+    @Test
+    @DisplayName("Deve expor as métricas por JMX")
+    public void testJmx() throws Exception {
+        calculadora.gerarRelatorio("App", "1.0", dadosBugs(0.0));
+        MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+        ObjectName nome = metricas.registrarJmx("teste-jmx");
+        try {
+            assertEquals(1L, servidor.getAttribute(nome, "Aprovadas"));
+            assertArrayEquals(metricas.getDimensoes(), (String[]) servidor.getAttribute(nome, "Dimensoes"));
+            assertEquals(1.0, ((double[]) servidor.getAttribute(nome, "PontuacoesMedias"))[modelo.indiceDimensao("bugs")]);
+            String texto = (String) servidor.invoke(nome, "exportarPrometheus", null, null);
+            assertTrue(texto.contains("risco_avaliacoes_total{status=\"APROVADO\"} 1"), texto);
+            assertThrows(IllegalStateException.class, () -> metricas.registrarJmx("teste-jmx"));
+        } finally {
+            servidor.unregisterMBean(nome);
+        }
+    }
+
+    // Método auxiliar para criar dados apenas da dimensão bugs
+    private static Map<String, Map<String, Double>> dadosBugs(double bugsCriticos) {
+        Map<String, Double> bugs = new HashMap<>();
+        bugs.put("densidade_defeitos", 0.5);
+        bugs.put("bugs_criticos", bugsCriticos);
+        Map<String, Map<String, Double>> dados = new HashMap<>();
+        dados.put("bugs", bugs);
+        return dados;
+    }
+
+    // Método auxiliar para criar valores de alto risco em todos os critérios que não participam de vetos
+    private double[] valoresAltoRiscoSemVetos() {
+        double[] valores = modelo.novoVetorValores();
+        for (int c = 0; c < valores.length; c++) {
+            if (calculadora.bitVeto(c) == 0) {
+                valores[c] = calculadora.classificarCriterio(c, 1e12) == 3 ? 1e12 : -1e12;
+            }
+        }
+        return valores;
+    }
+}
@@ -0,0 +1,211 @@
+package br.com.itau.governanca.risco;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Testes unitários para o ModeloCompilado e a API por ordinais da CalculadoraRisco
+ */
+public class ModeloCompiladoTest {
+
+    private CalculadoraRisco calculadora;
+    private ModeloCompilado modelo;
+
+    @BeforeEach
+    public void setUp() {
+        calculadora = new CalculadoraRisco();
+        modelo = calculadora.getModelo();
+    }
+
+    @Test
+    @DisplayName("Deve resolver dimensões e critérios para ordinais contíguos")
+    public void testOrdinais() {
+        assertEquals(4, modelo.getNumDimensoes());
+        // 23 critérios pontuados e a conformidade regulatória, usada apenas pelo veto 5
+        assertEquals(24, modelo.getNumCriterios());
+
+        int bugs = modelo.indiceDimensao("bugs");
+        assertEquals("bugs", modelo.getNomeDimensao(bugs));
+        assertEquals(5, modelo.fimDimensao(bugs) - modelo.inicioDimensao(bugs));
+
+        int cobertura = modelo.indiceCriterio("bugs", "cobertura_testes");
+        assertEquals("cobertura_testes", modelo.getNomeCriterio(cobertura));
+        assertEquals(bugs, modelo.getDimensaoCriterio(cobertura));
+        assertTrue(modelo.isInvertido(cobertura));
+        assertEquals(0.20, modelo.getPesoCriterio(cobertura), 0.0);
+
+        assertEquals(ModeloCompilado.SEM_INDICE, modelo.indiceDimensao("inexistente"));
+        assertEquals(ModeloCompilado.SEM_INDICE, modelo.indiceCriterio("bugs", "percentil_95"));
+        assertEquals(ModeloCompilado.SEM_INDICE, modelo.indiceCriterio("inexistente", "mtbf"));
+    }
+
+    @Test
+    @DisplayName("Deve classificar por ordinal exatamente como pela API de Strings")
+    public void testClassificacaoPorOrdinalEquivalente() {
+        Random random = new Random(42);
+        for (int c = 0; c < modelo.getNumCriterios(); c++) {
+            String dimensao = modelo.getNomeDimensao(modelo.getDimensaoCriterio(c));
+            String criterio = modelo.getNomeCriterio(c);
+            double[] amostras = {
+                modelo.getLimiarBaixo(c), modelo.getLimiarMedio(c),
+                random.nextDouble() * 3000, random.nextDouble() * 100, 0.0
+            };
+            for (double valor : amostras) {
+                assertEquals(calculadora.classificarCriterio(dimensao, criterio, valor),
+                             calculadora.classificarCriterio(c, valor));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Deve pontuar dimensões e total por ordinal com os mesmos resultados dos mapas")
+    public void testPontuacaoPorOrdinalEquivalente() {
+        Random random = new Random(7);
+        double[] valores = modelo.novoVetorValores();
+        double[] pontuacoes = new double[modelo.getNumDimensoes()];
+
+        for (int i = 0; i < 200; i++) {
+            Map<String, Map<String, Double>> dados = criarDadosAleatorios(random);
+            modelo.preencherValores(dados, valores);
+
+            double total = calculadora.calcularPontuacaoTotal(valores, pontuacoes);
+            Map<String, Object> resultado = calculadora.calcularRiscoTotal(dados);
+            assertEquals((double) resultado.get("pontuacao_total"), total, 1e-12);
+
+            for (String dimensao : dados.keySet()) {
+                int d = modelo.indiceDimensao(dimensao);
+                assertEquals(calculadora.calcularPontuacaoDimensao(dimensao, dados.get(dimensao)),
+                             calculadora.calcularPontuacaoDimensao(d, valores), 1e-12);
+                assertEquals(calculadora.calcularPontuacaoDimensao(d, valores), pontuacoes[d], 0.0);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Deve ignorar critérios ausentes (NaN) na pontuação por ordinal")
+    public void testCriteriosAusentes() {
+        double[] valores = modelo.novoVetorValores();
+        int bugs = modelo.indiceDimensao("bugs");
+        assertEquals(0.0, calculadora.calcularPontuacaoDimensao(bugs, valores), 0.0);
+
+        valores[modelo.indiceCriterio("bugs", "densidade_defeitos")] = 6.0;
+        assertEquals(3.0, calculadora.calcularPontuacaoDimensao(bugs, valores), 0.0);
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar dimensões e critérios desconhecidos na API de Strings")
+    public void testNomesDesconhecidos() {
+        assertThrows(IllegalArgumentException.class,
+                     () -> calculadora.classificarCriterio("bugs", "inexistente", 1.0));
+        assertThrows(IllegalArgumentException.class,
+                     () -> calculadora.calcularPontuacaoDimensao("inexistente", new HashMap<>()));
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar critérios duplicados e critérios sem dimensão no construtor")
+    public void testConstrutorInvalido() {
+        assertThrows(IllegalStateException.class,
+                     () -> new ModeloCompilado.Construtor().criterio("x", 1.0, 1.0, 2.0, false));
+        assertThrows(IllegalArgumentException.class,
+                     () -> new ModeloCompilado.Construtor().dimensao("d", 1.0)
+                               .criterio("x", 0.5, 1.0, 2.0, false)
+                               .criterio("x", 0.5, 1.0, 2.0, false));
+    }
+
+    @Test
+    @DisplayName("Deve classificar sem desvios como a comparação direta com os limiares, em lote e com centenas de critérios")
+    public void testClassificacaoSemDesvios() {
+        Random random = new Random(17);
+        ModeloCompilado.Construtor construtor = new ModeloCompilado.Construtor().dimensao("latencias", 1.0);
+        for (int c = 0; c < 300; c++) {
+            // Inclui limiares fora de ordem e iguais, com e sem inversão
+            double baixo = random.nextInt(100);
+            double medio = c % 7 == 0 ? baixo : random.nextInt(100);
+            construtor.criterio("endpoint_" + c, 1.0, baixo, medio, random.nextBoolean());
+        }
+        ModeloCompilado grande = construtor.construir();
+
+        int quantidade = 500;
+        double[] valores = new double[grande.getNumCriterios()];
+        byte[] classificacoes = new byte[grande.getNumCriterios()];
+        double[] coluna = new double[quantidade];
+        byte[] classificacoesColuna = new byte[quantidade];
+        for (int c = 0; c < grande.getNumCriterios(); c++) {
+            for (int i = 0; i < quantidade; i++) {
+                coluna[i] = amostra(random, grande.getLimiarBaixo(c), grande.getLimiarMedio(c));
+            }
+            grande.classificarColuna(c, coluna, quantidade, classificacoesColuna);
+            for (int i = 0; i < quantidade; i++) {
+                int esperada = coluna[i] != coluna[i] ? 0 : classificarComDesvios(grande, c, coluna[i]);
+                assertEquals(esperada, classificacoesColuna[i], grande.getNomeCriterio(c) + " = " + coluna[i]);
+                if (coluna[i] == coluna[i]) {
+                    assertEquals(esperada, grande.classificar(c, coluna[i]));
+                }
+            }
+            valores[c] = coluna[0];
+        }
+
+        grande.classificarTodos(valores, classificacoes);
+        for (int c = 0; c < grande.getNumCriterios(); c++) {
+            assertEquals(valores[c] != valores[c] ? 0 : classificarComDesvios(grande, c, valores[c]), classificacoes[c]);
+        }
+        // NaN fora do lote mantém a classificação de alto risco da comparação direta
+        assertEquals(3, modelo.classificar(0, Double.NaN));
+    }
+
+    @Test
+    @DisplayName("Deve gerar a mesma assinatura para modelos iguais e outra para modelos alterados")
+    public void testAssinatura() {
+        assertEquals(modelo.getAssinatura(), ModeloCompilado.padrao().getAssinatura());
+
+        ModeloCompilado um = new ModeloCompilado.Construtor()
+            .dimensao("bugs", 1.0).criterio("bugs_criticos", 1.0, 0, 2, false).construir();
+        ModeloCompilado outro = new ModeloCompilado.Construtor()
+            .dimensao("bugs", 1.0).criterio("bugs_criticos", 1.0, 0, 3, false).construir();
+        assertNotEquals(um.getAssinatura(), outro.getAssinatura());
+        assertNotEquals(modelo.getAssinatura(), um.getAssinatura());
+    }
+
+    // Classificação de referência com as comparações e desvios da definição do modelo
+    private static int classificarComDesvios(ModeloCompilado modelo, int criterio, double valor) {
+        double limiarBaixo = modelo.getLimiarBaixo(criterio);
+        double limiarMedio = modelo.getLimiarMedio(criterio);
+        if (modelo.isInvertido(criterio)) {
+            return valor >= limiarBaixo ? 1 : valor >= limiarMedio ? 2 : 3;
+        }
+        return valor <= limiarBaixo ? 1 : valor <= limiarMedio ? 2 : 3;
+    }
+
+    // Valores aleatórios, sobre os limiares, infinitos e ausentes
+    private static double amostra(Random random, double limiarBaixo, double limiarMedio) {
+        switch (random.nextInt(10)) {
+            case 0: return limiarBaixo;
+            case 1: return limiarMedio;
+            case 2: return Double.NaN;
+            case 3: return random.nextBoolean() ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+            default: return random.nextDouble() * 120 - 10;
+        }
+    }
+
+    // Gera dados aleatórios, omitindo alguns critérios para exercitar a normalização de pesos
+    private Map<String, Map<String, Double>> criarDadosAleatorios(Random random) {
+        Map<String, Map<String, Double>> dados = new HashMap<>();
+        for (int d = 0; d < modelo.getNumDimensoes(); d++) {
+            Map<String, Double> criterios = new HashMap<>();
+            for (int c = modelo.inicioDimensao(d); c < modelo.fimDimensao(d); c++) {
+                if (random.nextInt(5) != 0) {
+                    double escala = Math.max(modelo.getLimiarBaixo(c), modelo.getLimiarMedio(c)) * 1.5 + 1;
+                    criterios.put(modelo.getNomeCriterio(c), random.nextDouble() * escala);
+                }
+            }
+            dados.put(modelo.getNomeDimensao(d), criterios);
+        }
+        return dados;
+    }
+}
@@ -0,0 +1,146 @@
+package br.com.itau.governanca.risco;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Testes unitários para o MonitorTelemetria
+ */
+public class MonitorTelemetriaTest {
+
+    private static final long MINUTO = 60_000L;
+
+    private List<String> eventos;
+    private AvaliadorIncremental avaliador;
+    private MonitorTelemetria monitor;
+
+    @BeforeEach
+    public void setUp() {
+        eventos = new ArrayList<>();
+        avaliador = new AvaliadorIncremental(new CalculadoraRisco(),
+            (nome, anterior, atual, total, vetos) -> eventos.add(nome + ":" + anterior + "->" + atual));
+        // Janela de 10 minutos em fatias de 1 minuto
+        monitor = new MonitorTelemetria(avaliador, 10 * MINUTO, 10);
+    }
+
+    @Test
+    @DisplayName("Deve calcular os agregados da janela e alimentar os critérios do avaliador")
+    public void testAgregados() {
+        for (int i = 1; i <= 100; i++) {
+            monitor.registrarRequisicao("App", 30_000 + i, i * 10, i > 99);
+        }
+        for (int i = 0; i < 20; i++) {
+            monitor.registrarSessao("App", 30_000, i < 3);
+        }
+        assertEquals(1, monitor.processarTick(MINUTO));
+
+        assertEquals(505, monitor.getMediaLatencia("App"), 1e-9);
+        assertEquals(950, monitor.getPercentil95("App"), 950 * 0.016);
+        assertEquals(1.0, monitor.getTaxaErro("App"), 1e-9);
+        assertEquals(15.0, monitor.getTaxaAbandono("App"), 1e-9);
+
+        ModeloCompilado modelo = avaliador.getCalculadora().getModelo();
+        double[] valores = avaliador.getValores("App");
+        assertEquals(505, valores[modelo.indiceCriterio("performance", "tempo_resposta")], 1e-9);
+        assertEquals(1.0, valores[modelo.indiceCriterio("experiencia", "taxa_erro_usuario")], 1e-9);
+        assertEquals(0, avaliador.getVetos("App"));
+    }
+
+    @Test
+    @DisplayName("Deve bloquear pela taxa de erro e liberar quando os erros saem da janela")
+    public void testJanelaDeslizante() {
+        long inicio = 100 * MINUTO;
+        for (int i = 0; i < 100; i++) {
+            monitor.registrarRequisicao("App", inicio, 100, i < 5);
+        }
+        monitor.processarTick(inicio + MINUTO / 2);
+        assertEquals(StatusAvaliacao.BLOQUEADO, avaliador.getStatus("App"));
+        assertEquals(CalculadoraRisco.VETO_TAXA_ERRO, avaliador.getVetos("App"));
+
+        // Tráfego sem erros nos minutos seguintes dilui a taxa, mas os erros continuam na janela
+        for (int minuto = 1; minuto < 10; minuto++) {
+            for (int i = 0; i < 100; i++) {
+                monitor.registrarRequisicao("App", inicio + minuto * MINUTO, 100, false);
+            }
+        }
+        monitor.processarTick(inicio + 9 * MINUTO);
+        assertEquals(0.5, monitor.getTaxaErro("App"), 1e-9);
+        assertEquals(StatusAvaliacao.APROVADO, avaliador.getStatus("App"));
+
+        monitor.processarTick(inicio + 10 * MINUTO);
+        assertEquals(0.0, monitor.getTaxaErro("App"), 0.0);
+
+        // Um evento anterior à janela é descartado
+        monitor.registrarRequisicao("App", inicio, 100, true);
+        assertEquals(1, monitor.getDescartados());
+
+        // Sem eventos na janela os critérios são removidos
+        monitor.processarTick(inicio + 30 * MINUTO);
+        assertTrue(Double.isNaN(monitor.getPercentil95("App")));
+        assertTrue(Double.isNaN(avaliador.getValores("App")[
+            avaliador.getCalculadora().getModelo().indiceCriterio("performance", "percentil_95")]));
+        assertEquals(List.of("App:APROVADO->BLOQUEADO", "App:BLOQUEADO->APROVADO"), eventos);
+    }
+
+    @Test
+    @DisplayName("Deve aplicar os agregados de um tick de uma só vez, sem liberar por um estado intermediário")
+    public void testUmaTransicaoPorTick() {
+        long inicio = 100 * MINUTO;
+        for (int i = 0; i < 100; i++) {
+            monitor.registrarRequisicao("App", inicio, 5000, false);
+        }
+        monitor.processarTick(inicio);
+        assertEquals(CalculadoraRisco.VETO_PERCENTIL_95, avaliador.getVetos("App"));
+
+        monitor.processarTick(inicio + 5 * MINUTO);
+
+        // A latência lenta sai da janela, mas a taxa de erro passa de 1%: o bloqueio troca de veto
+        long depois = inicio + 10 * MINUTO;
+        for (int i = 0; i < 100; i++) {
+            monitor.registrarRequisicao("App", depois, 100, i < 5);
+        }
+        monitor.processarTick(depois);
+        assertEquals(CalculadoraRisco.VETO_TAXA_ERRO, avaliador.getVetos("App"));
+        assertEquals(List.of("App:APROVADO->BLOQUEADO"), eventos);
+    }
+
+    @Test
+    @DisplayName("Deve descartar eventos adiantados em relação ao último tick sem apagar a janela")
+    public void testEventosAdiantados() {
+        long inicio = 100 * MINUTO;
+        for (int i = 0; i < 100; i++) {
+            monitor.registrarRequisicao("App", inicio, 100, i < 5);
+        }
+        monitor.processarTick(inicio);
+        assertEquals(StatusAvaliacao.BLOQUEADO, avaliador.getStatus("App"));
+
+        // Um relógio adiantado em horas não pode deslizar a janela; uma fatia à frente é aceita
+        monitor.registrarRequisicao("App", inicio + 600 * MINUTO, 100, false);
+        monitor.registrarSessao("App", inicio + 600 * MINUTO, true);
+        assertEquals(2, monitor.getDescartados());
+        monitor.registrarRequisicao("App", inicio + MINUTO, 100, false);
+        assertEquals(2, monitor.getDescartados());
+
+        monitor.processarTick(inicio + MINUTO);
+        assertEquals(5.0 * 100 / 101, monitor.getTaxaErro("App"), 1e-9);
+        assertTrue(Double.isNaN(monitor.getTaxaAbandono("App")));
+        assertEquals(StatusAvaliacao.BLOQUEADO, avaliador.getStatus("App"));
+        assertEquals(List.of("App:APROVADO->BLOQUEADO"), eventos);
+    }
+
+    @Test
+    @DisplayName("Deve validar a janela e rejeitar aplicações desconhecidas")
+    public void testValidacoes() {
+        assertThrows(IllegalArgumentException.class, () -> new MonitorTelemetria(avaliador, 1000, 3));
+        assertThrows(IllegalArgumentException.class, () -> new MonitorTelemetria(avaliador, 1000, 0));
+        assertThrows(IllegalArgumentException.class, () -> monitor.getTaxaErro("Outra"));
+        monitor.registrarSessao("App", 0, false);
+        assertTrue(monitor.remover("App"));
+        assertEquals(0, monitor.processarTick(MINUTO));
+    }
+}
@@ -0,0 +1,202 @@
+package br.com.itau.governanca.risco;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Testes unitários para o PipelineAvaliacao
+ */
+public class PipelineAvaliacaoTest {
+
+    private static final Path AVALIACAO_QUBE = Paths.get("documentacao", "relatorios", "avaliacao_qube.csv");
+
+    private static final String[][] CRITERIOS = {
+        {"Bugs", "Densidade de defeitos"},
+        {"Bugs", "Bugs críticos pendentes"},
+        {"Performance", "Percentil 95 de tempo de resposta"},
+        {"Segurança", "Vulnerabilidades críticas"},
+        {"Segurança", "OWASP Top 10"},
+        {"Experiência", "Taxa de erro do usuário"}
+    };
+
+    @TempDir
+    Path diretorio;
+
+    private final CalculadoraRisco calculadora = new CalculadoraRisco();
+
+    @Test
+    @DisplayName("Deve produzir os mesmos resultados da avaliação serial, em ordem, com qualquer estratégia de espera")
+    public void testEquivalenteAoSerial() throws IOException {
+        List<Path> arquivos = Arrays.asList(escreverPortfolio("portfolio.csv", 5000, 7), AVALIACAO_QUBE);
+        List<double[]> esperados = avaliarSerial(arquivos);
+
+        for (PipelineAvaliacao.EstrategiaEspera estrategia : new PipelineAvaliacao.EstrategiaEspera[] {
+                PipelineAvaliacao.EstrategiaEspera.ESTACIONADA, PipelineAvaliacao.EstrategiaEspera.CEDENTE}) {
+            Registro registro = new Registro();
+            PipelineAvaliacao pipeline = new PipelineAvaliacao(calculadora, registro, 64, 8, estrategia);
+            // A mesma instância executada duas vezes reinicia sequências e contadores
+            for (int execucao = 0; execucao < 2; execucao++) {
+                registro.resultados.clear();
+                assertEquals(5001, pipeline.executar(arquivos, "9.9"));
+
+                assertEquals(esperados.size(), registro.resultados.size());
+                for (int i = 0; i < esperados.size(); i++) {
+                    assertArrayEquals(esperados.get(i), registro.resultados.get(i), 0.0, estrategia + " aplicação " + i);
+                }
+                assertEquals("App 4999", registro.nomes.get(4999));
+                assertEquals("1.4999", registro.versoes.get(4999));
+                assertEquals("avaliacao_qube", registro.nomes.get(5000));
+                assertEquals("9.9", registro.versoes.get(5000));
+
+                for (int etapa = PipelineAvaliacao.ETAPA_INGESTAO; etapa <= PipelineAvaliacao.ETAPA_PERSISTENCIA; etapa++) {
+                    PipelineAvaliacao.EstatisticasEtapa estatisticas = pipeline.getEstatisticas(etapa);
+                    assertEquals(5001, estatisticas.getEventos(), estatisticas.getNome());
+                    assertTrue(estatisticas.getLotes() >= 5001 / 8, estatisticas.getNome());
+                    assertTrue(estatisticas.getTamanhoMedioLote() <= 8, estatisticas.getNome());
+                    assertTrue(estatisticas.getTempoOcupadoNanos() > 0, estatisticas.getNome());
+                    assertTrue(estatisticas.getVazao() > 0, estatisticas.getNome());
+                }
+                // A persistência é avisada ao fim de cada lote
+                assertEquals(pipeline.getEstatisticas(PipelineAvaliacao.ETAPA_PERSISTENCIA).getLotes(), registro.lotes);
+                registro.lotes = 0;
+                assertEquals(5001, pipeline.getLatencias().getQuantidade());
+                int gargalo = pipeline.getEtapaGargalo();
+                assertTrue(gargalo >= PipelineAvaliacao.ETAPA_INGESTAO && gargalo <= PipelineAvaliacao.ETAPA_PERSISTENCIA);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Deve gravar um relatório JSON por linha, legível pelo LeitorJsonRelatorio")
+    public void testArquivoRelatorios() throws IOException {
+        Path csv = escreverPortfolio("portfolio.csv", 300, 13);
+        Path saida = diretorio.resolve("relatorios.jsonl");
+        try (PipelineAvaliacao.ArquivoRelatorios relatorios =
+                 new PipelineAvaliacao.ArquivoRelatorios(calculadora, saida, "01/01/2024")) {
+            assertEquals(300, new PipelineAvaliacao(calculadora, relatorios).executar(List.of(csv), "1.0"));
+        }
+
+        List<double[]> esperados = avaliarSerial(List.of(csv));
+        List<String> linhas = Files.readAllLines(saida, StandardCharsets.UTF_8);
+        assertEquals(300, linhas.size());
+        LeitorJsonRelatorio leitor = new LeitorJsonRelatorio(calculadora.getModelo());
+        for (int i = 0; i < linhas.size(); i++) {
+            ResultadoAvaliacao resultado = leitor.ler(linhas.get(i).getBytes(StandardCharsets.UTF_8));
+            assertEquals("App " + i, resultado.getNomeAplicacao());
+            assertEquals(esperados.get(i)[0], resultado.getPontuacaoTotal(), 1e-9);
+            assertEquals((int) esperados.get(i)[1], resultado.getMascaraVetos());
+        }
+    }
+
+    @Test
+    @DisplayName("Deve interromper a execução em erros de persistência e de leitura e permitir reexecutar")
+    public void testFalhas() throws IOException {
+        Path csv = escreverPortfolio("portfolio.csv", 2000, 3);
+        Registro registro = new Registro();
+        registro.falharEm = 700;
+        PipelineAvaliacao pipeline = new PipelineAvaliacao(calculadora, registro, 128, 16,
+                                                           PipelineAvaliacao.EstrategiaEspera.CEDENTE);
+        IOException erro = assertThrows(IOException.class, () -> pipeline.executar(List.of(csv), "1.0"));
+        assertEquals("Falha simulada na aplicação 700", erro.getMessage());
+        assertEquals(700, registro.resultados.size());
+
+        registro.falharEm = -1;
+        registro.resultados.clear();
+        assertEquals(2000, pipeline.executar(List.of(csv), "1.0"));
+        assertEquals(2000, registro.resultados.size());
+
+        registro.resultados.clear();
+        assertThrows(IOException.class, () -> pipeline.executar(List.of(csv, diretorio.resolve("ausente.csv")), "1.0"));
+
+        assertThrows(IllegalArgumentException.class, () -> new PipelineAvaliacao(calculadora, registro, 100, 8,
+                                                           PipelineAvaliacao.EstrategiaEspera.CEDENTE));
+        assertThrows(IllegalArgumentException.class, () -> new PipelineAvaliacao(calculadora, registro, 64, 128,
+                                                           PipelineAvaliacao.EstrategiaEspera.CEDENTE));
+    }
+
+    // Avalia os arquivos em uma thread, como antes do pipeline: {pontuação total, vetos, pontuações...}
+    private List<double[]> avaliarSerial(List<Path> arquivos) throws IOException {
+        ModeloCompilado modelo = calculadora.getModelo();
+        LeitorCsvAvaliacao leitor = new LeitorCsvAvaliacao(modelo);
+        List<double[]> resultados = new ArrayList<>();
+        for (Path arquivo : arquivos) {
+            leitor.ler(arquivo, (nome, versao, valores) -> {
+                double[] pontuacoes = new double[modelo.getNumDimensoes()];
+                double total = calculadora.calcularPontuacaoTotal(valores, pontuacoes);
+                resultados.add(resultado(total, calculadora.verificarVetos(valores), pontuacoes));
+            });
+        }
+        return resultados;
+    }
+
+    private static double[] resultado(double total, int vetos, double[] pontuacoes) {
+        double[] resultado = new double[2 + pontuacoes.length];
+        resultado[0] = total;
+        resultado[1] = vetos;
+        System.arraycopy(pontuacoes, 0, resultado, 2, pontuacoes.length);
+        return resultado;
+    }
+
+    // Método auxiliar que grava um CSV com as colunas Aplicação e Versão
+    private Path escreverPortfolio(String nome, int aplicacoes, long semente) throws IOException {
+        Path arquivo = diretorio.resolve(nome);
+        Random random = new Random(semente);
+        try (BufferedWriter escritor = Files.newBufferedWriter(arquivo, StandardCharsets.UTF_8)) {
+            escritor.write("Aplicação,Versão,Dimensão,Critério,Valor Atual\n");
+            for (int i = 0; i < aplicacoes; i++) {
+                double[] valores = {
+                    random.nextDouble() * 8, random.nextInt(20) == 0 ? 1 : 0, 200 + random.nextInt(3200),
+                    random.nextInt(30) == 0 ? 1 : 0, 80 + random.nextInt(21), random.nextDouble() * 1.5
+                };
+                for (int c = 0; c < CRITERIOS.length; c++) {
+                    escritor.write("App " + i + ",1." + i + "," + CRITERIOS[c][0] + "," + CRITERIOS[c][1] + ","
+                                   + valores[c] + "\n");
+                }
+            }
+        }
+        return arquivo;
+    }
+
+    // Persistência que guarda cópias dos resultados e verifica a ordem das sequências
+    private static final class Registro implements PipelineAvaliacao.Persistencia {
+        private final List<double[]> resultados = new ArrayList<>();
+        private final List<String> nomes = new ArrayList<>();
+        private final List<String> versoes = new ArrayList<>();
+        private long lotes;
+        private int falharEm = -1;
+
+        @Override
+        public void persistir(PipelineAvaliacao.Evento evento) throws IOException {
+            if (evento.getSequencia() == falharEm) {
+                throw new IOException("Falha simulada na aplicação " + falharEm);
+            }
+            assertEquals(resultados.size(), evento.getSequencia());
+            resultados.add(resultado(evento.getPontuacaoTotal(), evento.getVetos(), evento.getPontuacoesDimensoes()));
+            if (nomes.size() < resultados.size()) {
+                nomes.add(evento.getNomeAplicacao());
+                versoes.add(evento.getVersao());
+            } else {
+                nomes.set(resultados.size() - 1, evento.getNomeAplicacao());
+                versoes.set(resultados.size() - 1, evento.getVersao());
+            }
+        }
+
+        @Override
+        public void concluirLote() {
+            lotes++;
+        }
+    }
+}
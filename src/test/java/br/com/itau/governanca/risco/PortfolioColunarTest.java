@@ -0,0 +1,164 @@
+package br.com.itau.governanca.risco;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Testes unitários para o PortfolioColunar
+ */
+public class PortfolioColunarTest {
+
+    private final CalculadoraRisco calculadora = new CalculadoraRisco();
+    private final ModeloCompilado modelo = calculadora.getModelo();
+
+    @Test
+    @DisplayName("Deve retornar os top-N iguais aos da ordenação completa, com empates na ordem de inclusão")
+    public void testTopN() {
+        List<ResultadoAvaliacao> resultados = criarResultados(3000, new Random(5));
+        PortfolioColunar portfolio = new PortfolioColunar(modelo, 16);
+        portfolio.adicionarTodos(resultados);
+
+        assertArrayEquals(esperados(resultados, r -> true, ResultadoAvaliacao::getPontuacaoTotal, 25),
+                          portfolio.maioresRiscos(25, null));
+        assertArrayEquals(esperados(resultados, ResultadoAvaliacao::isCondicionado, ResultadoAvaliacao::getPontuacaoTotal, 10),
+                          portfolio.maioresRiscos(10, StatusAvaliacao.CONDICIONADO));
+        for (int d = 0; d < modelo.getNumDimensoes(); d++) {
+            String dimensao = modelo.getNomeDimensao(d);
+            assertArrayEquals(esperados(resultados, r -> !Double.isNaN(r.getPontuacaoDimensao(dimensao)),
+                                        r -> r.getPontuacaoDimensao(dimensao), 40),
+                              portfolio.pioresPontuacoes(d, 40), dimensao);
+        }
+
+        assertEquals(0, portfolio.maioresRiscos(0, null).length);
+        assertEquals(resultados.size(), portfolio.maioresRiscos(Integer.MAX_VALUE, null).length);
+        assertThrows(IllegalArgumentException.class, () -> portfolio.maioresRiscos(-1, null));
+    }
+
+    @Test
+    @DisplayName("Deve agregar vetos, distribuição e grupos por status e classificação")
+    public void testAgregacoes() {
+        List<ResultadoAvaliacao> resultados = criarResultados(2000, new Random(8));
+        PortfolioColunar portfolio = new PortfolioColunar(modelo);
+        portfolio.adicionarTodos(resultados);
+
+        int[] vetos = portfolio.contarVetos();
+        for (int i = 0; i < vetos.length; i++) {
+            int bit = 1 << i;
+            assertEquals(resultados.stream().filter(r -> (r.getMascaraVetos() & bit) != 0).count(), vetos[i]);
+        }
+        assertTrue(vetos[2] > 0);
+
+        int[] distribuicao = portfolio.distribuirPontuacoes(1.0, 3.0, 8);
+        assertEquals(resultados.size(), IntStream.of(distribuicao).sum());
+        assertEquals(resultados.stream().filter(r -> r.getPontuacaoTotal() >= 1.25 && r.getPontuacaoTotal() < 1.5).count(),
+                     distribuicao[1]);
+        assertThrows(IllegalArgumentException.class, () -> portfolio.distribuirPontuacoes(2, 2, 4));
+
+        PortfolioColunar.Agrupamento porStatus = portfolio.agruparPorStatus();
+        int[][] cruzado = portfolio.contarPorStatusEClassificacao();
+        for (StatusAvaliacao status : StatusAvaliacao.values()) {
+            int s = status.ordinal();
+            List<ResultadoAvaliacao> grupo = new ArrayList<>();
+            resultados.stream().filter(r -> r.getStatusAvaliacao() == status).forEach(grupo::add);
+            assertEquals(grupo.size(), porStatus.getQuantidade(s));
+            assertEquals(grupo.size(), IntStream.of(cruzado[s]).sum());
+            assertEquals(grupo.stream().mapToDouble(ResultadoAvaliacao::getPontuacaoTotal).average().orElse(Double.NaN),
+                         porStatus.getMediaPontuacao(s), 1e-9);
+            assertEquals(grupo.stream().mapToDouble(ResultadoAvaliacao::getPontuacaoTotal).max().orElse(Double.NaN),
+                         porStatus.getMaximo(s));
+            for (int d = 0; d < modelo.getNumDimensoes(); d++) {
+                String dimensao = modelo.getNomeDimensao(d);
+                assertEquals(grupo.stream().mapToDouble(r -> r.getPontuacaoDimensao(dimensao)).filter(v -> !Double.isNaN(v))
+                                  .average().orElse(Double.NaN),
+                             porStatus.getMediaDimensao(s, d), 1e-9);
+            }
+        }
+
+        PortfolioColunar.Agrupamento porClassificacao = portfolio.agruparPorClassificacao();
+        for (ClassificacaoRisco classificacao : ClassificacaoRisco.values()) {
+            int c = classificacao.ordinal();
+            assertEquals(resultados.stream().filter(r -> r.getClassificacaoRisco() == classificacao).count(),
+                         porClassificacao.getQuantidade(c));
+            assertEquals(IntStream.range(0, cruzado.length).map(s -> cruzado[s][c]).sum(), porClassificacao.getQuantidade(c));
+        }
+        assertEquals(0, cruzado[StatusAvaliacao.APROVADO.ordinal()][ClassificacaoRisco.VERMELHO.ordinal()]);
+    }
+
+    @Test
+    @DisplayName("Deve codificar os nomes em dicionário e reconstruir os resultados")
+    public void testLinhas() {
+        List<ResultadoAvaliacao> resultados = criarResultados(500, new Random(13));
+        PortfolioColunar portfolio = new PortfolioColunar(modelo, 1);
+        for (int i = 0; i < resultados.size(); i++) {
+            assertEquals(i, portfolio.adicionar(resultados.get(i)));
+        }
+
+        assertEquals(500, portfolio.getQuantidade());
+        assertEquals(50, portfolio.getNumAplicacoes());
+        assertArrayEquals(new int[] {7, 57, 107, 157, 207, 257, 307, 357, 407, 457}, portfolio.linhasAplicacao("App 7"));
+        assertEquals(0, portfolio.linhasAplicacao("Desconhecida").length);
+
+        ResultadoAvaliacao original = resultados.get(123);
+        ResultadoAvaliacao reconstruido = portfolio.getResultado(123);
+        assertEquals(original.getNomeAplicacao(), reconstruido.getNomeAplicacao());
+        assertEquals(original.getVersao(), reconstruido.getVersao());
+        assertEquals(original.getPontuacaoTotal(), reconstruido.getPontuacaoTotal());
+        assertEquals(original.getStatusAvaliacao(), reconstruido.getStatusAvaliacao());
+        assertEquals(original.getVetos(), reconstruido.getVetos());
+        assertEquals(original.getPontuacoesDimensoes(), reconstruido.getPontuacoesDimensoes());
+
+        // Resultados do relatório em mapa, apenas com as dimensões informadas
+        ResultadoAvaliacao parcial = new ResultadoAvaliacao(calculadora.gerarRelatorio("Parcial", "2.0",
+            Map.of("bugs", Map.of("bugs_criticos", 1.0))));
+        int linha = portfolio.adicionar(parcial);
+        assertEquals(StatusAvaliacao.BLOQUEADO, portfolio.getStatus(linha));
+        assertEquals(CalculadoraRisco.VETO_BUGS_CRITICOS, portfolio.getMascaraVetos(linha));
+        assertTrue(Double.isNaN(portfolio.getPontuacaoDimensao(modelo.indiceDimensao("performance"), linha)));
+        assertEquals(parcial.getPontuacaoDimensao("bugs"), portfolio.getPontuacaoDimensao(modelo.indiceDimensao("bugs"), linha));
+        assertThrows(IllegalArgumentException.class, () -> portfolio.getNomeAplicacao(501));
+    }
+
+    // Método auxiliar com as linhas esperadas de um top-N pela ordenação completa
+    private static int[] esperados(List<ResultadoAvaliacao> resultados, Predicate<ResultadoAvaliacao> filtro,
+                                   ToDoubleFunction<ResultadoAvaliacao> chave, int n) {
+        return IntStream.range(0, resultados.size())
+            .filter(i -> filtro.test(resultados.get(i)))
+            .boxed()
+            .sorted(Comparator.<Integer>comparingDouble(i -> -chave.applyAsDouble(resultados.get(i)))
+                              .thenComparingInt(i -> i))
+            .limit(n)
+            .mapToInt(Integer::intValue)
+            .toArray();
+    }
+
+    // Método auxiliar para criar resultados com valores inteiros (muitos empates) e dimensões ausentes
+    private List<ResultadoAvaliacao> criarResultados(int quantidade, Random random) {
+        List<ResultadoAvaliacao> resultados = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            double[] valores = modelo.novoVetorValores();
+            for (int d = 0; d < modelo.getNumDimensoes(); d++) {
+                if (random.nextInt(5) == 0) {
+                    continue;
+                }
+                for (int c = modelo.inicioDimensao(d); c < modelo.fimDimensao(d); c++) {
+                    if (random.nextInt(6) != 0) {
+                        double escala = Math.max(modelo.getLimiarBaixo(c), modelo.getLimiarMedio(c)) * 2 + 2;
+                        valores[c] = Math.floor(random.nextDouble() * escala);
+                    }
+                }
+            }
+            resultados.add(calculadora.avaliar("App " + (i % 50), "1." + (i % 3), valores));
+        }
+        return resultados;
+    }
+}
@@ -0,0 +1,102 @@
+package br.com.itau.governanca.risco;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Testes unitários para as RegrasVeto
+ */
+public class RegrasVetoTest {
+
+    private final ModeloCompilado modelo = ModeloCompilado.padrao();
+    private final RegrasVeto regras = new RegrasVeto(modelo);
+
+    @Test
+    @DisplayName("Deve produzir a mesma máscara pelos dados aninhados, pelo vetor, por critério e por lote")
+    public void testCaminhosEquivalentes() {
+        Random random = new Random(23);
+        int quantidade = 500;
+        double[][] colunas = modelo.novasColunas(quantidade);
+        int[] esperados = new int[quantidade];
+
+        for (int i = 0; i < quantidade; i++) {
+            double[] valores = modelo.novoVetorValores();
+            Map<String, Map<String, Double>> dados = new HashMap<>();
+            for (int c = 0; c < modelo.getNumCriterios(); c++) {
+                if (random.nextInt(3) == 0) {
+                    continue;
+                }
+                // Valores em torno dos limites dos vetos (0, 1 e 3000)
+                double valor = random.nextBoolean() ? random.nextInt(3) : 2990 + random.nextInt(20);
+                valores[c] = valor;
+                colunas[c][i] = valor;
+                dados.computeIfAbsent(modelo.getNomeDimensao(modelo.getDimensaoCriterio(c)), d -> new HashMap<>())
+                     .put(modelo.getNomeCriterio(c), valor);
+            }
+
+            int mascara = regras.verificar(valores);
+            assertEquals(regras.verificar(dados), mascara);
+            assertEquals(mascara != 0, regras.algumVeto(valores));
+            int porCriterio = 0;
+            for (int c = 0; c < modelo.getNumCriterios(); c++) {
+                int bits = regras.verificar(c, valores[c]);
+                assertEquals(bits, bits & regras.bitsCriterio(c));
+                porCriterio |= bits;
+            }
+            assertEquals(mascara, porCriterio);
+            esperados[i] = mascara;
+        }
+
+        int[] vetos = new int[quantidade];
+        regras.marcarLote(colunas, quantidade, vetos);
+        assertArrayEquals(esperados, vetos);
+    }
+
+    @Test
+    @DisplayName("Deve descrever as máscaras na ordem das regras e ignorar valores ausentes")
+    public void testMensagens() {
+        List<String> todas = RegrasVeto.descrever(-1);
+        assertEquals(5, todas.size());
+        assertEquals("Falha em validação de conformidade regulatória", todas.get(4));
+        assertEquals(4, RegrasVeto.indiceMensagem(todas.get(4)));
+        assertEquals(-1, RegrasVeto.indiceMensagem("Outro veto"));
+        assertEquals(List.of(todas.get(1), todas.get(3)),
+                     RegrasVeto.descrever(CalculadoraRisco.VETO_PERCENTIL_95 | CalculadoraRisco.VETO_TAXA_ERRO));
+
+        assertEquals(0, regras.verificar(modelo.novoVetorValores()));
+        int p95 = modelo.indiceCriterio("performance", "percentil_95");
+        assertEquals(0, regras.verificar(p95, Double.NaN));
+        assertEquals(CalculadoraRisco.VETO_PERCENTIL_95, regras.verificar(p95, 3000.5));
+        assertEquals(0, regras.bitsCriterio(modelo.indiceCriterio("bugs", "mtbf")));
+    }
+
+    @Test
+    @DisplayName("Deve ignorar as regras de critérios ausentes do modelo")
+    public void testModeloSemCriterios() throws IOException {
+        ModeloCompilado reduzido = ConfiguracaoModelo.carregar(new StringReader(
+            "versao=1\n"
+            + "dimensoes=bugs\n"
+            + "dimensao.bugs.peso=1\n"
+            + "dimensao.bugs.criterios=bugs_criticos\n"
+            + "criterio.bugs.bugs_criticos=1, 0, 2\n"), "teste");
+        RegrasVeto regrasReduzidas = new RegrasVeto(reduzido);
+
+        double[] valores = {5};
+        assertEquals(CalculadoraRisco.VETO_BUGS_CRITICOS, regrasReduzidas.verificar(valores));
+        assertEquals(CalculadoraRisco.VETO_BUGS_CRITICOS, regrasReduzidas.bitsCriterio(0));
+
+        // Os dados aninhados passam pelos mesmos predicados: critérios fora do modelo não vetam
+        Map<String, Map<String, Double>> dados = new HashMap<>();
+        dados.put("bugs", Map.of("bugs_criticos", 5.0));
+        dados.put("seguranca", Map.of("vulnerabilidades_criticas", 2.0));
+        assertEquals(CalculadoraRisco.VETO_BUGS_CRITICOS, regrasReduzidas.verificar(dados));
+    }
+}
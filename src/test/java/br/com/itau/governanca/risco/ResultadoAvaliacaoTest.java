@@ -108,6 +108,110 @@ public class ResultadoAvaliacaoTest {
         assertEquals(1.3, pontuacoes.get("experiencia"));
     }
     
+    @Test
+    @DisplayName("Deve produzir pela avaliação tipada o mesmo resultado do relatório")
+    public void testAvaliarEquivalenteAoRelatorio() {
+        CalculadoraRisco calculadora = new CalculadoraRisco();
+        Map<String, Map<String, Double>> dados = criarDadosTeste();
+        
+        ResultadoAvaliacao esperado = new ResultadoAvaliacao(calculadora.gerarRelatorio("App", "2.0", dados));
+        ResultadoAvaliacao resultado = calculadora.avaliar("App", "2.0", dados);
+        
+        assertEquals(esperado.getNomeAplicacao(), resultado.getNomeAplicacao());
+        assertEquals(esperado.getVersao(), resultado.getVersao());
+        assertEquals(esperado.getPontuacaoTotal(), resultado.getPontuacaoTotal(), 0.0);
+        assertEquals(esperado.getClassificacao(), resultado.getClassificacao());
+        assertEquals(esperado.getStatus(), resultado.getStatus());
+        assertEquals(esperado.getVetos(), resultado.getVetos());
+        assertEquals(esperado.getMascaraVetos(), resultado.getMascaraVetos());
+        assertEquals(esperado.getPontuacoesDimensoes(), resultado.getPontuacoesDimensoes());
+        
+        assertEquals(StatusAvaliacao.BLOQUEADO, resultado.getStatusAvaliacao());
+        assertEquals(CalculadoraRisco.VETO_VULNERABILIDADE_CRITICA | CalculadoraRisco.VETO_PERCENTIL_95,
+                     resultado.getMascaraVetos());
+        assertTrue(resultado.isBloqueado());
+    }
+    
+    @Test
+    @DisplayName("Deve omitir dimensões sem critérios na avaliação por vetor de valores")
+    public void testAvaliarPorVetorOmiteDimensoesAusentes() {
+        CalculadoraRisco calculadora = new CalculadoraRisco();
+        ModeloCompilado modelo = calculadora.getModelo();
+        Map<String, Map<String, Double>> dados = new HashMap<>();
+        Map<String, Double> performance = new HashMap<>();
+        performance.put("percentil_95", 800.0);
+        performance.put("taxa_erro", 0.5);
+        dados.put("performance", performance);
+        
+        ResultadoAvaliacao esperado = calculadora.avaliar("App", "1.0", dados);
+        ResultadoAvaliacao resultado = calculadora.avaliar("App", "1.0",
+            modelo.preencherValores(dados, modelo.novoVetorValores()));
+        
+        assertEquals(esperado.getPontuacaoTotal(), resultado.getPontuacaoTotal(), 0.0);
+        assertEquals(esperado.getPontuacoesDimensoes(), resultado.getPontuacoesDimensoes());
+        assertEquals(1, resultado.getPontuacoesDimensoes().size());
+        assertTrue(Double.isNaN(resultado.getPontuacaoDimensao("bugs")));
+        assertEquals(ClassificacaoRisco.VERDE, resultado.getClassificacaoRisco());
+        assertEquals(0, resultado.getMascaraVetos());
+        assertTrue(resultado.isAprovado());
+    }
+    
+    @Test
+    @DisplayName("Deve expor classificação, status e vetos do relatório como tipos")
+    public void testTiposAPartirDoRelatorio() {
+        Map<String, Object> relatorio = criarRelatorioTeste("VERDE (Baixo Risco)", 1.2, "BLOQUEADO", true);
+        ResultadoAvaliacao resultado = new ResultadoAvaliacao(relatorio);
+        
+        assertEquals(ClassificacaoRisco.VERDE, resultado.getClassificacaoRisco());
+        assertEquals(StatusAvaliacao.BLOQUEADO, resultado.getStatusAvaliacao());
+        assertEquals(CalculadoraRisco.VETO_VULNERABILIDADE_CRITICA, resultado.getMascaraVetos());
+        assertEquals(1.1, resultado.getPontuacaoDimensao("seguranca"), 0.0);
+        
+        Map<String, Object> invalido = criarRelatorioTeste("CINZA (Sem Risco)", 1.2, "APROVADO", false);
+        assertThrows(IllegalArgumentException.class, () -> new ResultadoAvaliacao(invalido));
+        Map<String, Object> vetoDesconhecido = criarRelatorioTeste("VERDE (Baixo Risco)", 1.2, "APROVADO", false);
+        vetoDesconhecido.put("vetos", List.of("Outro veto"));
+        assertThrows(IllegalArgumentException.class, () -> new ResultadoAvaliacao(vetoDesconhecido));
+        Map<String, Object> semVetos = criarRelatorioTeste("VERDE (Baixo Risco)", 1.2, "APROVADO", false);
+        semVetos.remove("vetos");
+        assertThrows(IllegalArgumentException.class, () -> new ResultadoAvaliacao(semVetos));
+        Map<String, Object> semStatus = criarRelatorioTeste("VERDE (Baixo Risco)", 1.2, "APROVADO", false);
+        semStatus.remove("status");
+        assertThrows(IllegalArgumentException.class, () -> new ResultadoAvaliacao(semStatus));
+    }
+    
+    @Test
+    @DisplayName("Deve copiar a lista de vetos do relatório")
+    public void testVetosCopiadosDoRelatorio() {
+        Map<String, Object> relatorio = criarRelatorioTeste("VERDE (Baixo Risco)", 1.2, "BLOQUEADO", true);
+        ResultadoAvaliacao resultado = new ResultadoAvaliacao(relatorio);
+        
+        @SuppressWarnings("unchecked")
+        List<String> vetosRelatorio = (List<String>) relatorio.get("vetos");
+        List<String> vetos = List.copyOf(vetosRelatorio);
+        vetosRelatorio.clear();
+        
+        assertEquals(vetos, resultado.getVetos());
+        assertEquals(CalculadoraRisco.VETO_VULNERABILIDADE_CRITICA, resultado.getMascaraVetos());
+        assertThrows(UnsupportedOperationException.class, () -> resultado.getVetos().add("Outro veto"));
+    }
+    
+    // Método auxiliar para criar dados de uma aplicação com vetos de segurança e performance
+    private Map<String, Map<String, Double>> criarDadosTeste() {
+        Map<String, Map<String, Double>> dados = new HashMap<>();
+        Map<String, Double> bugs = new HashMap<>();
+        bugs.put("densidade_defeitos", 0.5);
+        bugs.put("cobertura_testes", 85.0);
+        dados.put("bugs", bugs);
+        Map<String, Double> performance = new HashMap<>();
+        performance.put("percentil_95", 3500.0);
+        dados.put("performance", performance);
+        Map<String, Double> seguranca = new HashMap<>();
+        seguranca.put("vulnerabilidades_criticas", 1.0);
+        dados.put("seguranca", seguranca);
+        return dados;
+    }
+    
     // Método auxiliar para criar um relatório de teste
     private Map<String, Object> criarRelatorioTeste(String classificacao, double pontuacao, String status, boolean comVetos) {
         Map<String, Object> relatorio = new HashMap<>();
@@ -0,0 +1,124 @@
+package br.com.itau.governanca.risco;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Testes unitários para a avaliação em lote (CalculadoraRisco.avaliarLote e ResultadoLote)
+ */
+public class ResultadoLoteTest {
+
+    private CalculadoraRisco calculadora;
+    private ModeloCompilado modelo;
+
+    @BeforeEach
+    public void setUp() {
+        calculadora = new CalculadoraRisco();
+        modelo = calculadora.getModelo();
+    }
+
+    @Test
+    @DisplayName("Deve produzir no lote os mesmos resultados da avaliação por aplicação")
+    public void testLoteEquivalenteAvaliacaoIndividual() {
+        Random random = new Random(11);
+        int quantidade = 500;
+        double[][] colunas = modelo.novasColunas(quantidade);
+        List<Map<String, Map<String, Double>>> aplicacoes = new ArrayList<>(quantidade);
+
+        double[] valores = modelo.novoVetorValores();
+        for (int i = 0; i < quantidade; i++) {
+            aplicacoes.add(criarDadosAleatorios(random));
+            modelo.preencherValores(aplicacoes.get(i), valores);
+            for (int c = 0; c < valores.length; c++) {
+                colunas[c][i] = valores[c];
+            }
+        }
+
+        ResultadoLote lote = calculadora.avaliarLote(colunas, quantidade);
+        assertEquals(quantidade, lote.getQuantidade());
+
+        double[] pontuacoes = new double[modelo.getNumDimensoes()];
+        for (int i = 0; i < quantidade; i++) {
+            modelo.preencherValores(aplicacoes.get(i), valores);
+            double total = calculadora.calcularPontuacaoTotal(valores, pontuacoes);
+            assertEquals(total, lote.getPontuacoesTotais()[i], 0.0);
+            for (int d = 0; d < pontuacoes.length; d++) {
+                assertEquals(pontuacoes[d], lote.getPontuacoesDimensoes()[d][i], 0.0);
+            }
+
+            Map<String, Object> relatorio = calculadora.gerarRelatorio("App " + i, "1.0", aplicacoes.get(i));
+            @SuppressWarnings("unchecked")
+            Map<String, Object> resultado = (Map<String, Object>) relatorio.get("resultado");
+            assertEquals(resultado.get("classificacao"), lote.getClassificacao(i).getRotulo());
+            assertEquals(relatorio.get("vetos"), CalculadoraRisco.descreverVetos(lote.getVetos()[i]));
+            assertEquals(relatorio.get("status"), lote.getStatus(i));
+        }
+    }
+
+    @Test
+    @DisplayName("Deve tratar colunas nulas como critérios ausentes e reutilizar o resultado")
+    public void testColunasNulasEReuso() {
+        double[][] colunas = new double[modelo.getNumCriterios()][];
+        colunas[modelo.indiceCriterio("bugs", "bugs_criticos")] = new double[] {0.0, 3.0};
+        colunas[modelo.indiceCriterio("performance", "percentil_95")] = new double[] {3500.0, 100.0};
+
+        ResultadoLote lote = new ResultadoLote(modelo.getNumDimensoes(), 2);
+        calculadora.avaliarLote(colunas, 2, lote);
+
+        assertEquals(CalculadoraRisco.VETO_PERCENTIL_95, lote.getVetos()[0]);
+        assertEquals(CalculadoraRisco.VETO_BUGS_CRITICOS, lote.getVetos()[1]);
+        assertEquals("BLOQUEADO", lote.getStatus(0));
+        assertEquals(0.0, lote.getPontuacoesDimensoes()[modelo.indiceDimensao("seguranca")][0], 0.0);
+
+        // Reavalia um lote menor no mesmo resultado
+        colunas[modelo.indiceCriterio("performance", "percentil_95")] = new double[] {100.0};
+        colunas[modelo.indiceCriterio("bugs", "bugs_criticos")] = new double[] {0.0};
+        calculadora.avaliarLote(colunas, 1, lote);
+        assertEquals(1, lote.getQuantidade());
+        assertEquals(0, lote.getVetos()[0]);
+        assertEquals("APROVADO", lote.getStatus(0));
+    }
+
+    @Test
+    @DisplayName("Deve descrever máscaras de vetos na ordem do modelo")
+    public void testDescreverVetos() {
+        List<String> vetos = CalculadoraRisco.descreverVetos(
+            CalculadoraRisco.VETO_TAXA_ERRO | CalculadoraRisco.VETO_VULNERABILIDADE_CRITICA);
+        assertEquals(2, vetos.size());
+        assertEquals("Vulnerabilidade crítica de segurança não mitigada", vetos.get(0));
+        assertEquals("Taxa de erro em produção >1% para operações críticas", vetos.get(1));
+        assertTrue(CalculadoraRisco.descreverVetos(0).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar lotes com número incorreto de colunas")
+    public void testColunasInvalidas() {
+        assertThrows(IllegalArgumentException.class,
+                     () -> calculadora.avaliarLote(new double[3][10], 10));
+        assertThrows(IllegalArgumentException.class,
+                     () -> calculadora.avaliarLote(modelo.novasColunas(5), 10));
+    }
+
+    private Map<String, Map<String, Double>> criarDadosAleatorios(Random random) {
+        Map<String, Map<String, Double>> dados = new HashMap<>();
+        for (int d = 0; d < modelo.getNumDimensoes(); d++) {
+            Map<String, Double> criterios = new HashMap<>();
+            for (int c = modelo.inicioDimensao(d); c < modelo.fimDimensao(d); c++) {
+                if (random.nextInt(6) != 0) {
+                    double escala = Math.max(modelo.getLimiarBaixo(c), modelo.getLimiarMedio(c)) * 2 + 2;
+                    criterios.put(modelo.getNomeCriterio(c), Math.floor(random.nextDouble() * escala));
+                }
+            }
+            dados.put(modelo.getNomeDimensao(d), criterios);
+        }
+        return dados;
+    }
+}
@@ -0,0 +1,232 @@
+package br.com.itau.governanca.risco;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Testes unitários para o ServidorGate
+ */
+public class ServidorGateTest {
+
+    private CalculadoraRisco calculadora;
+    private ServidorGate servidor;
+    private byte[] relatorioQube;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        calculadora = new CalculadoraRisco();
+        relatorioQube = Files.readAllBytes(Paths.get("documentacao", "relatorios", "relatorio_qube.json"));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (servidor != null) {
+            servidor.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Deve avaliar requisições JSON e responder o relatório da calculadora")
+    public void testAvaliarPorHttp() throws Exception {
+        iniciar(4);
+        HttpClient cliente = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+        HttpResponse<byte[]> resposta = cliente.send(
+            HttpRequest.newBuilder(uri("/avaliacoes")).POST(HttpRequest.BodyPublishers.ofByteArray(relatorioQube)).build(),
+            HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(200, resposta.statusCode());
+        assertTrue(resposta.headers().firstValue("Content-Type").orElse("").startsWith("application/json"));
+
+        ModeloCompilado modelo = calculadora.getModelo();
+        double[] valores = modelo.novoVetorValores();
+        ResultadoAvaliacao lido = new LeitorJsonRelatorio(modelo).ler(resposta.body(), 0, resposta.body().length, valores);
+        // Mesmo relatório de gerarRelatorio com os dados na ordem do modelo
+        Map<String, Map<String, Double>> dados = new LinkedHashMap<>();
+        for (int c = 0; c < modelo.getNumCriterios(); c++) {
+            dados.computeIfAbsent(modelo.getNomeDimensao(modelo.getDimensaoCriterio(c)), d -> new LinkedHashMap<>())
+                 .put(modelo.getNomeCriterio(c), valores[c]);
+        }
+        ResultadoAvaliacao esperado = new ResultadoAvaliacao(calculadora.gerarRelatorio("Qube AICUBE", "1.0", dados));
+        assertEquals("Qube AICUBE", lido.getNomeAplicacao());
+        assertEquals(esperado.getPontuacaoTotal(), lido.getPontuacaoTotal(), 0.0);
+        assertEquals(esperado.getPontuacoesDimensoes(), lido.getPontuacoesDimensoes());
+        assertEquals(esperado.getMascaraVetos(), lido.getMascaraVetos());
+        assertEquals(StatusAvaliacao.BLOQUEADO, lido.getStatusAvaliacao());
+        assertEquals(CalculadoraRisco.VETO_TAXA_ERRO, lido.getMascaraVetos());
+
+        HttpResponse<String> saude = cliente.send(HttpRequest.newBuilder(uri("/saude")).build(),
+                                                  HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, saude.statusCode());
+        assertTrue(saude.body().contains("\"versao_modelo\":\"padrao\""));
+
+        HttpResponse<String> metodo = cliente.send(HttpRequest.newBuilder(uri("/avaliacoes")).build(),
+                                                   HttpResponse.BodyHandlers.ofString());
+        assertEquals(405, metodo.statusCode());
+
+        HttpResponse<String> invalida = cliente.send(
+            HttpRequest.newBuilder(uri("/avaliacoes")).POST(HttpRequest.BodyPublishers.ofString("{\"versao\": 1.0")).build(),
+            HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, invalida.statusCode());
+        assertTrue(invalida.body().startsWith("{\"erro\":\"JSON inválido"));
+
+        assertEquals(1, servidor.getAtendidas());
+        assertEquals(2, servidor.getInvalidas());
+    }
+
+    @Test
+    @DisplayName("Deve recusar com 400 dados fora do modelo e responder 500 sem detalhes internos")
+    public void testRequisicoesRecusadas() throws Exception {
+        iniciar(4);
+        HttpClient cliente = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        String[] invalidas = {
+            "{\"dados_detalhados\":{\"performance\":{\"percentil_95\":500},\"usabilidade\":{\"nota\":1}}}",
+            "{\"dados_detalhados\":{\"performance\":{\"percentil_96\":500}}}",
+            "{\"dados_detalhados\":{\"performance\":{}}}",
+            "{\"dados_detalhados\":{\"performance\":{\"percentil_95\":null}}}"
+        };
+        for (String corpo : invalidas) {
+            HttpResponse<String> resposta = cliente.send(
+                HttpRequest.newBuilder(uri("/avaliacoes")).POST(HttpRequest.BodyPublishers.ofString(corpo)).build(),
+                HttpResponse.BodyHandlers.ofString());
+            assertEquals(400, resposta.statusCode(), corpo);
+        }
+        assertEquals(invalidas.length, servidor.getInvalidas());
+        servidor.close();
+
+        calculadora = new CalculadoraRisco() {
+            @Override
+            public double calcularPontuacaoTotal(double[] valores, double[] pontuacoesDimensoes) {
+                throw new IllegalStateException("Detalhe interno da calculadora");
+            }
+        };
+        iniciar(4);
+        HttpResponse<String> falha = cliente.send(
+            HttpRequest.newBuilder(uri("/avaliacoes")).POST(HttpRequest.BodyPublishers.ofByteArray(relatorioQube)).build(),
+            HttpResponse.BodyHandlers.ofString());
+        assertEquals(500, falha.statusCode());
+        assertEquals("{\"erro\":\"Erro interno do servidor\"}", falha.body());
+    }
+
+    @Test
+    @DisplayName("Deve responder em ordem requisições enviadas em sequência na mesma conexão")
+    public void testPipelining() throws Exception {
+        iniciar(4);
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), servidor.getPorta())) {
+            socket.setSoTimeout(10_000);
+            String requisicao = "{\"nome_aplicacao\":\"%s\",\"dados_detalhados\":{\"performance\":{\"percentil_95\":%s}}}";
+            ByteArrayOutputStream envio = new ByteArrayOutputStream();
+            envio.write(cabecalho(String.format(requisicao, "A", "500").length()));
+            envio.write(String.format(requisicao, "A", "500").getBytes(StandardCharsets.UTF_8));
+            envio.write(cabecalho(String.format(requisicao, "B", "3500").length()));
+            envio.write(String.format(requisicao, "B", "3500").getBytes(StandardCharsets.UTF_8));
+            socket.getOutputStream().write(envio.toByteArray());
+            socket.getOutputStream().flush();
+
+            InputStream entrada = socket.getInputStream();
+            String primeira = lerResposta(entrada);
+            String segunda = lerResposta(entrada);
+            assertTrue(primeira.contains("\"nome_aplicacao\":\"A\"") && primeira.contains("\"APROVADO\""), primeira);
+            assertTrue(segunda.contains("\"nome_aplicacao\":\"B\"") && segunda.contains("\"BLOQUEADO\""), segunda);
+        }
+        assertEquals(2, servidor.getAtendidas());
+    }
+
+    @Test
+    @DisplayName("Deve recusar com 503 as requisições acima da capacidade")
+    public void testContrapressao() throws Exception {
+        iniciar(1);
+        try (Socket lenta = new Socket(InetAddress.getLoopbackAddress(), servidor.getPorta())) {
+            lenta.setSoTimeout(10_000);
+            // Envia o cabeçalho e só parte do corpo: a requisição ocupa o único contexto
+            OutputStream saida = lenta.getOutputStream();
+            saida.write(cabecalho(relatorioQube.length));
+            saida.write(relatorioQube, 0, 10);
+            saida.flush();
+
+            HttpClient cliente = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            HttpResponse<String> recusada = null;
+            long limite = System.nanoTime() + 10_000_000_000L;
+            while (System.nanoTime() < limite) {
+                recusada = cliente.send(HttpRequest.newBuilder(uri("/saude")).build(),
+                                        HttpResponse.BodyHandlers.ofString());
+                if (recusada.statusCode() == 503) {
+                    break;
+                }
+                Thread.sleep(10);
+            }
+            assertEquals(503, recusada.statusCode());
+            assertEquals("1", recusada.headers().firstValue("Retry-After").orElse(null));
+            assertTrue(servidor.getRejeitadas() >= 1);
+
+            saida.write(relatorioQube, 10, relatorioQube.length - 10);
+            saida.flush();
+            assertTrue(lerResposta(lenta.getInputStream()).startsWith("HTTP/1.1 200"));
+        }
+    }
+
+    private void iniciar(int capacidade) throws IOException {
+        servidor = new ServidorGate(calculadora, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), capacidade);
+        servidor.iniciar();
+    }
+
+    private URI uri(String caminho) {
+        return URI.create("http://127.0.0.1:" + servidor.getPorta() + caminho);
+    }
+
+    private static byte[] cabecalho(int tamanho) {
+        return ("POST /avaliacoes HTTP/1.1\r\nHost: localhost\r\nContent-Type: application/json\r\n"
+            + "Content-Length: " + tamanho + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+    }
+
+    // Lê uma resposta HTTP/1.1 com Content-Length, deixando a próxima no fluxo
+    private static String lerResposta(InputStream entrada) throws IOException {
+        ByteArrayOutputStream cabecalhos = new ByteArrayOutputStream();
+        int anterior3 = 0, anterior2 = 0, anterior1 = 0, atual;
+        while ((atual = entrada.read()) >= 0) {
+            cabecalhos.write(atual);
+            if (anterior3 == '\r' && anterior2 == '\n' && anterior1 == '\r' && atual == '\n') {
+                break;
+            }
+            anterior3 = anterior2;
+            anterior2 = anterior1;
+            anterior1 = atual;
+        }
+        String texto = cabecalhos.toString(StandardCharsets.US_ASCII.name());
+        int tamanho = 0;
+        for (String linha : texto.split("\r\n")) {
+            if (linha.toLowerCase().startsWith("content-length:")) {
+                tamanho = Integer.parseInt(linha.substring(15).trim());
+            }
+        }
+        byte[] corpo = new byte[tamanho];
+        int lidos = 0;
+        while (lidos < tamanho) {
+            int n = entrada.read(corpo, lidos, tamanho - lidos);
+            if (n < 0) {
+                throw new IOException("Resposta incompleta");
+            }
+            lidos += n;
+        }
+        return texto + new String(corpo, StandardCharsets.UTF_8);
+    }
+}